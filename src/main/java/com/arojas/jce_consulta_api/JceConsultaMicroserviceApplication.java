@@ -6,11 +6,12 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.retry.annotation.EnableRetry;
 
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
 import com.arojas.jce_consulta_api.config.JceConfigurationProperties;
 
 @SpringBootApplication
 @EnableRetry
-@EnableConfigurationProperties(JceConfigurationProperties.class)
+@EnableConfigurationProperties({ JceConfigurationProperties.class, DbLoggingProperties.class })
 @EnableFeignClients(basePackages = "com.arojas.jce_consulta_api.client")
 public class JceConsultaMicroserviceApplication {
 
@@ -25,4 +25,10 @@ public @interface LogExecution {
 	boolean logParameters() default false;
 
 	boolean logResult() default false;
+
+	/**
+	 * Umbral lento en ms a partir del cual la ejecución se persiste; negativo
+	 * usa app.logging.execution.*
+	 */
+	long slowThresholdMs() default -1;
 }
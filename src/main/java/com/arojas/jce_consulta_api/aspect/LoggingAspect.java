@@ -5,22 +5,37 @@
 
 package com.arojas.jce_consulta_api.aspect;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.service.DbLoggerService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  *
  * @author arojas
- *         * Aspecto para logging automático de métodos
+ *         * Aspecto para medir los métodos anotados con {@link LogExecution}
+ *         * Cada ejecución se registra en un Timer de Micrometer
+ *         (app.method.execution, con histograma de percentiles) etiquetado por
+ *         operación, clase, método y resultado; los meters se resuelven una
+ *         vez por método y quedan en caché
+ *         * En base de datos solo se persisten las ejecuciones que superan el
+ *         umbral lento de la operación o que lanzan excepción
  */
 
 @Aspect
@@ -29,50 +44,96 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LoggingAspect {
 
+	private static final String TIMER_NAME = "app.method.execution";
+
 	private final DbLoggerService dbLoggerService;
+	private final MeterRegistry meterRegistry;
+	private final DbLoggingProperties properties;
+
+	private final Map<Method, ExecutionMeters> metersByMethod = new ConcurrentHashMap<>();
+
+	/**
+	 * Datos resueltos de un método anotado
+	 */
+	private record ExecutionMeters(String source, String operation, long slowThresholdNanos, Timer success,
+			Timer failure) {
+	}
 
 	@Around("@annotation(logExecution)")
 	public Object logExecutionTime(ProceedingJoinPoint joinPoint, LogExecution logExecution) throws Throwable {
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
-
-		String methodName = joinPoint.getSignature().getName();
-		String className = joinPoint.getTarget().getClass().getSimpleName();
-		String source = className + "." + methodName;
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		ExecutionMeters meters = metersByMethod.get(method);
+		if (meters == null) {
+			meters = metersByMethod.computeIfAbsent(method, m -> createMeters(m, logExecution));
+		}
 
+		long startedAt = System.nanoTime();
+		Object result;
 		try {
-			Object result = joinPoint.proceed();
-			stopWatch.stop();
-
-			long executionTime = stopWatch.getTotalTimeMillis();
-
-			dbLoggerService.log()
-					.level(LogLevel.INFO)
-					.source(source)
-					.operation(logExecution.operation().isEmpty() ? methodName : logExecution.operation())
-					.message("Method executed successfully")
-					.executionTime(executionTime)
-					.context("parameters", getParameterInfo(joinPoint))
-					.context("returnType", result != null ? result.getClass().getSimpleName() : "void")
-					.save();
-
-			return result;
+			result = joinPoint.proceed();
+		} catch (Throwable e) {
+			long elapsed = System.nanoTime() - startedAt;
+			meters.failure().record(elapsed, TimeUnit.NANOSECONDS);
 
-		} catch (Exception e) {
-			stopWatch.stop();
-
-			dbLoggerService.log()
-					.level(LogLevel.ERROR)
-					.source(source)
-					.operation(logExecution.operation().isEmpty() ? methodName : logExecution.operation())
+			dbLoggerService.log(LogLevel.ERROR, meters.source())
+					.operation(meters.operation())
 					.message("Method execution failed")
-					.executionTime(stopWatch.getTotalTimeMillis())
+					.executionTime(TimeUnit.NANOSECONDS.toMillis(elapsed))
 					.exception(e)
-					.context("parameters", getParameterInfo(joinPoint))
+					.context("parameters", () -> getParameterInfo(joinPoint))
 					.save();
-
 			throw e;
 		}
+
+		long elapsed = System.nanoTime() - startedAt;
+		meters.success().record(elapsed, TimeUnit.NANOSECONDS);
+
+		if (elapsed >= meters.slowThresholdNanos()) {
+			DbLoggerService.LogBuilder builder = dbLoggerService.log(LogLevel.WARN, meters.source())
+					.operation(meters.operation())
+					.message("Slow method execution")
+					.executionTime(TimeUnit.NANOSECONDS.toMillis(elapsed))
+					.context("slowThresholdMs", TimeUnit.NANOSECONDS.toMillis(meters.slowThresholdNanos()));
+			if (logExecution.logParameters()) {
+				builder.context("parameters", () -> getParameterInfo(joinPoint));
+			}
+			if (logExecution.logResult()) {
+				builder.context("returnType", () -> result != null ? result.getClass().getSimpleName() : "void");
+			}
+			builder.save();
+		}
+
+		return result;
+	}
+
+	private ExecutionMeters createMeters(Method method, LogExecution logExecution) {
+		String className = method.getDeclaringClass().getSimpleName();
+		String operation = logExecution.operation().isEmpty() ? method.getName() : logExecution.operation();
+
+		DbLoggingProperties.Execution config = properties.getExecution();
+		long thresholdMs = logExecution.slowThresholdMs() >= 0
+				? logExecution.slowThresholdMs()
+				: config.getThresholds().getOrDefault(operation, config.getSlowThresholdMs());
+
+		return new ExecutionMeters(
+				className + "." + method.getName(),
+				operation,
+				TimeUnit.MILLISECONDS.toNanos(thresholdMs),
+				timer(operation, className, method.getName(), "success"),
+				timer(operation, className, method.getName(), "error"));
+	}
+
+	private Timer timer(String operation, String className, String methodName, String outcome) {
+		return Timer.builder(TIMER_NAME)
+				.description("Tiempo de ejecución de métodos @LogExecution")
+				.tag("operation", operation)
+				.tag("class", className)
+				.tag("method", methodName)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(meterRegistry);
 	}
 
 	private String getParameterInfo(ProceedingJoinPoint joinPoint) {
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.aspect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ *
+ * @author arojas
+ *         * Abre una observación (app.repository, un span por llamada) en
+ *         cada método de los repositorios Spring Data, con el repositorio y
+ *         el método como etiquetas
+ *         * Las sentencias JDBC que ejecute la llamada cuelgan de este span,
+ *         así que en la traza se ve qué método del repositorio las originó
+ *         * El nombre del repositorio se resuelve una vez por clase de proxy
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryObservationAspect {
+
+	private static final String OBSERVATION_NAME = "app.repository";
+	private static final String REPOSITORY_PACKAGE = "com.arojas.jce_consulta_api.repository";
+
+	private final ObservationRegistry observationRegistry;
+
+	private final Map<Class<?>, String> namesByTarget = new ConcurrentHashMap<>();
+
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+		String repository = repositoryName(joinPoint);
+		String method = joinPoint.getSignature().getName();
+
+		Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+				.contextualName(repository + "." + method)
+				.lowCardinalityKeyValue("repository", repository)
+				.lowCardinalityKeyValue("method", method)
+				.start();
+		try (Observation.Scope scope = observation.openScope()) {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			observation.error(e);
+			throw e;
+		} finally {
+			observation.stop();
+		}
+	}
+
+	/**
+	 * Interfaz propia del repositorio (UserRepository, no CrudRepository)
+	 */
+	private String repositoryName(ProceedingJoinPoint joinPoint) {
+		Object target = joinPoint.getTarget();
+		if (target == null) {
+			return joinPoint.getSignature().getDeclaringType().getSimpleName();
+		}
+		return namesByTarget.computeIfAbsent(target.getClass(), type -> {
+			for (Class<?> candidate : AopProxyUtils.proxiedUserInterfaces(target)) {
+				if (candidate.getName().startsWith(REPOSITORY_PACKAGE)) {
+					return candidate.getSimpleName();
+				}
+			}
+			return joinPoint.getSignature().getDeclaringType().getSimpleName();
+		});
+	}
+}
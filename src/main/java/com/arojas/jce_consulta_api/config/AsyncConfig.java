@@ -12,11 +12,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  *
  * @author arojas
  *         * Configuración para operaciones asíncronas
  *         * Define un executor para manejar tareas asíncronas
+ *         * Todos los executors propagan el MDC y el span actual
+ *         ({@link MdcTaskDecorator})
  */
 
 @Configuration
@@ -24,23 +28,25 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 public class AsyncConfig {
 
 	@Bean(name = "queryExecutor")
-	public Executor queryExecutor() {
+	public Executor queryExecutor(ObservationRegistry observationRegistry) {
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(5);
 		executor.setMaxPoolSize(10);
 		executor.setQueueCapacity(100);
 		executor.setThreadNamePrefix("Query-");
+		executor.setTaskDecorator(new MdcTaskDecorator("queryExecutor", observationRegistry));
 		executor.initialize();
 		return executor;
 	}
 
 	@Bean(name = "emailExecutor")
-	public Executor emailExecutor() {
+	public Executor emailExecutor(ObservationRegistry observationRegistry) {
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(2);
 		executor.setMaxPoolSize(5);
 		executor.setQueueCapacity(50);
 		executor.setThreadNamePrefix("Email-");
+		executor.setTaskDecorator(new MdcTaskDecorator("emailExecutor", observationRegistry));
 		executor.initialize();
 		return executor;
 	}
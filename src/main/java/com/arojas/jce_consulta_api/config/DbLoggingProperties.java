@@ -0,0 +1,223 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ *
+ * @author arojas
+ *         * Propiedades del pipeline de logging en base de datos
+ *         (app.logging.*)
+ */
+
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.logging")
+public class DbLoggingProperties {
+
+	@Valid
+	private Writer writer = new Writer();
+
+	@Valid
+	private Sampling sampling = new Sampling();
+
+	@Valid
+	private Execution execution = new Execution();
+
+	@Valid
+	private Spill spill = new Spill();
+
+	/**
+	 * Nivel mínimo por fuente; tiene prioridad sobre app.logging.level
+	 */
+	private Map<String, LogLevel> sourceLevels = new LinkedHashMap<>();
+
+	/**
+	 * Claves del contexto JSON expuestas como columnas generadas e indexadas
+	 * de application_logs, por nombre de columna. Se combinan con las de
+	 * HTTP_REQUEST que usan las consultas de latencia por endpoint y con la
+	 * tasa de muestreo que pondera los conteos.
+	 */
+	@Valid
+	private Map<String, HotColumn> hotColumns = new LinkedHashMap<>(Map.of(
+			"status_code", new HotColumn("statusCode", HotColumnType.INTEGER, 0, true),
+			"route", new HotColumn("route", HotColumnType.STRING, 255, true),
+			"http_method", new HotColumn("httpMethod", HotColumnType.STRING, 10, false),
+			"sample_rate", new HotColumn("sampleRate", HotColumnType.DECIMAL, 0, false)));
+
+	@Data
+	public static class Writer {
+		/** Capacidad del ring buffer; se redondea a potencia de dos */
+		@Positive(message = "La capacidad del buffer debe ser positiva")
+		private int bufferSize = 8192;
+
+		@Positive(message = "El tamaño de lote debe ser positivo")
+		private int batchSize = 500;
+
+		@Positive(message = "El intervalo de flush debe ser positivo")
+		private long flushIntervalMs = 500;
+
+		@NotNull
+		private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_LOWEST_LEVEL;
+
+		/** Nivel a partir del cual DROP_LOWEST_LEVEL y BLOCK nunca descartan (se desvía) */
+		@NotNull
+		private LogLevel protectedLevel = LogLevel.ERROR;
+
+		/** Espera máxima del productor con la política BLOCK */
+		@Positive(message = "El timeout de bloqueo debe ser positivo")
+		private long blockTimeoutMs = 5;
+	}
+
+	@Data
+	public static class Sampling {
+		private boolean enabled = true;
+
+		/** Eventos con este nivel o superior nunca se muestrean */
+		@NotNull
+		private LogLevel alwaysKeepLevel = LogLevel.ERROR;
+
+		/** Eventos con tiempo de ejecución igual o mayor nunca se muestrean */
+		@PositiveOrZero
+		private long slowThresholdMs = 1000;
+
+		/** Tasa aplicada cuando ninguna regla coincide */
+		@DecimalMin("0.0")
+		@DecimalMax("1.0")
+		private double defaultRate = 1.0;
+
+		/** Reglas evaluadas en orden; gana la primera que coincide */
+		@NotNull(message = "rules es obligatorio; use [] para no tener reglas")
+		@Valid
+		private List<@NotNull Rule> rules = new ArrayList<>();
+	}
+
+	@Data
+	public static class Spill {
+		/** Directorio de los segmentos mapeados en memoria */
+		@NotBlank
+		private String directory = "./data/log-spill";
+
+		@Positive
+		private int segmentSizeMb = 64;
+
+		/** Límite de disco; al superarlo se recurre al log de aplicación */
+		@Positive
+		private long maxTotalMb = 2048;
+
+		/** Un lote más lento que esto cuenta contra el presupuesto */
+		@Positive
+		private long latencyBudgetMs = 2000;
+
+		/** Lotes fallidos o lentos consecutivos que abren el circuito */
+		@Positive
+		private int errorBudget = 3;
+
+		/** Tiempo en modo desbordamiento antes de volver a probar la base de datos */
+		@Positive
+		private long probeIntervalMs = 5000;
+
+		/** Timeout JDBC del insert por lotes */
+		@Positive
+		private int queryTimeoutSeconds = 10;
+
+		@Positive
+		private int replayBatchSize = 500;
+
+		/** Tope de eventos reproducidos por segundo */
+		@Positive
+		private int replayRatePerSecond = 2000;
+	}
+
+	@Data
+	public static class Execution {
+		/** Ejecuciones de @LogExecution iguales o más lentas se persisten */
+		@PositiveOrZero
+		private long slowThresholdMs = 1000;
+
+		/** Umbral por operación; tiene prioridad sobre slowThresholdMs */
+		private Map<String, Long> thresholds = new LinkedHashMap<>();
+	}
+
+	@Data
+	public static class Rule {
+		@NotBlank(message = "Cada regla de muestreo requiere un nombre")
+		private String name;
+
+		/** Fuente exacta, o prefijo si termina en '*' */
+		private String source;
+
+		/** Operación exacta, o prefijo si termina en '*' */
+		private String operation;
+
+		/** Prefijo de la URI (contexto "uri" de HTTP_REQUEST) */
+		private String uriPrefix;
+
+		/** Fracción de eventos conservados (0.0 - 1.0) */
+		@DecimalMin("0.0")
+		@DecimalMax("1.0")
+		private double rate = 1.0;
+
+		/** Máximo de eventos por segundo por fuente; 0 = sin límite */
+		@PositiveOrZero
+		private long maxPerSecond = 0;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class HotColumn {
+		/** Clave de primer nivel del contexto JSON */
+		@NotBlank
+		private String key;
+
+		@NotNull
+		private HotColumnType type = HotColumnType.STRING;
+
+		/** Longitud para STRING; valores más largos quedan en NULL */
+		@PositiveOrZero
+		private int length = 255;
+
+		/** Crea el índice (columna, timestamp) */
+		private boolean indexed = true;
+	}
+
+	public enum HotColumnType {
+		INTEGER, DECIMAL, STRING
+	}
+
+	/**
+	 * Qué hacer cuando el ring buffer está lleno
+	 */
+	public enum OverflowPolicy {
+		/** Descarta eventos por debajo del nivel protegido y desvía el resto */
+		DROP_LOWEST_LEVEL,
+		/** Bloquea al productor hasta blockTimeoutMs y luego actúa como DROP_LOWEST_LEVEL */
+		BLOCK,
+		/** Desvía todo evento que no cabe al almacenamiento de desbordamiento */
+		SPILL
+	}
+}
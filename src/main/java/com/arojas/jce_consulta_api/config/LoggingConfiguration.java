@@ -8,6 +8,7 @@ package com.arojas.jce_consulta_api.config;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
@@ -20,6 +21,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  * @author arojas
  *         Configuración para el sistema de logging
@@ -31,7 +34,18 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 public class LoggingConfiguration implements AsyncConfigurer {
 
 	/**
-	 * Executor para logging asíncrono
+	 * Diferido: los AsyncConfigurer se resuelven antes que buena parte de
+	 * la autoconfiguración de observabilidad
+	 */
+	private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+	public LoggingConfiguration(ObjectProvider<ObservationRegistry> observationRegistry) {
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Executor por defecto para tareas @Async. La persistencia de logs ya no
+	 * pasa por aquí: la realiza el escritor por lotes (LogBatchWriter).
 	 */
 	@Bean(name = "logTaskExecutor")
 	public Executor logTaskExecutor() {
@@ -42,6 +56,8 @@ public class LoggingConfiguration implements AsyncConfigurer {
 		executor.setThreadNamePrefix("Log-");
 		// Corrección: usar ThreadPoolExecutor.CallerRunsPolicy()
 		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setTaskDecorator(new MdcTaskDecorator("logTaskExecutor",
+				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP)));
 		executor.initialize();
 		return executor;
 	}
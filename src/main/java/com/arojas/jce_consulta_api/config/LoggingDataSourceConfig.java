@@ -0,0 +1,195 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.repository.LogEntryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ *
+ * @author arojas
+ *         * Dos pools de conexiones: el principal (spring.datasource.*) para
+ *         las transacciones de negocio y uno propio para logs y analítica
+ *         (app.logging.datasource.*), que puede apuntar a otro esquema o
+ *         servidor
+ *         * Cada pool tiene su EntityManagerFactory, su gestor de
+ *         transacciones y sus métricas Hikari (etiqueta pool); una ráfaga de
+ *         logs o una consulta de analítica pesada no consume conexiones del
+ *         pool principal
+ *         * Los beans principales son @Primary; el código de logging usa los
+ *         nombres de este archivo
+ */
+@Configuration
+public class LoggingDataSourceConfig {
+
+	public static final String DATA_SOURCE = "loggingDataSource";
+	public static final String ENTITY_MANAGER_FACTORY = "loggingEntityManagerFactory";
+	public static final String TRANSACTION_MANAGER = "loggingTransactionManager";
+	public static final String JDBC_TEMPLATE = "loggingJdbcTemplate";
+
+	/** Entidades que viven en el pool de logging */
+	private static final List<Class<?>> LOGGING_ENTITIES = List.of(LogEntry.class);
+
+	// ========== POOL PRINCIPAL ==========
+
+	@Bean
+	@Primary
+	@ConfigurationProperties("spring.datasource")
+	public DataSourceProperties dataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	@Bean
+	@Primary
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+		return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@Primary
+	public LocalContainerEntityManagerFactoryBean entityManagerFactory(EntityManagerFactoryBuilder builder,
+			DataSource dataSource, ResourceLoader resourceLoader, JpaProperties jpaProperties,
+			HibernateProperties hibernateProperties, ConfigurableListableBeanFactory beanFactory,
+			ObjectProvider<HibernatePropertiesCustomizer> customizers) {
+
+		PersistenceManagedTypes scanned = new PersistenceManagedTypesScanner(resourceLoader)
+				.scan(LogEntry.class.getPackageName());
+		Set<String> loggingTypes = loggingEntityNames();
+		List<String> businessTypes = scanned.getManagedClassNames().stream()
+				.filter(name -> !loggingTypes.contains(name))
+				.toList();
+
+		return builder.dataSource(dataSource)
+				.managedTypes(PersistenceManagedTypes.of(businessTypes, scanned.getManagedPackages()))
+				.properties(vendorProperties(jpaProperties, hibernateProperties, beanFactory, customizers))
+				.persistenceUnit("default")
+				.build();
+	}
+
+	@Bean
+	@Primary
+	public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+			ObjectProvider<TransactionManagerCustomizers> customizers) {
+		JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+		customizers.ifAvailable(c -> c.customize(transactionManager));
+		return transactionManager;
+	}
+
+	// ========== POOL DE LOGGING ==========
+
+	@Bean
+	@ConfigurationProperties("app.logging.datasource")
+	public DataSourceProperties loggingDataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	@Bean(DATA_SOURCE)
+	@ConfigurationProperties("app.logging.datasource.hikari")
+	public HikariDataSource loggingDataSource(
+			@Qualifier("loggingDataSourceProperties") DataSourceProperties loggingDataSourceProperties) {
+		return loggingDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(ENTITY_MANAGER_FACTORY)
+	public LocalContainerEntityManagerFactoryBean loggingEntityManagerFactory(EntityManagerFactoryBuilder builder,
+			@Qualifier(DATA_SOURCE) DataSource loggingDataSource, JpaProperties jpaProperties,
+			HibernateProperties hibernateProperties, ConfigurableListableBeanFactory beanFactory,
+			ObjectProvider<HibernatePropertiesCustomizer> customizers) {
+
+		return builder.dataSource(loggingDataSource)
+				.managedTypes(PersistenceManagedTypes.of(List.copyOf(loggingEntityNames()), List.of()))
+				.properties(vendorProperties(jpaProperties, hibernateProperties, beanFactory, customizers))
+				.persistenceUnit("logging")
+				.build();
+	}
+
+	@Bean(TRANSACTION_MANAGER)
+	public JpaTransactionManager loggingTransactionManager(
+			@Qualifier(ENTITY_MANAGER_FACTORY) EntityManagerFactory loggingEntityManagerFactory,
+			ObjectProvider<TransactionManagerCustomizers> customizers) {
+		JpaTransactionManager transactionManager = new JpaTransactionManager(loggingEntityManagerFactory);
+		customizers.ifAvailable(c -> c.customize(transactionManager));
+		return transactionManager;
+	}
+
+	/**
+	 * JdbcTemplate del pool de logging: tablas de logs, rollups, huellas y
+	 * particiones
+	 */
+	@Bean(JDBC_TEMPLATE)
+	public JdbcTemplate loggingJdbcTemplate(@Qualifier(DATA_SOURCE) DataSource loggingDataSource) {
+		return new JdbcTemplate(loggingDataSource);
+	}
+
+	// ========== REPOSITORIOS ==========
+
+	@Configuration
+	@EnableJpaRepositories(basePackageClasses = LogEntryRepository.class, excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = LogEntryRepository.class))
+	static class BusinessRepositories {
+	}
+
+	@Configuration
+	@EnableJpaRepositories(basePackageClasses = LogEntryRepository.class, includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = LogEntryRepository.class), entityManagerFactoryRef = ENTITY_MANAGER_FACTORY, transactionManagerRef = TRANSACTION_MANAGER)
+	static class LoggingRepositories {
+	}
+
+	private static Set<String> loggingEntityNames() {
+		return LOGGING_ENTITIES.stream().map(Class::getName).collect(Collectors.toSet());
+	}
+
+	/**
+	 * Mismas propiedades que aplicaría la autoconfiguración (ddl-auto,
+	 * estrategias de nombres, spring.jpa.properties.*), incluido el contenedor
+	 * de beans de Spring para los AttributeConverter con dependencias
+	 */
+	private static Map<String, Object> vendorProperties(JpaProperties jpaProperties,
+			HibernateProperties hibernateProperties, ConfigurableListableBeanFactory beanFactory,
+			ObjectProvider<HibernatePropertiesCustomizer> customizers) {
+		List<HibernatePropertiesCustomizer> all = new ArrayList<>();
+		all.add(properties -> properties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory)));
+		all.addAll(customizers.orderedStream().toList());
+		return hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(),
+				new HibernateSettings().ddlAuto(() -> "none").hibernatePropertiesCustomizers(all));
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.task.TaskDecorator;
+
+import com.arojas.jce_consulta_api.util.TraceContext;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ *
+ * @author arojas
+ *         * Propaga el MDC (correlationId, requestId, usuario) y el span actual
+ *         a las tareas de los executors de la aplicación, para que los logs y
+ *         trazas asíncronos queden en el request que los originó
+ *         * Cada tarea se ejecuta dentro de una observación
+ *         (app.executor.task, span hijo del que la encoló) con el executor
+ *         como etiqueta y el tiempo que esperó en cola
+ */
+public class MdcTaskDecorator implements TaskDecorator {
+
+	private static final String OBSERVATION_NAME = "app.executor.task";
+
+	private final String executor;
+	private final ObservationRegistry observationRegistry;
+
+	public MdcTaskDecorator(String executor, ObservationRegistry observationRegistry) {
+		this.executor = executor;
+		this.observationRegistry = observationRegistry;
+	}
+
+	@Override
+	public Runnable decorate(Runnable runnable) {
+		long queuedAt = System.nanoTime();
+		return TraceContext.wrap(() -> Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+				.contextualName(executor + " task")
+				.lowCardinalityKeyValue("executor", executor)
+				.highCardinalityKeyValue("queue.wait.ms",
+						String.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt)))
+				.observe(runnable));
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ *
+ * @author arojas
+ *         * Decora el CacheManager para que cada get/put/evict de las cachés
+ *         de Spring abra una observación (app.cache, un span por operación)
+ *         etiquetada por caché, operación y resultado (hit/miss)
+ *         * Las cachés decoradas se crean una vez por nombre; el resto de
+ *         operaciones delega sin medir
+ */
+public class ObservedCacheManager implements CacheManager {
+
+	private static final String OBSERVATION_NAME = "app.cache";
+
+	private final CacheManager delegate;
+	private final ObservationRegistry observationRegistry;
+	private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+	public ObservedCacheManager(CacheManager delegate, ObservationRegistry observationRegistry) {
+		this.delegate = delegate;
+		this.observationRegistry = observationRegistry;
+	}
+
+	@Override
+	public Cache getCache(@NonNull String name) {
+		Cache cache = delegate.getCache(name);
+		if (cache == null) {
+			return null;
+		}
+		return caches.computeIfAbsent(name, key -> new ObservedCache(cache));
+	}
+
+	@Override
+	@NonNull
+	public Collection<String> getCacheNames() {
+		return delegate.getCacheNames();
+	}
+
+	private final class ObservedCache implements Cache {
+
+		private final Cache cache;
+
+		private ObservedCache(Cache cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		@NonNull
+		public String getName() {
+			return cache.getName();
+		}
+
+		@Override
+		@NonNull
+		public Object getNativeCache() {
+			return cache.getNativeCache();
+		}
+
+		@Override
+		public ValueWrapper get(@NonNull Object key) {
+			Observation observation = observation("get");
+			return observation.observe(() -> {
+				ValueWrapper value = cache.get(key);
+				observation.lowCardinalityKeyValue("result", value != null ? "hit" : "miss");
+				return value;
+			});
+		}
+
+		@Override
+		public <T> T get(@NonNull Object key, Class<T> type) {
+			Observation observation = observation("get");
+			return observation.observe(() -> {
+				T value = cache.get(key, type);
+				observation.lowCardinalityKeyValue("result", value != null ? "hit" : "miss");
+				return value;
+			});
+		}
+
+		@Override
+		public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+			return observe("get", () -> cache.get(key, valueLoader));
+		}
+
+		@Override
+		public void put(@NonNull Object key, Object value) {
+			observe("put", () -> {
+				cache.put(key, value);
+				return null;
+			});
+		}
+
+		@Override
+		public ValueWrapper putIfAbsent(@NonNull Object key, Object value) {
+			return observe("put", () -> cache.putIfAbsent(key, value));
+		}
+
+		@Override
+		public void evict(@NonNull Object key) {
+			observe("evict", () -> {
+				cache.evict(key);
+				return null;
+			});
+		}
+
+		@Override
+		public boolean evictIfPresent(@NonNull Object key) {
+			return observe("evict", () -> cache.evictIfPresent(key));
+		}
+
+		@Override
+		public void clear() {
+			cache.clear();
+		}
+
+		@Override
+		public boolean invalidate() {
+			return cache.invalidate();
+		}
+
+		private <T> T observe(String operation, Supplier<T> body) {
+			return observation(operation).observe(body);
+		}
+
+		private Observation observation(String operation) {
+			return Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+					.contextualName("cache " + operation + " " + cache.getName())
+					.lowCardinalityKeyValue("cache", cache.getName())
+					.lowCardinalityKeyValue("operation", operation);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+import io.lettuce.core.tracing.MicrometerTracing;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ *
+ * @author arojas
+ *         * Instrumentación de trazas que Spring Boot no aplica por sí solo
+ *         * HTTP entrante, Feign (feign-micrometer) y JDBC
+ *         (datasource-micrometer) se instrumentan por autoconfiguración; el
+ *         muestreo y el destino OTLP se configuran en management.tracing.* y
+ *         management.otlp.tracing.*
+ *         * Aquí: comandos Redis de Lettuce y operaciones del CacheManager
+ */
+@Configuration
+public class TracingConfig {
+
+	private static final String REDIS_SERVICE_NAME = "jce-redis";
+
+	/**
+	 * Un span por comando Redis, hijo del span activo
+	 */
+	@Bean
+	public ClientResourcesBuilderCustomizer lettuceTracingCustomizer(ObservationRegistry observationRegistry) {
+		return builder -> builder.tracing(new MicrometerTracing(observationRegistry, REDIS_SERVICE_NAME));
+	}
+
+	/**
+	 * Envuelve el CacheManager (si el caching está habilitado) en
+	 * {@link ObservedCacheManager}. Estático y con registry diferido para no
+	 * adelantar la creación de otros beans.
+	 */
+	@Bean
+	public static BeanPostProcessor observedCacheManagerPostProcessor(
+			ObjectProvider<ObservationRegistry> observationRegistry) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+				if (bean instanceof CacheManager cacheManager && !(bean instanceof ObservedCacheManager)) {
+					return new ObservedCacheManager(cacheManager,
+							observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+				}
+				return bean;
+			}
+		};
+	}
+}
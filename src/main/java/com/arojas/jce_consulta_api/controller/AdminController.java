@@ -8,6 +8,7 @@ package com.arojas.jce_consulta_api.controller;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.arojas.jce_consulta_api.dto.response.ApiResponse;
 import com.arojas.jce_consulta_api.service.AppSettingsService;
@@ -25,13 +27,18 @@ import com.arojas.jce_consulta_api.service.CedulaQueryService;
 import com.arojas.jce_consulta_api.service.EmailService;
 import com.arojas.jce_consulta_api.service.JceClient;
 import com.arojas.jce_consulta_api.service.PaymentService;
+import com.arojas.jce_consulta_api.service.QueryStageMetrics;
 import com.arojas.jce_consulta_api.service.UserService;
+import com.arojas.jce_consulta_api.service.logging.LogTailAppender;
+import com.arojas.jce_consulta_api.service.logging.LogTailService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
@@ -59,6 +66,8 @@ public class AdminController {
 	private final JceClient jceClient;
 	private final EmailService emailService;
 	private final AppSettingsService appSettingsService;
+	private final LogTailService logTailService;
+	private final QueryStageMetrics queryStageMetrics;
 
 	@Operation(summary = "Dashboard de administración", description = "Obtiene estadísticas generales del sistema para el dashboard administrativo")
 	@GetMapping("/dashboard")
@@ -451,54 +460,61 @@ public class AdminController {
 		}
 	}
 
-	@Operation(summary = "Obtener logs del sistema", description = "Obtiene los últimos logs del sistema para diagnóstico")
+	@Operation(summary = "Latencia por etapa de consultas", description = "Desglose p50/p95/p99 por etapa del pipeline de consulta de cédula en la ventana deslizante actual")
+	@GetMapping("/query-stages")
+	public ResponseEntity<ApiResponse<Map<String, Object>>> getQueryStageBreakdown() {
+
+		Map<String, Object> breakdown = new HashMap<>();
+		breakdown.put("stages", queryStageMetrics.breakdown());
+		breakdown.put("windowSeconds", queryStageMetrics.getWindow().toSeconds());
+		breakdown.put("generatedAt", java.time.LocalDateTime.now());
+
+		ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
+				.success(true)
+				.data(breakdown)
+				.message("Latencia por etapa obtenida exitosamente")
+				.build();
+
+		return ResponseEntity.ok(response);
+	}
+
+	@Operation(summary = "Obtener logs del sistema", description = "Obtiene los últimos logs del sistema desde el buffer en memoria, sin consultar la base de datos")
 	@GetMapping("/logs")
 	public ResponseEntity<ApiResponse<Map<String, Object>>> getSystemLogs(
-			@Parameter(description = "Número de líneas de log a obtener") @RequestParam(defaultValue = "100") int lines,
+			@Parameter(description = "Número de líneas de log a obtener") @RequestParam(defaultValue = "100") @Min(1) @Max(5000) int lines,
+
+			@Parameter(description = "Nivel de log mínimo") @RequestParam(defaultValue = "INFO") String level,
 
-			@Parameter(description = "Nivel de log mínimo") @RequestParam(defaultValue = "INFO") String level) {
+			@Parameter(description = "Prefijo del logger (fuente)") @RequestParam(required = false) String source) {
 
 		log.info("Obteniendo {} líneas de logs del sistema con nivel: {}", lines, level);
 
-		try {
-			// Aquí normalmente obtendrías los logs reales del sistema
-			// Por ahora simulamos algunos logs de ejemplo
-			Map<String, Object> logData = new HashMap<>();
-
-			java.util.List<Map<String, Object>> logEntries = new java.util.ArrayList<>();
-			for (int i = 1; i <= Math.min(lines, 10); i++) {
-				Map<String, Object> logEntry = new HashMap<>();
-				logEntry.put("timestamp", java.time.LocalDateTime.now().minusMinutes(i));
-				logEntry.put("level", level);
-				logEntry.put("logger", "com.arojas.jce_consulta_api");
-				logEntry.put("message", "Log entry example " + i);
-				logEntries.add(logEntry);
-			}
+		Map<String, Object> logData = new HashMap<>();
+		java.util.List<LogTailAppender.TailEvent> logEntries = logTailService.recent(level, source, lines);
 
-			logData.put("entries", logEntries);
-			logData.put("totalLines", logEntries.size());
-			logData.put("level", level);
-			logData.put("retrievedAt", java.time.LocalDateTime.now());
+		logData.put("entries", logEntries);
+		logData.put("totalLines", logEntries.size());
+		logData.put("level", level);
+		logData.put("retrievedAt", java.time.LocalDateTime.now());
+		logData.put("buffer", logTailService.getStatus());
 
-			ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
-					.success(true)
-					.data(logData)
-					.message("Logs del sistema obtenidos exitosamente")
-					.build();
+		ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
+				.success(true)
+				.data(logData)
+				.message("Logs del sistema obtenidos exitosamente")
+				.build();
 
-			return ResponseEntity.ok(response);
+		return ResponseEntity.ok(response);
+	}
 
-		} catch (Exception e) {
-			log.error("Error obteniendo logs del sistema: {}", e.getMessage());
+	@Operation(summary = "Tail de logs en vivo", description = "Stream SSE de logs filtrado por nivel mínimo y prefijo de logger")
+	@GetMapping(value = "/logs/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter tailSystemLogs(
+			@Parameter(description = "Nivel de log mínimo") @RequestParam(defaultValue = "INFO") String level,
 
-			ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
-					.success(false)
-					.data(null)
-					.message("Error obteniendo logs del sistema")
-					.error(e.getMessage())
-					.build();
+			@Parameter(description = "Prefijo del logger (fuente)") @RequestParam(required = false) String source) {
 
-			return ResponseEntity.badRequest().body(response);
-		}
+		log.info("Abriendo tail de logs con nivel: {} y fuente: {}", level, source);
+		return logTailService.subscribe(level, source);
 	}
 }
@@ -16,6 +16,7 @@ import com.arojas.jce_consulta_api.dto.request.LoginCredentials;
 import com.arojas.jce_consulta_api.dto.request.RegisterData;
 import com.arojas.jce_consulta_api.dto.response.ApiResponse;
 import com.arojas.jce_consulta_api.dto.response.AuthResponse;
+import com.arojas.jce_consulta_api.exception.auth.AuthenticationThrottledException;
 import com.arojas.jce_consulta_api.service.AuthService;
 import com.arojas.jce_consulta_api.entity.User;
 import com.arojas.jce_consulta_api.dto.UserDto;
@@ -76,6 +77,8 @@ public class AuthController {
 			log.info("Usuario registrado exitosamente: {}", registerData.getEmail());
 			return ResponseEntity.status(HttpStatus.CREATED).body(response);
 
+		} catch (AuthenticationThrottledException e) {
+			throw e;
 		} catch (Exception e) {
 			log.error("Error en registro para {}: {}", registerData.getEmail(), e.getMessage());
 
@@ -122,6 +125,8 @@ public class AuthController {
 
 			return ResponseEntity.ok(response);
 
+		} catch (AuthenticationThrottledException e) {
+			throw e;
 		} catch (Exception e) {
 			log.error("Error en login para {}: {}", credentials.getEmail(), e.getMessage());
 
@@ -292,6 +297,8 @@ public class AuthController {
 			log.info("Contraseña cambiada exitosamente para: {}", userEmail);
 			return ResponseEntity.ok(response);
 
+		} catch (AuthenticationThrottledException e) {
+			throw e;
 		} catch (Exception e) {
 			log.error("Error cambiando contraseña para {}: {}", userEmail, e.getMessage());
 
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.arojas.jce_consulta_api.dto.CedulaQueryDto;
 import com.arojas.jce_consulta_api.dto.request.CedulaQueryRequest;
 import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.dto.response.PaginatedResponse;
 import com.arojas.jce_consulta_api.service.CedulaQueryService;
 import com.arojas.jce_consulta_api.service.CedulaQueryService.CedulaQueryStatsDto;
@@ -131,6 +132,23 @@ public class CedulaQueryController {
 				ApiResponse.success(paginatedResponse, "Historial obtenido exitosamente"));
 	}
 
+	@Operation(summary = "Historial de consultas por cursor", description = "Historial sin COUNT por página; usar nextCursor para continuar")
+	@GetMapping("/history/scroll")
+	public ResponseEntity<ApiResponse<CursorPage<CedulaQueryDto>>> scrollQueryHistory(
+			@Parameter(description = "Cursor de continuación (vacío para la primera página)") @RequestParam(required = false) String cursor,
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+			@Parameter(description = "Incluir total de elementos") @RequestParam(defaultValue = "false") boolean includeTotal,
+			Authentication authentication) {
+
+		log.info("Scrolling query history for user: {}", authentication.getName());
+
+		CursorPage<CedulaQueryDto> history = cedulaQueryService.scrollUserQueryHistory(
+				authentication.getName(), cursor, size, includeTotal);
+
+		return ResponseEntity.ok(
+				ApiResponse.success(history, "Historial obtenido exitosamente"));
+	}
+
 	@Operation(summary = "Obtener consulta por ID", description = "Obtiene los detalles de una consulta específica")
 	@GetMapping("/{queryId}")
 	public ResponseEntity<ApiResponse<CedulaQueryDto>> getQueryById(
@@ -0,0 +1,220 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.controller;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.service.DiagnosticsService;
+import com.arojas.jce_consulta_api.service.DiagnosticsService.Preset;
+import com.arojas.jce_consulta_api.service.DiagnosticsService.RecordingInfo;
+import com.arojas.jce_consulta_api.service.DiagnosticsService.ThreadSummary;
+import com.sun.management.HotSpotDiagnosticMXBean.ThreadDumpFormat;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Endpoints de diagnóstico en caliente: grabaciones JFR, grabación
+ *         continua, histograma de clases y volcado de hilos
+ *         * Las descargas se envían por streaming desde archivo
+ */
+@RestController
+@RequestMapping("/api/v1/admin/diagnostics")
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+@Tag(name = "Diagnostics", description = "Diagnóstico de la JVM: JFR, heap e hilos")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class DiagnosticsController {
+
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	private final DiagnosticsService diagnosticsService;
+
+	// ================= JFR BAJO DEMANDA =================
+
+	@Operation(summary = "Iniciar grabación JFR", description = "Inicia una grabación JFR acotada en duración y tamaño; CONTENTION registra asignaciones, contención de locks y E/S de sockets")
+	@PostMapping("/jfr/recordings")
+	public ResponseEntity<ApiResponse<RecordingInfo>> startRecording(
+			@Parameter(description = "Configuración: DEFAULT, PROFILE o CONTENTION") @RequestParam(defaultValue = "CONTENTION") Preset preset,
+
+			@Parameter(description = "Duración en segundos (acotada por app.diagnostics.jfr.max-duration)") @RequestParam(required = false) @Min(1) Long durationSeconds) {
+
+		log.info("Iniciando grabación JFR {} por {}s", preset, durationSeconds);
+		RecordingInfo recording = diagnosticsService.startRecording(preset,
+				durationSeconds != null ? Duration.ofSeconds(durationSeconds) : null);
+
+		return ResponseEntity.ok(ApiResponse.<RecordingInfo>builder()
+				.success(true)
+				.data(recording)
+				.message("Grabación JFR iniciada")
+				.build());
+	}
+
+	@Operation(summary = "Listar grabaciones JFR", description = "Grabaciones bajo demanda en curso y conservadas")
+	@GetMapping("/jfr/recordings")
+	public ResponseEntity<ApiResponse<List<RecordingInfo>>> listRecordings() {
+		return ResponseEntity.ok(ApiResponse.<List<RecordingInfo>>builder()
+				.success(true)
+				.data(diagnosticsService.listRecordings())
+				.message("Grabaciones JFR obtenidas exitosamente")
+				.build());
+	}
+
+	@Operation(summary = "Detener grabación JFR", description = "Detiene la grabación y escribe su archivo")
+	@PostMapping("/jfr/recordings/{id}/stop")
+	public ResponseEntity<ApiResponse<RecordingInfo>> stopRecording(@PathVariable long id) {
+		return ResponseEntity.ok(ApiResponse.<RecordingInfo>builder()
+				.success(true)
+				.data(diagnosticsService.stopRecording(id))
+				.message("Grabación JFR detenida")
+				.build());
+	}
+
+	@Operation(summary = "Descargar grabación JFR", description = "Descarga por streaming el archivo .jfr de una grabación terminada")
+	@GetMapping("/jfr/recordings/{id}/download")
+	public ResponseEntity<StreamingResponseBody> downloadRecording(@PathVariable long id) {
+		diagnosticsService.requireDownloadable(id);
+		StreamingResponseBody body = out -> diagnosticsService.writeRecording(id, out);
+		return attachment("jce-recording-" + id + ".jfr", MediaType.APPLICATION_OCTET_STREAM_VALUE, body);
+	}
+
+	@Operation(summary = "Eliminar grabación JFR", description = "Cierra la grabación y borra su archivo")
+	@DeleteMapping("/jfr/recordings/{id}")
+	public ResponseEntity<ApiResponse<String>> deleteRecording(@PathVariable long id) {
+		diagnosticsService.deleteRecording(id);
+		return ResponseEntity.ok(ApiResponse.<String>builder()
+				.success(true)
+				.data("Grabación " + id + " eliminada")
+				.message("Grabación JFR eliminada")
+				.build());
+	}
+
+	// ================= JFR CONTINUO =================
+
+	@Operation(summary = "Estado de la grabación continua", description = "Estado del ring JFR de bajo costo")
+	@GetMapping("/jfr/continuous")
+	public ResponseEntity<ApiResponse<Map<String, Object>>> continuousStatus() {
+		return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+				.success(true)
+				.data(diagnosticsService.continuousStatus())
+				.message("Estado de la grabación continua obtenido")
+				.build());
+	}
+
+	@Operation(summary = "Iniciar grabación continua", description = "Inicia el ring JFR acotado por edad y tamaño, para volcarlo tras un incidente")
+	@PostMapping("/jfr/continuous")
+	public ResponseEntity<ApiResponse<RecordingInfo>> startContinuous() {
+		log.info("Iniciando grabación JFR continua");
+		return ResponseEntity.ok(ApiResponse.<RecordingInfo>builder()
+				.success(true)
+				.data(diagnosticsService.startContinuous())
+				.message("Grabación JFR continua activa")
+				.build());
+	}
+
+	@Operation(summary = "Detener grabación continua")
+	@DeleteMapping("/jfr/continuous")
+	public ResponseEntity<ApiResponse<String>> stopContinuous() {
+		log.info("Deteniendo grabación JFR continua");
+		diagnosticsService.stopContinuous();
+		return ResponseEntity.ok(ApiResponse.<String>builder()
+				.success(true)
+				.data("Grabación continua detenida")
+				.message("Grabación JFR continua detenida")
+				.build());
+	}
+
+	@Operation(summary = "Volcar grabación continua", description = "Descarga por streaming el contenido actual del ring JFR")
+	@GetMapping("/jfr/continuous/dump")
+	public ResponseEntity<StreamingResponseBody> dumpContinuous() {
+		log.info("Volcando grabación JFR continua");
+		diagnosticsService.requireContinuous();
+		StreamingResponseBody body = diagnosticsService::writeContinuousDump;
+		return attachment("jce-continuous-" + timestamp() + ".jfr", MediaType.APPLICATION_OCTET_STREAM_VALUE,
+				body);
+	}
+
+	// ================= HEAP E HILOS =================
+
+	@Operation(summary = "Histograma de clases", description = "Clases con más instancias/bytes en el heap; live=true fuerza un GC completo antes de contar")
+	@GetMapping("/heap/histogram")
+	public ResponseEntity<StreamingResponseBody> classHistogram(
+			@Parameter(description = "Solo objetos vivos (fuerza GC completo)") @RequestParam(defaultValue = "false") boolean live,
+
+			@Parameter(description = "Número de clases a incluir") @RequestParam(defaultValue = "100") @Min(1) @Max(10000) int top) {
+
+		log.info("Generando histograma de clases (live={}, top={})", live, top);
+		diagnosticsService.requireInspectionIdle();
+		StreamingResponseBody body = out -> diagnosticsService.writeClassHistogram(live, top, out);
+		return attachment("jce-class-histogram-" + timestamp() + ".txt", MediaType.TEXT_PLAIN_VALUE, body);
+	}
+
+	@Operation(summary = "Resumen de hilos", description = "Hilos por estado y pool, hilos bloqueados con el dueño del lock y deadlocks")
+	@GetMapping("/threads/summary")
+	public ResponseEntity<ApiResponse<ThreadSummary>> threadSummary() {
+		return ResponseEntity.ok(ApiResponse.<ThreadSummary>builder()
+				.success(true)
+				.data(diagnosticsService.threadSummary())
+				.message("Resumen de hilos obtenido exitosamente")
+				.build());
+	}
+
+	@Operation(summary = "Volcado de hilos", description = "Volcado completo de hilos, incluidos los virtuales, en texto o JSON")
+	@GetMapping("/threads/dump")
+	public ResponseEntity<StreamingResponseBody> threadDump(
+			@Parameter(description = "Formato: TEXT_PLAIN o JSON") @RequestParam(defaultValue = "TEXT_PLAIN") ThreadDumpFormat format) {
+
+		log.info("Generando volcado de hilos ({})", format);
+		diagnosticsService.requireInspectionIdle();
+		StreamingResponseBody body = out -> diagnosticsService.writeThreadDump(format, out);
+		boolean json = format == ThreadDumpFormat.JSON;
+		return attachment("jce-threads-" + timestamp() + (json ? ".json" : ".txt"),
+				json ? MediaType.APPLICATION_JSON_VALUE : MediaType.TEXT_PLAIN_VALUE, body);
+	}
+
+	private static ResponseEntity<StreamingResponseBody> attachment(String filename, String contentType,
+			StreamingResponseBody body) {
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_TYPE, contentType)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+				.body(body);
+	}
+
+	private static String timestamp() {
+		return LocalDateTime.now().format(FILE_TIMESTAMP);
+	}
+}
@@ -7,31 +7,51 @@ package com.arojas.jce_consulta_api.controller;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.arojas.jce_consulta_api.aspect.LogExecution;
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.entity.LogEntry;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.repository.LogEntryRepository;
+import com.arojas.jce_consulta_api.repository.LogEntrySpecifications;
 import com.arojas.jce_consulta_api.service.DbLoggerService;
 import com.arojas.jce_consulta_api.service.LogAnalyticsService;
 import com.arojas.jce_consulta_api.service.LogCleanupService;
+import com.arojas.jce_consulta_api.service.logging.ErrorFingerprintStore;
+import com.arojas.jce_consulta_api.service.logging.LogArchiveStore;
+import com.arojas.jce_consulta_api.service.logging.LogExporter;
+import com.arojas.jce_consulta_api.service.logging.LogPartitionManager;
+import com.arojas.jce_consulta_api.service.logging.LogSampler;
+import com.arojas.jce_consulta_api.service.logging.LogSearchIndex;
+import com.arojas.jce_consulta_api.util.CursorCodec;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -44,6 +64,7 @@ import lombok.RequiredArgsConstructor;
 @RestController
 @RequestMapping("/api/v1/logs")
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "Log Management", description = "API para gestión y análisis de logs del sistema")
 public class LogController {
 
@@ -51,6 +72,12 @@ public class LogController {
 	private final DbLoggerService dbLoggerService;
 	private final LogAnalyticsService logAnalyticsService;
 	private final LogCleanupService logCleanupService;
+	private final LogSampler logSampler;
+	private final LogPartitionManager logPartitionManager;
+	private final LogArchiveStore logArchiveStore;
+	private final LogSearchIndex logSearchIndex;
+	private final LogExporter logExporter;
+	private final ErrorFingerprintStore errorFingerprintStore;
 
 	/**
 	 * Busca logs con filtros avanzados
@@ -61,41 +88,122 @@ public class LogController {
 	public ResponseEntity<Page<LogEntry>> searchLogs(
 			@Parameter(description = "Nivel de log") @RequestParam(required = false) LogLevel level,
 			@Parameter(description = "Email del usuario") @RequestParam(required = false) String userEmail,
-			@Parameter(description = "Fuente del log") @RequestParam(required = false) String source,
-			@Parameter(description = "Operación") @RequestParam(required = false) String operation,
+			@Parameter(description = "Fuente del log (prefijo; * como comodín)") @RequestParam(required = false) String source,
+			@Parameter(description = "Operación (prefijo; * como comodín)") @RequestParam(required = false) String operation,
 			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
 			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
 			@Parameter(description = "ID de correlación") @RequestParam(required = false) String correlationId,
 			@Parameter(description = "ID de sesión") @RequestParam(required = false) String sessionId,
 			@Parameter(description = "Incluir archivados") @RequestParam(required = false, defaultValue = "false") Boolean archived,
 			@Parameter(description = "Página") @RequestParam(defaultValue = "0") int page,
-			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int size) {
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
 
 		Pageable pageable = PageRequest.of(page, size);
-		Page<LogEntry> logs = logEntryRepository.searchLogs(
-				level, userEmail, source, operation, start, end,
-				correlationId, sessionId, archived, pageable);
+
+		// Con particionado los archivados salen de la tabla (segmentos en disco
+		// o tablas de archivo); sin él siguen en la tabla marcados
+		if (Boolean.TRUE.equals(archived) && logPartitionManager.isPartitioned()) {
+			return ResponseEntity.ok(logArchiveStore.search(new LogArchiveStore.ArchiveQuery(
+					level, userEmail, source, operation, start, end, correlationId, sessionId, null), pageable));
+		}
+
+		// Límites explícitos para que la consulta pode particiones
+		if (start == null) {
+			start = Boolean.TRUE.equals(archived) ? logCleanupService.getRetentionStart()
+					: logCleanupService.getLiveWindowStart();
+		}
+		if (end == null) {
+			end = LocalDateTime.now();
+		}
+
+		LogEntrySpecifications.Criteria criteria = new LogEntrySpecifications.Criteria(
+				level, userEmail, source, operation, start, end, correlationId, sessionId, archived);
+		Page<LogEntry> logs = logEntryRepository.search(LogEntrySpecifications.of(criteria),
+				LogEntrySpecifications.leadingIndex(criteria), pageable);
 
 		return ResponseEntity.ok(logs);
 	}
 
 	/**
-	 * Búsqueda de texto completo
+	 * Busca logs por cursor (timestamp, id), sin COUNT por página
+	 */
+	@GetMapping("/scroll")
+	@Operation(summary = "Búsqueda de logs por cursor", description = "Mismos filtros que /search; usar nextCursor para continuar")
+	@LogExecution(operation = "SCROLL_LOGS")
+	public ResponseEntity<CursorPage<LogEntry>> scrollLogs(
+			@Parameter(description = "Nivel de log") @RequestParam(required = false) LogLevel level,
+			@Parameter(description = "Email del usuario") @RequestParam(required = false) String userEmail,
+			@Parameter(description = "Fuente del log (prefijo; * como comodín)") @RequestParam(required = false) String source,
+			@Parameter(description = "Operación (prefijo; * como comodín)") @RequestParam(required = false) String operation,
+			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+			@Parameter(description = "ID de correlación") @RequestParam(required = false) String correlationId,
+			@Parameter(description = "ID de sesión") @RequestParam(required = false) String sessionId,
+			@Parameter(description = "Cursor de continuación (vacío para la primera página)") @RequestParam(required = false) String cursor,
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+
+		if (start == null) {
+			start = logCleanupService.getLiveWindowStart();
+		}
+		if (end == null) {
+			end = LocalDateTime.now();
+		}
+
+		CursorCodec.Cursor position = CursorCodec.decode(cursor);
+		LocalDateTime cursorTimestamp = position != null ? position.sortKeyAsDateTime() : end;
+		long cursorId = position != null ? position.idAsLong() : Long.MAX_VALUE;
+
+		LogEntrySpecifications.Criteria criteria = new LogEntrySpecifications.Criteria(
+				level, userEmail, source, operation, start, cursorTimestamp, correlationId, sessionId, null);
+		List<LogEntry> rows = logEntryRepository.scroll(
+				LogEntrySpecifications.of(criteria).and(LogEntrySpecifications.before(cursorTimestamp, cursorId)),
+				LogEntrySpecifications.leadingIndex(criteria), size + 1);
+
+		return ResponseEntity.ok(CursorPage.of(rows, size,
+				entry -> CursorCodec.encode(entry.getTimestamp(), entry.getId()), entry -> entry));
+	}
+
+	/**
+	 * Búsqueda de texto completo (índice invertido; LIKE sobre la tabla si el
+	 * índice está deshabilitado)
 	 */
 	@GetMapping("/full-text-search")
 	@Operation(summary = "Búsqueda de texto completo")
 	@LogExecution(operation = "FULL_TEXT_SEARCH")
 	public ResponseEntity<Page<LogEntry>> fullTextSearch(
-			@Parameter(description = "Texto a buscar") @RequestParam String searchText,
+			@Parameter(description = "Texto a buscar (\"frase\", -excluir, prefijo*)") @RequestParam String searchText,
 			@Parameter(description = "Buscar desde") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+			@Parameter(description = "Buscar hasta") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+			@Parameter(description = "Nivel del log") @RequestParam(required = false) LogLevel level,
+			@Parameter(description = "Orden: RELEVANCE o NEWEST") @RequestParam(defaultValue = "RELEVANCE") LogSearchIndex.SortOrder sort,
+			@Parameter(description = "Buscar en archivados") @RequestParam(required = false, defaultValue = "false") Boolean archived,
 			@Parameter(description = "Página") @RequestParam(defaultValue = "0") int page,
-			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int size) {
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+
+		Pageable pageable = PageRequest.of(page, size);
+
+		if (Boolean.TRUE.equals(archived)) {
+			if (logPartitionManager.isPartitioned()) {
+				return ResponseEntity.ok(logArchiveStore.search(new LogArchiveStore.ArchiveQuery(
+						level, null, null, null, since, until, null, null, searchText), pageable));
+			}
+			// El índice invertido solo cubre la ventana viva
+			return ResponseEntity.ok(logEntryRepository.fullTextSearchArchived(searchText,
+					since != null ? since : logCleanupService.getRetentionStart(),
+					until != null ? until : LocalDateTime.now(), pageable));
+		}
 
 		if (since == null) {
 			since = LocalDateTime.now().minusDays(7); // Buscar en la última semana por defecto
 		}
+		if (until == null) {
+			until = LocalDateTime.now();
+		}
+
+		if (logSearchIndex.isEnabled()) {
+			return ResponseEntity.ok(logSearchIndex.search(searchText, since, until, level, sort, pageable));
+		}
 
-		Pageable pageable = PageRequest.of(page, size);
 		Page<LogEntry> logs = logEntryRepository.fullTextSearch(searchText, since, pageable);
 
 		return ResponseEntity.ok(logs);
@@ -111,6 +219,7 @@ public class LogController {
 			@Parameter(description = "ID de correlación") @PathVariable String correlationId) {
 
 		java.util.List<LogEntry> logs = logEntryRepository.findByCorrelationIdOrderByTimestampAsc(correlationId);
+		logs.forEach(errorFingerprintStore::withStackTrace);
 		return ResponseEntity.ok(logs);
 	}
 
@@ -123,7 +232,7 @@ public class LogController {
 	public ResponseEntity<Page<LogEntry>> getRecentErrors(
 			@Parameter(description = "Desde cuando buscar") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
 			@Parameter(description = "Página") @RequestParam(defaultValue = "0") int page,
-			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int size) {
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
 
 		if (since == null) {
 			since = LocalDateTime.now().minusHours(24); // Últimas 24 horas por defecto
@@ -135,6 +244,49 @@ public class LogController {
 		return ResponseEntity.ok(errors);
 	}
 
+	/**
+	 * Errores deduplicados por huella de stack trace, por ocurrencias
+	 */
+	@GetMapping("/errors/fingerprints")
+	@Operation(summary = "Catálogo de errores recurrentes por huella de stack trace")
+	@LogExecution(operation = "GET_ERROR_FINGERPRINTS")
+	public ResponseEntity<List<ErrorFingerprintStore.Fingerprint>> getErrorFingerprints(
+			@Parameter(description = "Con actividad desde") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+			@Parameter(description = "Ocurrencias mínimas") @RequestParam(defaultValue = "1") long minOccurrences,
+			@Parameter(description = "Máximo de resultados") @RequestParam(defaultValue = "50") int limit) {
+
+		if (since == null) {
+			since = LocalDateTime.now().minusDays(7);
+		}
+		return ResponseEntity.ok(errorFingerprintStore.findRecurring(since, minOccurrences, Math.min(limit, 500)));
+	}
+
+	/**
+	 * Detalle de un error del catálogo: stack trace y ocurrencias recientes
+	 */
+	@GetMapping("/errors/fingerprints/{id}")
+	@Operation(summary = "Detalle de un error por huella con sus ocurrencias recientes")
+	@LogExecution(operation = "GET_ERROR_FINGERPRINT")
+	public ResponseEntity<Map<String, Object>> getErrorFingerprint(
+			@Parameter(description = "ID de la huella") @PathVariable Long id,
+			@Parameter(description = "Desde cuando buscar ocurrencias") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+			@Parameter(description = "Página") @RequestParam(defaultValue = "0") int page,
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+
+		if (since == null) {
+			since = logCleanupService.getLiveWindowStart();
+		}
+		LocalDateTime occurrencesSince = since;
+
+		return errorFingerprintStore.findById(id)
+				.map(fingerprint -> ResponseEntity.ok(Map.<String, Object>of(
+						"fingerprint", fingerprint,
+						"stackTrace", errorFingerprintStore.findStackTrace(id).orElse(""),
+						"occurrences", logEntryRepository.findByErrorFingerprint(id, occurrencesSince,
+								PageRequest.of(page, size)))))
+				.orElse(ResponseEntity.notFound().build());
+	}
+
 	/**
 	 * Obtiene operaciones lentas
 	 */
@@ -143,11 +295,16 @@ public class LogController {
 	@LogExecution(operation = "GET_SLOW_OPERATIONS")
 	public ResponseEntity<Page<LogEntry>> getSlowOperations(
 			@Parameter(description = "Umbral en ms") @RequestParam(defaultValue = "1000") Long thresholdMs,
+			@Parameter(description = "Desde cuando buscar") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
 			@Parameter(description = "Página") @RequestParam(defaultValue = "0") int page,
-			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int size) {
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+
+		if (since == null) {
+			since = LocalDateTime.now().minusHours(24); // Últimas 24 horas por defecto
+		}
 
 		Pageable pageable = PageRequest.of(page, size);
-		Page<LogEntry> slowOps = logEntryRepository.findSlowOperations(thresholdMs, pageable);
+		Page<LogEntry> slowOps = logEntryRepository.findSlowOperations(thresholdMs, since, pageable);
 
 		return ResponseEntity.ok(slowOps);
 	}
@@ -201,6 +358,48 @@ public class LogController {
 		return ResponseEntity.ok(statistics);
 	}
 
+	/**
+	 * Latencia por endpoint
+	 */
+	@GetMapping("/endpoints/latency")
+	@Operation(summary = "Latencia p50/p95 por endpoint HTTP")
+	@LogExecution(operation = "GET_ENDPOINT_LATENCY")
+	public ResponseEntity<List<Map<String, Object>>> getEndpointLatency(
+			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+			@Parameter(description = "Mínimo de requests por endpoint") @RequestParam(defaultValue = "10") long minRequests,
+			@Parameter(description = "Máximo de endpoints") @RequestParam(defaultValue = "50") int limit) {
+
+		if (start == null) {
+			start = LocalDateTime.now().minusHours(24); // Últimas 24 horas por defecto
+		}
+		if (end == null) {
+			end = LocalDateTime.now();
+		}
+
+		return ResponseEntity.ok(logAnalyticsService.getEndpointLatency(start, end, minRequests, limit));
+	}
+
+	/**
+	 * Tasa de respuestas por clase de estado HTTP
+	 */
+	@GetMapping("/status-classes")
+	@Operation(summary = "Respuestas y tasa de error por clase de estado HTTP")
+	@LogExecution(operation = "GET_STATUS_CLASSES")
+	public ResponseEntity<Map<String, Object>> getStatusClassRates(
+			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+
+		if (start == null) {
+			start = LocalDateTime.now().minusHours(24); // Últimas 24 horas por defecto
+		}
+		if (end == null) {
+			end = LocalDateTime.now();
+		}
+
+		return ResponseEntity.ok(logAnalyticsService.getStatusClassRates(start, end));
+	}
+
 	/**
 	 * Obtiene actividad de usuarios
 	 */
@@ -239,6 +438,26 @@ public class LogController {
 		return ResponseEntity.ok(trends);
 	}
 
+	/**
+	 * Obtiene tendencias de logs por hora
+	 */
+	@GetMapping("/trends/hourly")
+	@Operation(summary = "Tendencia de logs por hora y nivel")
+	@LogExecution(operation = "GET_LOG_TRENDS_HOURLY")
+	public ResponseEntity<java.util.List<Object[]>> getHourlyTrends(
+			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+
+		if (start == null) {
+			start = LocalDateTime.now().minusHours(24); // Últimas 24 horas por defecto
+		}
+		if (end == null) {
+			end = LocalDateTime.now();
+		}
+
+		return ResponseEntity.ok(logAnalyticsService.getHourlyTrends(start, end));
+	}
+
 	/**
 	 * Crea un log manual (para testing)
 	 */
@@ -252,9 +471,7 @@ public class LogController {
 			@Parameter(description = "Email del usuario") @RequestParam(required = false) String userEmail,
 			@Parameter(description = "Operación") @RequestParam(required = false) String operation) {
 
-		dbLoggerService.log()
-				.level(level)
-				.source(source)
+		dbLoggerService.log(level, source)
 				.message(message)
 				.user(userEmail)
 				.operation(operation)
@@ -276,6 +493,7 @@ public class LogController {
 
 		Map<String, Object> result = Map.of(
 				"archivedCount", archivedCount,
+				"partitioned", logPartitionManager.isPartitioned(),
 				"executedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
 		return ResponseEntity.ok(result);
@@ -292,6 +510,7 @@ public class LogController {
 
 		Map<String, Object> result = Map.of(
 				"deletedCount", deletedCount,
+				"partitioned", logPartitionManager.isPartitioned(),
 				"executedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
 		return ResponseEntity.ok(result);
@@ -308,6 +527,58 @@ public class LogController {
 		return ResponseEntity.ok(stats);
 	}
 
+	/**
+	 * Obtiene las reglas de muestreo vigentes y los eventos descartados
+	 */
+	@GetMapping("/sampling")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Reglas de muestreo de logs y eventos descartados por fuente")
+	public ResponseEntity<Map<String, Object>> getSamplingRules() {
+		Map<String, Object> result = Map.of(
+				"config", logSampler.getConfig(),
+				"sampledOutBySource", logSampler.getSampledOutCounts());
+
+		return ResponseEntity.ok(result);
+	}
+
+	/**
+	 * Reemplaza en caliente las reglas de muestreo
+	 */
+	@PutMapping("/sampling")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Recarga las reglas de muestreo de logs")
+	@LogExecution(operation = "RELOAD_SAMPLING_RULES")
+	public ResponseEntity<DbLoggingProperties.Sampling> reloadSamplingRules(
+			@Valid @RequestBody DbLoggingProperties.Sampling sampling) {
+
+		logSampler.reload(sampling);
+		return ResponseEntity.ok(logSampler.getConfig());
+	}
+
+	/**
+	 * Obtiene el nivel global y los niveles por fuente vigentes
+	 */
+	@GetMapping("/levels")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Niveles de logging en BD, global y por fuente")
+	public ResponseEntity<DbLoggerService.LevelConfig> getLogLevels() {
+		return ResponseEntity.ok(dbLoggerService.getLevels());
+	}
+
+	/**
+	 * Reemplaza en caliente el nivel global y los niveles por fuente
+	 */
+	@PutMapping("/levels")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Recarga los niveles de logging en BD")
+	@LogExecution(operation = "RELOAD_LOG_LEVELS")
+	public ResponseEntity<DbLoggerService.LevelConfig> reloadLogLevels(
+			@RequestBody DbLoggerService.LevelConfig levels) {
+
+		dbLoggerService.reloadLevels(levels);
+		return ResponseEntity.ok(dbLoggerService.getLevels());
+	}
+
 	/**
 	 * Obtiene un log específico por ID
 	 */
@@ -318,20 +589,26 @@ public class LogController {
 			@Parameter(description = "ID del log") @PathVariable Long id) {
 
 		return logEntryRepository.findById(id)
+				.map(errorFingerprintStore::withStackTrace)
 				.map(ResponseEntity::ok)
 				.orElse(ResponseEntity.notFound().build());
 	}
 
 	/**
-	 * Exporta logs como CSV
+	 * Exporta logs por streaming (CSV o NDJSON, opcionalmente gzip), sin
+	 * límite de filas
 	 */
-	@GetMapping("/export/csv")
-	@Operation(summary = "Exporta logs como CSV")
-	@LogExecution(operation = "EXPORT_LOGS_CSV")
-	public ResponseEntity<String> exportLogsAsCsv(
+	@GetMapping("/export")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Exporta logs por streaming")
+	@LogExecution(operation = "EXPORT_LOGS")
+	public ResponseEntity<StreamingResponseBody> exportLogs(
 			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
 			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
-			@Parameter(description = "Nivel de log") @RequestParam(required = false) LogLevel level) {
+			@Parameter(description = "Nivel de log") @RequestParam(required = false) LogLevel level,
+			@Parameter(description = "Fuente") @RequestParam(required = false) String source,
+			@Parameter(description = "Formato: CSV o NDJSON") @RequestParam(defaultValue = "CSV") LogExporter.Format format,
+			@Parameter(description = "Comprimir con gzip") @RequestParam(defaultValue = "false") boolean gzip) {
 
 		if (start == null) {
 			start = LocalDateTime.now().minusDays(1);
@@ -340,29 +617,28 @@ public class LogController {
 			end = LocalDateTime.now();
 		}
 
-		Pageable pageable = PageRequest.of(0, 10000); // Máximo 10k registros
-		Page<LogEntry> logs = logEntryRepository.searchLogs(
-				level, null, null, null, start, end,
-				null, null, false, pageable);
-
-		StringBuilder csv = new StringBuilder();
-		csv.append("ID,Timestamp,Level,Source,Message,UserEmail,Operation,ExecutionTimeMs\n");
-
-		for (LogEntry log : logs.getContent()) {
-			csv.append(String.format("%d,%s,%s,%s,\"%s\",%s,%s,%s\n",
-					log.getId(),
-					log.getTimestamp(),
-					log.getLevel(),
-					log.getSource(),
-					log.getMessage().replace("\"", "\"\""), // Escapar comillas
-					log.getUserEmail() != null ? log.getUserEmail() : "",
-					log.getOperation() != null ? log.getOperation() : "",
-					log.getExecutionTimeMs() != null ? log.getExecutionTimeMs() : ""));
-		}
+		LogExporter.ExportQuery query = new LogExporter.ExportQuery(start, end, level, source);
+		String filename = "logs_export." + format.getExtension() + (gzip ? ".gz" : "");
+		StreamingResponseBody body = out -> logExporter.export(query, format, gzip, out);
 
 		return ResponseEntity.ok()
-				.header("Content-Type", "text/csv")
-				.header("Content-Disposition", "attachment; filename=\"logs_export.csv\"")
-				.body(csv.toString());
+				.header(HttpHeaders.CONTENT_TYPE, gzip ? "application/gzip" : format.getContentType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+				.body(body);
+	}
+
+	/**
+	 * Exporta logs como CSV
+	 */
+	@GetMapping("/export/csv")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Exporta logs como CSV")
+	@LogExecution(operation = "EXPORT_LOGS_CSV")
+	public ResponseEntity<StreamingResponseBody> exportLogsAsCsv(
+			@Parameter(description = "Fecha de inicio") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+			@Parameter(description = "Fecha de fin") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+			@Parameter(description = "Nivel de log") @RequestParam(required = false) LogLevel level) {
+
+		return exportLogs(start, end, level, null, LogExporter.Format.CSV, false);
 	}
-}
+}
\ No newline at end of file
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.arojas.jce_consulta_api.dto.PaymentOrderDto;
 import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.dto.response.PaginatedResponse;
 import com.arojas.jce_consulta_api.service.PaymentService;
 import com.arojas.jce_consulta_api.service.PaymentService.PaymentStatsDto;
@@ -95,6 +96,23 @@ public class PaymentController {
 				ApiResponse.success(paginatedResponse, "Historial de pagos obtenido exitosamente"));
 	}
 
+	@Operation(summary = "Historial de pagos por cursor", description = "Historial sin COUNT por página; usar nextCursor para continuar")
+	@GetMapping("/history/scroll")
+	public ResponseEntity<ApiResponse<CursorPage<PaymentOrderDto>>> scrollPaymentHistory(
+			@Parameter(description = "Cursor de continuación (vacío para la primera página)") @RequestParam(required = false) String cursor,
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+			@Parameter(description = "Incluir total de elementos") @RequestParam(defaultValue = "false") boolean includeTotal,
+			Authentication authentication) {
+
+		log.info("Scrolling payment history for user: {}", authentication.getName());
+
+		CursorPage<PaymentOrderDto> history = paymentService.scrollUserPaymentHistory(
+				authentication.getName(), cursor, size, includeTotal);
+
+		return ResponseEntity.ok(
+				ApiResponse.success(history, "Historial de pagos obtenido exitosamente"));
+	}
+
 	@Operation(summary = "Obtener orden de pago por ID", description = "Obtiene los detalles de una orden de pago específica")
 	@GetMapping("/{paymentId}")
 	public ResponseEntity<ApiResponse<PaymentOrderDto>> getPaymentOrder(
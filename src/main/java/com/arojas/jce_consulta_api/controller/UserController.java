@@ -22,6 +22,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.arojas.jce_consulta_api.dto.UserDto;
 import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.dto.response.PaginatedResponse;
 import com.arojas.jce_consulta_api.service.UserService;
 
@@ -264,6 +265,21 @@ public class UserController {
 		}
 	}
 
+	@Operation(summary = "Listar usuarios por cursor (Admin)", description = "Listado ordenado por nombre sin COUNT por página; usar nextCursor para continuar")
+	@GetMapping("/scroll")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<ApiResponse<CursorPage<UserDto>>> scrollUsers(
+			@Parameter(description = "Cursor de continuación (vacío para la primera página)") @RequestParam(required = false) String cursor,
+			@Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+			@Parameter(description = "Incluir total de elementos") @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+		log.info("Listando usuarios por cursor - tamaño: {}", size);
+
+		CursorPage<UserDto> users = userService.scrollUsers(cursor, size, includeTotal);
+
+		return ResponseEntity.ok(ApiResponse.success(users, "Usuarios obtenidos exitosamente"));
+	}
+
 	@Operation(summary = "Buscar usuarios (Admin)", description = "Busca usuarios por nombre o email")
 	@GetMapping("/search")
 	@PreAuthorize("hasRole('ADMIN')")
@@ -0,0 +1,43 @@
+package com.arojas.jce_consulta_api.dto.response;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de resultados con paginación por cursor (keyset). No ejecuta
+ * COUNT: {@code totalElements} solo se informa si se pidió.
+ *
+ * @param <T> Tipo del contenido de la lista
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+	private List<T> content;
+	private int size;
+	private boolean hasNext;
+	private String nextCursor;
+	private Long totalElements;
+
+	/**
+	 * Arma la página a partir de hasta {@code size + 1} filas: la fila extra
+	 * solo indica que hay más resultados
+	 */
+	public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, String> cursorOf,
+			Function<E, T> mapper) {
+		boolean hasNext = rows.size() > size;
+		List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+		String nextCursor = hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+		return new CursorPage<>(pageRows.stream().map(mapper).toList(), size, hasNext, nextCursor, null);
+	}
+}
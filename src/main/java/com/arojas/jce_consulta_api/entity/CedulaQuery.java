@@ -19,6 +19,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -33,7 +34,9 @@ import lombok.Data;
  */
 
 @Entity
-@Table(name = "cedula_queries")
+@Table(name = "cedula_queries", indexes = {
+		@Index(name = "idx_cedula_query_user_date_id", columnList = "user_id, query_date, id")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -6,10 +6,12 @@ import java.util.Map;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import com.arojas.jce_consulta_api.service.logging.CompressedTextConverter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,9 +19,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
-import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -40,7 +42,9 @@ import lombok.NoArgsConstructor;
 		@Index(name = "idx_log_user_timestamp", columnList = "user_email, timestamp"),
 		@Index(name = "idx_log_source_timestamp", columnList = "source, timestamp"),
 		@Index(name = "idx_log_correlation_id", columnList = "correlation_id"),
-		@Index(name = "idx_log_session_id", columnList = "session_id")
+		@Index(name = "idx_log_session_id", columnList = "session_id"),
+		@Index(name = "idx_log_timestamp_id", columnList = "timestamp, id"),
+		@Index(name = "idx_log_error_fingerprint", columnList = "error_fingerprint_id, timestamp")
 })
 @Data
 @AllArgsConstructor
@@ -50,6 +54,8 @@ import lombok.NoArgsConstructor;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class LogEntry {
 
+	// En MySQL la PK física es (id, timestamp) por el particionado diario
+	// (LogPartitionManager); id sigue siendo único por AUTO_INCREMENT
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
@@ -105,16 +111,25 @@ public class LogEntry {
 	@Column(name = "execution_time_ms")
 	private Long executionTimeMs; // Tiempo de ejecución en ms
 
-	@Lob
-	@Column(name = "stack_trace", columnDefinition = "TEXT")
+	// Solo se guarda en la fila si no se pudo resolver la huella; en otro
+	// caso vive una vez en error_fingerprints. Las columnas grandes se
+	// comprimen con LZ4 por encima de un umbral (LogPayloadCodec)
+	@Convert(converter = CompressedTextConverter.class)
+	@Column(name = "stack_trace", columnDefinition = "MEDIUMBLOB")
 	private String stackTrace;
 
-	@Lob
-	@Column(name = "request_payload", columnDefinition = "TEXT")
+	@Column(name = "error_fingerprint_id")
+	private Long errorFingerprintId;
+
+	@Transient
+	private String errorFingerprint; // Huella calculada al registrar la excepción
+
+	@Convert(converter = CompressedTextConverter.class)
+	@Column(name = "request_payload", columnDefinition = "MEDIUMBLOB")
 	private String requestPayload; // Payload del request (sanitizado)
 
-	@Lob
-	@Column(name = "response_payload", columnDefinition = "TEXT")
+	@Convert(converter = CompressedTextConverter.class)
+	@Column(name = "response_payload", columnDefinition = "MEDIUMBLOB")
 	private String responsePayload; // Response (sanitizado)
 
 	// Contexto adicional como JSON
@@ -14,9 +14,11 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,10 +26,16 @@ import lombok.Data;
 /**
  *
  * @author arojas
+ *         * El valor del token nunca se persiste: solo se guarda su hash SHA-256
+ *         (32 bytes) en una columna indexada de longitud fija.
  */
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+		@Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+		@Index(name = "idx_refresh_token_expires_at", columnList = "expires_at"),
+		@Index(name = "idx_refresh_token_user", columnList = "user_id")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -38,7 +46,11 @@ public class RefreshToken {
 	@Column(name = "id", columnDefinition = "VARCHAR(36)")
 	private String id = UUID.randomUUID().toString();
 
-	@Column(name = "token", nullable = false, unique = true, columnDefinition = "TEXT")
+	@Column(name = "token_hash", nullable = false, columnDefinition = "BINARY(32)")
+	private byte[] tokenHash;
+
+	/** Valor en claro, solo disponible en memoria al emitir el token */
+	@Transient
 	private String token;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -61,9 +73,10 @@ public class RefreshToken {
 		this.id = UUID.randomUUID().toString();
 	}
 
-	public RefreshToken(String token, User user, LocalDateTime expiryDate) {
+	public RefreshToken(String token, byte[] tokenHash, User user, LocalDateTime expiryDate) {
 		this();
 		this.token = token;
+		this.tokenHash = tokenHash;
 		this.user = user;
 		this.expiryDate = expiryDate;
 	}
@@ -85,6 +98,14 @@ public class RefreshToken {
 		this.token = token;
 	}
 
+	public byte[] getTokenHash() {
+		return tokenHash;
+	}
+
+	public void setTokenHash(byte[] tokenHash) {
+		this.tokenHash = tokenHash;
+	}
+
 	public User getUser() {
 		return user;
 	}
@@ -0,0 +1,27 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.auth;
+
+/**
+ *
+ * @author arojas
+ *         * Se lanza cuando el sistema de autenticación rechaza una solicitud
+ *         por saturación (cola de hashing llena o límite por IP excedido)
+ *         * Se traduce a HTTP 429 con cabecera Retry-After
+ */
+public class AuthenticationThrottledException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public AuthenticationThrottledException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
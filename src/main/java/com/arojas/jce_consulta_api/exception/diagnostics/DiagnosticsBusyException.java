@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * Límite de grabaciones simultáneas alcanzado o histograma/volcado
+ *         ya en curso
+ *         * Se traduce a HTTP 429
+ */
+public class DiagnosticsBusyException extends DiagnosticsException {
+
+	public DiagnosticsBusyException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * Excepción base del diagnóstico de la JVM (JFR, heap e hilos)
+ *         * Cada subclase se traduce a su estado HTTP en
+ *         DiagnosticsExceptionHandler
+ */
+public abstract class DiagnosticsException extends RuntimeException {
+
+	protected DiagnosticsException(String message) {
+		super(message);
+	}
+
+	protected DiagnosticsException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * Fallo al preparar una grabación o ejecutar un diagnóstico
+ *         * Se traduce a HTTP 500
+ */
+public class DiagnosticsFailedException extends DiagnosticsException {
+
+	public DiagnosticsFailedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * Diagnóstico deshabilitado o JFR no disponible en esta JVM
+ *         * Se traduce a HTTP 503
+ */
+public class DiagnosticsUnavailableException extends DiagnosticsException {
+
+	public DiagnosticsUnavailableException(String message) {
+		super(message);
+	}
+}
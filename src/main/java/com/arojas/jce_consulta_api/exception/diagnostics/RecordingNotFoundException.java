@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * Grabación JFR bajo demanda inexistente o ya descartada
+ *         * Se traduce a HTTP 404
+ */
+public class RecordingNotFoundException extends DiagnosticsException {
+
+	public RecordingNotFoundException(long id) {
+		super("Grabación JFR no encontrada: " + id);
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.diagnostics;
+
+/**
+ *
+ * @author arojas
+ *         * La grabación pedida aún no se puede descargar: sigue en curso o
+ *         la continua no está activa
+ *         * Se traduce a HTTP 409
+ */
+public class RecordingNotReadyException extends DiagnosticsException {
+
+	public RecordingNotReadyException(String message) {
+		super(message);
+	}
+}
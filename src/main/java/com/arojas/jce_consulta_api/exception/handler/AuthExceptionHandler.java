@@ -0,0 +1,36 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.handler;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.exception.auth.AuthenticationThrottledException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         Manejador de excepciones de autenticación
+ */
+
+@ControllerAdvice
+@Slf4j
+public class AuthExceptionHandler {
+
+	@ExceptionHandler(AuthenticationThrottledException.class)
+	public ResponseEntity<ApiResponse<Object>> handleAuthenticationThrottled(AuthenticationThrottledException ex) {
+		log.warn("Authentication throttled: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS) // 429
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(ApiResponse.error("Demasiadas solicitudes de autenticación", ex.getMessage()));
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.handler;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsBusyException;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsFailedException;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsUnavailableException;
+import com.arojas.jce_consulta_api.exception.diagnostics.RecordingNotFoundException;
+import com.arojas.jce_consulta_api.exception.diagnostics.RecordingNotReadyException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         Manejador de excepciones del diagnóstico de la JVM
+ */
+
+@ControllerAdvice
+@Slf4j
+public class DiagnosticsExceptionHandler {
+
+	@ExceptionHandler(DiagnosticsUnavailableException.class)
+	public ResponseEntity<ApiResponse<Object>> handleUnavailable(DiagnosticsUnavailableException ex) {
+		log.warn("Diagnostics unavailable: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) // 503
+				.body(ApiResponse.error("Diagnóstico no disponible", ex.getMessage()));
+	}
+
+	@ExceptionHandler(DiagnosticsBusyException.class)
+	public ResponseEntity<ApiResponse<Object>> handleBusy(DiagnosticsBusyException ex) {
+		log.warn("Diagnostics busy: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS) // 429
+				.body(ApiResponse.error("Diagnóstico en curso", ex.getMessage()));
+	}
+
+	@ExceptionHandler(RecordingNotFoundException.class)
+	public ResponseEntity<ApiResponse<Object>> handleRecordingNotFound(RecordingNotFoundException ex) {
+		log.warn("JFR recording not found: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+				.body(ApiResponse.error("Grabación no encontrada", ex.getMessage()));
+	}
+
+	@ExceptionHandler(RecordingNotReadyException.class)
+	public ResponseEntity<ApiResponse<Object>> handleRecordingNotReady(RecordingNotReadyException ex) {
+		log.warn("JFR recording not ready: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.CONFLICT) // 409
+				.body(ApiResponse.error("Grabación no disponible", ex.getMessage()));
+	}
+
+	@ExceptionHandler(DiagnosticsFailedException.class)
+	public ResponseEntity<ApiResponse<Object>> handleFailed(DiagnosticsFailedException ex) {
+		log.error("Diagnostics failed: {}", ex.getMessage(), ex);
+		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+				.body(ApiResponse.error("Error ejecutando el diagnóstico", ex.getMessage()));
+	}
+}
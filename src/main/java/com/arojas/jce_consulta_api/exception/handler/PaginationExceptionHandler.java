@@ -0,0 +1,42 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.handler;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.arojas.jce_consulta_api.exception.pagination.InvalidCursorException;
+import com.arojas.jce_consulta_api.exception.pagination.InvalidTimeRangeException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         Manejador de excepciones de paginación
+ */
+
+@ControllerAdvice
+@Slf4j
+public class PaginationExceptionHandler {
+
+	@ExceptionHandler(InvalidCursorException.class)
+	public ResponseEntity<ApiResponse<Object>> handleInvalidCursor(InvalidCursorException ex) {
+		log.warn("Invalid pagination cursor: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(ApiResponse.error("Cursor de paginación inválido", ex.getMessage()));
+	}
+
+	@ExceptionHandler(InvalidTimeRangeException.class)
+	public ResponseEntity<ApiResponse<Object>> handleInvalidTimeRange(InvalidTimeRangeException ex) {
+		log.warn("Invalid time range: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(ApiResponse.error("Rango de fechas inválido", ex.getMessage()));
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.exception.pagination;
+
+/**
+ *
+ * @author arojas
+ *         * Se lanza cuando el inicio de un rango de búsqueda es posterior a
+ *         su fin
+ *         * Se traduce a HTTP 400
+ */
+public class InvalidTimeRangeException extends RuntimeException {
+
+	public InvalidTimeRangeException(String message) {
+		super(message);
+	}
+}
@@ -6,12 +6,11 @@
 package com.arojas.jce_consulta_api.filter;
 
 import java.io.IOException;
-import java.util.UUID;
 
-import org.slf4j.MDC;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StopWatch;
+import org.springframework.web.servlet.HandlerMapping;
 
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.service.DbLoggerService;
@@ -29,6 +28,9 @@ import lombok.RequiredArgsConstructor;
  *
  * @author arojas
  *         * Filtro para logging automático de requests HTTP
+ *         * Además de la URI concreta guarda la ruta mapeada (patrón del
+ *         handler, p. ej. /api/v1/settings/features/{featureId}) en "route", que es la
+ *         que agrupan las métricas por endpoint
  *
  */
 
@@ -37,6 +39,9 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LoggingFilter implements Filter {
 
+	/** Requests sin handler (404, rechazados antes del DispatcherServlet) */
+	private static final String UNMATCHED_ROUTE = "UNMATCHED";
+
 	private final DbLoggerService dbLoggerService;
 
 	@Override
@@ -49,18 +54,7 @@ public class LoggingFilter implements Filter {
 			return;
 		}
 
-		// Setup MDC for request tracking
-		String correlationId = httpRequest.getHeader("X-Correlation-ID");
-		if (correlationId == null) {
-			correlationId = UUID.randomUUID().toString().substring(0, 8);
-		}
-
-		String requestId = UUID.randomUUID().toString().substring(0, 8);
-
-		MDC.put("correlationId", correlationId);
-		MDC.put("requestId", requestId);
-		MDC.put("userEmail", httpRequest.getRemoteUser());
-
+		// El contexto de traza (MDC) lo prepara TracingFilter
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
 
@@ -76,10 +70,6 @@ public class LoggingFilter implements Filter {
 			// Log failed request
 			logRequest(httpRequest, httpResponse, stopWatch.getTotalTimeMillis(), e);
 			throw e;
-
-		} finally {
-			// Clear MDC
-			MDC.clear();
 		}
 	}
 
@@ -88,22 +78,25 @@ public class LoggingFilter implements Filter {
 
 		String uri = request.getRequestURI();
 		String method = request.getMethod();
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String route = pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
 		int statusCode = response.getStatus();
 
 		LogLevel level = exception != null ? LogLevel.ERROR
 				: statusCode >= 500 ? LogLevel.ERROR : statusCode >= 400 ? LogLevel.WARN : LogLevel.INFO;
 
-		String message = String.format("%s %s - %d", method, uri, statusCode);
+		DbLoggerService.LogBuilder builder = dbLoggerService.log(level, "HTTP_REQUEST");
+		if (!builder.isEnabled()) {
+			return;
+		}
 
-		dbLoggerService.log()
-				.level(level)
-				.source("HTTP_REQUEST")
-				.operation(method + " " + uri)
-				.message(message)
+		builder.operation(method + " " + uri)
+				.message(method + " " + uri + " - " + statusCode)
 				.executionTime(executionTime)
 				.withRequest(request)
 				.context("httpMethod", method)
 				.context("uri", uri)
+				.context("route", route)
 				.context("statusCode", statusCode)
 				.context("queryString", request.getQueryString())
 				.context("contentType", request.getContentType())
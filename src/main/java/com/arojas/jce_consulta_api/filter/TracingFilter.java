@@ -0,0 +1,72 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.filter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.arojas.jce_consulta_api.util.TraceContext;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ *
+ * @author arojas
+ *         * Único punto donde se crea el contexto de traza del request:
+ *         correlationId (del header X-Correlation-ID o nuevo), requestId y
+ *         sessionId en el MDC, y los headers de respuesta
+ *         * Corre antes de la cadena de seguridad; los demás filtros solo
+ *         leen o agregan claves
+ *         * Al terminar restaura el MDC anterior en lugar de vaciarlo; eso
+ *         también retira las claves de usuario que agrega
+ *         JwtAuthenticationFilter, que deben seguir presentes cuando
+ *         LoggingFilter registra la petición
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+
+		Map<String, String> previous = MDC.getCopyOfContextMap();
+
+		String correlationId = TraceContext.idOrNew(request.getHeader(TraceContext.CORRELATION_HEADER));
+		String requestId = TraceContext.newId();
+
+		MDC.put(TraceContext.CORRELATION_ID, correlationId);
+		MDC.put(TraceContext.REQUEST_ID, requestId);
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			MDC.put(TraceContext.SESSION_ID, session.getId());
+		}
+
+		response.setHeader(TraceContext.CORRELATION_HEADER, correlationId);
+		response.setHeader(TraceContext.REQUEST_HEADER, requestId);
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (previous == null) {
+				MDC.clear();
+			} else {
+				MDC.setContextMap(previous);
+			}
+		}
+	}
+}
@@ -27,6 +27,17 @@ public interface CedulaQueryRepository extends JpaRepository<CedulaQuery, String
 
 	Page<CedulaQuery> findByUserIdOrderByQueryDateDesc(String userId, Pageable pageable);
 
+	/** Primera página por cursor (sin COUNT); el límite lo fija el Pageable */
+	@Query("SELECT cq FROM CedulaQuery cq WHERE cq.user.id = :userId ORDER BY cq.queryDate DESC, cq.id DESC")
+	List<CedulaQuery> findHistoryFirstPage(@Param("userId") String userId, Pageable pageable);
+
+	/** Página siguiente por cursor: filas estrictamente posteriores a (queryDate, id) */
+	@Query("SELECT cq FROM CedulaQuery cq WHERE cq.user.id = :userId "
+			+ "AND (cq.queryDate < :queryDate OR (cq.queryDate = :queryDate AND cq.id < :id)) "
+			+ "ORDER BY cq.queryDate DESC, cq.id DESC")
+	List<CedulaQuery> findHistoryAfter(@Param("userId") String userId, @Param("queryDate") LocalDateTime queryDate,
+			@Param("id") String id, Pageable pageable);
+
 	Optional<CedulaQuery> findByCedulaAndUserId(String cedula, String userId);
 
 	/** Consultas completadas de un usuario después de una fecha */
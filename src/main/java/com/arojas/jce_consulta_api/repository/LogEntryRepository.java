@@ -12,7 +12,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
 import com.arojas.jce_consulta_api.entity.LogEntry;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 
@@ -24,7 +26,7 @@ import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
  */
 @Repository
 public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
-		JpaSpecificationExecutor<LogEntry> {
+		JpaSpecificationExecutor<LogEntry>, LogEntrySearchRepository {
 
 	// ============= CONSULTAS BÁSICAS =============
 
@@ -70,15 +72,20 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 	// ============= CONSULTAS DE RENDIMIENTO =============
 
 	/**
-	 * Buscar operaciones lentas (tiempo de ejecución mayor al especificado)
+	 * Buscar operaciones lentas (tiempo de ejecución mayor al especificado).
+	 * El límite temporal permite podar particiones.
 	 */
 	@Query("""
 			SELECT l FROM LogEntry l
 			WHERE l.executionTimeMs > :thresholdMs
 			AND l.executionTimeMs IS NOT NULL
+			AND l.timestamp >= :since
 			ORDER BY l.executionTimeMs DESC
 			""")
-	Page<LogEntry> findSlowOperations(@Param("thresholdMs") Long thresholdMs, Pageable pageable);
+	Page<LogEntry> findSlowOperations(
+			@Param("thresholdMs") Long thresholdMs,
+			@Param("since") LocalDateTime since,
+			Pageable pageable);
 
 	/**
 	 * Obtener estadísticas de rendimiento por operación
@@ -127,52 +134,23 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 			@Param("end") LocalDateTime end);
 
 	/**
-	 * Buscar errores recurrentes (mismo mensaje de error)
+	 * Ocurrencias de un error del catálogo (índice error_fingerprint_id,
+	 * timestamp)
 	 */
 	@Query("""
-			SELECT l.message, l.source, COUNT(l) as occurrences,
-			       MIN(l.timestamp) as firstOccurrence,
-			       MAX(l.timestamp) as lastOccurrence
-			FROM LogEntry l
-			WHERE l.level IN ('ERROR', 'FATAL')
+			SELECT l FROM LogEntry l
+			WHERE l.errorFingerprintId = :fingerprintId
 			AND l.timestamp >= :since
-			GROUP BY l.message, l.source
-			HAVING COUNT(l) > :minOccurrences
-			ORDER BY occurrences DESC
+			ORDER BY l.timestamp DESC
 			""")
-	List<Object[]> findRecurringErrors(
+	Page<LogEntry> findByErrorFingerprint(
+			@Param("fingerprintId") Long fingerprintId,
 			@Param("since") LocalDateTime since,
-			@Param("minOccurrences") Long minOccurrences);
+			Pageable pageable);
 
 	// ============= CONSULTAS AVANZADAS =============
 
-	/**
-	 * Búsqueda completa y flexible
-	 */
-	@Query("""
-			SELECT l FROM LogEntry l
-			WHERE (:level IS NULL OR l.level = :level)
-			  AND (:userEmail IS NULL OR l.userEmail = :userEmail)
-			  AND (:source IS NULL OR LOWER(l.source) LIKE LOWER(CONCAT('%', :source, '%')))
-			  AND (:operation IS NULL OR LOWER(l.operation) LIKE LOWER(CONCAT('%', :operation, '%')))
-			  AND (:start IS NULL OR l.timestamp >= :start)
-			  AND (:end IS NULL OR l.timestamp <= :end)
-			  AND (:correlationId IS NULL OR l.correlationId = :correlationId)
-			  AND (:sessionId IS NULL OR l.sessionId = :sessionId)
-			  AND (:archived IS NULL OR l.archived = :archived)
-			ORDER BY l.timestamp DESC
-			""")
-	Page<LogEntry> searchLogs(
-			@Param("level") LogLevel level,
-			@Param("userEmail") String userEmail,
-			@Param("source") String source,
-			@Param("operation") String operation,
-			@Param("start") LocalDateTime start,
-			@Param("end") LocalDateTime end,
-			@Param("correlationId") String correlationId,
-			@Param("sessionId") String sessionId,
-			@Param("archived") Boolean archived,
-			Pageable pageable);
+	// Búsqueda con filtros: LogEntrySpecifications + LogEntrySearchRepository
 
 	/**
 	 * Búsqueda de texto completo en mensaje y stack trace (case-insensitive con
@@ -180,14 +158,14 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 	 */
 	@Query(value = """
 			SELECT * FROM application_logs l
-			WHERE (UPPER(CAST(l.message AS VARCHAR(4000))) LIKE UPPER(CONCAT('%', :searchText, '%'))
-			   OR UPPER(CAST(l.stack_trace AS VARCHAR(4000))) LIKE UPPER(CONCAT('%', :searchText, '%')))
+			WHERE (l.message LIKE CONCAT('%', :searchText, '%')
+			   OR l.stack_trace LIKE CONCAT('%', :searchText, '%'))
 			AND l.timestamp >= :since
 			ORDER BY l.timestamp DESC
 			""", nativeQuery = true, countQuery = """
 				SELECT COUNT(*) FROM application_logs l
-				WHERE (UPPER(CAST(l.message AS VARCHAR(4000))) LIKE UPPER(CONCAT('%', :searchText, '%'))
-				   OR UPPER(CAST(l.stack_trace AS VARCHAR(4000))) LIKE UPPER(CONCAT('%', :searchText, '%')))
+				WHERE (l.message LIKE CONCAT('%', :searchText, '%')
+				   OR l.stack_trace LIKE CONCAT('%', :searchText, '%'))
 				AND l.timestamp >= :since
 			""")
 	Page<LogEntry> fullTextSearch(
@@ -195,6 +173,30 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 			@Param("since") LocalDateTime since,
 			Pageable pageable);
 
+	/**
+	 * Texto completo sobre las filas marcadas como archivadas (sin
+	 * particionado siguen en la tabla, fuera del índice invertido)
+	 */
+	@Query(value = """
+			SELECT * FROM application_logs l
+			WHERE l.archived = true
+			AND (l.message LIKE CONCAT('%', :searchText, '%')
+			   OR l.stack_trace LIKE CONCAT('%', :searchText, '%'))
+			AND l.timestamp BETWEEN :since AND :until
+			ORDER BY l.timestamp DESC
+			""", nativeQuery = true, countQuery = """
+				SELECT COUNT(*) FROM application_logs l
+				WHERE l.archived = true
+				AND (l.message LIKE CONCAT('%', :searchText, '%')
+				   OR l.stack_trace LIKE CONCAT('%', :searchText, '%'))
+				AND l.timestamp BETWEEN :since AND :until
+			""")
+	Page<LogEntry> fullTextSearchArchived(
+			@Param("searchText") String searchText,
+			@Param("since") LocalDateTime since,
+			@Param("until") LocalDateTime until,
+			Pageable pageable);
+
 	// ============= CONSULTAS DE ESTADÍSTICAS =============
 
 	/**
@@ -211,6 +213,63 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 			@Param("start") LocalDateTime start,
 			@Param("end") LocalDateTime end);
 
+	/**
+	 * Latencia por endpoint de HTTP_REQUEST: [httpMethod, route, requests,
+	 * p50, p95, avg]. Agrupa por la ruta mapeada (patrón del handler) y usa
+	 * las columnas generadas route/http_method/sample_rate (LogHotColumns),
+	 * sin leer el JSON de contexto. Cada fila pesa 1/sampleRate: los
+	 * percentiles salen de la suma acumulada de pesos, igual que los conteos.
+	 */
+	@Query(value = """
+			SELECT t.http_method, t.route, SUM(t.weight) AS requests,
+			       MIN(CASE WHEN t.cumulative_weight >= 0.5 * t.total_weight THEN t.execution_time_ms END) AS p50,
+			       MIN(CASE WHEN t.cumulative_weight >= 0.95 * t.total_weight THEN t.execution_time_ms END) AS p95,
+			       SUM(t.weight * t.execution_time_ms) / SUM(t.weight) AS avg_ms
+			FROM (
+			    SELECT w.http_method, w.route, w.execution_time_ms, w.weight,
+			           SUM(w.weight) OVER (PARTITION BY w.http_method, w.route ORDER BY w.execution_time_ms)
+			               AS cumulative_weight,
+			           SUM(w.weight) OVER (PARTITION BY w.http_method, w.route) AS total_weight
+			    FROM (
+			        SELECT l.http_method, l.route, l.execution_time_ms,
+			               CASE WHEN l.sample_rate > 0 THEN GREATEST(1, ROUND(1 / l.sample_rate)) ELSE 1 END AS weight
+			        FROM application_logs l
+			        WHERE l.source = 'HTTP_REQUEST'
+			        AND l.timestamp BETWEEN :start AND :end
+			        AND l.route IS NOT NULL
+			        AND l.execution_time_ms IS NOT NULL
+			    ) w
+			) t
+			GROUP BY t.http_method, t.route
+			HAVING SUM(t.weight) >= :minRequests
+			ORDER BY p95 DESC
+			LIMIT :limit
+			""", nativeQuery = true)
+	List<Object[]> getEndpointLatency(
+			@Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end,
+			@Param("minRequests") long minRequests,
+			@Param("limit") int limit);
+
+	/**
+	 * Respuestas por clase de estado (2xx, 4xx, 5xx...): [statusClass,
+	 * count]. Filtra por el índice (status_code, timestamp); cada fila pesa
+	 * 1/sampleRate (columna generada sample_rate) para contar también las
+	 * respuestas muestreadas.
+	 */
+	@Query(value = """
+			SELECT FLOOR(l.status_code / 100) AS status_class,
+			       SUM(CASE WHEN l.sample_rate > 0 THEN GREATEST(1, ROUND(1 / l.sample_rate)) ELSE 1 END) AS total
+			FROM application_logs l
+			WHERE l.status_code IS NOT NULL
+			AND l.timestamp BETWEEN :start AND :end
+			GROUP BY status_class
+			ORDER BY status_class
+			""", nativeQuery = true)
+	List<Object[]> countByStatusClass(
+			@Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
 	/**
 	 * Obtener actividad por usuario en un período
 	 */
@@ -243,8 +302,9 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 	// ============= CONSULTAS DE MANTENIMIENTO =============
 
 	/**
-	 * Archivar logs antiguos
+	 * Archivar logs antiguos (solo sin particionado)
 	 */
+	@Transactional(LoggingDataSourceConfig.TRANSACTION_MANAGER)
 	@Modifying
 	@Query("""
 			UPDATE LogEntry l
@@ -255,8 +315,9 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 	int archiveOldLogs(@Param("archiveDate") LocalDateTime archiveDate);
 
 	/**
-	 * Eliminar logs archivados antiguos
+	 * Eliminar logs archivados antiguos (solo sin particionado)
 	 */
+	@Transactional(LoggingDataSourceConfig.TRANSACTION_MANAGER)
 	@Modifying
 	@Query("""
 			DELETE FROM LogEntry l
@@ -299,19 +360,4 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>,
 			WHERE l.timestamp >= :since
 			""")
 	List<Object[]> getDashboardSummary(@Param("since") LocalDateTime since);
-
-	/**
-	 * Obtener tendencia de logs por hora
-	 */
-	@Query(value = """
-			SELECT
-			    DATE_TRUNC('hour', timestamp) as hour,
-			    level,
-			    COUNT(*) as count
-			FROM application_logs
-			WHERE timestamp >= :since
-			GROUP BY DATE_TRUNC('hour', timestamp), level
-			ORDER BY hour DESC
-			""", nativeQuery = true)
-	List<Object[]> getLogTrendByHour(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.arojas.jce_consulta_api.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+/**
+ * Fragmento de {@link LogEntryRepository} para búsquedas con
+ * {@link Specification} que fijan el índice inicial del plan (USE INDEX en
+ * MySQL)
+ *
+ * @author arojas
+ */
+public interface LogEntrySearchRepository {
+
+	/**
+	 * Página ordenada por timestamp descendente
+	 *
+	 * @param index índice sugerido o null para dejar decidir al optimizador
+	 */
+	Page<LogEntry> search(Specification<LogEntry> spec, String index, Pageable pageable);
+
+	/**
+	 * Primeras {@code limit} filas ordenadas por (timestamp, id)
+	 * descendente, sin COUNT
+	 */
+	List<LogEntry> scroll(Specification<LogEntry> spec, String index, int limit);
+}
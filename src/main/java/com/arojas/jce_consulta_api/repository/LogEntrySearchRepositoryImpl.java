@@ -0,0 +1,79 @@
+package com.arojas.jce_consulta_api.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Implementación del fragmento de búsqueda. El índice se pasa a Hibernate
+ * como query hint, que el dialecto de MySQL traduce a
+ * {@code USE INDEX (...)}.
+ *
+ * @author arojas
+ */
+public class LogEntrySearchRepositoryImpl implements LogEntrySearchRepository {
+
+	@PersistenceContext(unitName = "logging")
+	private EntityManager entityManager;
+
+	@Value("${app.logging.search.index-hints:true}")
+	private boolean indexHints;
+
+	@Override
+	public Page<LogEntry> search(Specification<LogEntry> spec, String index, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LogEntry> query = cb.createQuery(LogEntry.class);
+		Root<LogEntry> root = query.from(LogEntry.class);
+		query.where(spec.toPredicate(root, query, cb));
+		query.orderBy(cb.desc(root.get("timestamp")));
+
+		TypedQuery<LogEntry> typedQuery = hinted(entityManager.createQuery(query), index);
+		if (pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+
+		return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec, index));
+	}
+
+	@Override
+	public List<LogEntry> scroll(Specification<LogEntry> spec, String index, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LogEntry> query = cb.createQuery(LogEntry.class);
+		Root<LogEntry> root = query.from(LogEntry.class);
+		query.where(spec.toPredicate(root, query, cb));
+		query.orderBy(cb.desc(root.get("timestamp")), cb.desc(root.get("id")));
+
+		return hinted(entityManager.createQuery(query), index)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	private long count(Specification<LogEntry> spec, String index) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<LogEntry> root = query.from(LogEntry.class);
+		query.select(cb.count(root)).where(spec.toPredicate(root, query, cb));
+		return hinted(entityManager.createQuery(query), index).getSingleResult();
+	}
+
+	private <T> TypedQuery<T> hinted(TypedQuery<T> query, String index) {
+		if (indexHints && index != null) {
+			query.unwrap(org.hibernate.query.Query.class).addQueryHint(index);
+		}
+		return query;
+	}
+}
@@ -0,0 +1,143 @@
+package com.arojas.jce_consulta_api.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+
+/**
+ * Predicados de búsqueda de logs. Solo se agregan los filtros informados y
+ * todos son comparables con los índices de application_logs: igualdad o
+ * prefijo ({@code valor%}), nunca {@code LOWER(...)} ni {@code %valor%}
+ * salvo que el usuario lo pida con un comodín inicial.
+ *
+ * @author arojas
+ */
+public final class LogEntrySpecifications {
+
+	public static final String IDX_CORRELATION = "idx_log_correlation_id";
+	public static final String IDX_SESSION = "idx_log_session_id";
+	public static final String IDX_USER = "idx_log_user_timestamp";
+	public static final String IDX_SOURCE = "idx_log_source_timestamp";
+	public static final String IDX_LEVEL = "idx_log_level_timestamp";
+	public static final String IDX_TIMESTAMP = "idx_log_timestamp_id";
+
+	private static final char WILDCARD = '*';
+	private static final char ESCAPE = '\\';
+
+	private LogEntrySpecifications() {
+	}
+
+	/**
+	 * Filtros de búsqueda; los nulos o vacíos no generan predicado. El rango
+	 * de fechas es obligatorio para que MySQL pode particiones.
+	 *
+	 * <p>
+	 * {@code source} y {@code operation} admiten el comodín {@code *}: sin
+	 * comodín se busca por prefijo; con {@code *} inicial la búsqueda deja de
+	 * usar índice.
+	 */
+	public record Criteria(LogLevel level, String userEmail, String source, String operation,
+			LocalDateTime start, LocalDateTime end, String correlationId, String sessionId, Boolean archived) {
+	}
+
+	public static Specification<LogEntry> of(Criteria criteria) {
+		Specification<LogEntry> spec = timestampBetween(criteria.start(), criteria.end());
+		if (hasText(criteria.correlationId())) {
+			spec = spec.and(equal("correlationId", criteria.correlationId()));
+		}
+		if (hasText(criteria.sessionId())) {
+			spec = spec.and(equal("sessionId", criteria.sessionId()));
+		}
+		if (hasText(criteria.userEmail())) {
+			spec = spec.and(equal("userEmail", criteria.userEmail()));
+		}
+		if (hasText(criteria.source())) {
+			spec = spec.and(matches("source", criteria.source()));
+		}
+		if (hasText(criteria.operation())) {
+			spec = spec.and(matches("operation", criteria.operation()));
+		}
+		if (criteria.level() != null) {
+			spec = spec.and(equal("level", criteria.level()));
+		}
+		if (criteria.archived() != null) {
+			spec = spec.and(equal("archived", criteria.archived()));
+		}
+		return spec;
+	}
+
+	/**
+	 * Posición estrictamente anterior a (timestamp, id) en orden descendente
+	 */
+	public static Specification<LogEntry> before(LocalDateTime cursorTimestamp, long cursorId) {
+		return (root, query, cb) -> cb.or(
+				cb.lessThan(root.get("timestamp"), cursorTimestamp),
+				cb.and(cb.equal(root.get("timestamp"), cursorTimestamp), cb.lessThan(root.get("id"), cursorId)));
+	}
+
+	/**
+	 * Índice que debe encabezar el plan, del filtro más selectivo al menos:
+	 * correlación y sesión identifican pocas filas, el usuario y la fuente
+	 * acotan por (columna, timestamp), y el nivel solo compensa para los
+	 * niveles poco frecuentes (WARN o superior). Sin ninguno de ellos, el
+	 * rango de fechas sobre (timestamp, id).
+	 */
+	public static String leadingIndex(Criteria criteria) {
+		if (hasText(criteria.correlationId())) {
+			return IDX_CORRELATION;
+		}
+		if (hasText(criteria.sessionId())) {
+			return IDX_SESSION;
+		}
+		if (hasText(criteria.userEmail())) {
+			return IDX_USER;
+		}
+		if (hasText(criteria.source()) && criteria.source().charAt(0) != WILDCARD) {
+			return IDX_SOURCE;
+		}
+		if (criteria.level() != null && criteria.level().isEqualOrHigherThan(LogLevel.WARN)) {
+			return IDX_LEVEL;
+		}
+		return IDX_TIMESTAMP;
+	}
+
+	private static Specification<LogEntry> timestampBetween(LocalDateTime start, LocalDateTime end) {
+		return (root, query, cb) -> cb.between(root.get("timestamp"), start, end);
+	}
+
+	private static Specification<LogEntry> equal(String attribute, Object value) {
+		return (root, query, cb) -> cb.equal(root.get(attribute), value);
+	}
+
+	/**
+	 * Sin comodines, LIKE por prefijo (rango sobre el índice); con comodines,
+	 * {@code *} se traduce a {@code %}. La colación de MySQL ya es insensible
+	 * a mayúsculas, así que no hace falta LOWER().
+	 */
+	private static Specification<LogEntry> matches(String attribute, String value) {
+		String trimmed = value.trim();
+		if (trimmed.indexOf(WILDCARD) < 0) {
+			return (root, query, cb) -> cb.like(root.get(attribute), escape(trimmed) + "%", ESCAPE);
+		}
+		String pattern = escape(trimmed).replace(WILDCARD, '%');
+		return (root, query, cb) -> cb.like(root.get(attribute), pattern, ESCAPE);
+	}
+
+	private static String escape(String value) {
+		StringBuilder escaped = new StringBuilder(value.length() + 4);
+		for (char c : value.toCharArray()) {
+			if (c == '%' || c == '_' || c == ESCAPE) {
+				escaped.append(ESCAPE);
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	private static boolean hasText(String value) {
+		return value != null && !value.isBlank();
+	}
+}
@@ -32,6 +32,17 @@ public interface PaymentOrderRepository extends JpaRepository<PaymentOrder, Stri
 
 	List<PaymentOrder> findByUserIdOrderByCreatedAtDesc(String userId);
 
+	/** Primera página por cursor (sin COUNT); el límite lo fija el Pageable */
+	@Query("SELECT po FROM PaymentOrder po WHERE po.user.id = :userId ORDER BY po.createdAt DESC, po.id DESC")
+	List<PaymentOrder> findHistoryFirstPage(@Param("userId") String userId, Pageable pageable);
+
+	/** Página siguiente por cursor: filas estrictamente posteriores a (createdAt, id) */
+	@Query("SELECT po FROM PaymentOrder po WHERE po.user.id = :userId "
+			+ "AND (po.createdAt < :createdAt OR (po.createdAt = :createdAt AND po.id < :id)) "
+			+ "ORDER BY po.createdAt DESC, po.id DESC")
+	List<PaymentOrder> findHistoryAfter(@Param("userId") String userId, @Param("createdAt") LocalDateTime createdAt,
+			@Param("id") String id, Pageable pageable);
+
 	Optional<PaymentOrder> findByExternalReference(String externalReference);
 
 	Optional<PaymentOrder> findByIdAndUserId(String id, String userId);
@@ -6,6 +6,7 @@
 package com.arojas.jce_consulta_api.repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,9 +14,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.arojas.jce_consulta_api.entity.RefreshToken;
-import com.arojas.jce_consulta_api.entity.User;
 
 /**
  *
@@ -24,24 +25,24 @@ import com.arojas.jce_consulta_api.entity.User;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
 
-	Optional<RefreshToken> findByToken(String token);
+	/** Búsqueda puntual por hash SHA-256 (índice único idx_refresh_token_hash) */
+	Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
 
-	boolean existsByTokenAndIsRevokedFalse(String token);
+	/** Hashes vigentes de un usuario, para invalidar su caché al revocar */
+	@Query("SELECT rt.tokenHash FROM RefreshToken rt WHERE rt.user.id = :userId")
+	List<byte[]> findTokenHashesByUserId(@Param("userId") String userId);
 
 	/** Eliminar todos los tokens de un usuario */
 	@Modifying
 	@Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
-	void deleteAllByUserId(@Param("userId") String userId);
+	int deleteAllByUserId(@Param("userId") String userId);
 
-	/** Eliminar tokens expirados o revocados */
+	/**
+	 * Elimina un lote de tokens expirados o revocados. Cada lote se ejecuta en
+	 * su propia transacción para no mantener bloqueos largos sobre la tabla.
+	 */
+	@Transactional
 	@Modifying
-	@Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now OR rt.isRevoked = true")
-	void deleteExpiredAndRevokedTokens(@Param("now") LocalDateTime now);
-
-	/** Revocar todos los tokens de un usuario */
-	@Modifying
-	@Query("UPDATE RefreshToken rt SET rt.isRevoked = true WHERE rt.user.id = :userId")
-	void revokeAllUserTokens(@Param("userId") String userId);
-
-	void deleteAllByUser(User user);
+	@Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :now OR is_revoked = true LIMIT :limit", nativeQuery = true)
+	int deleteExpiredAndRevokedBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
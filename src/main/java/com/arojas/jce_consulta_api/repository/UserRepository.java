@@ -18,6 +18,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.arojas.jce_consulta_api.entity.User;
+import com.arojas.jce_consulta_api.security.AuthenticatedPrincipal;
 
 /**
  *
@@ -29,6 +30,19 @@ public interface UserRepository extends JpaRepository<User, String> {
 	/** Buscar usuario por email */
 	Optional<User> findByEmail(String email);
 
+	/** Proyección mínima (id, email, rol, estado) sin cargar la entidad */
+	@Query("SELECT new com.arojas.jce_consulta_api.security.AuthenticatedPrincipal(u.id, u.email, u.role, u.isActive) "
+			+ "FROM User u WHERE u.email = :email")
+	Optional<AuthenticatedPrincipal> findPrincipalByEmail(@Param("email") String email);
+
+	/** Primera página del listado por cursor, ordenado por (name, id) */
+	@Query("SELECT u FROM User u ORDER BY u.name ASC, u.id ASC")
+	List<User> findListingFirstPage(Pageable pageable);
+
+	/** Página siguiente del listado por cursor */
+	@Query("SELECT u FROM User u WHERE u.name > :name OR (u.name = :name AND u.id > :id) ORDER BY u.name ASC, u.id ASC")
+	List<User> findListingAfter(@Param("name") String name, @Param("id") String id, Pageable pageable);
+
 	/** Verificar si existe usuario por email */
 	boolean existsByEmail(String email);
 
@@ -49,6 +63,15 @@ public interface UserRepository extends JpaRepository<User, String> {
 	@Query("UPDATE User u SET u.tokens = u.tokens - :amount WHERE u.id = :userId AND u.tokens >= :amount")
 	int deductTokensFromUser(@Param("userId") String userId, @Param("amount") Integer amount);
 
+	/**
+	 * Consume un token de forma atómica si el usuario está activo, tiene saldo
+	 * y sus tokens no han expirado. Devuelve 0 si no se pudo consumir.
+	 */
+	@Modifying
+	@Query("UPDATE User u SET u.tokens = u.tokens - 1 WHERE u.id = :userId AND u.isActive = true "
+			+ "AND u.tokens > 0 AND (u.lastTokenUpdate IS NULL OR u.lastTokenUpdate >= :expiryCutoff)")
+	int consumeTokenIfAvailable(@Param("userId") String userId, @Param("expiryCutoff") LocalDateTime expiryCutoff);
+
 	/** Contar usuarios registrados después de una fecha */
 	@Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :date")
 	long countUsersRegisteredAfter(@Param("date") LocalDateTime date);
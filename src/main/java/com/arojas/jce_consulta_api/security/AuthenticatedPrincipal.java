@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.security;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.arojas.jce_consulta_api.entity.User;
+
+/**
+ *
+ * @author arojas
+ *         * Principal autenticado de la petición: identidad mínima (id, email,
+ *         rol, estado) resuelta una sola vez por el filtro JWT
+ *         * Los servicios lo usan en lugar de volver a cargar la entidad User;
+ *         la entidad solo se lee cuando hay que modificarla
+ */
+public class AuthenticatedPrincipal implements UserDetails, CredentialsContainer {
+
+	private final String id;
+	private final String email;
+	private final User.Role role;
+	private final boolean active;
+	private String password;
+
+	/** Constructor usado por la proyección JPQL de UserRepository */
+	public AuthenticatedPrincipal(String id, String email, User.Role role, Boolean active) {
+		this(id, email, role, active, null);
+	}
+
+	public AuthenticatedPrincipal(String id, String email, User.Role role, Boolean active, String password) {
+		this.id = id;
+		this.email = email;
+		this.role = role;
+		this.active = Boolean.TRUE.equals(active);
+		this.password = password;
+	}
+
+	public static AuthenticatedPrincipal from(User user) {
+		return new AuthenticatedPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getIsActive(),
+				user.getPassword());
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public User.Role getRole() {
+		return role;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public boolean isAdmin() {
+		return role == User.Role.ADMIN;
+	}
+
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+	}
+
+	@Override
+	public String getPassword() {
+		return password;
+	}
+
+	@Override
+	public String getUsername() {
+		return email;
+	}
+
+	@Override
+	public boolean isAccountNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isAccountNonLocked() {
+		return active;
+	}
+
+	@Override
+	public boolean isCredentialsNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return active;
+	}
+
+	@Override
+	public void eraseCredentials() {
+		this.password = null;
+	}
+
+	@Override
+	public String toString() {
+		return "AuthenticatedPrincipal[id=" + id + ", email=" + email + ", role=" + role + ", active=" + active + "]";
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.arojas.jce_consulta_api.exception.auth.AuthenticationThrottledException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * PasswordEncoder que ejecuta el hashing (BCrypt) en un pool
+ *         dedicado y acotado en lugar de los hilos de Tomcat
+ *         * Si la cola está llena la operación falla de inmediato con
+ *         {@link AuthenticationThrottledException} (HTTP 429), de modo que
+ *         una ráfaga de logins o registros no puede acaparar la CPU ni los
+ *         hilos de petición
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+	private static final String METRIC_PREFIX = "auth.password.hash";
+
+	private final PasswordEncoder delegate;
+	private final ThreadPoolExecutor executor;
+	private final long timeoutMillis;
+
+	private final Timer encodeTimer;
+	private final Timer matchesTimer;
+	private final Timer queueWaitTimer;
+	private final Counter rejectedCounter;
+	private final Counter timeoutCounter;
+
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis,
+			MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.timeoutMillis = timeoutMillis;
+
+		AtomicInteger threadCounter = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "PasswordHash-" + threadCounter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+
+		this.encodeTimer = Timer.builder(METRIC_PREFIX)
+				.description("Tiempo de CPU de hashing de contraseñas")
+				.tag("operation", "encode")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+		this.matchesTimer = Timer.builder(METRIC_PREFIX)
+				.description("Tiempo de CPU de verificación de contraseñas")
+				.tag("operation", "matches")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+		this.queueWaitTimer = Timer.builder(METRIC_PREFIX + ".queue.wait")
+				.description("Tiempo de espera en cola antes del hashing")
+				.register(meterRegistry);
+		this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+				.description("Operaciones rechazadas por cola llena")
+				.register(meterRegistry);
+		this.timeoutCounter = Counter.builder(METRIC_PREFIX + ".timeout")
+				.description("Operaciones abandonadas por exceder el tiempo máximo")
+				.register(meterRegistry);
+
+		Gauge.builder(METRIC_PREFIX + ".queue.depth", executor, e -> e.getQueue().size())
+				.description("Operaciones de hashing en cola")
+				.register(meterRegistry);
+		Gauge.builder(METRIC_PREFIX + ".active", executor, ThreadPoolExecutor::getActiveCount)
+				.description("Operaciones de hashing en ejecución")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return execute(() -> delegate.encode(rawPassword), encodeTimer);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return execute(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * Indica si el pool está saturado; usado por el pre-filtro de login para
+	 * rechazar antes de leer el cuerpo de la petición
+	 */
+	public boolean isSaturated() {
+		return executor.getQueue().remainingCapacity() == 0;
+	}
+
+	private <T> T execute(Callable<T> operation, Timer timer) {
+		long enqueuedAt = System.nanoTime();
+		Future<T> future;
+
+		try {
+			future = executor.submit(() -> {
+				queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+				return timer.recordCallable(operation);
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCounter.increment();
+			throw new AuthenticationThrottledException(
+					"Servicio de autenticación saturado, intente nuevamente en unos segundos", 1);
+		}
+
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			timeoutCounter.increment();
+			throw new AuthenticationThrottledException(
+					"Tiempo de espera de autenticación excedido, intente nuevamente", 1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new IllegalStateException("Hashing de contraseña interrumpido", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Error en hashing de contraseña", cause);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+}
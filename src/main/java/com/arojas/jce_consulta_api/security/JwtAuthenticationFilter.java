@@ -6,7 +6,6 @@
 package com.arojas.jce_consulta_api.security;
 
 import java.io.IOException;
-import java.util.UUID;
 
 import org.slf4j.MDC;
 import org.springframework.lang.NonNull;
@@ -22,6 +21,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.service.DbLoggerService;
 import com.arojas.jce_consulta_api.service.JwtService;
+import com.arojas.jce_consulta_api.util.TraceContext;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -37,6 +37,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+	private static final String USER_ROLES = "userRoles";
+
 	private final JwtService jwtService;
 	private final UserDetailsService userDetailsService;
 	private final DbLoggerService dbLoggerService;
@@ -55,9 +57,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			@NonNull HttpServletResponse response,
 			@NonNull FilterChain filterChain) throws ServletException, IOException {
 
-		// Configurar contexto de trazabilidad
-		setupTraceContext(request, response);
-
+		// El contexto de traza (correlationId, requestId) lo prepara TracingFilter
 		try {
 			// Procesar autenticación JWT
 			processJwtAuthentication(request);
@@ -67,12 +67,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			// No interrumpimos el flujo, dejamos que continúe sin autenticación
 		}
 
-		try {
-			filterChain.doFilter(request, response);
-		} finally {
-			// Limpiar MDC al final del request
-			MDC.clear();
-		}
+		// userEmail/userRoles siguen en el MDC hasta que TracingFilter lo
+		// restaura, para que la fila HTTP_REQUEST de LoggingFilter los lleve
+		filterChain.doFilter(request, response);
 	}
 
 	/**
@@ -122,8 +119,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 				SecurityContextHolder.getContext().setAuthentication(authToken);
 
 				// Actualizar MDC con información del usuario
-				MDC.put("userEmail", username);
-				MDC.put("userRoles", userDetails.getAuthorities().toString());
+				MDC.put(TraceContext.USER_EMAIL, username);
+				MDC.put(USER_ROLES, userDetails.getAuthorities().toString());
 
 				logSuccessfulAuthentication(request, username);
 			} else {
@@ -135,37 +132,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		}
 	}
 
-	/**
-	 * Configura el contexto de trazabilidad para el request
-	 */
-	private void setupTraceContext(HttpServletRequest request, HttpServletResponse response) {
-		// Correlation ID para trazar requests
-		String correlationId = request.getHeader("X-Correlation-ID");
-		if (!StringUtils.hasText(correlationId)) {
-			correlationId = UUID.randomUUID().toString().substring(0, 8);
-		}
-
-		// Request ID único
-		String requestId = UUID.randomUUID().toString().substring(0, 8);
-
-		// Session ID si existe
-		String sessionId = request.getSession(false) != null ? request.getSession().getId() : null;
-
-		// Configurar MDC
-		MDC.put("correlationId", correlationId);
-		MDC.put("requestId", requestId);
-		MDC.put("requestURI", request.getRequestURI());
-		MDC.put("requestMethod", request.getMethod());
-
-		if (StringUtils.hasText(sessionId)) {
-			MDC.put("sessionId", sessionId);
-		}
-
-		// Agregar headers de trazabilidad a la respuesta
-		response.setHeader("X-Correlation-ID", correlationId);
-		response.setHeader("X-Request-ID", requestId);
-	}
-
 	/**
 	 * Verifica si el endpoint requiere autenticación
 	 */
@@ -197,9 +163,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	// ============= MÉTODOS DE LOGGING =============
 
 	private void logNoAuthHeader(HttpServletRequest request) {
-		dbLoggerService.log()
-				.level(LogLevel.DEBUG)
-				.source("JwtAuthenticationFilter")
+		dbLoggerService.log(LogLevel.DEBUG, "JwtAuthenticationFilter")
 				.operation("NO_AUTH_HEADER")
 				.message("Request sin header de autorización")
 				.withRequest(request)
@@ -209,9 +173,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	}
 
 	private void logEmptyToken(HttpServletRequest request) {
-		dbLoggerService.log()
-				.level(LogLevel.WARN)
-				.source("JwtAuthenticationFilter")
+		dbLoggerService.log(LogLevel.WARN, "JwtAuthenticationFilter")
 				.operation("EMPTY_TOKEN")
 				.message("Token JWT vacío en header Authorization")
 				.withRequest(request)
@@ -220,9 +182,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	}
 
 	private void logInvalidToken(HttpServletRequest request, Exception e) {
-		dbLoggerService.log()
-				.level(LogLevel.WARN)
-				.source("JwtAuthenticationFilter")
+		dbLoggerService.log(LogLevel.WARN, "JwtAuthenticationFilter")
 				.operation("INVALID_TOKEN")
 				.message("Token JWT inválido o expirado")
 				.withRequest(request)
@@ -233,9 +193,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	}
 
 	private void logSuccessfulAuthentication(HttpServletRequest request, String username) {
-		dbLoggerService.log()
-				.level(LogLevel.DEBUG)
-				.source("JwtAuthenticationFilter")
+		dbLoggerService.log(LogLevel.DEBUG, "JwtAuthenticationFilter")
 				.operation("JWT_AUTH_SUCCESS")
 				.message("Autenticación JWT exitosa")
 				.user(username)
@@ -247,9 +205,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	}
 
 	private void logAuthenticationError(HttpServletRequest request, Exception e) {
-		dbLoggerService.log()
-				.level(LogLevel.ERROR)
-				.source("JwtAuthenticationFilter")
+		dbLoggerService.log(LogLevel.ERROR, "JwtAuthenticationFilter")
 				.operation("JWT_AUTH_ERROR")
 				.message("Error durante autenticación JWT")
 				.withRequest(request)
@@ -0,0 +1,185 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.arojas.jce_consulta_api.dto.response.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Pre-filtro barato para POST /api/v1/auth/login
+ *         * Rechaza con 429 antes de leer el cuerpo o ejecutar BCrypt cuando la
+ *         IP excede su cubeta de tokens o cuando el pool de hashing ya está
+ *         saturado
+ *         * La IP es la de la conexión (getRemoteAddr); detrás de un proxy de
+ *         confianza la resuelve server.forward-headers-strategy, nunca una
+ *         cabecera X-Forwarded-For enviada por el cliente
+ *         * El mapa de cubetas está acotado: con el tope alcanzado, las IPs
+ *         nuevas comparten una cubeta de desbordamiento
+ */
+@Component
+@Slf4j
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+	private static final String LOGIN_PATH = "/api/v1/auth/login";
+
+	private final Map<String, BucketEntry> buckets = new ConcurrentHashMap<>();
+	private final PasswordEncoder passwordEncoder;
+	private final ObjectMapper objectMapper;
+	private final Counter rejectedByIpCounter;
+	private final Counter rejectedBySaturationCounter;
+
+	@Value("${app.security.login-rate-limit.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.security.login-rate-limit.attempts-per-minute:10}")
+	private long attemptsPerMinute;
+
+	@Value("${app.security.login-rate-limit.idle-eviction-minutes:10}")
+	private long idleEvictionMinutes;
+
+	@Value("${app.security.login-rate-limit.max-tracked-ips:100000}")
+	private int maxTrackedIps;
+
+	private volatile BucketEntry overflowEntry;
+
+	public LoginRateLimitFilter(PasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+			MeterRegistry meterRegistry) {
+		this.passwordEncoder = passwordEncoder;
+		this.objectMapper = objectMapper;
+		this.rejectedByIpCounter = Counter.builder("auth.login.prefilter.rejected")
+				.tag("reason", "ip_rate_limit")
+				.register(meterRegistry);
+		this.rejectedBySaturationCounter = Counter.builder("auth.login.prefilter.rejected")
+				.tag("reason", "hash_pool_saturated")
+				.register(meterRegistry);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return !enabled
+				|| !"POST".equalsIgnoreCase(request.getMethod())
+				|| !LOGIN_PATH.equals(request.getServletPath());
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+
+		if (passwordEncoder instanceof BoundedPasswordEncoder bounded && bounded.isSaturated()) {
+			rejectedBySaturationCounter.increment();
+			reject(response, 1, "Servicio de autenticación saturado, intente nuevamente en unos segundos");
+			return;
+		}
+
+		String clientIp = request.getRemoteAddr();
+		BucketEntry entry = bucketFor(clientIp);
+		entry.lastAccess = System.currentTimeMillis();
+
+		ConsumptionProbe probe = entry.bucket.tryConsumeAndReturnRemaining(1);
+		if (!probe.isConsumed()) {
+			rejectedByIpCounter.increment();
+			long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()));
+			log.warn("Límite de intentos de login excedido para IP: {}", clientIp);
+			reject(response, retryAfter, "Demasiados intentos de inicio de sesión, intente más tarde");
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Elimina las cubetas de IPs inactivas para acotar la memoria
+	 */
+	@Scheduled(fixedDelay = 60000)
+	public void evictIdleBuckets() {
+		long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleEvictionMinutes);
+		buckets.entrySet().removeIf(e -> e.getValue().lastAccess < cutoff);
+		BucketEntry overflow = overflowEntry;
+		if (overflow != null && overflow.lastAccess < cutoff) {
+			overflowEntry = null;
+		}
+	}
+
+	private BucketEntry bucketFor(String clientIp) {
+		BucketEntry entry = buckets.get(clientIp);
+		if (entry != null) {
+			return entry;
+		}
+		if (buckets.size() >= maxTrackedIps) {
+			BucketEntry overflow = overflowEntry;
+			if (overflow == null) {
+				synchronized (this) {
+					overflow = overflowEntry;
+					if (overflow == null) {
+						log.warn("Tope de {} IPs en el límite de login alcanzado; usando cubeta compartida",
+								maxTrackedIps);
+						overflow = new BucketEntry(newBucket());
+						overflowEntry = overflow;
+					}
+				}
+			}
+			return overflow;
+		}
+		return buckets.computeIfAbsent(clientIp, ip -> new BucketEntry(newBucket()));
+	}
+
+	private Bucket newBucket() {
+		return Bucket.builder()
+				.addLimit(Bandwidth.builder()
+						.capacity(attemptsPerMinute)
+						.refillGreedy(attemptsPerMinute, Duration.ofMinutes(1))
+						.build())
+				.build();
+	}
+
+	private void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		objectMapper.writeValue(response.getOutputStream(),
+				ApiResponse.error("Demasiadas solicitudes de autenticación", message));
+	}
+
+	private static final class BucketEntry {
+		private final Bucket bucket;
+		private volatile long lastAccess;
+
+		private BucketEntry(Bucket bucket) {
+			this.bucket = bucket;
+			this.lastAccess = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.security;
+
+import java.util.Optional;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ *
+ * @author arojas
+ *         * Da acceso al {@link AuthenticatedPrincipal} de la petición actual
+ *         * Si el email solicitado coincide con el principal autenticado no se
+ *         consulta la base de datos; en otro caso (hilos sin contexto de
+ *         seguridad, operaciones administrativas) se usa una proyección ligera
+ *         sin cargar la entidad User
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalResolver {
+
+	private final UserRepository userRepository;
+
+	/**
+	 * Principal autenticado en el contexto de seguridad actual, si existe
+	 */
+	public Optional<AuthenticatedPrincipal> current() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedPrincipal principal) {
+			return Optional.of(principal);
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Resuelve el principal de un email, reutilizando el de la petición actual
+	 */
+	public Optional<AuthenticatedPrincipal> resolve(String email) {
+		Optional<AuthenticatedPrincipal> current = current();
+		if (current.isPresent() && current.get().getEmail().equalsIgnoreCase(email)) {
+			return current;
+		}
+		return userRepository.findPrincipalByEmail(email);
+	}
+}
@@ -28,6 +28,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+
 /**
  * @author arojas
  *         Configuración de seguridad con rutas organizadas y permisos
@@ -43,6 +46,15 @@ public class SecurityConfig {
 	@Value("${app.security.cors.allowed-origins}")
 	private String[] allowedOrigins;
 
+	@Value("${app.security.password-hashing.threads:0}")
+	private int passwordHashingThreads;
+
+	@Value("${app.security.password-hashing.queue-capacity:50}")
+	private int passwordHashingQueueCapacity;
+
+	@Value("${app.security.password-hashing.timeout-ms:5000}")
+	private long passwordHashingTimeoutMs;
+
 	public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService) {
 		this.jwtAuthFilter = jwtAuthFilter;
 		this.userDetailsService = userDetailsService;
@@ -52,11 +64,17 @@ public class SecurityConfig {
 	 * Configuración principal de la cadena de filtros de seguridad
 	 */
 	@Bean
-	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider,
+			LoginRateLimitFilter loginRateLimitFilter) throws Exception {
 		return http
 				.csrf(AbstractHttpConfigurer::disable)
 				.cors(cors -> cors.configurationSource(corsConfigurationSource()))
 				.authorizeHttpRequests(authz -> authz
+						// ============= DESPACHOS ASYNC Y DE ERROR =============
+						// La petición original ya se autorizó; el filtro JWT no corre
+						// en estos despachos (StreamingResponseBody, SSE, errores)
+						.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
 						// ============= RUTAS PÚBLICAS (Sin Autenticación) =============
 						.requestMatchers(getPublicEndpoints()).permitAll()
 
@@ -96,7 +114,8 @@ public class SecurityConfig {
 						.anyRequest().authenticated())
 
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-				.authenticationProvider(authenticationProvider())
+				.authenticationProvider(authenticationProvider)
+				.addFilterBefore(loginRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
 				.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
 				.build();
 	}
@@ -262,10 +281,10 @@ public class SecurityConfig {
 	}
 
 	@Bean
-	public AuthenticationProvider authenticationProvider() {
+	public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
 		var authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(userDetailsService);
-		authProvider.setPasswordEncoder(passwordEncoder());
+		authProvider.setPasswordEncoder(passwordEncoder);
 		return authProvider;
 	}
 
@@ -274,8 +293,21 @@ public class SecurityConfig {
 		return config.getAuthenticationManager();
 	}
 
+	/**
+	 * BCrypt ejecutado en un pool dedicado y acotado; el desborde de la cola
+	 * responde 429 en lugar de ocupar hilos de Tomcat
+	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder(12); // Aumentado el strength para mayor seguridad
+	public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+		int threads = passwordHashingThreads > 0
+				? passwordHashingThreads
+				: Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+		return new BoundedPasswordEncoder(
+				new BCryptPasswordEncoder(12), // Aumentado el strength para mayor seguridad
+				threads,
+				passwordHashingQueueCapacity,
+				passwordHashingTimeoutMs,
+				meterRegistry);
 	}
 }
\ No newline at end of file
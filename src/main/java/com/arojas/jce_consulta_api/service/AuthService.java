@@ -3,7 +3,6 @@ package com.arojas.jce_consulta_api.service;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -20,7 +19,6 @@ import com.arojas.jce_consulta_api.dto.request.RegisterData;
 import com.arojas.jce_consulta_api.dto.response.AuthResponse;
 import com.arojas.jce_consulta_api.entity.RefreshToken;
 import com.arojas.jce_consulta_api.entity.User;
-import com.arojas.jce_consulta_api.repository.RefreshTokenRepository;
 import com.arojas.jce_consulta_api.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -38,7 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -136,17 +134,11 @@ public class AuthService {
     public AuthResponse refreshToken(String refreshTokenStr) {
         log.info("Attempting to refresh token");
 
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenStr)
-                .orElseThrow(() -> new IllegalArgumentException("Refresh token no válido"));
-
-        // Corregido: usar getExpiryDate() en lugar de getexpiryDate()
-        if (refreshToken.getexpiryDate().isBefore(LocalDateTime.now())) {
-
-            refreshTokenRepository.delete(refreshToken);
-            throw new IllegalArgumentException("Refresh token expirado");
-        }
+        String userId = refreshTokenService.findValidUserId(refreshTokenStr)
+                .orElseThrow(() -> new IllegalArgumentException("Refresh token no válido o expirado"));
 
-        User user = refreshToken.getUser();
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Refresh token no válido"));
         String newAccessToken = jwtService.generateToken(createUserDetails(user));
 
         log.info("Token refreshed successfully for user: {}", user.getEmail());
@@ -161,11 +153,10 @@ public class AuthService {
     public void logout(String refreshTokenStr) {
         log.info("Attempting to logout user");
 
-        Optional<RefreshToken> refreshToken = refreshTokenRepository.findByToken(refreshTokenStr);
-        if (refreshToken.isPresent()) {
-            User user = refreshToken.get().getUser();
-            revokeAllUserTokens(user);
-            log.info("User logged out successfully: {}", user.getEmail());
+        Optional<String> userId = refreshTokenService.findOwnerUserId(refreshTokenStr);
+        if (userId.isPresent()) {
+            refreshTokenService.revokeAllUserTokens(userId.get());
+            log.info("User logged out successfully: {}", userId.get());
         }
     }
 
@@ -195,19 +186,11 @@ public class AuthService {
     }
 
     private RefreshToken createRefreshToken(User user) {
-        // Requiere que RefreshToken tenga @Builder
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(LocalDateTime.now().plusDays(30))
-                .build();
-
-        return refreshTokenRepository.save(refreshToken);
+        return refreshTokenService.issue(user);
     }
 
     private void revokeAllUserTokens(User user) {
-        // Requiere que RefreshTokenRepository tenga deleteAllByUser(User user)
-        refreshTokenRepository.deleteAllByUser(user);
+        refreshTokenService.revokeAllUserTokens(user.getId());
     }
 
     public boolean validateToken(String token) {
@@ -17,7 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.arojas.jce_consulta_api.dto.CedulaQueryDto;
 import com.arojas.jce_consulta_api.dto.CedulaResultDto;
-import com.arojas.jce_consulta_api.dto.UserDto;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.entity.CedulaQuery;
 import com.arojas.jce_consulta_api.entity.CedulaQuery.QueryStatus;
 import com.arojas.jce_consulta_api.entity.CedulaResult;
@@ -25,6 +25,11 @@ import com.arojas.jce_consulta_api.entity.User;
 import com.arojas.jce_consulta_api.exception.query.CedulaQueryExceptions;
 import com.arojas.jce_consulta_api.repository.CedulaQueryRepository;
 import com.arojas.jce_consulta_api.repository.UserRepository;
+import com.arojas.jce_consulta_api.security.AuthenticatedPrincipal;
+import com.arojas.jce_consulta_api.security.PrincipalResolver;
+import com.arojas.jce_consulta_api.service.QueryStageMetrics.Stage;
+import com.arojas.jce_consulta_api.util.CursorCodec;
+import com.arojas.jce_consulta_api.util.TraceContext;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -49,6 +54,8 @@ public class CedulaQueryService {
 	private final JceClient jceClient;
 	private final UserService userService;
 	private final AppSettingsService appSettingsService;
+	private final PrincipalResolver principalResolver;
+	private final QueryStageMetrics stageMetrics;
 
 	// Constants
 	private static final BigDecimal QUERY_COST = BigDecimal.ONE; // 1 token per query
@@ -58,43 +65,34 @@ public class CedulaQueryService {
 	@Async
 	public CompletableFuture<CedulaQueryDto> performCedulaQueryAsync(String cedula, String userEmail) {
 		log.info("Starting async cedula query: {} for user: {}", cedula, userEmail);
-		return CompletableFuture.supplyAsync(() -> {
+		return CompletableFuture.supplyAsync(TraceContext.wrap(() -> {
 			try {
 				return performCedulaQuery(cedula, userEmail);
 			} catch (Exception e) {
 				log.error("Error in async cedula query: {}", e.getMessage(), e);
 				throw CedulaQueryExceptions.processingError(cedula, e.getMessage(), e);
 			}
-		});
+		}));
 	}
 
 	public CedulaQueryDto performCedulaQuery(String cedula, String userEmail) {
 		log.info("Performing cedula query: {} for user: {}", cedula, userEmail);
-
-		validateCedulaFormat(cedula);
-		User user = getUserByEmailOrThrow(userEmail);
-		validateUserCanQuery(user);
-
-		CedulaQuery query = createPendingQuery(cedula, user);
-
+		long startedAt = System.nanoTime();
 		try {
-			consumeUserToken(user);
-			CedulaResultDto result = queryJceService(cedula);
-			updateQueryWithSuccess(query, result);
-			log.info("Cedula query completed successfully: {}", cedula);
-			return convertToDto(query);
-
-		} catch (Exception e) {
-			log.error("Error performing cedula query {}: {}", cedula, e.getMessage());
-			refundUserToken(user);
-			updateQueryWithError(query, e.getMessage());
-			throw CedulaQueryExceptions.processingError(cedula, e.getMessage(), e);
+			CedulaQueryDto dto = runQueryPipeline(cedula, userEmail);
+			stageMetrics.record(Stage.TOTAL, "success", QueryStageMetrics.CACHE_NONE, System.nanoTime() - startedAt);
+			return dto;
+		} catch (RuntimeException e) {
+			stageMetrics.record(Stage.TOTAL, "error", QueryStageMetrics.CACHE_NONE, System.nanoTime() - startedAt);
+			throw e;
 		}
 	}
 
 	@Transactional(readOnly = true)
 	public boolean canUserQuery(String userEmail) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal principal = getPrincipalOrThrow(userEmail);
+		User user = userRepository.findById(principal.getId())
+				.orElseThrow(() -> CedulaQueryExceptions.userNotFound(userEmail));
 		return user.getTokens() > 0 && user.getIsActive();
 	}
 
@@ -103,16 +101,40 @@ public class CedulaQueryService {
 	@Transactional(readOnly = true)
 	public Page<CedulaQueryDto> getUserQueryHistory(String userEmail, int page, int size,
 			String sortBy, String sortDir) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 		Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
 		Pageable pageable = PageRequest.of(page, size, sort);
 		Page<CedulaQuery> queries = cedulaQueryRepository.findByUserIdOrderByQueryDateDesc(user.getId(), pageable);
 		return queries.map(this::convertToDto);
 	}
 
+	/**
+	 * Historial por cursor (queryDate, id): costo constante por página y sin
+	 * COUNT salvo que se pida el total
+	 */
+	@Transactional(readOnly = true)
+	public CursorPage<CedulaQueryDto> scrollUserQueryHistory(String userEmail, String cursor, int size,
+			boolean includeTotal) {
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
+		CursorCodec.Cursor position = CursorCodec.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+
+		List<CedulaQuery> rows = position == null
+				? cedulaQueryRepository.findHistoryFirstPage(user.getId(), limit)
+				: cedulaQueryRepository.findHistoryAfter(user.getId(), position.sortKeyAsDateTime(), position.id(),
+						limit);
+
+		CursorPage<CedulaQueryDto> page = CursorPage.of(rows, size,
+				query -> CursorCodec.encode(query.getQueryDate(), query.getId()), this::convertToDto);
+		if (includeTotal) {
+			page.setTotalElements(cedulaQueryRepository.countByUserId(user.getId()));
+		}
+		return page;
+	}
+
 	@Transactional(readOnly = true)
 	public CedulaQueryDto getQueryById(String queryId, String userEmail) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 		CedulaQuery query = cedulaQueryRepository.findByIdAndUserId(queryId, user.getId())
 				.orElseThrow(() -> CedulaQueryExceptions.queryNotFound(queryId));
 		return convertToDto(query);
@@ -120,7 +142,7 @@ public class CedulaQueryService {
 
 	@Transactional(readOnly = true)
 	public List<CedulaQueryDto> getRecentQueries(String userEmail, int limit) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 		Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "queryDate"));
 		Page<CedulaQuery> page = cedulaQueryRepository.findByUserId(user.getId(), pageable);
 		return page.getContent().stream().map(this::convertToDto).toList();
@@ -130,7 +152,7 @@ public class CedulaQueryService {
 
 	@Transactional(readOnly = true)
 	public List<CedulaQueryDto> searchQueriesByCedula(String userEmail, String cedula) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 		List<CedulaQuery> queries = cedulaQueryRepository
 				.findByUserIdAndCedulaContainingOrderByQueryDateDesc(user.getId(), cedula);
 		return queries.stream().map(this::convertToDto).toList();
@@ -140,17 +162,62 @@ public class CedulaQueryService {
 
 	@Transactional(readOnly = true)
 	public CedulaQueryStatsDto getUserQueryStats(String userEmail) {
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 		return buildQueryStats(Long.parseLong(user.getId()));
 
 	}
 
 	// ================= PRIVATE HELPER METHODS =================
 
-	private User getUserByEmailOrThrow(String email) {
-		UserDto userDto = userService.getUserByEmail(email)
-				.orElseThrow(() -> CedulaQueryExceptions.userNotFound(email));
-		return userRepository.findById(userDto.getId())
+	/**
+	 * Etapas de la consulta, cada una medida en {@link QueryStageMetrics}; el
+	 * HTTP, el parseo XML y el mapeo se miden dentro de {@link JceClient}
+	 */
+	private CedulaQueryDto runQueryPipeline(String cedula, String userEmail) {
+		stageMetrics.time(Stage.VALIDATION, QueryStageMetrics.CACHE_NONE, () -> validateCedulaFormat(cedula));
+
+		long lookupStartedAt = System.nanoTime();
+		AuthenticatedPrincipal principal;
+		try {
+			principal = getPrincipalOrThrow(userEmail);
+			validateUserCanQuery(principal);
+		} catch (RuntimeException e) {
+			stageMetrics.record(Stage.USER_LOOKUP, "error", QueryStageMetrics.CACHE_DB,
+					System.nanoTime() - lookupStartedAt);
+			throw e;
+		}
+		// Si el principal es el de la petición no hubo consulta a la base de datos
+		String lookupTier = principalResolver.current().orElse(null) == principal
+				? QueryStageMetrics.CACHE_REQUEST
+				: QueryStageMetrics.CACHE_DB;
+		stageMetrics.record(Stage.USER_LOOKUP, "success", lookupTier, System.nanoTime() - lookupStartedAt);
+
+		// El saldo se valida y descuenta con un único UPDATE atómico
+		stageMetrics.time(Stage.TOKEN_CONSUME, QueryStageMetrics.CACHE_NONE, () -> consumeUserToken(principal));
+
+		// Referencia sin SELECT: solo se necesita la FK para la consulta
+		User userReference = userRepository.getReferenceById(principal.getId());
+		CedulaQuery query = stageMetrics.time(Stage.PENDING_QUERY, QueryStageMetrics.CACHE_NONE,
+				() -> createPendingQuery(cedula, userReference));
+
+		try {
+			CedulaResultDto result = queryJceService(cedula);
+			stageMetrics.time(Stage.PERSIST_RESULT, QueryStageMetrics.CACHE_NONE,
+					() -> updateQueryWithSuccess(query, result));
+			log.info("Cedula query completed successfully: {}", cedula);
+			return convertToDto(query);
+
+		} catch (Exception e) {
+			log.error("Error performing cedula query {}: {}", cedula, e.getMessage());
+			refundUserToken(principal);
+			updateQueryWithError(query, e.getMessage());
+			throw CedulaQueryExceptions.processingError(cedula, e.getMessage(), e);
+		}
+	}
+
+
+	private AuthenticatedPrincipal getPrincipalOrThrow(String email) {
+		return principalResolver.resolve(email)
 				.orElseThrow(() -> CedulaQueryExceptions.userNotFound(email));
 	}
 
@@ -169,11 +236,9 @@ public class CedulaQueryService {
 		return !cedula.matches("0{11}") && !cedula.matches("(\\d)\\1{10}");
 	}
 
-	private void validateUserCanQuery(User user) {
-		if (!user.getIsActive())
-			throw CedulaQueryExceptions.userInactive(user.getEmail());
-		if (user.getTokens() <= 0)
-			throw CedulaQueryExceptions.insufficientTokens(user.getId(), user.getTokens(), 1);
+	private void validateUserCanQuery(AuthenticatedPrincipal principal) {
+		if (!principal.isActive())
+			throw CedulaQueryExceptions.userInactive(principal.getEmail());
 	}
 
 	private CedulaQuery createPendingQuery(String cedula, User user) {
@@ -184,22 +249,24 @@ public class CedulaQueryService {
 				.cost(QUERY_COST)
 				.status(QueryStatus.PENDING)
 				.build();
-		return cedulaQueryRepository.save(query);
+		// Flush para que el INSERT quede dentro de la etapa PENDING_QUERY y no
+		// en el commit de la transacción
+		return cedulaQueryRepository.saveAndFlush(query);
 	}
 
-	private void consumeUserToken(User user) {
+	private void consumeUserToken(AuthenticatedPrincipal principal) {
 		try {
-			userService.consumeToken(user.getId());
+			userService.consumeToken(principal.getId());
 		} catch (Exception e) {
-			throw CedulaQueryExceptions.insufficientTokens(user.getId());
+			throw CedulaQueryExceptions.insufficientTokens(principal.getId());
 		}
 	}
 
-	private void refundUserToken(User user) {
+	private void refundUserToken(AuthenticatedPrincipal principal) {
 		try {
-			userService.addTokens(user.getId(), 1);
+			userService.refundToken(principal.getId());
 		} catch (Exception e) {
-			log.error("Error refunding token for user {}: {}", user.getId(), e.getMessage());
+			log.error("Error refunding token for user {}: {}", principal.getId(), e.getMessage());
 		}
 	}
 
@@ -217,7 +284,8 @@ public class CedulaQueryService {
 		query.setResult(result);
 		query.setStatus(QueryStatus.COMPLETED);
 		query.setCompletedAt(LocalDateTime.now());
-		cedulaQueryRepository.save(query);
+		// Igual que en createPendingQuery: el UPDATE se mide en PERSIST_RESULT
+		cedulaQueryRepository.saveAndFlush(query);
 	}
 
 	private void updateQueryWithError(CedulaQuery query, String errorMessage) {
@@ -5,9 +5,6 @@
 
 package com.arojas.jce_consulta_api.service;
 
-import java.util.Collections;
-
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -15,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import com.arojas.jce_consulta_api.entity.User;
 import com.arojas.jce_consulta_api.repository.UserRepository;
+import com.arojas.jce_consulta_api.security.AuthenticatedPrincipal;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +27,8 @@ import lombok.extern.slf4j.Slf4j;
  *         usuario
  *         (email)
  *         * Lanza UsernameNotFoundException si el usuario no se encuentra
+ *         * Devuelve un {@link AuthenticatedPrincipal} que los servicios
+ *         reutilizan durante toda la petición
  */
 
 @Service
@@ -55,15 +55,6 @@ public class CustomUserDetailsService implements UserDetailsService {
 
 		log.debug("Usuario cargado exitosamente: {}", email);
 
-		return org.springframework.security.core.userdetails.User.builder()
-				.username(user.getEmail())
-				.password(user.getPassword())
-				.authorities(Collections.singletonList(
-						new SimpleGrantedAuthority("ROLE_" + user.getRole().name())))
-				.accountExpired(false)
-				.accountLocked(false)
-				.credentialsExpired(false)
-				.disabled(!user.getIsActive())
-				.build();
+		return AuthenticatedPrincipal.from(user);
 	}
 }
@@ -4,25 +4,32 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
 import com.arojas.jce_consulta_api.entity.LogEntry;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.repository.LogEntryRepository;
+import com.arojas.jce_consulta_api.service.logging.LogBatchWriter;
+import com.arojas.jce_consulta_api.service.logging.LogSampler;
+import com.arojas.jce_consulta_api.service.logging.LogSanitizer;
+import com.arojas.jce_consulta_api.service.logging.StackTraceFingerprinter;
+import com.arojas.jce_consulta_api.util.TraceContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
@@ -43,6 +50,11 @@ public class DbLoggerService {
 
 	private final LogEntryRepository logEntryRepository;
 	private final ObjectMapper objectMapper;
+	private final LogBatchWriter logBatchWriter;
+	private final LogSanitizer logSanitizer;
+	private final LogSampler logSampler;
+	private final DbLoggingProperties properties;
+	private final StackTraceFingerprinter stackTraceFingerprinter;
 
 	@Value("${app.logging.enabled:true}")
 	private boolean loggingEnabled;
@@ -59,44 +71,133 @@ public class DbLoggerService {
 	@Value("${spring.profiles.active:production}")
 	private String environment;
 
-	// Campos sensibles que deben ser enmascarados
-	private static final String[] SENSITIVE_FIELDS = {
-			"password", "token", "authorization", "secret", "key",
-			"creditCard", "ssn", "email", "phone"
-	};
+	/**
+	 * Umbral global ya resuelto (prioridad de {@link LogLevel}); DISABLED
+	 * cuando el logging está apagado
+	 */
+	private volatile int minimumPriority;
+
+	/**
+	 * Niveles por fuente; mapa inmutable que se reemplaza completo al
+	 * recargar, así la lectura no necesita sincronización
+	 */
+	private volatile Map<String, LogLevel> sourceLevels = Map.of();
+
+	private static final int DISABLED = Integer.MAX_VALUE;
+
+	/**
+	 * Configuración de niveles en caliente
+	 */
+	public record LevelConfig(LogLevel minimumLevel, Map<String, LogLevel> sourceLevels) {
+	}
+
+	@PostConstruct
+	public void initLevels() {
+		LogLevel minimumLevel;
+		try {
+			minimumLevel = LogLevel.valueOf(minimumLogLevel.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warn("Nivel de logging inválido '{}', se usa TRACE", minimumLogLevel);
+			minimumLevel = LogLevel.TRACE;
+		}
+		reloadLevels(new LevelConfig(minimumLevel, properties.getSourceLevels()));
+	}
 
 	/**
-	 * Builder para construcción fluida de logs
+	 * Builder para construcción fluida de logs. El nivel se evalúa al guardar;
+	 * en caminos frecuentes usar {@link #log(LogLevel, String)}
 	 */
 	public LogBuilder log() {
 		return new LogBuilder(this);
 	}
 
+	/**
+	 * Builder con el nivel evaluado de entrada contra el umbral en caché.
+	 * Si el nivel está deshabilitado para la fuente devuelve un builder
+	 * no-op compartido: no se crea LogEntry, no se lee el MDC y el resto de
+	 * la cadena no asigna memoria
+	 */
+	public LogBuilder log(LogLevel level, String source) {
+		if (!isEnabled(level, source)) {
+			return LogBuilder.NOOP;
+		}
+		return new LogBuilder(this).level(level).source(source);
+	}
+
+	/**
+	 * Indica si un evento de {@code level} para {@code source} se registraría.
+	 * Útil para evitar preparar datos costosos antes de llamar al builder
+	 */
+	public boolean isEnabled(LogLevel level, String source) {
+		int threshold = minimumPriority;
+		if (threshold == DISABLED || level == null) {
+			return false;
+		}
+		Map<String, LogLevel> overrides = sourceLevels;
+		if (!overrides.isEmpty() && source != null) {
+			LogLevel override = overrides.get(source);
+			if (override != null) {
+				return level.isEqualOrHigherThan(override);
+			}
+		}
+		return level.getPriority() >= threshold;
+	}
+
+	/**
+	 * Reemplaza en caliente el nivel global y los niveles por fuente
+	 */
+	public synchronized void reloadLevels(LevelConfig config) {
+		Map<String, LogLevel> overrides = new LinkedHashMap<>();
+		if (config.sourceLevels() != null) {
+			config.sourceLevels().forEach((source, level) -> {
+				if (source != null && level != null) {
+					overrides.put(source, level);
+				}
+			});
+		}
+		LogLevel minimumLevel = config.minimumLevel() != null ? config.minimumLevel() : LogLevel.INFO;
+
+		sourceLevels = Map.copyOf(overrides);
+		minimumPriority = loggingEnabled ? minimumLevel.getPriority() : DISABLED;
+		logger.info("Niveles de logging en BD: global={}, por fuente={}", minimumLevel, overrides);
+	}
+
+	public LevelConfig getLevels() {
+		int threshold = minimumPriority;
+		LogLevel minimumLevel = null;
+		for (LogLevel level : LogLevel.values()) {
+			if (level.getPriority() == threshold) {
+				minimumLevel = level;
+			}
+		}
+		return new LevelConfig(minimumLevel, sourceLevels);
+	}
+
 	/**
 	 * Métodos de conveniencia para logging rápido
 	 */
 	public void trace(String source, String message) {
-		log().level(LogLevel.TRACE).source(source).message(message).save();
+		log(LogLevel.TRACE, source).message(message).save();
 	}
 
 	public void debug(String source, String message) {
-		log().level(LogLevel.DEBUG).source(source).message(message).save();
+		log(LogLevel.DEBUG, source).message(message).save();
 	}
 
 	public void info(String source, String message) {
-		log().level(LogLevel.INFO).source(source).message(message).save();
+		log(LogLevel.INFO, source).message(message).save();
 	}
 
 	public void warn(String source, String message) {
-		log().level(LogLevel.WARN).source(source).message(message).save();
+		log(LogLevel.WARN, source).message(message).save();
 	}
 
 	public void error(String source, String message, Throwable throwable) {
-		log().level(LogLevel.ERROR).source(source).message(message).exception(throwable).save();
+		log(LogLevel.ERROR, source).message(message).exception(throwable).save();
 	}
 
 	public void fatal(String source, String message, Throwable throwable) {
-		log().level(LogLevel.FATAL).source(source).message(message).exception(throwable).save();
+		log(LogLevel.FATAL, source).message(message).exception(throwable).save();
 	}
 
 	/**
@@ -104,8 +205,7 @@ public class DbLoggerService {
 	 */
 	public void logWithRequest(LogLevel level, String source, String message,
 			HttpServletRequest request) {
-		log().level(level)
-				.source(source)
+		log(level, source)
 				.message(message)
 				.withRequest(request)
 				.save();
@@ -117,8 +217,7 @@ public class DbLoggerService {
 	public void logOperation(String source, String operation, long executionTimeMs,
 			boolean success, String details) {
 		LogLevel level = success ? LogLevel.INFO : LogLevel.WARN;
-		log().level(level)
-				.source(source)
+		log(level, source)
 				.operation(operation)
 				.executionTime(executionTimeMs)
 				.message(success ? "Operation completed successfully" : "Operation completed with warnings")
@@ -128,45 +227,35 @@ public class DbLoggerService {
 	}
 
 	/**
-	 * Método interno para persistir el log
+	 * Método interno para persistir el log. En modo asíncrono el evento se
+	 * publica en el buffer del escritor por lotes; el hilo de la petición no
+	 * toca la base de datos.
 	 */
-	@Async("logTaskExecutor")
-	@Transactional
-	public CompletableFuture<Void> saveLogAsync(LogEntry logEntry) {
-		try {
-			if (!shouldLog(logEntry.getLevel())) {
-				return CompletableFuture.completedFuture(null);
-			}
-
-			// Sanitizar datos sensibles
-			sanitizeLogEntry(logEntry);
-
-			// Validar campos requeridos
-			if (logEntry.getSource() == null || logEntry.getSource().trim().isEmpty()) {
-				logEntry.setSource("UNKNOWN");
-			}
-			if (logEntry.getMessage() == null || logEntry.getMessage().trim().isEmpty()) {
-				logEntry.setMessage("No message provided");
-			}
-
-			logEntryRepository.save(logEntry);
+	public void enqueue(LogEntry logEntry) {
+		enqueue(logEntry, null);
+	}
 
-		} catch (Exception e) {
-			// Fallback logging - nunca debe fallar la aplicación por el logging
-			logger.error("Error guardando log en BD - Source: {}, Message: {}, Error: {}",
-					logEntry.getSource(), logEntry.getMessage(), e.getMessage());
+	private void enqueue(LogEntry logEntry, Map<String, Supplier<?>> deferredContext) {
+		if (!shouldLog(logEntry)) {
+			return;
 		}
-		return CompletableFuture.completedFuture(null);
+		resolveDeferredContext(logEntry, deferredContext);
+		logBatchWriter.enqueue(logEntry);
 	}
 
-	@Transactional
+	@Transactional(LoggingDataSourceConfig.TRANSACTION_MANAGER)
 	public void saveLogSync(LogEntry logEntry) {
+		saveLogSync(logEntry, null);
+	}
+
+	private void saveLogSync(LogEntry logEntry, Map<String, Supplier<?>> deferredContext) {
 		try {
-			if (!shouldLog(logEntry.getLevel())) {
+			if (!shouldLog(logEntry)) {
 				return;
 			}
+			resolveDeferredContext(logEntry, deferredContext);
 
-			sanitizeLogEntry(logEntry);
+			logSanitizer.sanitize(logEntry);
 
 			// Validar campos requeridos
 			if (logEntry.getSource() == null || logEntry.getSource().trim().isEmpty()) {
@@ -185,82 +274,34 @@ public class DbLoggerService {
 	}
 
 	/**
-	 * Determina si el log debe ser procesado basado en el nivel configurado
+	 * Determina si el log debe ser procesado: nivel configurado y reglas de
+	 * muestreo
 	 */
-	private boolean shouldLog(LogLevel level) {
-		if (!loggingEnabled)
-			return false;
-
-		try {
-			LogLevel minimumLevel = LogLevel.valueOf(minimumLogLevel.toUpperCase());
-			return level.isEqualOrHigherThan(minimumLevel);
-		} catch (IllegalArgumentException e) {
-			return true; // Default: log everything
-		}
+	private boolean shouldLog(LogEntry logEntry) {
+		return isEnabled(logEntry.getLevel(), logEntry.getSource()) && logSampler.shouldKeep(logEntry);
 	}
 
 	/**
-	 * Sanitiza datos sensibles del log
+	 * Evalúa el contexto diferido una vez que el evento pasó nivel y
+	 * muestreo. Un supplier que falla deja su clave en null sin perder el
+	 * evento
 	 */
-	private void sanitizeLogEntry(LogEntry logEntry) {
-		// Sanitizar mensaje
-		if (logEntry.getMessage() != null) {
-			logEntry.setMessage(sanitizeString(logEntry.getMessage()));
-		}
-
-		// Sanitizar payloads
-		if (logEntry.getRequestPayload() != null) {
-			logEntry.setRequestPayload(sanitizeString(logEntry.getRequestPayload()));
-		}
-
-		if (logEntry.getResponsePayload() != null) {
-			logEntry.setResponsePayload(sanitizeString(logEntry.getResponsePayload()));
+	private void resolveDeferredContext(LogEntry logEntry, Map<String, Supplier<?>> deferredContext) {
+		if (deferredContext == null || deferredContext.isEmpty()) {
+			return;
 		}
-
-		// Sanitizar contexto
-		if (logEntry.getContext() != null) {
-			logEntry.setContext(sanitizeContext(logEntry.getContext()));
+		if (logEntry.getContext() == null) {
+			logEntry.setContext(new HashMap<>());
 		}
-	}
-
-	/**
-	 * Sanitiza strings removiendo información sensible
-	 */
-	private String sanitizeString(String input) {
-		if (!StringUtils.hasText(input))
-			return input;
-
-		String sanitized = input;
-		for (String field : SENSITIVE_FIELDS) {
-			sanitized = sanitized.replaceAll("(?i)" + field + "\"?\\s*[:=]\\s*\"?[^\\s,}]+",
-					field + ":***MASKED***");
-		}
-		return sanitized;
-	}
-
-	/**
-	 * Sanitiza el contexto JSON
-	 */
-	private Map<String, Object> sanitizeContext(Map<String, Object> context) {
-		Map<String, Object> sanitized = new HashMap<>();
-
-		context.forEach((key, value) -> {
-			boolean isSensitive = false;
-			for (String sensitiveField : SENSITIVE_FIELDS) {
-				if (key.toLowerCase().contains(sensitiveField.toLowerCase())) {
-					isSensitive = true;
-					break;
-				}
-			}
-
-			if (isSensitive) {
-				sanitized.put(key, "***MASKED***");
-			} else {
-				sanitized.put(key, value);
+		deferredContext.forEach((key, valueSupplier) -> {
+			Object value = null;
+			try {
+				value = valueSupplier.get();
+			} catch (RuntimeException e) {
+				logger.debug("Error evaluando el contexto diferido '{}': {}", key, e.getMessage());
 			}
+			logEntry.getContext().put(key, value);
 		});
-
-		return sanitized;
 	}
 
 	/**
@@ -291,20 +332,39 @@ public class DbLoggerService {
 	 * Builder pattern para construcción fluida de logs
 	 */
 	public static class LogBuilder {
+
+		/**
+		 * Builder compartido para niveles deshabilitados
+		 */
+		static final LogBuilder NOOP = new NoopLogBuilder();
+
 		private final DbLoggerService loggerService;
 		private final LogEntry logEntry;
 
+		/** Contexto diferido; se evalúa en save() solo si el evento se conserva */
+		private Map<String, Supplier<?>> deferredContext;
+
+		private LogBuilder() {
+			this.loggerService = null;
+			this.logEntry = null;
+		}
+
 		public LogBuilder(DbLoggerService loggerService) {
 			this.loggerService = loggerService;
 			this.logEntry = LogEntry.builder()
 					.timestamp(LocalDateTime.now())
 					.environment(loggerService.environment)
 					.applicationVersion(loggerService.applicationVersion)
-					.correlationId(MDC.get("correlationId"))
-					.requestId(MDC.get("requestId"))
-					.sessionId(MDC.get("sessionId"))
-					.userEmail(MDC.get("userEmail"))
+					.correlationId(MDC.get(TraceContext.CORRELATION_ID))
+					.requestId(MDC.get(TraceContext.REQUEST_ID))
+					.sessionId(MDC.get(TraceContext.SESSION_ID))
+					.userEmail(MDC.get(TraceContext.USER_EMAIL))
 					.build();
+			// Enlaza la fila con la traza OTLP cuando el evento ocurre dentro de un span
+			String traceId = MDC.get(TraceContext.TRACE_ID);
+			if (traceId != null) {
+				context(TraceContext.TRACE_ID, traceId);
+			}
 		}
 
 		public LogBuilder level(LogLevel level) {
@@ -350,6 +410,7 @@ public class DbLoggerService {
 		public LogBuilder exception(Throwable throwable) {
 			if (throwable != null) {
 				logEntry.setStackTrace(loggerService.extractStackTrace(throwable));
+				logEntry.setErrorFingerprint(loggerService.stackTraceFingerprinter.fingerprint(throwable));
 				context("exceptionType", throwable.getClass().getSimpleName());
 				context("exceptionMessage", throwable.getMessage());
 			}
@@ -370,12 +431,7 @@ public class DbLoggerService {
 			if (request != null) {
 				logEntry.setClientIp(getClientIpAddress(request));
 				logEntry.setUserAgent(request.getHeader("User-Agent"));
-				logEntry.setRequestId(request.getHeader("X-Request-ID"));
-
-				// Generar correlation ID si no existe
-				if (logEntry.getCorrelationId() == null) {
-					logEntry.setCorrelationId(UUID.randomUUID().toString().substring(0, 8));
-				}
+				// correlationId y requestId vienen del MDC (TracingFilter)
 			}
 			return this;
 		}
@@ -385,6 +441,24 @@ public class DbLoggerService {
 				logEntry.setContext(new HashMap<>());
 			}
 			logEntry.getContext().put(key, value);
+			if (deferredContext != null) {
+				deferredContext.remove(key);
+			}
+			return this;
+		}
+
+		/**
+		 * Contexto diferido: el supplier solo se evalúa si el nivel está
+		 * habilitado y el muestreo conserva el evento
+		 */
+		public LogBuilder context(String key, Supplier<?> valueSupplier) {
+			if (valueSupplier == null) {
+				return context(key, (Object) null);
+			}
+			if (deferredContext == null) {
+				deferredContext = new LinkedHashMap<>();
+			}
+			deferredContext.put(key, valueSupplier);
 			return this;
 		}
 
@@ -394,15 +468,22 @@ public class DbLoggerService {
 					logEntry.setContext(new HashMap<>());
 				}
 				logEntry.getContext().putAll(contextMap);
+				if (deferredContext != null) {
+					deferredContext.keySet().removeAll(contextMap.keySet());
+				}
 			}
 			return this;
 		}
 
+		public boolean isEnabled() {
+			return true;
+		}
+
 		public void save() {
 			if (loggerService.asyncLogging) {
-				loggerService.saveLogAsync(logEntry);
+				loggerService.enqueue(logEntry, deferredContext);
 			} else {
-				loggerService.saveLogSync(logEntry);
+				loggerService.saveLogSync(logEntry, deferredContext);
 			}
 		}
 
@@ -420,4 +501,95 @@ public class DbLoggerService {
 			return request.getRemoteAddr();
 		}
 	}
+
+	/**
+	 * Builder sin efecto: todas las operaciones devuelven la misma instancia
+	 */
+	private static final class NoopLogBuilder extends LogBuilder {
+
+		@Override
+		public LogBuilder level(LogLevel level) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder source(String source) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder message(String message) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder operation(String operation) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder user(String userEmail) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder correlationId(String correlationId) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder sessionId(String sessionId) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder executionTime(long executionTimeMs) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder exception(Throwable throwable) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder requestPayload(Object payload) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder responsePayload(Object payload) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder withRequest(HttpServletRequest request) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder context(String key, Object value) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder context(String key, Supplier<?> valueSupplier) {
+			return this;
+		}
+
+		@Override
+		public LogBuilder context(Map<String, Object> contextMap) {
+			return this;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public void save() {
+			// Nivel deshabilitado
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,576 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsBusyException;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsException;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsFailedException;
+import com.arojas.jce_consulta_api.exception.diagnostics.DiagnosticsUnavailableException;
+import com.arojas.jce_consulta_api.exception.diagnostics.RecordingNotFoundException;
+import com.arojas.jce_consulta_api.exception.diagnostics.RecordingNotReadyException;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.HotSpotDiagnosticMXBean.ThreadDumpFormat;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Diagnóstico en caliente para administradores: grabaciones JFR
+ *         bajo demanda, grabación continua (ring) volcable tras un
+ *         incidente, histograma de clases y volcado de hilos
+ *         * Las grabaciones bajo demanda siempre tienen duración y tamaño
+ *         máximos, hay un límite de grabaciones simultáneas y solo se
+ *         conservan las últimas en disco
+ *         * Todo lo descargable se escribe en un archivo del directorio de
+ *         diagnóstico y se copia a la respuesta por streaming; los volcados
+ *         temporales se borran al terminar. El directorio solo es accesible
+ *         por el usuario del proceso
+ *         * Las grabaciones no incluyen variables de entorno ni propiedades
+ *         del sistema iniciales, que pueden contener credenciales
+ *         * El histograma y el volcado de hilos son costosos: solo uno a la
+ *         vez, y el histograma no fuerza un GC completo salvo que se pida
+ */
+@Service
+@Slf4j
+public class DiagnosticsService {
+
+	private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+	private static final String CONTINUOUS_NAME = "jce-continuous";
+	private static final int MAX_BLOCKED_REPORTED = 50;
+	private static final Pattern POOL_SUFFIX = Pattern.compile("[-#_ ]?\\d+$");
+	private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+	private static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+			"jdk.InitialSystemProperty");
+
+	/**
+	 * Configuraciones de grabación. CONTENTION parte de "default" y activa
+	 * muestreo de asignaciones, contención de monitores, park y E/S de
+	 * sockets por encima del umbral configurado
+	 */
+	public enum Preset {
+		DEFAULT, PROFILE, CONTENTION
+	}
+
+	public record RecordingInfo(long id, String name, String preset, String state, Instant startTime,
+			Instant stopTime, long maxDurationSeconds, long sizeBytes, boolean downloadable) {
+	}
+
+	public record BlockedThread(String name, String state, String lockName, String lockOwner, String topFrame) {
+	}
+
+	public record ThreadSummary(int liveThreads, int daemonThreads, int peakThreads, Map<String, Long> byState,
+			Map<String, Long> byPool, List<String> deadlocked, List<BlockedThread> blocked) {
+	}
+
+	private record TrackedRecording(Recording recording, Preset preset, Path file, long maxDurationSeconds) {
+	}
+
+	private final Map<Long, TrackedRecording> recordings = new ConcurrentHashMap<>();
+	private final AtomicBoolean inspectionRunning = new AtomicBoolean();
+	private volatile Recording continuous;
+
+	@Value("${app.diagnostics.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.diagnostics.directory:${java.io.tmpdir}/jce-diagnostics}")
+	private Path directory;
+
+	@Value("${app.diagnostics.jfr.default-duration:60s}")
+	private Duration defaultDuration;
+
+	@Value("${app.diagnostics.jfr.max-duration:5m}")
+	private Duration maxDuration;
+
+	@Value("${app.diagnostics.jfr.max-size:100MB}")
+	private DataSize maxSize;
+
+	@Value("${app.diagnostics.jfr.max-concurrent:1}")
+	private int maxConcurrent;
+
+	@Value("${app.diagnostics.jfr.max-retained:5}")
+	private int maxRetained;
+
+	@Value("${app.diagnostics.jfr.contention-threshold:10ms}")
+	private Duration contentionThreshold;
+
+	@Value("${app.diagnostics.jfr.continuous.enabled:false}")
+	private boolean continuousOnStartup;
+
+	@Value("${app.diagnostics.jfr.continuous.max-age:30m}")
+	private Duration continuousMaxAge;
+
+	@Value("${app.diagnostics.jfr.continuous.max-size:64MB}")
+	private DataSize continuousMaxSize;
+
+	@PostConstruct
+	public void init() {
+		if (enabled && continuousOnStartup && FlightRecorder.isAvailable()) {
+			try {
+				startContinuous();
+			} catch (Exception e) {
+				log.warn("No se pudo iniciar la grabación JFR continua: {}", e.getMessage());
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		recordings.values().forEach(tracked -> tracked.recording().close());
+		Recording ring = continuous;
+		if (ring != null) {
+			ring.close();
+		}
+	}
+
+	// ================= JFR BAJO DEMANDA =================
+
+	public RecordingInfo startRecording(Preset preset, Duration duration) {
+		requireJfr();
+		Duration bounded = duration == null || duration.isZero() || duration.isNegative() ? defaultDuration
+				: duration;
+		if (bounded.compareTo(maxDuration) > 0) {
+			bounded = maxDuration;
+		}
+
+		synchronized (recordings) {
+			long running = recordings.values().stream()
+					.filter(tracked -> tracked.recording().getState() == RecordingState.RUNNING)
+					.count();
+			if (running >= maxConcurrent) {
+				throw new DiagnosticsBusyException("Ya hay " + running + " grabación(es) JFR en curso");
+			}
+			evictRetained();
+
+			Recording recording = new Recording(settings(preset));
+			Path file = directory.resolve("jce-" + recording.getId() + ".jfr");
+			try {
+				prepareDirectory();
+				recording.setName("jce-" + preset.name().toLowerCase() + "-" + recording.getId());
+				recording.setToDisk(true);
+				recording.setMaxSize(maxSize.toBytes());
+				recording.setDuration(bounded);
+				recording.setDestination(file);
+				recording.start();
+			} catch (IOException e) {
+				recording.close();
+				throw new DiagnosticsFailedException("No se pudo preparar la grabación JFR: " + e.getMessage(), e);
+			}
+
+			TrackedRecording tracked = new TrackedRecording(recording, preset, file, bounded.toSeconds());
+			recordings.put(recording.getId(), tracked);
+			log.info("Grabación JFR {} iniciada ({}, {}s)", recording.getId(), preset, bounded.toSeconds());
+			return info(tracked);
+		}
+	}
+
+	public List<RecordingInfo> listRecordings() {
+		return recordings.values().stream()
+				.sorted(Comparator.comparingLong(tracked -> tracked.recording().getId()))
+				.map(this::info)
+				.toList();
+	}
+
+	/**
+	 * Detiene la grabación; JFR escribe el archivo de destino al detenerla
+	 */
+	public RecordingInfo stopRecording(long id) {
+		TrackedRecording tracked = tracked(id);
+		if (tracked.recording().getState() == RecordingState.RUNNING) {
+			tracked.recording().stop();
+			log.info("Grabación JFR {} detenida", id);
+		}
+		return info(tracked);
+	}
+
+	public void deleteRecording(long id) {
+		TrackedRecording tracked = recordings.remove(id);
+		if (tracked == null) {
+			throw notFound(id);
+		}
+		discard(tracked);
+	}
+
+	/**
+	 * Copia el archivo de una grabación terminada
+	 */
+	public void writeRecording(long id, OutputStream out) throws IOException {
+		TrackedRecording tracked = tracked(id);
+		if (!isDownloadable(tracked)) {
+			throw new RecordingNotReadyException("La grabación " + id + " no ha terminado");
+		}
+		Files.copy(tracked.file(), out);
+	}
+
+	/**
+	 * Falla antes de abrir la respuesta si la grabación no se puede descargar
+	 */
+	public void requireDownloadable(long id) {
+		if (!isDownloadable(tracked(id))) {
+			throw new RecordingNotReadyException("La grabación " + id + " no ha terminado");
+		}
+	}
+
+	// ================= JFR CONTINUO =================
+
+	/**
+	 * Grabación continua de bajo costo (configuración "default"), acotada
+	 * por edad y tamaño; no escribe archivo hasta que se vuelca
+	 */
+	public synchronized RecordingInfo startContinuous() {
+		requireJfr();
+		if (continuous != null && continuous.getState() == RecordingState.RUNNING) {
+			return info(continuous, Preset.DEFAULT.name(), 0, false);
+		}
+		Recording ring = new Recording(settings(Preset.DEFAULT));
+		ring.setName(CONTINUOUS_NAME);
+		ring.setToDisk(true);
+		ring.setMaxAge(continuousMaxAge);
+		ring.setMaxSize(continuousMaxSize.toBytes());
+		ring.start();
+		continuous = ring;
+		log.info("Grabación JFR continua iniciada (maxAge {}, maxSize {})", continuousMaxAge, continuousMaxSize);
+		return info(ring, Preset.DEFAULT.name(), 0, false);
+	}
+
+	public synchronized void stopContinuous() {
+		Recording ring = continuous;
+		if (ring != null) {
+			ring.close();
+			continuous = null;
+			log.info("Grabación JFR continua detenida");
+		}
+	}
+
+	public Map<String, Object> continuousStatus() {
+		Recording ring = continuous;
+		Map<String, Object> status = new HashMap<>();
+		status.put("running", ring != null && ring.getState() == RecordingState.RUNNING);
+		status.put("maxAgeSeconds", continuousMaxAge.toSeconds());
+		status.put("maxSizeBytes", continuousMaxSize.toBytes());
+		if (ring != null) {
+			status.put("recording", info(ring, Preset.DEFAULT.name(), 0, false));
+		}
+		return status;
+	}
+
+	public void requireContinuous() {
+		Recording ring = continuous;
+		if (ring == null || ring.getState() != RecordingState.RUNNING) {
+			throw new RecordingNotReadyException("La grabación JFR continua no está activa");
+		}
+	}
+
+	/**
+	 * Vuelca lo que contiene el ring a un archivo temporal y lo copia
+	 */
+	public void writeContinuousDump(OutputStream out) throws IOException {
+		requireContinuous();
+		Recording ring = continuous;
+		Path file = tempFile("jce-continuous", ".jfr");
+		try {
+			ring.dump(file);
+			Files.copy(file, out);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	// ================= HEAP E HILOS =================
+
+	/**
+	 * Histograma de clases (GC.class_histogram) limitado a las primeras
+	 * filas. Con live=false se usa -all: sin GC completo previo, incluye
+	 * objetos no alcanzables. DiagnosticCommand lo devuelve como un único
+	 * String; se recorta a un archivo temporal dentro de la sección exclusiva
+	 * para no retenerlo mientras se copia a un cliente lento
+	 */
+	public void writeClassHistogram(boolean live, int top, OutputStream out) throws IOException {
+		Path file = tempFile("jce-histogram", ".txt");
+		try {
+			exclusive(() -> {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				String[] arguments = live ? new String[0] : new String[] { "-all" };
+				String histogram = (String) server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "gcClassHistogram",
+						new Object[] { arguments }, new String[] { String[].class.getName() });
+				writeTopRows(histogram, top, file);
+				return null;
+			});
+			Files.copy(file, out);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Volcado completo de hilos, incluidos los virtuales, en texto o JSON
+	 */
+	public void writeThreadDump(ThreadDumpFormat format, OutputStream out) throws IOException {
+		Path file = tempFile("jce-threads", format == ThreadDumpFormat.JSON ? ".json" : ".txt");
+		// dumpThreads exige que el archivo no exista
+		Files.deleteIfExists(file);
+		try {
+			exclusive(() -> {
+				ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+						.dumpThreads(file.toAbsolutePath().toString(), format);
+				return null;
+			});
+			Files.copy(file, out);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Resumen de hilos de plataforma: estados, pools, bloqueados y deadlocks
+	 */
+	public ThreadSummary threadSummary() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		ThreadInfo[] infos = threads.dumpAllThreads(false, false, 1);
+
+		Map<String, Long> byState = new TreeMap<>();
+		Map<String, Long> byPool = new TreeMap<>();
+		List<BlockedThread> blocked = new ArrayList<>();
+		for (ThreadInfo info : infos) {
+			byState.merge(info.getThreadState().name(), 1L, Long::sum);
+			byPool.merge(POOL_SUFFIX.matcher(info.getThreadName()).replaceFirst(""), 1L, Long::sum);
+			if (info.getThreadState() == Thread.State.BLOCKED && blocked.size() < MAX_BLOCKED_REPORTED) {
+				StackTraceElement[] stack = info.getStackTrace();
+				blocked.add(new BlockedThread(info.getThreadName(), info.getThreadState().name(),
+						info.getLockName(), info.getLockOwnerName(),
+						stack.length > 0 ? stack[0].toString() : null));
+			}
+		}
+
+		List<String> deadlocked = new ArrayList<>();
+		long[] deadlockedIds = threads.findDeadlockedThreads();
+		if (deadlockedIds != null) {
+			for (ThreadInfo info : threads.getThreadInfo(deadlockedIds)) {
+				if (info != null) {
+					deadlocked.add(info.getThreadName());
+				}
+			}
+		}
+
+		return new ThreadSummary(threads.getThreadCount(), threads.getDaemonThreadCount(),
+				threads.getPeakThreadCount(), byState, byPool, deadlocked, blocked);
+	}
+
+	/**
+	 * Falla antes de abrir la respuesta si ya hay un histograma o volcado en
+	 * curso
+	 */
+	public void requireInspectionIdle() {
+		requireEnabled();
+		if (inspectionRunning.get()) {
+			throw new DiagnosticsBusyException("Ya hay un diagnóstico de heap o hilos en curso");
+		}
+	}
+
+	// ================= PRIVADOS =================
+
+	private Map<String, String> settings(Preset preset) {
+		Map<String, String> settings = new HashMap<>(
+				configuration(preset == Preset.PROFILE ? "profile" : "default").getSettings());
+		for (String event : SENSITIVE_EVENTS) {
+			settings.put(event + "#enabled", "false");
+		}
+		if (preset == Preset.CONTENTION) {
+			String threshold = contentionThreshold.toMillis() + " ms";
+			settings.put("jdk.ObjectAllocationSample#enabled", "true");
+			settings.put("jdk.ObjectAllocationSample#throttle", "300/s");
+			settings.put("jdk.ExecutionSample#period", "10 ms");
+			for (String event : List.of("jdk.JavaMonitorEnter", "jdk.JavaMonitorWait", "jdk.ThreadPark",
+					"jdk.SocketRead", "jdk.SocketWrite")) {
+				settings.put(event + "#enabled", "true");
+				settings.put(event + "#threshold", threshold);
+				settings.put(event + "#stackTrace", "true");
+			}
+		}
+		return settings;
+	}
+
+	private Configuration configuration(String name) {
+		try {
+			return Configuration.getConfiguration(name);
+		} catch (Exception e) {
+			throw new DiagnosticsFailedException("Configuración JFR no disponible: " + name, e);
+		}
+	}
+
+	/**
+	 * Conserva como mucho maxRetained grabaciones terminadas, borrando las
+	 * más antiguas
+	 */
+	private void evictRetained() {
+		List<TrackedRecording> finished = recordings.values().stream()
+				.filter(tracked -> tracked.recording().getState() != RecordingState.RUNNING
+						&& tracked.recording().getState() != RecordingState.DELAYED)
+				.sorted(Comparator.comparingLong(tracked -> tracked.recording().getId()))
+				.toList();
+		for (int i = 0; i <= finished.size() - maxRetained; i++) {
+			TrackedRecording oldest = finished.get(i);
+			recordings.remove(oldest.recording().getId());
+			discard(oldest);
+		}
+	}
+
+	private void discard(TrackedRecording tracked) {
+		tracked.recording().close();
+		try {
+			Files.deleteIfExists(tracked.file());
+		} catch (IOException e) {
+			log.warn("No se pudo borrar {}: {}", tracked.file(), e.getMessage());
+		}
+	}
+
+	private boolean isDownloadable(TrackedRecording tracked) {
+		RecordingState state = tracked.recording().getState();
+		return (state == RecordingState.STOPPED || state == RecordingState.CLOSED) && Files.exists(tracked.file());
+	}
+
+	private TrackedRecording tracked(long id) {
+		TrackedRecording tracked = recordings.get(id);
+		if (tracked == null) {
+			throw notFound(id);
+		}
+		return tracked;
+	}
+
+	private RecordingInfo info(TrackedRecording tracked) {
+		return info(tracked.recording(), tracked.preset().name(), tracked.maxDurationSeconds(),
+				isDownloadable(tracked));
+	}
+
+	private static RecordingInfo info(Recording recording, String preset, long maxDurationSeconds,
+			boolean downloadable) {
+		return new RecordingInfo(recording.getId(), recording.getName(), preset, recording.getState().name(),
+				recording.getStartTime(), recording.getStopTime(), maxDurationSeconds, recording.getSize(),
+				downloadable);
+	}
+
+	private Path tempFile(String prefix, String suffix) throws IOException {
+		requireEnabled();
+		prepareDirectory();
+		return Files.createTempFile(directory, prefix, suffix);
+	}
+
+	/**
+	 * Crea el directorio solo para el dueño (rwx------) o restringe uno
+	 * existente; en sistemas de archivos sin POSIX queda con los permisos
+	 * por defecto
+	 */
+	private void prepareDirectory() throws IOException {
+		if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.createDirectories(directory);
+			return;
+		}
+		if (!Files.isDirectory(directory)) {
+			FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(OWNER_ONLY);
+			Files.createDirectories(directory, ownerOnly);
+		}
+		// createDirectories aplica la umask y un directorio previo puede ser más abierto
+		if (!Files.getPosixFilePermissions(directory).equals(OWNER_ONLY)) {
+			Files.setPosixFilePermissions(directory, OWNER_ONLY);
+		}
+	}
+
+	/**
+	 * Dos líneas de encabezado, las primeras filas y la línea Total al final
+	 */
+	private static void writeTopRows(String histogram, int top, Path file) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new StringReader(histogram));
+				BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			int rows = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				boolean isRow = !line.isBlank() && Character.isDigit(line.stripLeading().charAt(0));
+				if (!isRow || rows++ < top) {
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+		}
+	}
+
+	private <T> T exclusive(DiagnosticCall<T> call) {
+		requireEnabled();
+		if (!inspectionRunning.compareAndSet(false, true)) {
+			throw new DiagnosticsBusyException("Ya hay un diagnóstico de heap o hilos en curso");
+		}
+		try {
+			return call.call();
+		} catch (DiagnosticsException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new DiagnosticsFailedException("Error ejecutando el diagnóstico: " + e.getMessage(), e);
+		} finally {
+			inspectionRunning.set(false);
+		}
+	}
+
+	@FunctionalInterface
+	private interface DiagnosticCall<T> {
+		T call() throws Exception;
+	}
+
+	private void requireEnabled() {
+		if (!enabled) {
+			throw new DiagnosticsUnavailableException("Diagnóstico deshabilitado");
+		}
+	}
+
+	private void requireJfr() {
+		requireEnabled();
+		if (!FlightRecorder.isAvailable()) {
+			throw new DiagnosticsUnavailableException("Java Flight Recorder no está disponible en esta JVM");
+		}
+	}
+
+	private static RecordingNotFoundException notFound(long id) {
+		return new RecordingNotFoundException(id);
+	}
+}
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Service;
 import com.arojas.jce_consulta_api.entity.EmailTemplate;
 import com.arojas.jce_consulta_api.entity.EmailTemplate.TemplateType;
 import com.arojas.jce_consulta_api.entity.PaymentOrder;
+import com.arojas.jce_consulta_api.util.TraceContext;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -86,7 +87,7 @@ public class EmailService {
 
 	@Async("emailExecutor")
 	public CompletableFuture<Void> sendCustomEmail(String userEmail, String subject, String content) {
-		return CompletableFuture.runAsync(() -> {
+		return CompletableFuture.runAsync(TraceContext.wrap(() -> {
 			try {
 				log.info("Enviando email personalizado a: {}", userEmail);
 				sendHtmlEmail(userEmail, subject, content);
@@ -94,7 +95,7 @@ public class EmailService {
 			} catch (Exception e) {
 				log.error("Error enviando email personalizado a {}: {}", userEmail, e.getMessage(), e);
 			}
-		});
+		}));
 	}
 
 	public boolean isEmailEnabled() {
@@ -111,7 +112,7 @@ public class EmailService {
 
 	private CompletableFuture<Void> sendEmailFromTemplate(String to, TemplateType templateType,
 			Map<String, ?> variables) {
-		return CompletableFuture.runAsync(() -> {
+		return CompletableFuture.runAsync(TraceContext.wrap(() -> {
 			if (!emailEnabled) {
 				log.info("Emails deshabilitados - no se envió email a: {}", to);
 				return;
@@ -130,7 +131,7 @@ public class EmailService {
 			} catch (Exception e) {
 				log.error("Error enviando email de tipo {} a {}: {}", templateType, to, e.getMessage(), e);
 			}
-		});
+		}));
 	}
 
 	private void sendHtmlEmail(String to, String subject, String content) {
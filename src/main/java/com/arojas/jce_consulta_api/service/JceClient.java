@@ -16,6 +16,7 @@ import com.arojas.jce_consulta_api.client.JceFeignClientConfiguration.JceClientE
 import com.arojas.jce_consulta_api.config.JceConfigurationProperties;
 import com.arojas.jce_consulta_api.dto.CedulaResultDto;
 import com.arojas.jce_consulta_api.mapper.JceResponseMapper;
+import com.arojas.jce_consulta_api.service.QueryStageMetrics.Stage;
 import com.arojas.jce_consulta_api.util.CedulaValidationUtils;
 import com.arojas.jce_consulta_api.util.CedulaValidationUtils.CedulaInfo;
 
@@ -23,9 +24,12 @@ import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 
 import com.arojas.jce_consulta_api.util.CedulaValidationUtils.XmlToJsonResult;
+import com.arojas.jce_consulta_api.util.TraceContext;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,8 +52,11 @@ public class JceClient {
 	private final JceConfigurationProperties jceProperties;
 	private final CedulaValidationUtils cedulaValidationUtils;
 	private final JceResponseMapper responseMapper;
+	private final QueryStageMetrics stageMetrics;
+	private final ObservationRegistry observationRegistry;
 
 	private static final String JCE_CIRCUIT_BREAKER = "jceService";
+	private static final String JCE_OBSERVATION = "jce.consulta";
 
 	/**
 	 * Realiza consulta de cédula con circuit breaker, retry y caché
@@ -61,13 +68,22 @@ public class JceClient {
 	@Retryable(retryFor = {
 			JceClientException.class }, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
 	public CompletableFuture<CedulaResultDto> queryCedulaAsync(String cedula) {
-		return CompletableFuture.supplyAsync(() -> queryCedula(cedula));
+		return CompletableFuture.supplyAsync(
+				TraceContext.wrap(() -> queryCedula(cedula, QueryStageMetrics.CACHE_REDIS_MISS)));
 	}
 
 	/**
 	 * Realiza consulta de cédula síncrona y retorna resultado con JSON
 	 */
 	public CedulaResultDto queryCedula(String cedula) {
+		return queryCedula(cedula, QueryStageMetrics.CACHE_NONE);
+	}
+
+	/**
+	 * Consulta síncrona midiendo las etapas HTTP, parseo XML y mapeo con el
+	 * nivel de caché por el que llegó la consulta
+	 */
+	private CedulaResultDto queryCedula(String cedula, String cacheTier) {
 		log.info("Iniciando consulta JCE para cédula: {}", cedulaValidationUtils.maskCedula(cedula));
 
 		try {
@@ -80,10 +96,12 @@ public class JceClient {
 			}
 
 			// Realizar consulta al servicio JCE
-			String xmlResponse = consultarJceService(cedulaInfo);
+			String xmlResponse = stageMetrics.time(Stage.JCE_HTTP, cacheTier,
+					() -> consultarJceService(cedulaInfo));
 
 			// Procesar respuesta XML y convertir a JSON
-			XmlToJsonResult xmlToJsonResult = cedulaValidationUtils.processJceXmlResponse(xmlResponse);
+			XmlToJsonResult xmlToJsonResult = stageMetrics.time(Stage.XML_PARSE, cacheTier,
+					() -> cedulaValidationUtils.processJceXmlResponse(xmlResponse));
 
 			if (!xmlToJsonResult.success() || xmlToJsonResult.parsedData() == null
 					|| !xmlToJsonResult.parsedData().hasValidData()) {
@@ -94,7 +112,8 @@ public class JceClient {
 			}
 
 			// Mapear a DTO de resultado
-			CedulaResultDto result = responseMapper.toResultDto(xmlToJsonResult.parsedData(), cedulaInfo);
+			CedulaResultDto result = stageMetrics.time(Stage.MAPPING, cacheTier,
+					() -> responseMapper.toResultDto(xmlToJsonResult.parsedData(), cedulaInfo));
 			result.setSuccess(true);
 			result.setMessage("Consulta realizada exitosamente");
 			result.setQueryTimestamp(LocalDateTime.now());
@@ -197,16 +216,23 @@ public class JceClient {
 		log.debug("Consultando servicio JCE con parámetros - Municipio: {}, Secuencia: {}, Verificador: {}",
 				cedulaInfo.municipio(), "****", cedulaInfo.digitoVerificador());
 
-		try {
-			return jceFeignClient.consultarCedula(
-					jceProperties.getServiceId(),
-					cedulaInfo.municipio(),
-					cedulaInfo.secuencia(),
-					cedulaInfo.digitoVerificador());
-		} catch (Exception e) {
-			log.error("Error en llamada al servicio JCE: {}", e.getMessage());
-			throw new JceClientException("Error comunicándose con el servicio JCE", e);
-		}
+		// Span propio alrededor del span HTTP de Feign: incluye el manejo de
+		// errores y deja el municipio como atributo de la traza
+		return Observation.createNotStarted(JCE_OBSERVATION, observationRegistry)
+				.contextualName("jce consultarCedula")
+				.highCardinalityKeyValue("jce.municipio", cedulaInfo.municipio())
+				.observe(() -> {
+					try {
+						return jceFeignClient.consultarCedula(
+								jceProperties.getServiceId(),
+								cedulaInfo.municipio(),
+								cedulaInfo.secuencia(),
+								cedulaInfo.digitoVerificador());
+					} catch (Exception e) {
+						log.error("Error en llamada al servicio JCE: {}", e.getMessage());
+						throw new JceClientException("Error comunicándose con el servicio JCE", e);
+					}
+				});
 	}
 
 	private CedulaResultDto createEmptyResult(CedulaInfo cedulaInfo, String message, String jsonResponse) {
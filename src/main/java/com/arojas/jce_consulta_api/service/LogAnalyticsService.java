@@ -8,6 +8,7 @@ package com.arojas.jce_consulta_api.service;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +20,8 @@ import org.springframework.stereotype.Service;
 import com.arojas.jce_consulta_api.entity.LogEntry;
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.repository.LogEntryRepository;
+import com.arojas.jce_consulta_api.service.logging.ErrorFingerprintStore;
+import com.arojas.jce_consulta_api.service.logging.LogRollupStore;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,6 +29,8 @@ import lombok.RequiredArgsConstructor;
  *
  * @author arojas
  *         * Servicio para análisis y métricas de logs
+ *         * Conteos, errores, rendimiento y actividad se leen de los rollups
+ *         incrementales ({@link LogRollupStore})
  *
  */
 
@@ -34,37 +39,45 @@ import lombok.RequiredArgsConstructor;
 public class LogAnalyticsService {
 
 	private final LogEntryRepository logEntryRepository;
+	private final LogRollupStore logRollupStore;
+	private final ErrorFingerprintStore errorFingerprintStore;
 
 	/**
-	 * Obtiene métricas generales del sistema
+	 * Obtiene métricas generales del sistema (desde los rollups, sin recorrer
+	 * application_logs)
 	 */
 	public Map<String, Object> getSystemMetrics(LocalDateTime since) {
+		return getSystemMetrics(since, LocalDateTime.now(), true);
+	}
+
+	private Map<String, Object> getSystemMetrics(LocalDateTime since, LocalDateTime until, boolean includeDetails) {
 		Map<String, Object> metrics = new HashMap<>();
 
 		// Resumen general
-		List<Object[]> summary = logEntryRepository.getDashboardSummary(since);
-		if (!summary.isEmpty()) {
-			Object[] data = summary.get(0);
-			metrics.put("totalLogs", data[0]);
-			metrics.put("errors", data[1]);
-			metrics.put("fatals", data[2]);
-			metrics.put("warnings", data[3]);
-			metrics.put("infos", data[4]);
-			metrics.put("activeUsers", data[5]);
-			metrics.put("activeSources", data[6]);
+		Map<LogLevel, Long> counts = logRollupStore.countByLevel(since, until);
+		metrics.put("totalLogs", counts.values().stream().mapToLong(Long::longValue).sum());
+		metrics.put("errors", counts.getOrDefault(LogLevel.ERROR, 0L));
+		metrics.put("fatals", counts.getOrDefault(LogLevel.FATAL, 0L));
+		metrics.put("warnings", counts.getOrDefault(LogLevel.WARN, 0L));
+		metrics.put("infos", counts.getOrDefault(LogLevel.INFO, 0L));
+		metrics.put("activeUsers", logRollupStore.countActiveUsers(since, until));
+		metrics.put("activeSources", logRollupStore.countActiveSources(since, until));
+
+		if (!includeDetails) {
+			return metrics;
 		}
 
 		// Errores recurrentes
-		List<Object[]> recurringErrors = logEntryRepository.findRecurringErrors(since, 3L);
+		List<Object[]> recurringErrors = logRollupStore.findRecurringErrors(since, until, 3L);
 		metrics.put("recurringErrors", recurringErrors);
 
-		// Operaciones lentas
+		// Operaciones lentas (consulta acotada por tiempo e índice)
 		Pageable topSlow = PageRequest.of(0, 10);
-		Page<LogEntry> slowOps = logEntryRepository.findSlowOperations(1000L, topSlow);
+		Page<LogEntry> slowOps = logEntryRepository.findSlowOperations(1000L, since, topSlow);
 		metrics.put("slowOperations", slowOps.getContent());
 
 		// Estadísticas de rendimiento
-		List<Object[]> perfStats = logEntryRepository.getPerformanceStatsByOperation(since);
+		List<Object[]> perfStats = logRollupStore.getPerformanceStatsByOperation(since, until);
 		metrics.put("performanceStats", perfStats);
 
 		return metrics;
@@ -76,38 +89,85 @@ public class LogAnalyticsService {
 	public Map<String, Object> getErrorStatistics(LocalDateTime start, LocalDateTime end) {
 		Map<String, Object> stats = new HashMap<>();
 
-		List<Object[]> errorsBySource = logEntryRepository.countErrorsBySource(start, end);
+		List<Object[]> errorsBySource = logRollupStore.countErrorsBySource(start, end);
 		stats.put("errorsBySource", errorsBySource);
 
-		List<Object[]> recurringErrors = logEntryRepository.findRecurringErrors(start, 2L);
+		List<Object[]> recurringErrors = logRollupStore.findRecurringErrors(start, end, 2L);
 		stats.put("recurringErrors", recurringErrors);
 
+		// Catálogo de huellas: ocurrencias acumuladas de los errores activos
+		stats.put("errorFingerprints", errorFingerprintStore.findRecurring(start, 2L, 20));
+
 		return stats;
 	}
 
+	/**
+	 * Latencia p50/p95 por endpoint (método + ruta mapeada) de los requests
+	 * HTTP
+	 */
+	public List<Map<String, Object>> getEndpointLatency(LocalDateTime start, LocalDateTime end, long minRequests,
+			int limit) {
+		return logEntryRepository.getEndpointLatency(start, end, minRequests, limit).stream()
+				.map(row -> {
+					Map<String, Object> endpoint = new LinkedHashMap<>();
+					endpoint.put("httpMethod", row[0]);
+					endpoint.put("route", row[1]);
+					endpoint.put("requests", ((Number) row[2]).longValue());
+					endpoint.put("p50Ms", row[3] != null ? ((Number) row[3]).longValue() : null);
+					endpoint.put("p95Ms", row[4] != null ? ((Number) row[4]).longValue() : null);
+					endpoint.put("avgMs", row[5] != null ? ((Number) row[5]).doubleValue() : null);
+					return endpoint;
+				})
+				.toList();
+	}
+
+	/**
+	 * Respuestas y proporción por clase de estado HTTP ("2xx", "4xx",
+	 * "5xx"...); errorRate es la fracción 4xx + 5xx
+	 */
+	public Map<String, Object> getStatusClassRates(LocalDateTime start, LocalDateTime end) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (Object[] row : logEntryRepository.countByStatusClass(start, end)) {
+			counts.put(((Number) row[0]).intValue() + "xx", ((Number) row[1]).longValue());
+		}
+		long total = counts.values().stream().mapToLong(Long::longValue).sum();
+
+		Map<String, Double> rates = new LinkedHashMap<>();
+		counts.forEach((statusClass, count) -> rates.put(statusClass, total > 0 ? (double) count / total : 0.0));
+
+		long errors = counts.getOrDefault("4xx", 0L) + counts.getOrDefault("5xx", 0L);
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("total", total);
+		result.put("counts", counts);
+		result.put("rates", rates);
+		result.put("errorRate", total > 0 ? (double) errors / total : 0.0);
+		result.put("serverErrorRate", total > 0 ? (double) counts.getOrDefault("5xx", 0L) / total : 0.0);
+		return result;
+	}
+
 	/**
 	 * Obtiene actividad de usuarios
 	 */
 	public List<Object[]> getUserActivity(LocalDateTime since) {
-		return logEntryRepository.getUserActivity(since);
+		return logRollupStore.getUserActivity(since, LocalDateTime.now());
 	}
 
 	/**
 	 * Obtiene tendencias por nivel de log
 	 */
 	public Map<String, Long> getLogTrends(LocalDateTime start, LocalDateTime end) {
-		List<Object[]> counts = logEntryRepository.getLogCountByLevel(start, end);
 		Map<String, Long> trends = new HashMap<>();
-
-		for (Object[] count : counts) {
-			LogLevel level = (LogLevel) count[0];
-			Long total = (Long) count[1];
-			trends.put(level.name(), total);
-		}
-
+		logRollupStore.countByLevel(start, end).forEach((level, total) -> trends.put(level.name(), total));
 		return trends;
 	}
 
+	/**
+	 * Obtiene la tendencia por hora y nivel: [hour, level, count]
+	 */
+	public List<Object[]> getHourlyTrends(LocalDateTime start, LocalDateTime end) {
+		return logRollupStore.getHourlyTrend(start, end);
+	}
+
 	/**
 	 * Genera reporte de salud del sistema
 	 */
@@ -119,11 +179,11 @@ public class LogAnalyticsService {
 		Map<String, Object> report = new HashMap<>();
 
 		// Métricas de la última hora
-		Map<String, Object> lastHourMetrics = getSystemMetrics(lastHour);
+		Map<String, Object> lastHourMetrics = getSystemMetrics(lastHour, now, false);
 		report.put("lastHour", lastHourMetrics);
 
 		// Métricas de las últimas 24 horas
-		Map<String, Object> last24HoursMetrics = getSystemMetrics(last24Hours);
+		Map<String, Object> last24HoursMetrics = getSystemMetrics(last24Hours, now, false);
 		report.put("last24Hours", last24HoursMetrics);
 
 		// Calcular tasas de error
@@ -5,6 +5,7 @@
 
 package com.arojas.jce_consulta_api.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -13,10 +14,11 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
 import com.arojas.jce_consulta_api.repository.LogEntryRepository;
+import com.arojas.jce_consulta_api.service.logging.LogArchiveStore;
+import com.arojas.jce_consulta_api.service.logging.LogPartitionManager;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +27,8 @@ import lombok.extern.slf4j.Slf4j;
  *
  * @author arojas
  *         * Servicio para mantenimiento y limpieza automática de logs
+ *         * Con application_logs particionada por día, archivar y eliminar
+ *         son operaciones de metadatos sobre particiones completas
  *
  */
 
@@ -35,6 +39,8 @@ public class LogCleanupService {
 
 	private final LogEntryRepository logEntryRepository;
 	private final DbLoggerService dbLoggerService;
+	private final LogPartitionManager logPartitionManager;
+	private final LogArchiveStore logArchiveStore;
 
 	@Value("${app.logging.cleanup.archive-after-days:30}")
 	private int archiveAfterDays;
@@ -49,7 +55,6 @@ public class LogCleanupService {
 	 * Ejecuta limpieza automática cada día a las 2:00 AM
 	 */
 	@Scheduled(cron = "0 0 2 * * ?")
-	@Transactional
 	public void performScheduledCleanup() {
 		if (!cleanupEnabled) {
 			return;
@@ -75,60 +80,107 @@ public class LogCleanupService {
 	}
 
 	/**
-	 * Archiva logs antiguos
+	 * Archiva logs antiguos. Con la tabla particionada mueve particiones
+	 * completas (EXCHANGE PARTITION) y devuelve el número de días
+	 * archivados; sin particionado marca filas.
 	 */
 	public int archiveOldLogs() {
-		LocalDateTime archiveDate = LocalDateTime.now().minusDays(archiveAfterDays);
-		int count = logEntryRepository.archiveOldLogs(archiveDate);
+		LocalDate archiveDate = LocalDate.now().minusDays(archiveAfterDays);
 
-		if (count > 0) {
-			dbLoggerService.log()
-					.level(LogLevel.INFO)
-					.source("LogCleanupService")
-					.operation("ARCHIVE_LOGS")
-					.message(String.format("Archivados %d logs anteriores a %s", count, archiveDate))
-					.context("archivedCount", count)
-					.context("archiveDate", archiveDate.toString())
-					.save();
+		if (!logPartitionManager.isPartitioned()) {
+			int count = logEntryRepository.archiveOldLogs(archiveDate.atStartOfDay());
+			logMaintenance("ARCHIVE_LOGS",
+					String.format("Archivados %d logs anteriores a %s", count, archiveDate), count, archiveDate);
+			return count;
 		}
 
-		return count;
+		List<LocalDate> archivedDays = logPartitionManager.archivePartitionsBefore(archiveDate);
+
+		// Las tablas de archivo pasan a segmentos columnares en disco
+		if (logArchiveStore.isEnabled()) {
+			logArchiveStore.exportArchiveTables();
+		}
+
+		if (!archivedDays.isEmpty()) {
+			logMaintenance("ARCHIVE_LOGS",
+					String.format("Archivadas %d particiones diarias anteriores a %s", archivedDays.size(),
+							archiveDate),
+					archivedDays.size(), archiveDate);
+		}
+		return archivedDays.size();
 	}
 
 	/**
-	 * Elimina logs archivados muy antiguos
+	 * Elimina logs archivados muy antiguos. Con la tabla particionada elimina
+	 * tablas de archivo y segmentos completos y devuelve cuántos; sin
+	 * particionado borra filas.
 	 */
 	public int deleteOldArchivedLogs() {
-		LocalDateTime deleteDate = LocalDateTime.now().minusDays(deleteAfterDays);
-		int count = logEntryRepository.deleteArchivedLogs(deleteDate);
+		LocalDate deleteDate = LocalDate.now().minusDays(deleteAfterDays);
+
+		int count = logPartitionManager.isPartitioned()
+				? logPartitionManager.dropArchivesBefore(deleteDate)
+				: logEntryRepository.deleteArchivedLogs(deleteDate.atStartOfDay());
+		count += logArchiveStore.deleteSegmentsBefore(deleteDate);
 
 		if (count > 0) {
-			dbLoggerService.log()
-					.level(LogLevel.INFO)
-					.source("LogCleanupService")
-					.operation("DELETE_LOGS")
-					.message(String.format("Eliminados %d logs archivados anteriores a %s", count, deleteDate))
-					.context("deletedCount", count)
-					.context("deleteDate", deleteDate.toString())
-					.save();
+			logMaintenance("DELETE_LOGS",
+					String.format("Eliminados %d logs archivados anteriores a %s", count, deleteDate),
+					count, deleteDate);
 		}
-
 		return count;
 	}
 
+	/**
+	 * Inicio de la ventana de logs vivos (no archivados); usado como límite
+	 * inferior por defecto de las consultas por rango para que MySQL pode
+	 * particiones
+	 */
+	public LocalDateTime getLiveWindowStart() {
+		return LocalDate.now().minusDays(archiveAfterDays).atStartOfDay();
+	}
+
+	/**
+	 * Inicio de la retención total (vivos y archivados); límite inferior por
+	 * defecto de las búsquedas sobre logs archivados
+	 */
+	public LocalDateTime getRetentionStart() {
+		return LocalDate.now().minusDays(deleteAfterDays).atStartOfDay();
+	}
+
 	/**
 	 * Obtiene estadísticas de archivado
 	 */
 	public Map<String, Object> getCleanupStatistics() {
-		List<Object[]> stats = logEntryRepository.getArchiveStatistics();
 		Map<String, Object> result = new HashMap<>();
 
-		for (Object[] stat : stats) {
-			Boolean archived = (Boolean) stat[0];
-			Long count = (Long) stat[1];
-			result.put(archived ? "archived" : "active", count);
+		if (!logPartitionManager.isPartitioned()) {
+			for (Object[] stat : logEntryRepository.getArchiveStatistics()) {
+				Boolean archived = (Boolean) stat[0];
+				Long count = (Long) stat[1];
+				result.put(archived ? "archived" : "active", count);
+			}
+			return result;
 		}
 
+		// Conteos aproximados desde metadatos, sin recorrer la tabla
+		List<LogPartitionManager.PartitionInfo> partitions = logPartitionManager.listPartitions();
+		result.put("active", partitions.stream().mapToLong(LogPartitionManager.PartitionInfo::approximateRows).sum());
+		result.put("archived", logPartitionManager.approximateArchivedRows());
+		result.put("partitions", partitions.size());
+		result.put("archiveTables", logPartitionManager.listArchiveDays().size());
+		if (logArchiveStore.isEnabled()) {
+			result.put("archiveSegments", logArchiveStore.getStatistics());
+		}
 		return result;
 	}
+
+	private void logMaintenance(String operation, String message, int count, LocalDate cutoff) {
+		dbLoggerService.log(LogLevel.INFO, "LogCleanupService")
+				.operation(operation)
+				.message(message)
+				.context("count", count)
+				.context("cutoffDate", cutoff.toString())
+				.save();
+	}
 }
@@ -16,13 +16,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.arojas.jce_consulta_api.dto.PaymentOrderDto;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.entity.PaymentOrder;
 import com.arojas.jce_consulta_api.entity.PaymentOrder.PaymentStatus;
 import com.arojas.jce_consulta_api.entity.User;
-import com.arojas.jce_consulta_api.entity.User.Role;
 import com.arojas.jce_consulta_api.exception.payment.PaymentExceptions;
 import com.arojas.jce_consulta_api.repository.PaymentOrderRepository;
 import com.arojas.jce_consulta_api.repository.UserRepository;
+import com.arojas.jce_consulta_api.security.AuthenticatedPrincipal;
+import com.arojas.jce_consulta_api.security.PrincipalResolver;
+import com.arojas.jce_consulta_api.util.CursorCodec;
+import com.arojas.jce_consulta_api.util.TraceContext;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -47,6 +51,7 @@ public class PaymentService {
 	private final UserService userService;
 	private final AppSettingsService appSettingsService;
 	private final EmailService emailService;
+	private final PrincipalResolver principalResolver;
 
 	// Configuration
 	@Value("${app.payment.buymeacoffee.base-url}")
@@ -71,8 +76,11 @@ public class PaymentService {
 
 		validateTokenQuantity(tokenQuantity);
 
-		User user = getUserByEmailOrThrow(userEmail);
-		validateUserIsActive(user);
+		AuthenticatedPrincipal principal = getPrincipalOrThrow(userEmail);
+		validateUserIsActive(principal);
+
+		// Referencia sin SELECT: solo se necesita la FK para la orden
+		User user = userRepository.getReferenceById(principal.getId());
 
 		BigDecimal tokenPrice = appSettingsService.getTokenPrice();
 		BigDecimal totalAmount = calculateTotalAmount(tokenPrice, tokenQuantity);
@@ -94,7 +102,7 @@ public class PaymentService {
 	public Page<PaymentOrderDto> getUserPaymentHistory(String userEmail, int page, int size) {
 		log.info("Getting payment history for user: {} - page: {}", userEmail, page);
 
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 
 		Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 		Page<PaymentOrder> payments = paymentOrderRepository.findByUserIdOrderByCreatedAtDesc(
@@ -103,6 +111,30 @@ public class PaymentService {
 		return payments.map(this::convertToDto);
 	}
 
+	/**
+	 * Historial de pagos por cursor (createdAt, id), sin COUNT salvo que se
+	 * pida el total
+	 */
+	@Transactional(readOnly = true)
+	public CursorPage<PaymentOrderDto> scrollUserPaymentHistory(String userEmail, String cursor, int size,
+			boolean includeTotal) {
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
+		CursorCodec.Cursor position = CursorCodec.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+
+		List<PaymentOrder> rows = position == null
+				? paymentOrderRepository.findHistoryFirstPage(user.getId(), limit)
+				: paymentOrderRepository.findHistoryAfter(user.getId(), position.sortKeyAsDateTime(), position.id(),
+						limit);
+
+		CursorPage<PaymentOrderDto> page = CursorPage.of(rows, size,
+				payment -> CursorCodec.encode(payment.getCreatedAt(), payment.getId()), this::convertToDto);
+		if (includeTotal) {
+			page.setTotalElements(paymentOrderRepository.countByUserId(user.getId()));
+		}
+		return page;
+	}
+
 	/**
 	 * Obtiene una orden de pago por ID
 	 */
@@ -110,7 +142,7 @@ public class PaymentService {
 	public PaymentOrderDto getPaymentOrderById(String paymentOrderId, String userEmail) {
 		log.info("Getting payment order: {} for user: {}", paymentOrderId, userEmail);
 
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 
 		PaymentOrder paymentOrder = paymentOrderRepository.findByIdAndUserId(paymentOrderId, user.getId())
 				.orElseThrow(() -> PaymentExceptions.paymentNotFound(paymentOrderId));
@@ -125,7 +157,7 @@ public class PaymentService {
 	public PaymentStatsDto getUserPaymentStats(String userEmail) {
 		log.info("Getting payment stats for user: {}", userEmail);
 
-		User user = getUserByEmailOrThrow(userEmail);
+		AuthenticatedPrincipal user = getPrincipalOrThrow(userEmail);
 
 		return buildPaymentStats(user.getId());
 	}
@@ -138,7 +170,7 @@ public class PaymentService {
 	public PaymentOrderDto confirmPayment(String paymentOrderId, String adminEmail) {
 		log.info("Admin {} confirming payment: {}", adminEmail, paymentOrderId);
 
-		User admin = getUserByEmailOrThrow(adminEmail);
+		AuthenticatedPrincipal admin = getPrincipalOrThrow(adminEmail);
 		validateUserIsAdmin(admin);
 
 		PaymentOrder paymentOrder = getPaymentOrderByIdOrThrow(paymentOrderId);
@@ -239,20 +271,19 @@ public class PaymentService {
 		}
 	}
 
-	private User getUserByEmailOrThrow(String email) {
-		return userService.getUserByEmail(email)
-				.map(userDto -> userRepository.findById(userDto.getId()).orElse(null))
+	private AuthenticatedPrincipal getPrincipalOrThrow(String email) {
+		return principalResolver.resolve(email)
 				.orElseThrow(() -> PaymentExceptions.userNotFound(email));
 	}
 
-	private void validateUserIsActive(User user) {
-		if (!user.getIsActive()) {
-			throw PaymentExceptions.userInactive(user.getId());
+	private void validateUserIsActive(AuthenticatedPrincipal principal) {
+		if (!principal.isActive()) {
+			throw PaymentExceptions.userInactive(principal.getId());
 		}
 	}
 
-	private void validateUserIsAdmin(User user) {
-		if (!user.getRole().equals(Role.ADMIN)) {
+	private void validateUserIsAdmin(AuthenticatedPrincipal principal) {
+		if (!principal.isAdmin()) {
 			throw PaymentExceptions.insufficientPermissions("confirmar pagos manualmente");
 		}
 	}
@@ -302,7 +333,7 @@ public class PaymentService {
 
 	@Async
 	private void scheduleAutoConfirmation(String paymentOrderId) {
-		CompletableFuture.runAsync(() -> {
+		CompletableFuture.runAsync(TraceContext.wrap(() -> {
 			try {
 				Thread.sleep(autoConfirmDelay);
 				autoConfirmPaymentIfPending(paymentOrderId);
@@ -312,7 +343,7 @@ public class PaymentService {
 			} catch (Exception e) {
 				log.error("Error in auto-confirmation for payment {}: {}", paymentOrderId, e.getMessage());
 			}
-		});
+		}));
 	}
 
 	private void autoConfirmPaymentIfPending(String paymentOrderId) {
@@ -0,0 +1,182 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+
+/**
+ *
+ * @author arojas
+ *         * Timers por etapa del pipeline de consulta de cédula
+ *         (app.cedula.query.stage) etiquetados por etapa, resultado y nivel
+ *         de caché
+ *         * Cada timer publica el histograma de percentiles para Prometheus
+ *         (los exemplars se adjuntan solos cuando hay un span activo) y
+ *         además p50/p95/p99 calculados en una ventana deslizante, que es lo
+ *         que lee {@link #breakdown()} para el endpoint administrativo
+ *         * Los timers se crean al primer uso de cada combinación de
+ *         etiquetas y quedan en caché
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryStageMetrics {
+
+	public static final String TIMER_NAME = "app.cedula.query.stage";
+
+	/** Niveles de caché: sin caché, principal de la petición, base de datos, Redis (fallo) */
+	public static final String CACHE_NONE = "none";
+	public static final String CACHE_REQUEST = "request";
+	public static final String CACHE_DB = "db";
+	public static final String CACHE_REDIS_MISS = "redis_miss";
+
+	private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+	@Value("${app.metrics.query-stages.window:2m}")
+	private Duration window;
+
+	@Value("${app.metrics.query-stages.window-buffers:3}")
+	private int windowBuffers;
+
+	/**
+	 * Etapas en el orden en que se ejecutan
+	 */
+	public enum Stage {
+		VALIDATION("validation"),
+		USER_LOOKUP("user_lookup"),
+		TOKEN_CONSUME("token_consume"),
+		PENDING_QUERY("pending_query"),
+		JCE_HTTP("jce_http"),
+		XML_PARSE("xml_parse"),
+		MAPPING("mapping"),
+		PERSIST_RESULT("persist_result"),
+		TOTAL("total");
+
+		private final String tag;
+
+		Stage(String tag) {
+			this.tag = tag;
+		}
+
+		public String getTag() {
+			return tag;
+		}
+	}
+
+	private record TimerKey(Stage stage, String outcome, String cache) {
+	}
+
+	/**
+	 * Percentiles de la ventana actual de una combinación de etiquetas. count
+	 * y meanMs son acumulados desde el arranque; maxMs y los percentiles son
+	 * de la ventana deslizante
+	 */
+	public record StageBreakdown(String stage, String outcome, String cache, long count, double meanMs,
+			double maxMs, Double p50Ms, Double p95Ms, Double p99Ms) {
+	}
+
+	/**
+	 * Mide una etapa; el resultado es "error" si la etapa lanza excepción
+	 */
+	public <T> T time(Stage stage, String cache, Supplier<T> body) {
+		long startedAt = System.nanoTime();
+		try {
+			T result = body.get();
+			record(stage, "success", cache, System.nanoTime() - startedAt);
+			return result;
+		} catch (RuntimeException e) {
+			record(stage, "error", cache, System.nanoTime() - startedAt);
+			throw e;
+		}
+	}
+
+	public void time(Stage stage, String cache, Runnable body) {
+		time(stage, cache, () -> {
+			body.run();
+			return null;
+		});
+	}
+
+	public void record(Stage stage, String outcome, String cache, long elapsedNanos) {
+		timer(stage, outcome, cache).record(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Desglose por etapa en el orden del pipeline
+	 */
+	public List<StageBreakdown> breakdown() {
+		List<Map.Entry<TimerKey, Timer>> entries = new ArrayList<>(timers.entrySet());
+		entries.sort(Comparator.comparing((Map.Entry<TimerKey, Timer> entry) -> entry.getKey().stage())
+				.thenComparing(entry -> entry.getKey().outcome())
+				.thenComparing(entry -> entry.getKey().cache()));
+
+		List<StageBreakdown> result = new ArrayList<>(entries.size());
+		for (Map.Entry<TimerKey, Timer> entry : entries) {
+			TimerKey key = entry.getKey();
+			HistogramSnapshot snapshot = entry.getValue().takeSnapshot();
+			result.add(new StageBreakdown(key.stage().getTag(), key.outcome(), key.cache(), snapshot.count(),
+					snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS),
+					percentile(snapshot, 0.5), percentile(snapshot, 0.95), percentile(snapshot, 0.99)));
+		}
+		return result;
+	}
+
+	public Duration getWindow() {
+		return window;
+	}
+
+	private Timer timer(Stage stage, String outcome, String cache) {
+		TimerKey key = new TimerKey(stage, outcome, cache);
+		Timer timer = timers.get(key);
+		if (timer == null) {
+			timer = timers.computeIfAbsent(key, this::register);
+		}
+		return timer;
+	}
+
+	private Timer register(TimerKey key) {
+		return Timer.builder(TIMER_NAME)
+				.description("Latencia por etapa de la consulta de cédula")
+				.tag("stage", key.stage().getTag())
+				.tag("outcome", key.outcome())
+				.tag("cache", key.cache())
+				.publishPercentileHistogram()
+				.publishPercentiles(PERCENTILES)
+				.distributionStatisticExpiry(window)
+				.distributionStatisticBufferLength(windowBuffers)
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(meterRegistry);
+	}
+
+	private static Double percentile(HistogramSnapshot snapshot, double percentile) {
+		for (ValueAtPercentile value : snapshot.percentileValues()) {
+			if (value.percentile() == percentile) {
+				return value.value(TimeUnit.MILLISECONDS);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Adapta refresh_tokens de instalaciones anteriores al esquema con
+ *         hash: ddl-auto=update agrega token_hash pero no elimina la columna
+ *         token (NOT NULL), con lo que todo INSERT nuevo fallaría
+ *         * Las filas heredadas no se pueden resolver (solo guardaban el valor
+ *         en claro), así que se eliminan antes de quitar la columna y crear
+ *         el índice único por hash
+ *         * Corre tras la inicialización de JPA y no hace nada en una base
+ *         ya migrada; la tabla es pequeña, el ALTER no bloquea el arranque de
+ *         forma apreciable
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class RefreshTokenSchemaMigrator {
+
+	private static final String TABLE = "refresh_tokens";
+	private static final String LEGACY_COLUMN = "token";
+	private static final String HASH_INDEX = "idx_refresh_token_hash";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Value("${app.security.refresh-token.migrate-legacy-schema:true}")
+	private boolean enabled;
+
+	public RefreshTokenSchemaMigrator(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@PostConstruct
+	public void migrate() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			List<String> columns = jdbcTemplate.queryForList("""
+					SELECT COLUMN_NAME FROM information_schema.COLUMNS
+					WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+					""", String.class, TABLE);
+			if (columns.contains(LEGACY_COLUMN)) {
+				int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE " + LEGACY_COLUMN + " IS NOT NULL");
+				jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP COLUMN " + LEGACY_COLUMN);
+				log.info("Columna heredada {}.{} eliminada ({} tokens sin hash descartados)", TABLE, LEGACY_COLUMN,
+						deleted);
+			}
+
+			Integer hashIndexes = jdbcTemplate.queryForObject("""
+					SELECT COUNT(*) FROM information_schema.STATISTICS
+					WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?
+					""", Integer.class, TABLE, HASH_INDEX);
+			if (!columns.isEmpty() && (hashIndexes == null || hashIndexes == 0)) {
+				jdbcTemplate.execute("CREATE UNIQUE INDEX " + HASH_INDEX + " ON " + TABLE + " (token_hash)");
+				log.info("Índice {} creado en {}", HASH_INDEX, TABLE);
+			}
+		} catch (Exception e) {
+			log.error("No se pudo migrar el esquema de {}: {}", TABLE, e.getMessage());
+		}
+	}
+}
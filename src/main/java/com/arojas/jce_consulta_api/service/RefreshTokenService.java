@@ -0,0 +1,232 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.arojas.jce_consulta_api.entity.RefreshToken;
+import com.arojas.jce_consulta_api.entity.User;
+import com.arojas.jce_consulta_api.repository.RefreshTokenRepository;
+import com.arojas.jce_consulta_api.util.TokenHashUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Emisión, validación y revocación de refresh tokens
+ *         * Solo se persiste el hash SHA-256 del token; la validación se
+ *         cachea en Redis (hash -> userId) con TTL igual a la expiración
+ */
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+	private static final String TOKEN_KEY_PREFIX = "refresh-token:";
+	private static final String USER_INDEX_PREFIX = "refresh-token:user:";
+
+	private final RefreshTokenRepository refreshTokenRepository;
+	private final StringRedisTemplate redisTemplate;
+
+	@Value("${app.security.refresh-token.expiration-days:30}")
+	private long expirationDays;
+
+	@Value("${app.security.refresh-token.purge-batch-size:1000}")
+	private int purgeBatchSize;
+
+	/**
+	 * Emite un nuevo refresh token. El valor en claro solo queda disponible en
+	 * el campo transitorio {@code token} del resultado.
+	 */
+	@Transactional
+	public RefreshToken issue(User user) {
+		String rawToken = TokenHashUtils.generateToken();
+		byte[] tokenHash = TokenHashUtils.sha256(rawToken);
+
+		RefreshToken refreshToken = RefreshToken.builder()
+				.user(user)
+				.token(rawToken)
+				.tokenHash(tokenHash)
+				.expiryDate(LocalDateTime.now().plusDays(expirationDays))
+				.build();
+
+		RefreshToken saved = refreshTokenRepository.save(refreshToken);
+		cacheValidation(tokenHash, user.getId(), saved.getexpiryDate());
+		return saved;
+	}
+
+	/**
+	 * Resuelve el ID del usuario dueño de un refresh token válido. Primero
+	 * consulta Redis y, en caso de fallo, hace una búsqueda puntual por hash.
+	 */
+	@Transactional
+	public Optional<String> findValidUserId(String rawToken) {
+		if (rawToken == null || rawToken.isBlank()) {
+			return Optional.empty();
+		}
+
+		byte[] tokenHash = TokenHashUtils.sha256(rawToken);
+		String cachedUserId = readCache(tokenHash);
+		if (cachedUserId != null) {
+			return Optional.of(cachedUserId);
+		}
+
+		Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHash(tokenHash);
+		if (stored.isEmpty()) {
+			return Optional.empty();
+		}
+
+		RefreshToken refreshToken = stored.get();
+		if (!refreshToken.isValid()) {
+			if (refreshToken.isExpired()) {
+				refreshTokenRepository.delete(refreshToken);
+			}
+			return Optional.empty();
+		}
+
+		// getId() sobre el proxy LAZY no inicializa la entidad User
+		String userId = refreshToken.getUser().getId();
+		cacheValidation(tokenHash, userId, refreshToken.getexpiryDate());
+		return Optional.of(userId);
+	}
+
+	/**
+	 * Resuelve el usuario de un token sin importar su estado (usado en logout)
+	 */
+	@Transactional(readOnly = true)
+	public Optional<String> findOwnerUserId(String rawToken) {
+		if (rawToken == null || rawToken.isBlank()) {
+			return Optional.empty();
+		}
+
+		byte[] tokenHash = TokenHashUtils.sha256(rawToken);
+		String cachedUserId = readCache(tokenHash);
+		if (cachedUserId != null) {
+			return Optional.of(cachedUserId);
+		}
+		return refreshTokenRepository.findByTokenHash(tokenHash)
+				.map(refreshToken -> refreshToken.getUser().getId());
+	}
+
+	/**
+	 * Elimina todos los refresh tokens de un usuario con un DELETE masivo e
+	 * invalida sus entradas de caché
+	 */
+	@Transactional
+	public void revokeAllUserTokens(String userId) {
+		List<String> cacheKeys = new ArrayList<>();
+		for (byte[] tokenHash : refreshTokenRepository.findTokenHashesByUserId(userId)) {
+			cacheKeys.add(tokenKey(tokenHash));
+		}
+
+		int deleted = refreshTokenRepository.deleteAllByUserId(userId);
+		evictAfterCommit(userId, cacheKeys);
+		log.debug("Revocados {} refresh tokens del usuario {}", deleted, userId);
+	}
+
+	/**
+	 * Purga por lotes los tokens expirados o revocados. Cada lote es una
+	 * transacción independiente.
+	 */
+	public int purgeExpiredTokens() {
+		LocalDateTime now = LocalDateTime.now();
+		int total = 0;
+		int deleted;
+
+		do {
+			deleted = refreshTokenRepository.deleteExpiredAndRevokedBatch(now, purgeBatchSize);
+			total += deleted;
+		} while (deleted == purgeBatchSize);
+
+		if (total > 0) {
+			log.info("Purgados {} refresh tokens expirados o revocados", total);
+		}
+		return total;
+	}
+
+	// ========== CACHÉ REDIS ==========
+
+	private String readCache(byte[] tokenHash) {
+		try {
+			return redisTemplate.opsForValue().get(tokenKey(tokenHash));
+		} catch (Exception e) {
+			log.warn("No se pudo leer la caché de refresh tokens: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private void cacheValidation(byte[] tokenHash, String userId, LocalDateTime expiryDate) {
+		Duration ttl = Duration.between(LocalDateTime.now(), expiryDate);
+		if (ttl.isNegative() || ttl.isZero()) {
+			return;
+		}
+
+		try {
+			String tokenKey = tokenKey(tokenHash);
+			String userIndexKey = USER_INDEX_PREFIX + userId;
+			redisTemplate.opsForValue().set(tokenKey, userId, ttl);
+			redisTemplate.opsForSet().add(userIndexKey, tokenKey);
+
+			Long currentTtl = redisTemplate.getExpire(userIndexKey);
+			if (currentTtl == null || currentTtl < ttl.toSeconds()) {
+				redisTemplate.expire(userIndexKey, ttl);
+			}
+		} catch (Exception e) {
+			log.warn("No se pudo cachear la validación del refresh token: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Invalida al confirmar la transacción: si se invalidara antes, una
+	 * validación concurrente que no encuentra la entrada leería aún las filas
+	 * sin borrar y volvería a cachear el token revocado por todo su TTL
+	 */
+	private void evictAfterCommit(String userId, List<String> cacheKeys) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			evictCache(userId, cacheKeys);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				evictCache(userId, cacheKeys);
+			}
+		});
+	}
+
+	private void evictCache(String userId, List<String> cacheKeys) {
+		try {
+			String userIndexKey = USER_INDEX_PREFIX + userId;
+			Set<String> indexedKeys = redisTemplate.opsForSet().members(userIndexKey);
+			if (indexedKeys != null) {
+				cacheKeys.addAll(indexedKeys);
+			}
+			cacheKeys.add(userIndexKey);
+			redisTemplate.delete(cacheKeys);
+		} catch (Exception e) {
+			log.warn("No se pudo invalidar la caché de refresh tokens del usuario {}: {}", userId, e.getMessage());
+		}
+	}
+
+	private String tokenKey(byte[] tokenHash) {
+		return TOKEN_KEY_PREFIX + TokenHashUtils.toHex(tokenHash);
+	}
+}
@@ -24,6 +24,7 @@ public class ScheduledTasksService {
 	private final UserService userService;
 	private final PaymentService paymentService;
 	private final JceClient jceClient;
+	private final RefreshTokenService refreshTokenService;
 
 	/**
 	 * Limpia tokens expirados cada hora
@@ -38,6 +39,20 @@ public class ScheduledTasksService {
 		}
 	}
 
+	/**
+	 * Purga por lotes los refresh tokens expirados o revocados cada hora
+	 */
+	@Scheduled(cron = "${app.security.refresh-token.purge-cron:0 15 * * * *}")
+	public void purgeExpiredRefreshTokens() {
+		try {
+			log.info("Iniciando purga programada de refresh tokens");
+			int purged = refreshTokenService.purgeExpiredTokens();
+			log.info("Purga de refresh tokens completada: {} eliminados", purged);
+		} catch (Exception e) {
+			log.error("Error en purga programada de refresh tokens: {}", e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * Limpia pagos pendientes expirados cada 6 horas
 	 */
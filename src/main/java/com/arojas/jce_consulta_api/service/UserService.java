@@ -21,8 +21,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.arojas.jce_consulta_api.dto.UserDto;
+import com.arojas.jce_consulta_api.dto.response.CursorPage;
 import com.arojas.jce_consulta_api.entity.User;
 import com.arojas.jce_consulta_api.repository.UserRepository;
+import com.arojas.jce_consulta_api.util.CursorCodec;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -77,6 +79,26 @@ public class UserService {
 		return users.map(this::convertToDto);
 	}
 
+	/**
+	 * Listado de usuarios por cursor, ordenado por (name, id)
+	 */
+	@Transactional(readOnly = true)
+	public CursorPage<UserDto> scrollUsers(String cursor, int size, boolean includeTotal) {
+		CursorCodec.Cursor position = CursorCodec.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+
+		List<User> rows = position == null
+				? userRepository.findListingFirstPage(limit)
+				: userRepository.findListingAfter(position.sortKey(), position.id(), limit);
+
+		CursorPage<UserDto> page = CursorPage.of(rows, size,
+				user -> CursorCodec.encode(user.getName(), user.getId()), this::convertToDto);
+		if (includeTotal) {
+			page.setTotalElements(userRepository.count());
+		}
+		return page;
+	}
+
 	/**
 	 * Busca usuarios por nombre o email
 	 */
@@ -199,13 +221,20 @@ public class UserService {
 	}
 
 	/**
-	 * Consume un token del usuario
+	 * Consume un token del usuario con un UPDATE atómico. Solo en caso de
+	 * fallo se lee la entidad para determinar la causa.
 	 */
 	@CacheEvict(value = "users", key = "#userId")
 	@Transactional
-	public UserDto consumeToken(String userId) {
+	public void consumeToken(String userId) {
 		log.info("Consumiendo token del usuario: {}", userId);
 
+		LocalDateTime expiryCutoff = LocalDateTime.now().minusHours(TOKEN_EXPIRY_HOURS);
+		if (userRepository.consumeTokenIfAvailable(userId, expiryCutoff) == 1) {
+			log.info("Token consumido para usuario {}", userId);
+			return;
+		}
+
 		User user = userRepository.findById(userId)
 				.orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
@@ -217,22 +246,21 @@ public class UserService {
 			throw new RuntimeException("No tienes tokens disponibles");
 		}
 
-		// Verificar si los tokens han expirado (24 horas)
-		if (user.getLastTokenUpdate() != null &&
-				user.getLastTokenUpdate().isBefore(LocalDateTime.now().minusHours(TOKEN_EXPIRY_HOURS))) {
-
-			log.info("Tokens expirados para usuario: {}, limpiando tokens", userId);
-			user.setTokens(0);
-			userRepository.save(user);
-			throw new RuntimeException("Tus tokens han expirado");
-		}
-
-		user.setTokens(user.getTokens() - 1);
-		user = userRepository.save(user);
-
-		log.info("Token consumido. Usuario {} ahora tiene {} tokens", userId, user.getTokens());
+		log.info("Tokens expirados para usuario: {}, limpiando tokens", userId);
+		user.setTokens(0);
+		userRepository.save(user);
+		throw new RuntimeException("Tus tokens han expirado");
+	}
 
-		return convertToDto(user);
+	/**
+	 * Devuelve un token consumido por una consulta fallida sin cargar la
+	 * entidad ni reiniciar la expiración de los tokens
+	 */
+	@CacheEvict(value = "users", key = "#userId")
+	@Transactional
+	public void refundToken(String userId) {
+		userRepository.addTokensToUser(userId, 1);
+		log.info("Token reembolsado al usuario {}", userId);
 	}
 
 	/**
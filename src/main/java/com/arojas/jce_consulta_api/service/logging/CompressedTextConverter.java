@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ *
+ * @author arojas
+ *         * Convierte las columnas grandes de {@code LogEntry} con
+ *         {@link LogPayloadCodec}; Hibernate lo instancia a través del
+ *         contenedor de beans de Spring
+ *         * Solo se descomprimen las filas que se materializan
+ */
+@Converter
+@RequiredArgsConstructor
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+	private final LogPayloadCodec codec;
+
+	@Override
+	public byte[] convertToDatabaseColumn(String attribute) {
+		return codec.encode(attribute);
+	}
+
+	@Override
+	public String convertToEntityAttribute(byte[] dbData) {
+		return codec.decode(dbData);
+	}
+}
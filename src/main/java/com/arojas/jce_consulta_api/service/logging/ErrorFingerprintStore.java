@@ -0,0 +1,267 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Catálogo de errores deduplicados: cada huella de stack trace se
+ *         guarda una sola vez en error_fingerprints y las filas de log la
+ *         referencian por id
+ *         * El escritor por lotes resuelve los ids antes de insertar (INSERT
+ *         IGNORE de las huellas nuevas) y suma las ocurrencias del lote
+ *         después, en un único batch
+ *         * Los ids conocidos se cachean en memoria; el cache se vacía al
+ *         superar su tamaño máximo
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ErrorFingerprintStore {
+
+	public static final String TABLE = "error_fingerprints";
+
+	private static final String COLUMNS = "id, fingerprint, exception_type, source, message, occurrences, "
+			+ "first_seen, last_seen";
+
+	private static final RowMapper<Fingerprint> FINGERPRINT_MAPPER = (rs, rowNum) -> new Fingerprint(
+			rs.getLong(1),
+			rs.getString(2),
+			rs.getString(3),
+			rs.getString(4),
+			rs.getString(5),
+			rs.getLong(6),
+			rs.getTimestamp(7).toLocalDateTime(),
+			rs.getTimestamp(8).toLocalDateTime());
+
+	@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE)
+	private final JdbcTemplate jdbcTemplate;
+	private final Map<String, Long> knownIds = new ConcurrentHashMap<>();
+
+	@Value("${app.logging.fingerprint.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.fingerprint.cache-size:10000}")
+	private int cacheSize;
+
+	/**
+	 * Error del catálogo
+	 */
+	public record Fingerprint(long id, String fingerprint, String exceptionType, String source, String message,
+			long occurrences, LocalDateTime firstSeen, LocalDateTime lastSeen) {
+	}
+
+	private static final class Occurrences {
+		long count;
+		LocalDateTime firstSeen;
+		LocalDateTime lastSeen;
+	}
+
+	/**
+	 * La tabla se crea aunque el catálogo esté deshabilitado: el archivo y el
+	 * índice de búsqueda la consultan con LEFT JOIN
+	 */
+	@PostConstruct
+	public void createTable() {
+		try {
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+					+ "id BIGINT NOT NULL AUTO_INCREMENT, "
+					+ "fingerprint CHAR(32) NOT NULL, "
+					+ "exception_type VARCHAR(255) NOT NULL, "
+					+ "source VARCHAR(100) NOT NULL, "
+					+ "message VARCHAR(1000) NOT NULL, "
+					+ "stack_trace TEXT NOT NULL, "
+					+ "occurrences BIGINT NOT NULL DEFAULT 0, "
+					+ "first_seen DATETIME NOT NULL, "
+					+ "last_seen DATETIME NOT NULL, "
+					+ "PRIMARY KEY (id), "
+					+ "UNIQUE KEY uk_error_fingerprint (fingerprint), "
+					+ "KEY idx_error_fingerprint_last_seen (last_seen, occurrences))");
+		} catch (Exception e) {
+			log.error("No se pudo crear la tabla {}: {}", TABLE, e.getMessage());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	// ========== ESCRITURA (hilo escritor de logs) ==========
+
+	/**
+	 * Asigna {@code errorFingerprintId} a los eventos con huella, creando las
+	 * huellas nuevas. Si falla, los eventos conservan el stack trace completo
+	 * en su fila.
+	 */
+	public void resolve(List<LogEntry> batch) {
+		if (!enabled) {
+			return;
+		}
+
+		Map<String, LogEntry> unknown = new LinkedHashMap<>();
+		for (LogEntry entry : batch) {
+			String fingerprint = entry.getErrorFingerprint();
+			if (fingerprint == null || entry.getStackTrace() == null) {
+				continue;
+			}
+			Long id = knownIds.get(fingerprint);
+			if (id != null) {
+				entry.setErrorFingerprintId(id);
+			} else {
+				unknown.putIfAbsent(fingerprint, entry);
+			}
+		}
+		if (unknown.isEmpty()) {
+			return;
+		}
+
+		List<LogEntry> samples = new ArrayList<>(unknown.values());
+		jdbcTemplate.batchUpdate("INSERT IGNORE INTO " + TABLE
+				+ " (fingerprint, exception_type, source, message, stack_trace, occurrences, first_seen, last_seen) "
+				+ "VALUES (?, ?, ?, ?, ?, 0, ?, ?)",
+				samples, samples.size(), (ps, entry) -> {
+					Timestamp seen = Timestamp.valueOf(entry.getTimestamp());
+					ps.setString(1, entry.getErrorFingerprint());
+					ps.setString(2, truncate(exceptionType(entry.getStackTrace()), 255));
+					ps.setString(3, truncate(entry.getSource(), 100));
+					ps.setString(4, truncate(entry.getMessage(), 1000));
+					ps.setString(5, entry.getStackTrace());
+					ps.setTimestamp(6, seen);
+					ps.setTimestamp(7, seen);
+				});
+
+		String placeholders = String.join(", ", Collections.nCopies(unknown.size(), "?"));
+		jdbcTemplate.query("SELECT fingerprint, id FROM " + TABLE + " WHERE fingerprint IN (" + placeholders + ")",
+				rs -> {
+					remember(rs.getString(1), rs.getLong(2));
+				}, unknown.keySet().toArray());
+
+		for (LogEntry entry : batch) {
+			if (entry.getErrorFingerprint() != null && entry.getErrorFingerprintId() == null) {
+				entry.setErrorFingerprintId(knownIds.get(entry.getErrorFingerprint()));
+			}
+		}
+	}
+
+	/**
+	 * Suma las ocurrencias de un lote ya persistido, una sentencia por huella
+	 * distinta. Los eventos muestreados cuentan con peso 1/sampleRate.
+	 */
+	public void recordOccurrences(List<LogEntry> batch) {
+		if (!enabled) {
+			return;
+		}
+
+		Map<Long, Occurrences> byId = new HashMap<>();
+		for (LogEntry entry : batch) {
+			if (entry.getErrorFingerprintId() == null) {
+				continue;
+			}
+			Occurrences occurrences = byId.computeIfAbsent(entry.getErrorFingerprintId(), k -> new Occurrences());
+			occurrences.count += LogRollupStore.weightOf(entry);
+			if (occurrences.firstSeen == null || entry.getTimestamp().isBefore(occurrences.firstSeen)) {
+				occurrences.firstSeen = entry.getTimestamp();
+			}
+			if (occurrences.lastSeen == null || entry.getTimestamp().isAfter(occurrences.lastSeen)) {
+				occurrences.lastSeen = entry.getTimestamp();
+			}
+		}
+		if (byId.isEmpty()) {
+			return;
+		}
+
+		List<Map.Entry<Long, Occurrences>> rows = new ArrayList<>(byId.entrySet());
+		jdbcTemplate.batchUpdate("UPDATE " + TABLE + " SET occurrences = occurrences + ?, "
+				+ "first_seen = LEAST(first_seen, ?), last_seen = GREATEST(last_seen, ?) WHERE id = ?",
+				rows, rows.size(), (ps, row) -> {
+					ps.setLong(1, row.getValue().count);
+					ps.setTimestamp(2, Timestamp.valueOf(row.getValue().firstSeen));
+					ps.setTimestamp(3, Timestamp.valueOf(row.getValue().lastSeen));
+					ps.setLong(4, row.getKey());
+				});
+	}
+
+	// ========== CONSULTAS ==========
+
+	/**
+	 * Errores con actividad desde {@code since} y al menos
+	 * {@code minOccurrences} ocurrencias, por ocurrencias descendente. Recorre
+	 * el índice (last_seen, occurrences), sin agrupar filas de log
+	 */
+	public List<Fingerprint> findRecurring(LocalDateTime since, long minOccurrences, int limit) {
+		return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE
+				+ " WHERE last_seen >= ? AND occurrences >= ? ORDER BY occurrences DESC LIMIT ?",
+				FINGERPRINT_MAPPER, Timestamp.valueOf(since), minOccurrences, limit);
+	}
+
+	public Optional<Fingerprint> findById(long id) {
+		return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE + " WHERE id = ?", FINGERPRINT_MAPPER, id)
+				.stream().findFirst();
+	}
+
+	public Optional<String> findStackTrace(long id) {
+		return jdbcTemplate.queryForList("SELECT stack_trace FROM " + TABLE + " WHERE id = ?", String.class, id)
+				.stream().findFirst();
+	}
+
+	/**
+	 * Completa el stack trace de una fila que referencia el catálogo
+	 */
+	public LogEntry withStackTrace(LogEntry entry) {
+		if (entry.getStackTrace() == null && entry.getErrorFingerprintId() != null) {
+			findStackTrace(entry.getErrorFingerprintId()).ifPresent(entry::setStackTrace);
+		}
+		return entry;
+	}
+
+	private void remember(String fingerprint, long id) {
+		if (knownIds.size() >= cacheSize) {
+			knownIds.clear();
+		}
+		knownIds.put(fingerprint, id);
+	}
+
+	/**
+	 * Tipo de la excepción: primera línea del stack trace hasta ':'
+	 */
+	private static String exceptionType(String stackTrace) {
+		int end = stackTrace.indexOf('\n');
+		String firstLine = (end < 0 ? stackTrace : stackTrace.substring(0, end)).trim();
+		int colon = firstLine.indexOf(':');
+		return colon < 0 ? firstLine : firstLine.substring(0, colon);
+	}
+
+	private static String truncate(String value, int maxLength) {
+		if (value == null || value.length() <= maxLength) {
+			return value;
+		}
+		return value.substring(0, maxLength);
+	}
+}
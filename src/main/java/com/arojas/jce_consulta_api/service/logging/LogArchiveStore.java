@@ -0,0 +1,599 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.service.logging.LogSegment.Column;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Nivel de archivo de logs en disco: segmentos columnares
+ *         comprimidos e inmutables ({@link LogSegment})
+ *         * Las tablas application_logs_archive_YYYYMMDD que deja el
+ *         particionado se exportan a segmentos y luego se eliminan, de modo
+ *         que la base de datos solo conserva la ventana viva
+ *         * Las búsquedas con archived=true descartan segmentos por su pie
+ *         (rango de timestamp, niveles, fuentes) y solo descomprimen las
+ *         columnas que filtran; también leen las tablas de archivo que aún
+ *         no se exportaron
+ */
+@Component
+@Slf4j
+public class LogArchiveStore {
+
+	private static final String SEGMENT_PREFIX = "logs-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+	private static final TypeReference<Map<String, Object>> CONTEXT_TYPE = new TypeReference<>() {
+	};
+
+	private final JdbcTemplate streamingJdbcTemplate;
+	private final LogPartitionManager logPartitionManager;
+	private final LogPayloadCodec payloadCodec;
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter jsonWriter;
+	private final Map<Path, LogSegment.Header> segments = new ConcurrentHashMap<>();
+
+	@Value("${app.logging.archive.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.archive.directory:./data/log-archive}")
+	private String directory;
+
+	@Value("${app.logging.archive.segment-rows:100000}")
+	private int segmentRows;
+
+	private Path archiveDirectory;
+
+	/**
+	 * Criterios de búsqueda sobre el archivo; los campos nulos no filtran
+	 */
+	public record ArchiveQuery(LogLevel level, String userEmail, String source, String operation,
+			LocalDateTime start, LocalDateTime end, String correlationId, String sessionId, String text) {
+	}
+
+	/**
+	 * Coincidencia: fila de un segmento, o fila ya leída de una tabla de
+	 * archivo ({@code entry})
+	 */
+	private record Hit(long timestamp, LogSegment.Header segment, int row, LogEntry entry) {
+	}
+
+	public LogArchiveStore(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate,
+			LogPartitionManager logPartitionManager, LogPayloadCodec payloadCodec, ObjectMapper objectMapper) {
+		// Lectura por streaming (MySQL) al exportar tablas de archivo grandes
+		this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+		this.logPartitionManager = logPartitionManager;
+		this.payloadCodec = payloadCodec;
+		this.objectMapper = objectMapper;
+		this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	@PostConstruct
+	public void loadIndex() {
+		if (!enabled) {
+			return;
+		}
+
+		archiveDirectory = Paths.get(directory).toAbsolutePath();
+		try {
+			Files.createDirectories(archiveDirectory);
+			try (Stream<Path> files = Files.list(archiveDirectory)) {
+				for (Path file : files.toList()) {
+					String name = file.getFileName().toString();
+					if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+						Files.deleteIfExists(file);
+					} else if (name.endsWith(SEGMENT_SUFFIX)) {
+						segments.put(file, LogSegment.readHeader(file));
+					}
+				}
+			}
+			log.info("Archivo de logs en {} - {} segmentos", archiveDirectory, segments.size());
+		} catch (IOException e) {
+			log.error("No se pudo cargar el archivo de logs en {}: {}", directory, e.getMessage());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled && archiveDirectory != null;
+	}
+
+	// ========== EXPORTACIÓN ==========
+
+	/**
+	 * Exporta a segmentos todas las tablas de archivo pendientes y las elimina
+	 *
+	 * @return filas exportadas
+	 */
+	public synchronized long exportArchiveTables() {
+		if (!isEnabled()) {
+			return 0;
+		}
+
+		long exported = 0;
+		for (LocalDate day : logPartitionManager.listArchiveDays()) {
+			try {
+				exported += exportDay(day);
+			} catch (IOException | RuntimeException e) {
+				log.error("Error exportando logs archivados del {}: {}", day, e.getMessage());
+			}
+		}
+		return exported;
+	}
+
+	private long exportDay(LocalDate day) throws IOException {
+		String table = LogPartitionManager.archiveTable(day);
+
+		// Restos de una exportación interrumpida: la tabla sigue siendo la fuente
+		deleteSegmentsOf(day);
+
+		List<LogEntry> buffer = new ArrayList<>(Math.min(segmentRows, 10_000));
+		long[] counters = new long[2]; // filas, segmentos
+
+		try {
+			// Los segmentos son autocontenidos: el stack trace deduplicado se copia
+			streamingJdbcTemplate.query("SELECT a.*, COALESCE(a.stack_trace, f.stack_trace) AS full_stack_trace FROM "
+					+ table + " a LEFT JOIN " + ErrorFingerprintStore.TABLE + " f ON f.id = a.error_fingerprint_id "
+					+ "ORDER BY a.timestamp, a.id", rs -> {
+				buffer.add(mapRow(rs));
+				if (buffer.size() >= segmentRows) {
+					writeSegment(day, (int) counters[1]++, buffer);
+					counters[0] += buffer.size();
+					buffer.clear();
+				}
+			});
+			if (!buffer.isEmpty()) {
+				writeSegment(day, (int) counters[1]++, buffer);
+				counters[0] += buffer.size();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		streamingJdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+		log.info("Exportados {} logs del {} a {} segmentos", counters[0], day, counters[1]);
+		return counters[0];
+	}
+
+	private void writeSegment(LocalDate day, int sequence, List<LogEntry> rows) {
+		Path target = archiveDirectory.resolve(
+				SEGMENT_PREFIX + day.format(DAY_FORMAT) + "-" + String.format("%04d", sequence) + SEGMENT_SUFFIX);
+		try {
+			segments.put(target, LogSegment.write(target, rows, this::toJson));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private LogEntry mapRow(ResultSet rs) throws SQLException {
+		return LogEntry.builder()
+				.id(rs.getLong("id"))
+				.timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+				.level(LogLevel.valueOf(rs.getString("level")))
+				.source(rs.getString("source"))
+				.message(rs.getString("message"))
+				.userEmail(rs.getString("user_email"))
+				.sessionId(rs.getString("session_id"))
+				.correlationId(rs.getString("correlation_id"))
+				.requestId(rs.getString("request_id"))
+				.operation(rs.getString("operation"))
+				.clientIp(rs.getString("client_ip"))
+				.userAgent(rs.getString("user_agent"))
+				.executionTimeMs(rs.getObject("execution_time_ms", Long.class))
+				.stackTrace(payloadCodec.decode(rs.getBytes("full_stack_trace")))
+				.requestPayload(payloadCodec.decode(rs.getBytes("request_payload")))
+				.responsePayload(payloadCodec.decode(rs.getBytes("response_payload")))
+				.context(parseContext(rs.getString("context")))
+				.environment(rs.getString("environment"))
+				.applicationVersion(rs.getString("application_version"))
+				.archived(true)
+				.build();
+	}
+
+	// ========== RETENCIÓN ==========
+
+	/**
+	 * Elimina los segmentos de días anteriores a {@code cutoff}
+	 */
+	public synchronized int deleteSegmentsBefore(LocalDate cutoff) {
+		if (!isEnabled()) {
+			return 0;
+		}
+
+		int deleted = 0;
+		for (Path path : List.copyOf(segments.keySet())) {
+			LocalDate day = segmentDay(path);
+			if (day != null && day.isBefore(cutoff) && deleteSegment(path)) {
+				deleted++;
+			}
+		}
+		if (deleted > 0) {
+			log.info("Eliminados {} segmentos de logs anteriores a {}", deleted, cutoff);
+		}
+		return deleted;
+	}
+
+	private void deleteSegmentsOf(LocalDate day) {
+		for (Path path : List.copyOf(segments.keySet())) {
+			if (day.equals(segmentDay(path))) {
+				deleteSegment(path);
+			}
+		}
+	}
+
+	private boolean deleteSegment(Path path) {
+		try {
+			Files.deleteIfExists(path);
+			segments.remove(path);
+			return true;
+		} catch (IOException e) {
+			log.warn("No se pudo eliminar el segmento {}: {}", path, e.getMessage());
+			return false;
+		}
+	}
+
+	// ========== BÚSQUEDA ==========
+
+	/**
+	 * Busca en los segmentos y en las tablas de archivo aún no exportadas,
+	 * ordenado por timestamp descendente. Solo se retienen las
+	 * offset+size coincidencias más recientes; el resto solo se cuenta
+	 */
+	public Page<LogEntry> search(ArchiveQuery query, Pageable pageable) {
+		TopHits top = new TopHits((int) Math.min(Integer.MAX_VALUE - 1,
+				pageable.getOffset() + pageable.getPageSize()));
+
+		// Del más reciente al más antiguo: con el montículo lleno, los
+		// segmentos anteriores a su mínimo ya no aportan filas a la página
+		List<LogSegment.Header> candidates = segments.values().stream()
+				.filter(segment -> segment.overlaps(query.start(), query.end())
+						&& segment.containsLevel(query.level())
+						&& segment.containsSourceLike(query.source()))
+				.sorted(Comparator.comparingLong(LogSegment.Header::maxTimestamp).reversed())
+				.toList();
+
+		for (LogSegment.Header segment : candidates) {
+			if (!top.accepts(segment.maxTimestamp()) && onlyFiltersByTime(query) && within(segment, query)) {
+				top.count(segment.rowCount());
+				continue;
+			}
+			try (LogSegment.Reader reader = new LogSegment.Reader(segment)) {
+				scanSegment(reader, query, top);
+			} catch (IOException e) {
+				log.warn("No se pudo leer el segmento {}: {}", segment.path(), e.getMessage());
+			}
+		}
+
+		for (LocalDate day : pendingArchiveDays(query)) {
+			try {
+				scanArchiveTable(day, query, top);
+			} catch (RuntimeException e) {
+				log.warn("No se pudo leer la tabla de archivo del {}: {}", day, e.getMessage());
+			}
+		}
+
+		List<Hit> hits = top.sortedDescending();
+		int from = (int) Math.min(pageable.getOffset(), hits.size());
+		return new PageImpl<>(materialize(hits.subList(from, hits.size())), pageable, top.total());
+	}
+
+	private void scanSegment(LogSegment.Reader reader, ArchiveQuery query, TopHits top) throws IOException {
+		int rowCount = reader.header().rowCount();
+		long[] timestamps = reader.longs(Column.TIMESTAMP);
+		long start = query.start() != null ? LogSegment.toEpochMillis(query.start()) : Long.MIN_VALUE;
+		long end = query.end() != null ? LogSegment.toEpochMillis(query.end()) : Long.MAX_VALUE;
+
+		// Las columnas solo se descomprimen si el criterio correspondiente existe
+		byte[] levels = query.level() != null ? reader.levels() : null;
+		String[] sources = query.source() != null ? reader.strings(Column.SOURCE) : null;
+		String[] userEmails = query.userEmail() != null ? reader.strings(Column.USER_EMAIL) : null;
+		String[] operations = query.operation() != null ? reader.strings(Column.OPERATION) : null;
+		String[] correlationIds = query.correlationId() != null ? reader.strings(Column.CORRELATION_ID) : null;
+		String[] sessionIds = query.sessionId() != null ? reader.strings(Column.SESSION_ID) : null;
+		String[] messages = query.text() != null ? reader.strings(Column.MESSAGE) : null;
+		String[] stackTraces = query.text() != null ? reader.strings(Column.STACK_TRACE) : null;
+
+		for (int row = 0; row < rowCount; row++) {
+			long timestamp = timestamps[row];
+			if (timestamp < start || timestamp > end) {
+				continue;
+			}
+			if (levels != null && levels[row] != query.level().ordinal()) {
+				continue;
+			}
+			if (sources != null && !StringUtils.containsIgnoreCase(sources[row], query.source())) {
+				continue;
+			}
+			if (userEmails != null && !query.userEmail().equals(userEmails[row])) {
+				continue;
+			}
+			if (operations != null && !StringUtils.containsIgnoreCase(operations[row], query.operation())) {
+				continue;
+			}
+			if (correlationIds != null && !query.correlationId().equals(correlationIds[row])) {
+				continue;
+			}
+			if (sessionIds != null && !query.sessionId().equals(sessionIds[row])) {
+				continue;
+			}
+			if (messages != null && !StringUtils.containsIgnoreCase(messages[row], query.text())
+					&& !StringUtils.containsIgnoreCase(stackTraces[row], query.text())) {
+				continue;
+			}
+			top.count(1);
+			if (top.accepts(timestamp)) {
+				top.offer(new Hit(timestamp, reader.header(), row, null));
+			}
+		}
+	}
+
+	/**
+	 * Tablas de archivo que el particionado ya separó pero que aún no se
+	 * exportaron (exportación pendiente o fallida)
+	 */
+	private List<LocalDate> pendingArchiveDays(ArchiveQuery query) {
+		if (!logPartitionManager.isPartitioned()) {
+			return List.of();
+		}
+		return logPartitionManager.listArchiveDays().stream()
+				.filter(day -> (query.start() == null || !day.isBefore(query.start().toLocalDate()))
+						&& (query.end() == null || !day.isAfter(query.end().toLocalDate())))
+				.toList();
+	}
+
+	/**
+	 * Recorre una tabla de archivo por streaming con los filtros en SQL;
+	 * solo se construyen las filas que entran en el montículo. El texto se
+	 * filtra aquí porque los stack traces pueden estar comprimidos
+	 */
+	private void scanArchiveTable(LocalDate day, ArchiveQuery query, TopHits top) {
+		StringBuilder sql = new StringBuilder("SELECT a.*, COALESCE(a.stack_trace, f.stack_trace) AS full_stack_trace FROM ")
+				.append(LogPartitionManager.archiveTable(day)).append(" a LEFT JOIN ").append(ErrorFingerprintStore.TABLE)
+				.append(" f ON f.id = a.error_fingerprint_id WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (query.start() != null) {
+			sql.append(" AND a.timestamp >= ?");
+			args.add(query.start());
+		}
+		if (query.end() != null) {
+			sql.append(" AND a.timestamp <= ?");
+			args.add(query.end());
+		}
+		if (query.level() != null) {
+			sql.append(" AND a.level = ?");
+			args.add(query.level().name());
+		}
+		if (query.source() != null) {
+			sql.append(" AND a.source LIKE ?");
+			args.add(containsPattern(query.source()));
+		}
+		if (query.userEmail() != null) {
+			sql.append(" AND a.user_email = ?");
+			args.add(query.userEmail());
+		}
+		if (query.operation() != null) {
+			sql.append(" AND a.operation LIKE ?");
+			args.add(containsPattern(query.operation()));
+		}
+		if (query.correlationId() != null) {
+			sql.append(" AND a.correlation_id = ?");
+			args.add(query.correlationId());
+		}
+		if (query.sessionId() != null) {
+			sql.append(" AND a.session_id = ?");
+			args.add(query.sessionId());
+		}
+
+		streamingJdbcTemplate.query(sql.toString(), rs -> {
+			if (query.text() != null
+					&& !StringUtils.containsIgnoreCase(rs.getString("message"), query.text())
+					&& !StringUtils.containsIgnoreCase(payloadCodec.decode(rs.getBytes("full_stack_trace")),
+							query.text())) {
+				return;
+			}
+			top.count(1);
+			long timestamp = LogSegment.toEpochMillis(rs.getTimestamp("timestamp").toLocalDateTime());
+			if (top.accepts(timestamp)) {
+				top.offer(new Hit(timestamp, null, -1, mapRow(rs)));
+			}
+		}, args.toArray());
+	}
+
+	private static boolean onlyFiltersByTime(ArchiveQuery query) {
+		return query.level() == null && query.source() == null && query.userEmail() == null
+				&& query.operation() == null && query.correlationId() == null && query.sessionId() == null
+				&& query.text() == null;
+	}
+
+	private static boolean within(LogSegment.Header segment, ArchiveQuery query) {
+		return (query.start() == null || segment.minTimestamp() >= LogSegment.toEpochMillis(query.start()))
+				&& (query.end() == null || segment.maxTimestamp() <= LogSegment.toEpochMillis(query.end()));
+	}
+
+	private static String containsPattern(String value) {
+		return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	}
+
+	/**
+	 * Montículo de mínimos acotado a las {@code limit} coincidencias más
+	 * recientes, más el total de coincidencias vistas
+	 */
+	private static final class TopHits {
+
+		private final int limit;
+		private final PriorityQueue<Hit> heap;
+		private long total;
+
+		TopHits(int limit) {
+			this.limit = limit;
+			this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, Comparator.comparingLong(Hit::timestamp));
+		}
+
+		boolean accepts(long timestamp) {
+			return limit > 0 && (heap.size() < limit || timestamp > heap.peek().timestamp());
+		}
+
+		void offer(Hit hit) {
+			heap.add(hit);
+			if (heap.size() > limit) {
+				heap.poll();
+			}
+		}
+
+		void count(long matches) {
+			total += matches;
+		}
+
+		long total() {
+			return total;
+		}
+
+		List<Hit> sortedDescending() {
+			List<Hit> hits = new ArrayList<>(heap);
+			hits.sort(Comparator.comparingLong(Hit::timestamp).reversed());
+			return hits;
+		}
+	}
+
+	private List<LogEntry> materialize(List<Hit> page) {
+		Map<LogSegment.Header, List<Hit>> bySegment = new LinkedHashMap<>();
+		Map<Hit, LogEntry> entries = new HashMap<>();
+		for (Hit hit : page) {
+			if (hit.entry() != null) {
+				entries.put(hit, hit.entry());
+			} else {
+				bySegment.computeIfAbsent(hit.segment(), s -> new ArrayList<>()).add(hit);
+			}
+		}
+
+		for (Map.Entry<LogSegment.Header, List<Hit>> group : bySegment.entrySet()) {
+			try (LogSegment.Reader reader = new LogSegment.Reader(group.getKey())) {
+				for (Hit hit : group.getValue()) {
+					entries.put(hit, toLogEntry(reader, hit.row()));
+				}
+			} catch (IOException e) {
+				log.warn("No se pudo leer el segmento {}: {}", group.getKey().path(), e.getMessage());
+			}
+		}
+
+		return page.stream()
+				.map(entries::get)
+				.filter(entry -> entry != null)
+				.toList();
+	}
+
+	private LogEntry toLogEntry(LogSegment.Reader reader, int row) throws IOException {
+		long executionTime = reader.longs(Column.EXECUTION_TIME_MS)[row];
+		byte level = reader.levels()[row];
+		return LogEntry.builder()
+				.id(reader.longs(Column.ID)[row])
+				.timestamp(LogSegment.fromEpochMillis(reader.longs(Column.TIMESTAMP)[row]))
+				.level(level >= 0 ? LogLevel.values()[level] : null)
+				.source(reader.strings(Column.SOURCE)[row])
+				.message(reader.strings(Column.MESSAGE)[row])
+				.userEmail(reader.strings(Column.USER_EMAIL)[row])
+				.sessionId(reader.strings(Column.SESSION_ID)[row])
+				.correlationId(reader.strings(Column.CORRELATION_ID)[row])
+				.requestId(reader.strings(Column.REQUEST_ID)[row])
+				.operation(reader.strings(Column.OPERATION)[row])
+				.clientIp(reader.strings(Column.CLIENT_IP)[row])
+				.userAgent(reader.strings(Column.USER_AGENT)[row])
+				.executionTimeMs(executionTime == Long.MIN_VALUE ? null : executionTime)
+				.stackTrace(reader.strings(Column.STACK_TRACE)[row])
+				.requestPayload(reader.strings(Column.REQUEST_PAYLOAD)[row])
+				.responsePayload(reader.strings(Column.RESPONSE_PAYLOAD)[row])
+				.context(parseContext(reader.strings(Column.CONTEXT)[row]))
+				.environment(reader.strings(Column.ENVIRONMENT)[row])
+				.applicationVersion(reader.strings(Column.APPLICATION_VERSION)[row])
+				.archived(true)
+				.build();
+	}
+
+	// ========== ESTADÍSTICAS ==========
+
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("segments", segments.size());
+		stats.put("rows", segments.values().stream().mapToLong(LogSegment.Header::rowCount).sum());
+		stats.put("compressedBytes", segments.values().stream().mapToLong(LogSegment.Header::sizeBytes).sum());
+		return stats;
+	}
+
+	// ========== UTILIDADES ==========
+
+	private LocalDate segmentDay(Path path) {
+		String name = path.getFileName().toString();
+		if (!name.startsWith(SEGMENT_PREFIX) || name.length() < SEGMENT_PREFIX.length() + 8) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(name.substring(SEGMENT_PREFIX.length(), SEGMENT_PREFIX.length() + 8), DAY_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private Map<String, Object> parseContext(String json) {
+		if (json == null || json.isBlank()) {
+			return null;
+		}
+		try {
+			return objectMapper.readValue(json, CONTEXT_TYPE);
+		} catch (JsonProcessingException e) {
+			return Map.of("raw", json);
+		}
+	}
+
+	private String toJson(Map<String, Object> context) {
+		try {
+			return jsonWriter.writeValueAsString(context);
+		} catch (JsonProcessingException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,543 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.config.DbLoggingProperties.OverflowPolicy;
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.service.logging.LogSpillStore.ReplayBatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Escritor único de logs a base de datos
+ *         * Los productores (hilos de petición) solo publican en un
+ *         {@link LogRingBuffer}; un hilo dedicado lo vacía y persiste por
+ *         lotes JDBC cuando se alcanza el tamaño de lote o el intervalo de
+ *         flush, lo que ocurra primero
+ *         * Si el buffer está lleno se aplica la política de desbordamiento
+ *         configurada; el hilo de la petición nunca espera a la base de datos
+ *         * Si los inserts fallan o exceden el presupuesto de latencia de
+ *         forma consecutiva, el escritor abre el circuito: los lotes van a
+ *         {@link LogSpillStore} hasta la siguiente prueba. Con la base de
+ *         datos sana, el mismo hilo reproduce lo desviado con tasa limitada
+ *         cuando no hay tráfico en vivo pendiente; así persist (huellas,
+ *         rollups, índice y presupuesto) solo corre en un hilo
+ */
+@Component
+@Slf4j
+public class LogBatchWriter {
+
+	private static final Logger spillLogger = LoggerFactory.getLogger("DB_LOG_SPILL");
+
+	private static final String INSERT_SQL = "INSERT INTO application_logs "
+			+ "(timestamp, level, source, message, user_email, session_id, correlation_id, request_id, "
+			+ "operation, client_ip, user_agent, execution_time_ms, stack_trace, request_payload, "
+			+ "response_payload, context, environment, application_version, archived, error_fingerprint_id) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final LogSanitizer logSanitizer;
+	private final LogRollupStore logRollupStore;
+	private final LogSearchIndex logSearchIndex;
+	private final ErrorFingerprintStore errorFingerprintStore;
+	private final LogSpillStore logSpillStore;
+	private final LogPayloadCodec payloadCodec;
+	private final ObjectWriter jsonWriter;
+	private final DbLoggingProperties.Writer config;
+	private final DbLoggingProperties.Spill spillConfig;
+	private final LogRingBuffer<LogEntry> ringBuffer;
+	private final MeterRegistry meterRegistry;
+
+	private final DistributionSummary batchSizeSummary;
+	private final Timer flushSuccessTimer;
+	private final Timer flushFailureTimer;
+	private final Counter spilledCounter;
+	private final Counter replayedCounter;
+
+	private volatile boolean running;
+	private Thread writerThread;
+
+	/** Estado de la reproducción; solo lo toca el hilo escritor */
+	private long nextReplayAtNanos;
+	private long replayedSinceLog;
+
+	/** Circuito abierto: los lotes van a disco hasta probeAtNanos */
+	private volatile boolean degraded;
+	private volatile long probeAtNanos;
+	private int budgetMisses;
+
+	public LogBatchWriter(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate,
+			LogSanitizer logSanitizer, LogRollupStore logRollupStore, LogSearchIndex logSearchIndex,
+			ErrorFingerprintStore errorFingerprintStore, LogSpillStore logSpillStore, LogPayloadCodec payloadCodec,
+			ObjectMapper objectMapper, DbLoggingProperties properties, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.logSanitizer = logSanitizer;
+		this.logRollupStore = logRollupStore;
+		this.logSearchIndex = logSearchIndex;
+		this.errorFingerprintStore = errorFingerprintStore;
+		this.logSpillStore = logSpillStore;
+		this.payloadCodec = payloadCodec;
+		this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		this.config = properties.getWriter();
+		this.spillConfig = properties.getSpill();
+		this.ringBuffer = new LogRingBuffer<>(config.getBufferSize());
+		this.meterRegistry = meterRegistry;
+
+		Gauge.builder("app.logging.buffer.depth", ringBuffer, LogRingBuffer::size)
+				.description("Eventos de log pendientes en el ring buffer")
+				.register(meterRegistry);
+		Gauge.builder("app.logging.buffer.capacity", ringBuffer, LogRingBuffer::capacity)
+				.register(meterRegistry);
+		this.batchSizeSummary = DistributionSummary.builder("app.logging.batch.size")
+				.description("Eventos por lote JDBC")
+				.register(meterRegistry);
+		this.flushSuccessTimer = Timer.builder("app.logging.flush")
+				.tag("outcome", "success")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+		this.flushFailureTimer = Timer.builder("app.logging.flush")
+				.tag("outcome", "failure")
+				.register(meterRegistry);
+		this.spilledCounter = Counter.builder("app.logging.spilled")
+				.description("Eventos desviados al almacenamiento de desbordamiento")
+				.register(meterRegistry);
+		this.replayedCounter = Counter.builder("app.logging.spill.replayed")
+				.description("Eventos desviados reproducidos en la base de datos")
+				.register(meterRegistry);
+		Gauge.builder("app.logging.degraded", this, writer -> writer.degraded ? 1 : 0)
+				.description("1 si el escritor desvía a disco por fallos o lentitud de la base de datos")
+				.register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		writerThread = new Thread(this::runLoop, "DbLogWriter");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		log.info("Escritor de logs iniciado - buffer: {}, lote: {}, flush: {} ms, política: {}",
+				ringBuffer.capacity(), config.getBatchSize(), config.getFlushIntervalMs(),
+				config.getOverflowPolicy());
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (writerThread != null) {
+			LockSupport.unpark(writerThread);
+			try {
+				writerThread.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Publica un evento sin bloquear (salvo con la política BLOCK, acotada)
+	 */
+	public void enqueue(LogEntry logEntry) {
+		if (ringBuffer.offer(logEntry)) {
+			if (ringBuffer.size() >= config.getBatchSize()) {
+				LockSupport.unpark(writerThread);
+			}
+			return;
+		}
+
+		OverflowPolicy policy = config.getOverflowPolicy();
+		switch (policy) {
+			case BLOCK -> {
+				if (!offerWithTimeout(logEntry)) {
+					spillOrDrop(logEntry, "block_timeout");
+				}
+			}
+			case SPILL -> spillUnprepared(logEntry);
+			case DROP_LOWEST_LEVEL -> spillOrDrop(logEntry, "buffer_full");
+		}
+	}
+
+	/**
+	 * Los niveles protegidos nunca se descartan: van a disco
+	 */
+	private void spillOrDrop(LogEntry logEntry, String reason) {
+		if (logEntry.getLevel() != null && logEntry.getLevel().isEqualOrHigherThan(config.getProtectedLevel())) {
+			spillUnprepared(logEntry);
+		} else {
+			recordDrop(logEntry, reason);
+		}
+	}
+
+	public int getPendingCount() {
+		return ringBuffer.size();
+	}
+
+	public boolean isDegraded() {
+		return degraded;
+	}
+
+	// ========== HILO ESCRITOR ==========
+
+	private void runLoop() {
+		int batchSize = config.getBatchSize();
+		long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+		List<LogEntry> batch = new ArrayList<>(batchSize);
+		long batchStartedAt = 0;
+
+		while (running || ringBuffer.size() > 0 || !batch.isEmpty()) {
+			boolean wasEmpty = batch.isEmpty();
+			ringBuffer.drainTo(batch, batchSize - batch.size());
+			long now = System.nanoTime();
+
+			if (wasEmpty && !batch.isEmpty()) {
+				batchStartedAt = now;
+			}
+
+			boolean full = batch.size() >= batchSize;
+			boolean due = !batch.isEmpty() && now - batchStartedAt >= flushIntervalNanos;
+			if (full || due || (!running && !batch.isEmpty())) {
+				flush(batch);
+				batch.clear();
+				continue;
+			}
+
+			// Sin lote en curso: turno de lo desviado a disco
+			if (batch.isEmpty() && running && now >= nextReplayAtNanos && replayNext(now)) {
+				continue;
+			}
+
+			long parkNanos = batch.isEmpty()
+					? MAX_PARK_NANOS
+					: Math.min(MAX_PARK_NANOS, flushIntervalNanos - (now - batchStartedAt));
+			LockSupport.parkNanos(this, Math.max(parkNanos, 1));
+		}
+		log.info("Escritor de logs detenido");
+	}
+
+	private void flush(List<LogEntry> batch) {
+		List<LogEntry> prepared = new ArrayList<>(batch.size());
+		for (LogEntry logEntry : batch) {
+			try {
+				prepare(logEntry);
+				prepared.add(logEntry);
+			} catch (Exception e) {
+				log.warn("Evento de log descartado al prepararlo: {}", e.getMessage());
+				recordDrop(logEntry, "prepare_error");
+			}
+		}
+
+		if (prepared.isEmpty()) {
+			return;
+		}
+
+		// Circuito abierto: directo a disco hasta la siguiente prueba
+		if (degraded && System.nanoTime() < probeAtNanos) {
+			spill(prepared);
+			return;
+		}
+
+		if (!persist(prepared)) {
+			spill(prepared);
+		}
+	}
+
+	/**
+	 * Inserta eventos ya preparados, actualiza los derivados y registra el
+	 * resultado contra el presupuesto de errores y latencia
+	 *
+	 * @return false si el insert falló
+	 */
+	private boolean persist(List<LogEntry> prepared) {
+		long startedAt = System.nanoTime();
+
+		// Sin ids de huella las filas guardan el stack trace completo
+		try {
+			errorFingerprintStore.resolve(prepared);
+		} catch (Exception e) {
+			log.warn("Error resolviendo huellas de error de {} logs: {}", prepared.size(), e.getMessage());
+		}
+
+		try {
+			insertBatch(prepared);
+		} catch (Exception e) {
+			long elapsed = System.nanoTime() - startedAt;
+			flushFailureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+			log.error("Error persistiendo lote de {} logs: {}", prepared.size(), e.getMessage());
+			recordOutcome(false, elapsed);
+			return false;
+		}
+
+		long elapsed = System.nanoTime() - startedAt;
+		batchSizeSummary.record(prepared.size());
+		flushSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+		recordOutcome(true, elapsed);
+
+		// Rollups e índice son derivados: un fallo aquí no debe reenviar el lote
+		try {
+			logRollupStore.record(prepared);
+		} catch (Exception e) {
+			log.warn("Error actualizando rollups de {} logs: {}", prepared.size(), e.getMessage());
+		}
+		try {
+			errorFingerprintStore.recordOccurrences(prepared);
+		} catch (Exception e) {
+			log.warn("Error actualizando ocurrencias de errores de {} logs: {}", prepared.size(), e.getMessage());
+		}
+		try {
+			logSearchIndex.index(prepared);
+		} catch (Exception e) {
+			log.warn("Error indexando {} logs: {}", prepared.size(), e.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Presupuesto de errores: errorBudget lotes consecutivos fallidos o más
+	 * lentos que latencyBudgetMs abren el circuito; un lote sano lo cierra
+	 */
+	private synchronized void recordOutcome(boolean success, long elapsedNanos) {
+		if (success && elapsedNanos <= TimeUnit.MILLISECONDS.toNanos(spillConfig.getLatencyBudgetMs())) {
+			if (degraded) {
+				log.info("Base de datos de logs recuperada; se reanudan las escrituras directas");
+			}
+			budgetMisses = 0;
+			degraded = false;
+			return;
+		}
+
+		budgetMisses++;
+		if (degraded || budgetMisses >= spillConfig.getErrorBudget()) {
+			if (!degraded) {
+				log.warn("Base de datos de logs fuera de presupuesto ({} lotes {}); desviando a disco",
+						budgetMisses, success ? "lentos" : "fallidos");
+			}
+			degraded = true;
+			probeAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spillConfig.getProbeIntervalMs());
+		}
+	}
+
+	/**
+	 * Inserta el lote en una sola ejecución JDBC y asigna a cada evento el id
+	 * generado, que el índice de búsqueda necesita
+	 */
+	private void insertBatch(List<LogEntry> entries) {
+		jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+			try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				ps.setQueryTimeout(spillConfig.getQueryTimeoutSeconds());
+				for (LogEntry logEntry : entries) {
+					bind(ps, logEntry);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					for (int i = 0; i < entries.size() && keys.next(); i++) {
+						entries.get(i).setId(keys.getLong(1));
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	private void prepare(LogEntry logEntry) {
+		if (logEntry.getTimestamp() == null) {
+			logEntry.setTimestamp(LocalDateTime.now());
+		}
+		if (logEntry.getLevel() == null) {
+			logEntry.setLevel(LogEntry.LogLevel.INFO);
+		}
+		if (logEntry.getSource() == null || logEntry.getSource().trim().isEmpty()) {
+			logEntry.setSource("UNKNOWN");
+		}
+		if (logEntry.getMessage() == null || logEntry.getMessage().trim().isEmpty()) {
+			logEntry.setMessage("No message provided");
+		}
+		if (logEntry.getArchived() == null) {
+			logEntry.setArchived(false);
+		}
+
+		// Sanitizar datos sensibles
+		logSanitizer.sanitize(logEntry);
+	}
+
+	private void bind(PreparedStatement ps, LogEntry logEntry) throws SQLException {
+		ps.setTimestamp(1, Timestamp.valueOf(logEntry.getTimestamp()));
+		ps.setString(2, logEntry.getLevel().name());
+		ps.setString(3, truncate(logEntry.getSource(), 100));
+		ps.setString(4, truncate(logEntry.getMessage(), 1000));
+		ps.setString(5, truncate(logEntry.getUserEmail(), 255));
+		ps.setString(6, truncate(logEntry.getSessionId(), 50));
+		ps.setString(7, truncate(logEntry.getCorrelationId(), 50));
+		ps.setString(8, truncate(logEntry.getRequestId(), 50));
+		ps.setString(9, truncate(logEntry.getOperation(), 100));
+		ps.setString(10, truncate(logEntry.getClientIp(), 15));
+		ps.setString(11, truncate(logEntry.getUserAgent(), 500));
+		ps.setObject(12, logEntry.getExecutionTimeMs(), Types.BIGINT);
+		// El stack trace vive en error_fingerprints; el índice de búsqueda usa
+		// el del evento en memoria
+		ps.setBytes(13, payloadCodec.encode(logEntry.getErrorFingerprintId() != null ? null : logEntry.getStackTrace()));
+		ps.setBytes(14, payloadCodec.encode(logEntry.getRequestPayload()));
+		ps.setBytes(15, payloadCodec.encode(logEntry.getResponsePayload()));
+		ps.setString(16, toJson(logEntry.getContext()));
+		ps.setString(17, truncate(logEntry.getEnvironment(), 50));
+		ps.setString(18, truncate(logEntry.getApplicationVersion(), 20));
+		ps.setBoolean(19, Boolean.TRUE.equals(logEntry.getArchived()));
+		ps.setObject(20, logEntry.getErrorFingerprintId(), Types.BIGINT);
+	}
+
+	// ========== DESBORDAMIENTO ==========
+
+	private boolean offerWithTimeout(LogEntry logEntry) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeoutMs());
+		LockSupport.unpark(writerThread);
+		while (System.nanoTime() < deadline) {
+			if (ringBuffer.offer(logEntry)) {
+				return true;
+			}
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+		return false;
+	}
+
+	/**
+	 * Evento que no cupo en el buffer: se sanitiza antes de tocar el disco
+	 */
+	private void spillUnprepared(LogEntry logEntry) {
+		try {
+			prepare(logEntry);
+		} catch (Exception e) {
+			recordDrop(logEntry, "prepare_error");
+			return;
+		}
+		spill(List.of(logEntry));
+	}
+
+	/**
+	 * Desvía eventos preparados a los segmentos en disco. Lo que no cabe
+	 * (límite de disco) va al log de aplicación como JSON de una línea
+	 */
+	private void spill(List<LogEntry> entries) {
+		List<LogEntry> rejected = logSpillStore.append(entries);
+		spilledCounter.increment(entries.size() - rejected.size());
+
+		for (LogEntry logEntry : rejected) {
+			try {
+				spillLogger.warn(jsonWriter.writeValueAsString(logEntry));
+			} catch (JsonProcessingException e) {
+				spillLogger.warn("{} {} {}", logEntry.getLevel(), logEntry.getSource(), logEntry.getMessage());
+			}
+			recordDrop(logEntry, "spill_full");
+		}
+	}
+
+	// ========== REPRODUCCIÓN ==========
+
+	/**
+	 * Reproduce un lote desviado si la base de datos está sana y el tráfico
+	 * en vivo no se acumula; el siguiente lote se programa para no superar
+	 * replayRatePerSecond eventos por segundo
+	 *
+	 * @return true si se reprodujo un lote
+	 */
+	private boolean replayNext(long now) {
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(100, spillConfig.getProbeIntervalMs() / 2));
+		if (degraded || ringBuffer.size() >= config.getBatchSize() || !logSpillStore.hasPending()) {
+			finishReplay(now + idleNanos);
+			return false;
+		}
+
+		ReplayBatch batch;
+		try {
+			batch = logSpillStore.nextBatch(spillConfig.getReplayBatchSize());
+		} catch (Exception e) {
+			log.warn("Error leyendo logs desviados: {}", e.getMessage());
+			finishReplay(now + idleNanos);
+			return false;
+		}
+		if (batch == null) {
+			finishReplay(now + idleNanos);
+			return false;
+		}
+		if (!batch.entries().isEmpty() && !persist(batch.entries())) {
+			finishReplay(now + idleNanos);
+			return false;
+		}
+		logSpillStore.commit(batch);
+		replayedCounter.increment(batch.entries().size());
+		replayedSinceLog += batch.entries().size();
+
+		nextReplayAtNanos = now
+				+ TimeUnit.SECONDS.toNanos(batch.entries().size()) / spillConfig.getReplayRatePerSecond();
+		return true;
+	}
+
+	private void finishReplay(long nextAttemptNanos) {
+		nextReplayAtNanos = nextAttemptNanos;
+		if (replayedSinceLog > 0) {
+			log.info("Reproducidos {} logs desviados a disco; pendientes: {} bytes", replayedSinceLog,
+					logSpillStore.getPendingBytes());
+			replayedSinceLog = 0;
+		}
+	}
+
+	private void recordDrop(LogEntry logEntry, String reason) {
+		String level = logEntry.getLevel() != null ? logEntry.getLevel().name() : "UNKNOWN";
+		meterRegistry.counter("app.logging.dropped", "level", level, "reason", reason).increment();
+	}
+
+	private String toJson(Object value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return jsonWriter.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			return null;
+		}
+	}
+
+	private static String truncate(String value, int maxLength) {
+		if (value == null || value.length() <= maxLength) {
+			return value;
+		}
+		return value.substring(0, maxLength);
+	}
+}
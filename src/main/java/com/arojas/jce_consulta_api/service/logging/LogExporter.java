@@ -0,0 +1,228 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Exportación de logs por streaming: un cursor JDBC de solo avance
+ *         (fetchSize MIN_VALUE en MySQL) recorre las filas y cada una se
+ *         escribe directo al OutputStream de la respuesta
+ *         * Memoria acotada al buffer de escritura, sin límite de filas
+ *         * Formatos CSV (RFC 4180) y NDJSON, opcionalmente gzip
+ */
+@Component
+@Slf4j
+public class LogExporter {
+
+	private static final String CSV_HEADER = "ID,Timestamp,Level,Source,Message,UserEmail,Operation,ExecutionTimeMs,CorrelationId";
+	private static final int WRITE_BUFFER = 64 * 1024;
+
+	private final JdbcTemplate streamingJdbcTemplate;
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	public enum Format {
+		CSV("text/csv", "csv"),
+		NDJSON("application/x-ndjson", "ndjson");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+	}
+
+	/**
+	 * Filtros de la exportación; los campos nulos no filtran
+	 */
+	public record ExportQuery(LocalDateTime start, LocalDateTime end, LogLevel level, String source) {
+	}
+
+	public LogExporter(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate) {
+		this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Escribe las filas que cumplen {@code query} en {@code out}, en orden de
+	 * timestamp
+	 *
+	 * @return filas exportadas
+	 */
+	public long export(ExportQuery query, Format format, boolean gzip, OutputStream out) throws IOException {
+		StringBuilder sql = new StringBuilder("SELECT id, timestamp, level, source, message, user_email, operation, "
+				+ "execution_time_ms, correlation_id FROM " + LogPartitionManager.TABLE
+				+ " WHERE timestamp >= ? AND timestamp <= ? AND archived = false");
+		List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(query.start()), Timestamp.valueOf(query.end())));
+		if (query.level() != null) {
+			sql.append(" AND level = ?");
+			args.add(query.level().name());
+		}
+		if (query.source() != null) {
+			sql.append(" AND source = ?");
+			args.add(query.source());
+		}
+		sql.append(" ORDER BY timestamp");
+
+		GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, WRITE_BUFFER) : null;
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), WRITE_BUFFER);
+		JsonGenerator json = null;
+		if (format == Format.NDJSON) {
+			// Separador propio: una línea por objeto
+			json = jsonFactory.createGenerator(writer).setRootValueSeparator(null);
+		}
+		JsonGenerator generator = json;
+		long[] rows = { 0 };
+
+		if (format == Format.CSV) {
+			writer.write(CSV_HEADER);
+			writer.write('\n');
+		}
+
+		try {
+			streamingJdbcTemplate.query(sql.toString(), rs -> {
+				try {
+					if (generator != null) {
+						writeJson(generator, rs);
+					} else {
+						writeCsv(writer, rs);
+					}
+				} catch (IOException e) {
+					// Cliente desconectado: se aborta el cursor
+					throw new UncheckedIOException(e);
+				}
+				rows[0]++;
+			}, args.toArray());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		if (json != null) {
+			json.flush();
+		}
+		writer.flush();
+		if (gzipOut != null) {
+			gzipOut.finish();
+		}
+		log.debug("Exportados {} logs en formato {}", rows[0], format);
+		return rows[0];
+	}
+
+	private static void writeCsv(Writer writer, ResultSet rs) throws SQLException, IOException {
+		writer.write(Long.toString(rs.getLong(1)));
+		writer.write(',');
+		writer.write(rs.getTimestamp(2).toLocalDateTime().toString());
+		writer.write(',');
+		writer.write(rs.getString(3));
+		writer.write(',');
+		writeCsvField(writer, rs.getString(4));
+		writer.write(',');
+		writeCsvField(writer, rs.getString(5));
+		writer.write(',');
+		writeCsvField(writer, rs.getString(6));
+		writer.write(',');
+		writeCsvField(writer, rs.getString(7));
+		writer.write(',');
+		long executionTime = rs.getLong(8);
+		if (!rs.wasNull()) {
+			writer.write(Long.toString(executionTime));
+		}
+		writer.write(',');
+		writeCsvField(writer, rs.getString(9));
+		writer.write('\n');
+	}
+
+	/**
+	 * Escribe un campo CSV, entre comillas solo si contiene separadores,
+	 * comillas o saltos de línea
+	 */
+	private static void writeCsvField(Writer writer, String value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		int from = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == '"') {
+				writer.write(value, from, i + 1 - from);
+				writer.write('"');
+				from = i + 1;
+			}
+		}
+		writer.write(value, from, value.length() - from);
+		writer.write('"');
+	}
+
+	private static void writeJson(JsonGenerator json, ResultSet rs) throws SQLException, IOException {
+		json.writeStartObject();
+		json.writeNumberField("id", rs.getLong(1));
+		json.writeStringField("timestamp", rs.getTimestamp(2).toLocalDateTime().toString());
+		json.writeStringField("level", rs.getString(3));
+		json.writeStringField("source", rs.getString(4));
+		json.writeStringField("message", rs.getString(5));
+		writeOptional(json, "userEmail", rs.getString(6));
+		writeOptional(json, "operation", rs.getString(7));
+		long executionTime = rs.getLong(8);
+		if (!rs.wasNull()) {
+			json.writeNumberField("executionTimeMs", executionTime);
+		}
+		writeOptional(json, "correlationId", rs.getString(9));
+		json.writeEndObject();
+		json.writeRaw('\n');
+	}
+
+	private static void writeOptional(JsonGenerator json, String field, String value) throws IOException {
+		if (value != null) {
+			json.writeStringField(field, value);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.config.DbLoggingProperties.HotColumn;
+import com.arojas.jce_consulta_api.config.DbLoggingProperties.HotColumnType;
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Expone claves del contexto JSON como columnas generadas
+ *         (VIRTUAL) de application_logs con índice (columna, timestamp)
+ *         * Las columnas virtuales no reescriben la tabla: solo se construye
+ *         el índice, y el escritor por lotes no cambia porque MySQL las
+ *         calcula al insertar
+ *         * JSON_VALUE devuelve NULL si la clave falta o no encaja en el
+ *         tipo, así que un contexto inesperado nunca rechaza la fila
+ *         * Crear el índice recorre toda la tabla, por eso al arrancar solo
+ *         se aplica con create-on-startup; si no, se registra el DDL
+ *         pendiente para ejecutarlo como paso de operación
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LogHotColumns {
+
+	private static final Pattern COLUMN_NAME = Pattern.compile("[a-z][a-z0-9_]{0,40}");
+	private static final Pattern CONTEXT_KEY = Pattern.compile("[A-Za-z][A-Za-z0-9_]{0,60}");
+
+	@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE)
+	private final JdbcTemplate jdbcTemplate;
+	private final DbLoggingProperties properties;
+
+	@Value("${app.logging.hot-columns-create-on-startup:false}")
+	private boolean createOnStartup;
+
+	public static String indexName(String column) {
+		return "idx_log_" + column + "_timestamp";
+	}
+
+	/**
+	 * Agrega las columnas e índices que falten (solo con
+	 * create-on-startup). Corre tras la inicialización de JPA (que crea la
+	 * tabla) y antes de convertirla a particionada.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(0)
+	public void ensureColumns() {
+		try {
+			Set<String> existingColumns = new HashSet<>(jdbcTemplate.queryForList("""
+					SELECT COLUMN_NAME FROM information_schema.COLUMNS
+					WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+					""", String.class, LogPartitionManager.TABLE));
+			if (existingColumns.isEmpty()) {
+				return;
+			}
+			Set<String> existingIndexes = new HashSet<>(jdbcTemplate.queryForList("""
+					SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS
+					WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+					""", String.class, LogPartitionManager.TABLE));
+
+			List<String> changes = new ArrayList<>();
+			for (Map.Entry<String, HotColumn> entry : properties.getHotColumns().entrySet()) {
+				String column = entry.getKey();
+				HotColumn hotColumn = entry.getValue();
+				if (!COLUMN_NAME.matcher(column).matches() || !CONTEXT_KEY.matcher(hotColumn.getKey()).matches()) {
+					log.warn("Columna caliente ignorada por nombre inválido: {} -> {}", column, hotColumn.getKey());
+					continue;
+				}
+				if (!existingColumns.contains(column)) {
+					changes.add("ADD COLUMN " + column + " " + definition(hotColumn));
+				}
+				if (hotColumn.isIndexed() && !existingIndexes.contains(indexName(column))) {
+					changes.add("ADD INDEX " + indexName(column) + " (" + column + ", timestamp)");
+				}
+			}
+			if (changes.isEmpty()) {
+				return;
+			}
+
+			String ddl = "ALTER TABLE " + LogPartitionManager.TABLE + " " + String.join(", ", changes);
+			if (!createOnStartup) {
+				log.warn("Faltan columnas calientes en {}; las consultas que las usan fallarán hasta ejecutar en una "
+						+ "ventana de mantenimiento: {} (o arrancar una vez con "
+						+ "app.logging.hot-columns-create-on-startup=true)", LogPartitionManager.TABLE, ddl);
+				return;
+			}
+			jdbcTemplate.execute(ddl);
+			log.info("Columnas calientes de {} actualizadas: {}", LogPartitionManager.TABLE, changes);
+		} catch (Exception e) {
+			log.error("No se pudieron crear las columnas calientes de {}: {}", LogPartitionManager.TABLE,
+					e.getMessage());
+		}
+	}
+
+	private static String definition(HotColumn hotColumn) {
+		String path = "'$." + hotColumn.getKey() + "'";
+		if (hotColumn.getType() == HotColumnType.INTEGER) {
+			return "INT GENERATED ALWAYS AS (JSON_VALUE(context, " + path + " RETURNING SIGNED)) VIRTUAL";
+		}
+		if (hotColumn.getType() == HotColumnType.DECIMAL) {
+			return "DECIMAL(12,9) GENERATED ALWAYS AS (JSON_VALUE(context, " + path
+					+ " RETURNING DECIMAL(12,9))) VIRTUAL";
+		}
+		int length = hotColumn.getLength() > 0 ? hotColumn.getLength() : 255;
+		return "VARCHAR(" + length + ") GENERATED ALWAYS AS (JSON_VALUE(context, " + path + " RETURNING CHAR("
+				+ length + "))) VIRTUAL";
+	}
+}
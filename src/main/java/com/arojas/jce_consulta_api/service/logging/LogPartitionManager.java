@@ -0,0 +1,313 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Administra el particionado diario de application_logs (MySQL,
+ *         RANGE sobre TO_DAYS(timestamp))
+ *         * Cada partición pYYYYMMDD contiene un día; pmax recibe cualquier
+ *         fila fuera de rango y se reorganiza al crear particiones por
+ *         adelantado
+ *         * Archivar = EXCHANGE PARTITION con una tabla
+ *         application_logs_archive_YYYYMMDD y DROP de la partición vacía;
+ *         eliminar = DROP TABLE del archivo. Ambas son operaciones de
+ *         metadatos, sin UPDATE ni DELETE de filas
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LogPartitionManager {
+
+	public static final String TABLE = "application_logs";
+	public static final String ARCHIVE_PREFIX = TABLE + "_archive_";
+
+	private static final String MAX_PARTITION = "pmax";
+	private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+	@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE)
+	private final JdbcTemplate jdbcTemplate;
+
+	@Value("${app.logging.partitioning.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.partitioning.precreate-days:7}")
+	private int precreateDays;
+
+	@Value("${app.logging.partitioning.convert-on-startup:false}")
+	private boolean convertOnStartup;
+
+	@Value("${app.logging.cleanup.delete-after-days:90}")
+	private int deleteAfterDays;
+
+	/**
+	 * Partición diaria y su cantidad aproximada de filas (estadísticas de
+	 * InnoDB)
+	 */
+	public record PartitionInfo(String name, LocalDate day, long approximateRows) {
+	}
+
+	/**
+	 * Convierte la tabla al arrancar (solo con convert-on-startup) y crea las
+	 * particiones de los próximos días. Corre tras la inicialización de JPA,
+	 * que crea la tabla con ddl-auto. La conversión reconstruye la tabla
+	 * completa bloqueando las escrituras, por eso es un paso explícito del
+	 * operador en una ventana de mantenimiento y no ocurre por defecto
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		if (!enabled) {
+			return;
+		}
+
+		try {
+			if (!isPartitioned()) {
+				if (!convertOnStartup) {
+					log.warn("{} no está particionada; la limpieza usará UPDATE/DELETE por filas. Para convertirla, "
+							+ "arranque una vez con app.logging.partitioning.convert-on-startup=true en una "
+							+ "ventana de mantenimiento", TABLE);
+					return;
+				}
+				convertToPartitioned();
+			}
+			ensureFuturePartitions();
+		} catch (Exception e) {
+			log.error("No se pudo preparar el particionado de {}: {}", TABLE, e.getMessage());
+		}
+	}
+
+	/**
+	 * Crea por adelantado las particiones de los próximos días
+	 */
+	@Scheduled(cron = "${app.logging.partitioning.maintenance-cron:0 5 0 * * *}")
+	public void scheduledMaintenance() {
+		if (enabled && isPartitioned()) {
+			ensureFuturePartitions();
+		}
+	}
+
+	public boolean isPartitioned() {
+		return enabled && isTablePartitioned(TABLE);
+	}
+
+	/**
+	 * Reorganiza pmax para que existan particiones hasta hoy +
+	 * precreate-days. Con pmax vacía es una operación de metadatos.
+	 */
+	public synchronized void ensureFuturePartitions() {
+		LocalDate lastDay = listPartitions().stream()
+				.map(PartitionInfo::day)
+				.max(LocalDate::compareTo)
+				.orElse(LocalDate.now().minusDays(1));
+		LocalDate targetDay = LocalDate.now().plusDays(precreateDays);
+
+		if (!lastDay.isBefore(targetDay)) {
+			return;
+		}
+
+		List<String> definitions = new ArrayList<>();
+		for (LocalDate day = lastDay.plusDays(1); !day.isAfter(targetDay); day = day.plusDays(1)) {
+			definitions.add(partitionDefinition(day));
+		}
+		definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE");
+
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION
+				+ " INTO (" + String.join(", ", definitions) + ")");
+		log.info("Creadas {} particiones de {} hasta {}", definitions.size() - 1, TABLE, targetDay);
+	}
+
+	/**
+	 * Mueve a tablas de archivo las particiones de días anteriores a
+	 * {@code cutoff}
+	 *
+	 * @return días archivados
+	 */
+	public synchronized List<LocalDate> archivePartitionsBefore(LocalDate cutoff) {
+		List<LocalDate> archived = new ArrayList<>();
+
+		for (PartitionInfo partition : listPartitions()) {
+			if (!partition.day().isBefore(cutoff)) {
+				continue;
+			}
+			if (archivePartition(partition)) {
+				archived.add(partition.day());
+			}
+		}
+		return archived;
+	}
+
+	/**
+	 * Elimina las tablas de archivo de días anteriores a {@code cutoff}
+	 *
+	 * @return tablas eliminadas
+	 */
+	public synchronized int dropArchivesBefore(LocalDate cutoff) {
+		int dropped = 0;
+		for (LocalDate day : listArchiveDays()) {
+			if (day.isBefore(cutoff)) {
+				jdbcTemplate.execute("DROP TABLE IF EXISTS " + archiveTable(day));
+				dropped++;
+			}
+		}
+		if (dropped > 0) {
+			log.info("Eliminadas {} tablas de archivo de logs anteriores a {}", dropped, cutoff);
+		}
+		return dropped;
+	}
+
+	/**
+	 * Particiones diarias vigentes (sin pmax), en orden
+	 */
+	public List<PartitionInfo> listPartitions() {
+		return jdbcTemplate.query("""
+				SELECT PARTITION_NAME, TABLE_ROWS FROM information_schema.PARTITIONS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+				ORDER BY PARTITION_ORDINAL_POSITION
+				""", (rs, rowNum) -> {
+			String name = rs.getString(1);
+			LocalDate day = parseDay(name, "p");
+			return day == null ? null : new PartitionInfo(name, day, rs.getLong(2));
+		}, TABLE).stream()
+				.filter(partition -> partition != null)
+				.toList();
+	}
+
+	/**
+	 * Días con tabla de archivo, en orden
+	 */
+	public List<LocalDate> listArchiveDays() {
+		return jdbcTemplate.queryForList("""
+				SELECT TABLE_NAME FROM information_schema.TABLES
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME LIKE ?
+				ORDER BY TABLE_NAME
+				""", String.class, ARCHIVE_PREFIX + "%").stream()
+				.map(name -> parseDay(name, ARCHIVE_PREFIX))
+				.filter(day -> day != null)
+				.toList();
+	}
+
+	/**
+	 * Filas aproximadas en tablas de archivo (estadísticas de InnoDB)
+	 */
+	public long approximateArchivedRows() {
+		Long rows = jdbcTemplate.queryForObject("""
+				SELECT COALESCE(SUM(TABLE_ROWS), 0) FROM information_schema.TABLES
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME LIKE ?
+				""", Long.class, ARCHIVE_PREFIX + "%");
+		return rows != null ? rows : 0L;
+	}
+
+	public static String archiveTable(LocalDate day) {
+		return ARCHIVE_PREFIX + day.format(DAY_FORMAT);
+	}
+
+	// ========== MÉTODOS PRIVADOS ==========
+
+	private void convertToPartitioned() {
+		LocalDate today = LocalDate.now();
+		LocalDate oldestDay = jdbcTemplate.queryForObject(
+				"SELECT DATE(MIN(timestamp)) FROM " + TABLE, LocalDate.class);
+
+		// Todo lo anterior al horizonte de retención queda en la primera partición
+		LocalDate firstDay = today.minusDays(deleteAfterDays);
+		if (oldestDay != null && oldestDay.isAfter(firstDay)) {
+			firstDay = oldestDay;
+		}
+		if (firstDay.isAfter(today)) {
+			firstDay = today;
+		}
+
+		List<String> definitions = new ArrayList<>();
+		for (LocalDate day = firstDay; !day.isAfter(today); day = day.plusDays(1)) {
+			definitions.add(partitionDefinition(day));
+		}
+		definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE");
+
+		log.warn("Convirtiendo {} a tabla particionada por día ({} particiones); reconstruye la tabla",
+				TABLE, definitions.size());
+
+		// MySQL exige que toda clave única incluya la columna de particionado
+		jdbcTemplate.execute("ALTER TABLE " + TABLE
+				+ " DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)"
+				+ " PARTITION BY RANGE (TO_DAYS(timestamp)) (" + String.join(", ", definitions) + ")");
+		log.info("{} particionada por día desde {}", TABLE, firstDay);
+	}
+
+	private boolean archivePartition(PartitionInfo partition) {
+		String archiveTable = archiveTable(partition.day());
+
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archiveTable + " LIKE " + TABLE);
+		if (isTablePartitioned(archiveTable)) {
+			jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+		}
+
+		boolean partitionHasRows = hasRows(TABLE + " PARTITION (" + partition.name() + ")");
+		boolean archiveHasRows = hasRows(archiveTable);
+
+		if (partitionHasRows && archiveHasRows) {
+			// Un intercambio devolvería el archivo a la tabla viva
+			log.warn("La partición {} y la tabla {} tienen filas; se omite el archivado",
+					partition.name(), archiveTable);
+			return false;
+		}
+
+		if (partitionHasRows) {
+			jdbcTemplate.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + partition.name()
+					+ " WITH TABLE " + archiveTable);
+		}
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition.name());
+		log.info("Partición {} archivada en {}", partition.name(), archiveTable);
+		return true;
+	}
+
+	private boolean isTablePartitioned(String table) {
+		Integer count = jdbcTemplate.queryForObject("""
+				SELECT COUNT(*) FROM information_schema.PARTITIONS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+				""", Integer.class, table);
+		return count != null && count > 0;
+	}
+
+	private boolean hasRows(String tableReference) {
+		return !jdbcTemplate.queryForList("SELECT 1 FROM " + tableReference + " LIMIT 1").isEmpty();
+	}
+
+	private static String partitionDefinition(LocalDate day) {
+		return "PARTITION p" + day.format(DAY_FORMAT)
+				+ " VALUES LESS THAN (TO_DAYS('" + day.plusDays(1) + "'))";
+	}
+
+	private static LocalDate parseDay(String name, String prefix) {
+		if (name == null || !name.startsWith(prefix)) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(name.substring(prefix.length()), DAY_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ *
+ * @author arojas
+ *         * Codificación de las columnas grandes de application_logs
+ *         (stack_trace, request_payload, response_payload) como MEDIUMBLOB
+ *         * Los valores por debajo del umbral se guardan como UTF-8 sin
+ *         cabecera; los mayores se comprimen con LZ4 si así ocupan menos
+ *         * Formato comprimido: [0xFF, códec, longitud original (int)]
+ *         [bloque]. 0xFF nunca inicia un texto UTF-8, así que las filas
+ *         anteriores (TEXT) se leen sin migrar datos
+ *         * Solo se comprime si las columnas ya son binarias: con columnas
+ *         TEXT (migración desactivada o fallida) los valores se guardan como
+ *         UTF-8 plano
+ */
+@Component
+@Slf4j
+public class LogPayloadCodec {
+
+	private static final byte MARKER = (byte) 0xFF;
+	private static final byte CODEC_LZ4 = 1;
+	private static final int HEADER_SIZE = 2 + Integer.BYTES;
+
+	/** Límite de descompresión: tamaño máximo de un MEDIUMBLOB */
+	private static final int MAX_ORIGINAL_LENGTH = 16 * 1024 * 1024;
+
+	private static final List<String> COLUMNS = List.of("stack_trace", "request_payload", "response_payload");
+
+	private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+	private final JdbcTemplate jdbcTemplate;
+	private final LZ4Compressor compressor = LZ4.fastCompressor();
+	private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+
+	private final Counter rawBytes;
+	private final Counter storedBytes;
+	private final Counter compressedValues;
+
+	@Value("${app.logging.compression.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.compression.threshold-bytes:1024}")
+	private int thresholdBytes;
+
+	@Value("${app.logging.compression.migrate-columns:false}")
+	private boolean migrateColumns;
+
+	/** Falso mientras alguna columna siga siendo TEXT */
+	private volatile boolean binaryColumns = true;
+
+	public LogPayloadCodec(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate,
+			MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.rawBytes = Counter.builder("app.logging.payload.bytes")
+				.description("Bytes de payloads y stack traces antes y después de codificar")
+				.tag("stage", "raw")
+				.register(meterRegistry);
+		this.storedBytes = Counter.builder("app.logging.payload.bytes")
+				.description("Bytes de payloads y stack traces antes y después de codificar")
+				.tag("stage", "stored")
+				.register(meterRegistry);
+		this.compressedValues = Counter.builder("app.logging.payload.compressed")
+				.description("Valores guardados comprimidos con LZ4")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Comprueba el tipo de las columnas antes de que el escritor por lotes
+	 * inserte valores comprimidos; en una base nueva la tabla aún no existe y
+	 * JPA la crea con MEDIUMBLOB.
+	 * <p>
+	 * Con migrate-columns=true cambia las columnas TEXT a MEDIUMBLOB
+	 * (ddl-auto=update no altera tipos). Es un ALTER que copia la tabla
+	 * completa y bloquea el arranque, por eso es opcional: lo normal es
+	 * ejecutarlo como paso de operación fuera de horario. Si las columnas
+	 * siguen siendo TEXT la compresión queda desactivada.
+	 */
+	@PostConstruct
+	public void checkColumns() {
+		try {
+			List<String> textColumns = textColumns();
+			if (!textColumns.isEmpty() && migrateColumns) {
+				String modifications = String.join(", ", textColumns.stream()
+						.map(column -> "MODIFY " + column + " MEDIUMBLOB NULL")
+						.toList());
+				jdbcTemplate.execute("ALTER TABLE " + LogPartitionManager.TABLE + " " + modifications);
+				log.info("Columnas {} de {} convertidas a MEDIUMBLOB", textColumns, LogPartitionManager.TABLE);
+				textColumns = textColumns();
+			}
+			binaryColumns = textColumns.isEmpty();
+			if (!binaryColumns && enabled) {
+				log.warn("Columnas {} de {} siguen siendo TEXT: compresión de payloads desactivada", textColumns,
+						LogPartitionManager.TABLE);
+			}
+		} catch (Exception e) {
+			binaryColumns = false;
+			log.error("No se pudieron verificar o convertir las columnas de {}; compresión desactivada: {}",
+					LogPartitionManager.TABLE, e.getMessage());
+		}
+	}
+
+	public boolean isCompressionActive() {
+		return enabled && binaryColumns;
+	}
+
+	private List<String> textColumns() {
+		return jdbcTemplate.queryForList("""
+				SELECT COLUMN_NAME FROM information_schema.COLUMNS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND DATA_TYPE LIKE '%text'
+				""", String.class, LogPartitionManager.TABLE).stream()
+				.filter(COLUMNS::contains)
+				.toList();
+	}
+
+	public byte[] encode(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+		byte[] stored = raw;
+		if (isCompressionActive() && raw.length >= thresholdBytes) {
+			byte[] compressed = compress(raw);
+			if (compressed.length < raw.length) {
+				stored = compressed;
+				compressedValues.increment();
+			}
+		}
+
+		rawBytes.increment(raw.length);
+		storedBytes.increment(stored.length);
+		return stored;
+	}
+
+	public String decode(byte[] stored) {
+		if (stored == null) {
+			return null;
+		}
+		if (stored.length < HEADER_SIZE || stored[0] != MARKER) {
+			return new String(stored, StandardCharsets.UTF_8);
+		}
+
+		ByteBuffer header = ByteBuffer.wrap(stored, 2, Integer.BYTES);
+		int originalLength = header.getInt();
+		if (stored[1] != CODEC_LZ4 || originalLength < 0 || originalLength > MAX_ORIGINAL_LENGTH) {
+			throw new IllegalStateException("Formato de payload desconocido: códec " + stored[1]);
+		}
+
+		byte[] raw = new byte[originalLength];
+		decompressor.decompress(stored, HEADER_SIZE, raw, 0, originalLength);
+		return new String(raw, StandardCharsets.UTF_8);
+	}
+
+	private byte[] compress(byte[] raw) {
+		byte[] target = new byte[HEADER_SIZE + compressor.maxCompressedLength(raw.length)];
+		target[0] = MARKER;
+		target[1] = CODEC_LZ4;
+		ByteBuffer.wrap(target, 2, Integer.BYTES).putInt(raw.length);
+		int length = compressor.compress(raw, 0, raw.length, target, HEADER_SIZE, target.length - HEADER_SIZE);
+		return Arrays.copyOf(target, HEADER_SIZE + length);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * @author arojas
+ *         * Ring buffer acotado, sin locks, multi-productor / consumidor único
+ *         * Cada slot lleva un número de secuencia: el productor reclama una
+ *         posición con CAS sobre {@code tail} y publica el elemento avanzando
+ *         la secuencia del slot; el consumidor solo lee slots publicados y los
+ *         libera para la siguiente vuelta
+ */
+public class LogRingBuffer<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	public LogRingBuffer(int requestedCapacity) {
+		this.capacity = nextPowerOfTwo(Math.max(2, requestedCapacity));
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Inserta un elemento sin bloquear. Devuelve false si el buffer está lleno.
+	 */
+	public boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long sequence = sequences.get(index);
+			long difference = sequence - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Extrae hasta {@code maxElements} elementos publicados. Solo debe
+	 * invocarse desde el hilo consumidor.
+	 */
+	public int drainTo(Collection<? super E> sink, int maxElements) {
+		long position = head;
+		int drained = 0;
+
+		while (drained < maxElements) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+
+			E element = slots.get(index);
+			slots.lazySet(index, null);
+			sequences.set(index, position + capacity);
+			sink.add(element);
+			position++;
+			drained++;
+		}
+
+		head = position;
+		return drained;
+	}
+
+	public int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	private static int nextPowerOfTwo(int value) {
+		int highestBit = Integer.highestOneBit(value);
+		return highestBit == value ? value : highestBit << 1;
+	}
+}
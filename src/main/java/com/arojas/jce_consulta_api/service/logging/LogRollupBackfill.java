@@ -0,0 +1,294 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Carga única de los rollups con el histórico de application_logs
+ *         anterior al primer evento agregado en vivo, para que la analítica
+ *         no muestre ceros en rangos previos al despliegue de los rollups
+ *         * El corte (primer minuto con rollup en vivo) se fija una sola vez
+ *         en log_rollup_backfill; todo lo anterior se recalcula por días y
+ *         se escribe sobrescribiendo, así que repetir un día no duplica
+ *         conteos y el avance guardado permite reanudar tras un reinicio
+ *         * La hora del corte ya tiene conteos en vivo: su tramo previo se
+ *         suma una sola vez, en la misma transacción que lo marca aplicado
+ *         * Corre en un hilo propio tras el arranque; los días completos se
+ *         reducen a log_rollup_day al terminarlos
+ */
+@Component
+@Slf4j
+public class LogRollupBackfill {
+
+	private static final String MARKER_TABLE = "log_rollup_backfill";
+	private static final String SOURCE_TABLE = "application_logs";
+
+	private static final String HOUR_FORMAT = "'%Y-%m-%d %H:00:00'";
+	private static final String MINUTE_FORMAT = "'%Y-%m-%d %H:%i:00'";
+
+	/** Mismo peso que {@link LogRollupStore#weightOf}: 1/sampleRate del contexto */
+	private static final String SAMPLE_RATE = "CAST(JSON_UNQUOTE(JSON_EXTRACT(l.context, '$."
+			+ LogSampler.SAMPLE_RATE_CONTEXT_KEY + "')) AS DECIMAL(12,9))";
+	private static final String WEIGHT = "CASE WHEN " + SAMPLE_RATE + " > 0 THEN GREATEST(1, ROUND(1 / "
+			+ SAMPLE_RATE + ")) ELSE 1 END";
+	private static final String IS_ERROR = "e.level IN ('ERROR', 'FATAL')";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final LogRollupStore logRollupStore;
+
+	@Value("${app.logging.rollup.backfill-enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.rollup.minute-retention-hours:48}")
+	private int minuteRetentionHours;
+
+	@Value("${app.logging.rollup.day-retention-days:730}")
+	private int dayRetentionDays;
+
+	private record Marker(LocalDateTime firstLiveAt, boolean partialHourApplied, LocalDateTime backfilledUntil,
+			boolean completed) {
+	}
+
+	public LogRollupBackfill(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate,
+			@Qualifier(LoggingDataSourceConfig.TRANSACTION_MANAGER) PlatformTransactionManager transactionManager,
+			LogRollupStore logRollupStore) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.logRollupStore = logRollupStore;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled || !logRollupStore.isEnabled()) {
+			return;
+		}
+		Thread thread = new Thread(() -> {
+			try {
+				backfill();
+			} catch (Exception e) {
+				log.error("Error cargando el histórico de rollups de logs: {}", e.getMessage());
+			}
+		}, "LogRollupBackfill");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void backfill() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + MARKER_TABLE + " ("
+				+ "id TINYINT NOT NULL PRIMARY KEY, "
+				+ "first_live_at DATETIME NOT NULL, "
+				+ "partial_hour_applied BOOLEAN NOT NULL DEFAULT FALSE, "
+				+ "backfilled_until DATETIME NULL, "
+				+ "completed_at DATETIME NULL)");
+		// Con varias instancias gana el primer corte registrado
+		jdbcTemplate.update("INSERT IGNORE INTO " + MARKER_TABLE + " (id, first_live_at) VALUES (1, ?)",
+				Timestamp.valueOf(firstLiveMinute()));
+
+		Marker marker = jdbcTemplate.queryForObject("SELECT first_live_at, partial_hour_applied, backfilled_until, "
+				+ "completed_at IS NOT NULL FROM " + MARKER_TABLE + " WHERE id = 1",
+				(rs, rowNum) -> new Marker(
+						rs.getTimestamp(1).toLocalDateTime(),
+						rs.getBoolean(2),
+						rs.getTimestamp(3) != null ? rs.getTimestamp(3).toLocalDateTime() : null,
+						rs.getBoolean(4)));
+		if (marker == null || marker.completed()) {
+			return;
+		}
+
+		LocalDateTime firstLive = marker.firstLiveAt();
+		LocalDateTime liveHour = firstLive.truncatedTo(ChronoUnit.HOURS);
+		boolean fingerprints = tableExists(ErrorFingerprintStore.TABLE);
+		log.info("Cargando histórico de rollups de logs anterior a {}", firstLive);
+
+		if (!marker.partialHourApplied() && liveHour.isBefore(firstLive)) {
+			transactionTemplate.executeWithoutResult(status -> {
+				int claimed = jdbcTemplate.update("UPDATE " + MARKER_TABLE
+						+ " SET partial_hour_applied = TRUE WHERE id = 1 AND partial_hour_applied = FALSE");
+				if (claimed == 1) {
+					upsertLevels(LogRollupStore.HOUR_TABLE, HOUR_FORMAT, liveHour, firstLive, true);
+					upsertUsers(liveHour, firstLive, true);
+					upsertErrors(liveHour, firstLive, true, fingerprints);
+				}
+			});
+		}
+
+		LocalDateTime from = marker.backfilledUntil() != null ? marker.backfilledUntil() : oldestEvent(liveHour);
+		int days = 0;
+		while (from != null && from.isBefore(liveHour)) {
+			LocalDateTime nextDay = from.toLocalDate().plusDays(1).atStartOfDay();
+			LocalDateTime to = nextDay.isBefore(liveHour) ? nextDay : liveHour;
+
+			upsertLevels(LogRollupStore.HOUR_TABLE, HOUR_FORMAT, from, to, false);
+			upsertUsers(from, to, false);
+			upsertErrors(from, to, false, fingerprints);
+			if (from.toLocalDate().isBefore(LocalDate.now())) {
+				logRollupStore.downsampleDay(from.toLocalDate());
+			}
+			jdbcTemplate.update("UPDATE " + MARKER_TABLE + " SET backfilled_until = ? WHERE id = 1",
+					Timestamp.valueOf(to));
+			from = to;
+			days++;
+		}
+
+		// Los minutos previos al corte no tienen filas en vivo
+		LocalDateTime minuteFrom = LocalDateTime.now().minusHours(minuteRetentionHours).truncatedTo(ChronoUnit.MINUTES);
+		if (minuteFrom.isBefore(firstLive)) {
+			upsertLevels(LogRollupStore.MINUTE_TABLE, MINUTE_FORMAT, minuteFrom, firstLive, false);
+		}
+
+		jdbcTemplate.update("UPDATE " + MARKER_TABLE + " SET completed_at = ? WHERE id = 1",
+				Timestamp.valueOf(LocalDateTime.now()));
+		log.info("Histórico de rollups de logs cargado: {} días anteriores a {}", days, firstLive);
+	}
+
+	/**
+	 * Primer minuto con rollup en vivo; si los rollups por minuto ya
+	 * expiraron, la primera hora (sus minutos previos quedan sin contar), y
+	 * con las tablas vacías, el minuto actual
+	 */
+	private LocalDateTime firstLiveMinute() {
+		Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM " + LogRollupStore.MINUTE_TABLE,
+				Timestamp.class);
+		if (first == null) {
+			first = jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM " + LogRollupStore.HOUR_TABLE,
+					Timestamp.class);
+		}
+		return first != null ? first.toLocalDateTime() : LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+	}
+
+	private LocalDateTime oldestEvent(LocalDateTime before) {
+		Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + SOURCE_TABLE
+				+ " WHERE timestamp >= ? AND timestamp < ?", Timestamp.class,
+				Timestamp.valueOf(LocalDate.now().minusDays(dayRetentionDays).atStartOfDay()),
+				Timestamp.valueOf(before));
+		return oldest != null ? oldest.toLocalDateTime() : null;
+	}
+
+	private void upsertLevels(String table, String bucketFormat, LocalDateTime from, LocalDateTime to,
+			boolean additive) {
+		String bucketSums = IntStream.range(0, LogRollupStore.BUCKETS)
+				.mapToObj(i -> "SUM(CASE WHEN " + latencyBucket(i) + " THEN e.w ELSE 0 END)")
+				.collect(Collectors.joining(", "));
+		String bucketUpdates = IntStream.range(0, LogRollupStore.BUCKETS)
+				.mapToObj(i -> update("lat_b" + i, additive))
+				.collect(Collectors.joining(", "));
+		String latencyUpdates = additive
+				? "latency_min_ms = LEAST(COALESCE(latency_min_ms, VALUES(latency_min_ms)), "
+						+ "COALESCE(VALUES(latency_min_ms), latency_min_ms)), "
+						+ "latency_max_ms = GREATEST(COALESCE(latency_max_ms, VALUES(latency_max_ms)), "
+						+ "COALESCE(VALUES(latency_max_ms), latency_max_ms)), "
+				: "latency_min_ms = VALUES(latency_min_ms), latency_max_ms = VALUES(latency_max_ms), ";
+
+		jdbcTemplate.update("INSERT INTO " + table + " (bucket_start, level, source, operation, event_count, "
+				+ "error_count, timed_count, latency_sum_ms, latency_min_ms, latency_max_ms, "
+				+ LogRollupStore.BUCKET_COLUMNS + ") "
+				+ "SELECT e.bucket, e.level, e.source, e.operation, SUM(e.w), "
+				+ "SUM(CASE WHEN " + IS_ERROR + " THEN e.w ELSE 0 END), "
+				+ "SUM(CASE WHEN e.ms IS NOT NULL THEN e.w ELSE 0 END), COALESCE(SUM(e.ms * e.w), 0), "
+				+ "MIN(e.ms), MAX(e.ms), " + bucketSums
+				+ " FROM (SELECT DATE_FORMAT(l.timestamp, " + bucketFormat + ") AS bucket, l.level, "
+				+ "LEFT(COALESCE(l.source, ''), 100) AS source, LEFT(COALESCE(l.operation, ''), 100) AS operation, "
+				+ "l.execution_time_ms AS ms, " + WEIGHT + " AS w FROM " + SOURCE_TABLE + " l "
+				+ "WHERE l.timestamp >= ? AND l.timestamp < ?) e "
+				+ "GROUP BY e.bucket, e.level, e.source, e.operation "
+				+ "ON DUPLICATE KEY UPDATE " + update("event_count", additive) + ", "
+				+ update("error_count", additive) + ", " + update("timed_count", additive) + ", "
+				+ update("latency_sum_ms", additive) + ", " + latencyUpdates + bucketUpdates,
+				Timestamp.valueOf(from), Timestamp.valueOf(to));
+	}
+
+	private void upsertUsers(LocalDateTime from, LocalDateTime to, boolean additive) {
+		jdbcTemplate.update("INSERT INTO " + LogRollupStore.USER_HOUR_TABLE
+				+ " (bucket_start, user_email, event_count, error_count) "
+				+ "SELECT e.bucket, e.user_email, SUM(e.w), SUM(CASE WHEN " + IS_ERROR + " THEN e.w ELSE 0 END) "
+				+ "FROM (SELECT DATE_FORMAT(l.timestamp, " + HOUR_FORMAT + ") AS bucket, "
+				+ "LEFT(l.user_email, 255) AS user_email, l.level, " + WEIGHT + " AS w FROM " + SOURCE_TABLE + " l "
+				+ "WHERE l.timestamp >= ? AND l.timestamp < ? AND l.user_email IS NOT NULL) e "
+				+ "GROUP BY e.bucket, e.user_email "
+				+ "ON DUPLICATE KEY UPDATE " + update("event_count", additive) + ", "
+				+ update("error_count", additive),
+				Timestamp.valueOf(from), Timestamp.valueOf(to));
+	}
+
+	/**
+	 * Agrupa como {@link LogRollupStore}: por huella si el error la tiene,
+	 * si no por hash de fuente y mensaje
+	 */
+	private void upsertErrors(LocalDateTime from, LocalDateTime to, boolean additive, boolean fingerprints) {
+		String messageHash = "LEFT(SHA2(CONCAT(LEFT(COALESCE(l.source, ''), 100), CHAR(10), "
+				+ "LEFT(COALESCE(l.message, ''), 1000)), 256), 32)";
+		String hash = fingerprints ? "COALESCE(f.fingerprint, " + messageHash + ")" : messageHash;
+		String join = fingerprints
+				? " LEFT JOIN " + ErrorFingerprintStore.TABLE + " f ON f.id = l.error_fingerprint_id"
+				: "";
+		String seenUpdates = additive
+				? "first_seen = LEAST(first_seen, VALUES(first_seen)), last_seen = GREATEST(last_seen, VALUES(last_seen))"
+				: "message = VALUES(message), first_seen = VALUES(first_seen), last_seen = VALUES(last_seen)";
+
+		jdbcTemplate.update("INSERT INTO " + LogRollupStore.ERROR_HOUR_TABLE
+				+ " (bucket_start, source, message_hash, message, occurrences, first_seen, last_seen) "
+				+ "SELECT e.bucket, e.source, e.message_hash, MAX(e.message), SUM(e.w), MIN(e.ts), MAX(e.ts) "
+				+ "FROM (SELECT DATE_FORMAT(l.timestamp, " + HOUR_FORMAT + ") AS bucket, "
+				+ "LEFT(COALESCE(l.source, ''), 100) AS source, " + hash + " AS message_hash, "
+				+ "LEFT(COALESCE(l.message, ''), 1000) AS message, l.timestamp AS ts, " + WEIGHT + " AS w "
+				+ "FROM " + SOURCE_TABLE + " l" + join
+				+ " WHERE l.timestamp >= ? AND l.timestamp < ? AND l.level IN ('ERROR', 'FATAL')) e "
+				+ "GROUP BY e.bucket, e.source, e.message_hash "
+				+ "ON DUPLICATE KEY UPDATE " + update("occurrences", additive) + ", " + seenUpdates,
+				Timestamp.valueOf(from), Timestamp.valueOf(to));
+	}
+
+	/**
+	 * Mismos límites que LogRollupStore.bucketOf: cada bucket incluye su
+	 * límite superior
+	 */
+	private static String latencyBucket(int index) {
+		long[] bounds = LogRollupStore.LATENCY_BOUNDS_MS;
+		if (index == 0) {
+			return "e.ms <= " + bounds[0];
+		}
+		if (index == bounds.length) {
+			return "e.ms > " + bounds[bounds.length - 1];
+		}
+		return "e.ms > " + bounds[index - 1] + " AND e.ms <= " + bounds[index];
+	}
+
+	private static String update(String column, boolean additive) {
+		return additive
+				? column + " = " + column + " + VALUES(" + column + ")"
+				: column + " = VALUES(" + column + ")";
+	}
+
+	private boolean tableExists(String table) {
+		Integer count = jdbcTemplate.queryForObject("""
+				SELECT COUNT(*) FROM information_schema.TABLES
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+				""", Integer.class, table);
+		return count != null && count > 0;
+	}
+}
@@ -0,0 +1,621 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.util.TokenHashUtils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Rollups de logs mantenidos de forma incremental por el escritor
+ *         por lotes: cada lote persistido se agrega en memoria y se aplica
+ *         con INSERT ... ON DUPLICATE KEY UPDATE
+ *         * log_rollup_minute / log_rollup_hour: conteos por nivel, fuente y
+ *         operación, errores e histograma de latencia; log_rollup_day se
+ *         obtiene reduciendo las horas de días completos
+ *         * log_rollup_user_hour y log_rollup_error_hour alimentan actividad
+ *         de usuarios y errores recurrentes
+ *         * Las consultas de analítica leen solo estas tablas; lo anterior
+ *         al primer rollup se carga una vez con {@link LogRollupBackfill}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LogRollupStore {
+
+	public static final String MINUTE_TABLE = "log_rollup_minute";
+	public static final String HOUR_TABLE = "log_rollup_hour";
+	public static final String DAY_TABLE = "log_rollup_day";
+	public static final String USER_HOUR_TABLE = "log_rollup_user_hour";
+	public static final String ERROR_HOUR_TABLE = "log_rollup_error_hour";
+	/** Último día reducido a log_rollup_day por {@link #downsampleAndPurge} */
+	private static final String DOWNSAMPLE_MARKER_TABLE = "log_rollup_downsample";
+
+	/** Límites superiores (ms) de los buckets del histograma; el último es abierto */
+	public static final long[] LATENCY_BOUNDS_MS = { 10, 25, 50, 100, 250, 500, 1000, 2500, 5000 };
+	static final int BUCKETS = LATENCY_BOUNDS_MS.length + 1;
+
+	static final String BUCKET_COLUMNS = IntStream.range(0, BUCKETS)
+			.mapToObj(i -> "lat_b" + i)
+			.collect(Collectors.joining(", "));
+
+	@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE)
+	private final JdbcTemplate jdbcTemplate;
+
+	@Value("${app.logging.rollup.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.rollup.minute-retention-hours:48}")
+	private int minuteRetentionHours;
+
+	@Value("${app.logging.rollup.hour-retention-days:90}")
+	private int hourRetentionDays;
+
+	@Value("${app.logging.rollup.day-retention-days:730}")
+	private int dayRetentionDays;
+
+	private record LevelKey(LocalDateTime bucket, String level, String source, String operation) {
+	}
+
+	private record UserKey(LocalDateTime bucket, String userEmail) {
+	}
+
+	private record ErrorKey(LocalDateTime bucket, String source, String messageHash) {
+	}
+
+	private static final class LevelAccumulator {
+		long events;
+		long errors;
+		long timed;
+		long latencySum;
+		Long latencyMin;
+		Long latencyMax;
+		final long[] buckets = new long[BUCKETS];
+	}
+
+	private static final class ErrorAccumulator {
+		String message;
+		long occurrences;
+		LocalDateTime firstSeen;
+		LocalDateTime lastSeen;
+	}
+
+	/**
+	 * Tramo de tabla y argumentos que cubren un rango de tiempo; se usa como
+	 * tabla derivada {@code r}
+	 */
+	private record RangeSource(String sql, Object[] args) {
+	}
+
+	@PostConstruct
+	public void createTables() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			for (String table : List.of(MINUTE_TABLE, HOUR_TABLE, DAY_TABLE)) {
+				jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+						+ "bucket_start DATETIME NOT NULL, "
+						+ "level VARCHAR(10) NOT NULL, "
+						+ "source VARCHAR(100) NOT NULL, "
+						+ "operation VARCHAR(100) NOT NULL DEFAULT '', "
+						+ "event_count BIGINT NOT NULL DEFAULT 0, "
+						+ "error_count BIGINT NOT NULL DEFAULT 0, "
+						+ "timed_count BIGINT NOT NULL DEFAULT 0, "
+						+ "latency_sum_ms BIGINT NOT NULL DEFAULT 0, "
+						+ "latency_min_ms BIGINT NULL, "
+						+ "latency_max_ms BIGINT NULL, "
+						+ IntStream.range(0, BUCKETS).mapToObj(i -> "lat_b" + i + " BIGINT NOT NULL DEFAULT 0, ")
+								.collect(Collectors.joining())
+						+ "PRIMARY KEY (bucket_start, level, source, operation))");
+			}
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + USER_HOUR_TABLE + " ("
+					+ "bucket_start DATETIME NOT NULL, "
+					+ "user_email VARCHAR(255) NOT NULL, "
+					+ "event_count BIGINT NOT NULL DEFAULT 0, "
+					+ "error_count BIGINT NOT NULL DEFAULT 0, "
+					+ "PRIMARY KEY (bucket_start, user_email))");
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ERROR_HOUR_TABLE + " ("
+					+ "bucket_start DATETIME NOT NULL, "
+					+ "source VARCHAR(100) NOT NULL, "
+					+ "message_hash CHAR(32) NOT NULL, "
+					+ "message VARCHAR(1000) NOT NULL, "
+					+ "occurrences BIGINT NOT NULL DEFAULT 0, "
+					+ "first_seen DATETIME NOT NULL, "
+					+ "last_seen DATETIME NOT NULL, "
+					+ "PRIMARY KEY (bucket_start, source, message_hash))");
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DOWNSAMPLE_MARKER_TABLE + " ("
+					+ "id TINYINT NOT NULL PRIMARY KEY, "
+					+ "reduced_until DATE NOT NULL)");
+		} catch (Exception e) {
+			log.error("No se pudieron crear las tablas de rollup de logs: {}", e.getMessage());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	// ========== ESCRITURA (hilo escritor de logs) ==========
+
+	/**
+	 * Agrega un lote ya persistido y lo aplica a los rollups. Los eventos
+	 * muestreados cuentan con peso 1/sampleRate.
+	 */
+	public void record(List<LogEntry> batch) {
+		if (!enabled || batch.isEmpty()) {
+			return;
+		}
+
+		Map<LevelKey, LevelAccumulator> minutes = new HashMap<>();
+		Map<LevelKey, LevelAccumulator> hours = new HashMap<>();
+		Map<UserKey, long[]> users = new HashMap<>();
+		Map<ErrorKey, ErrorAccumulator> errors = new HashMap<>();
+
+		for (LogEntry entry : batch) {
+			long weight = weightOf(entry);
+			boolean isError = entry.isErrorLevel();
+			LocalDateTime minute = entry.getTimestamp().truncatedTo(ChronoUnit.MINUTES);
+			LocalDateTime hour = entry.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+			String level = entry.getLevel().name();
+			String source = truncate(entry.getSource(), 100);
+			String operation = entry.getOperation() != null ? truncate(entry.getOperation(), 100) : "";
+
+			accumulate(minutes.computeIfAbsent(new LevelKey(minute, level, source, operation),
+					k -> new LevelAccumulator()), entry, weight, isError);
+			accumulate(hours.computeIfAbsent(new LevelKey(hour, level, source, operation),
+					k -> new LevelAccumulator()), entry, weight, isError);
+
+			if (entry.getUserEmail() != null) {
+				long[] counts = users.computeIfAbsent(new UserKey(hour, truncate(entry.getUserEmail(), 255)),
+						k -> new long[2]);
+				counts[0] += weight;
+				counts[1] += isError ? weight : 0;
+			}
+
+			if (isError) {
+				String message = truncate(entry.getMessage(), 1000);
+				// Con excepción se agrupa por huella del stack trace; sin ella, por mensaje
+				String hash = entry.getErrorFingerprint() != null
+						? entry.getErrorFingerprint()
+						: TokenHashUtils.toHex(TokenHashUtils.sha256(source + '\n' + message)).substring(0, 32);
+				ErrorAccumulator error = errors.computeIfAbsent(new ErrorKey(hour, source, hash),
+						k -> new ErrorAccumulator());
+				error.message = message;
+				error.occurrences += weight;
+				if (error.firstSeen == null || entry.getTimestamp().isBefore(error.firstSeen)) {
+					error.firstSeen = entry.getTimestamp();
+				}
+				if (error.lastSeen == null || entry.getTimestamp().isAfter(error.lastSeen)) {
+					error.lastSeen = entry.getTimestamp();
+				}
+			}
+		}
+
+		upsertLevels(MINUTE_TABLE, minutes);
+		upsertLevels(HOUR_TABLE, hours);
+		upsertUsers(users);
+		upsertErrors(errors);
+	}
+
+	private static void accumulate(LevelAccumulator acc, LogEntry entry, long weight, boolean isError) {
+		acc.events += weight;
+		if (isError) {
+			acc.errors += weight;
+		}
+		Long latency = entry.getExecutionTimeMs();
+		if (latency != null) {
+			acc.timed += weight;
+			acc.latencySum += latency * weight;
+			acc.latencyMin = acc.latencyMin == null ? latency : Math.min(acc.latencyMin, latency);
+			acc.latencyMax = acc.latencyMax == null ? latency : Math.max(acc.latencyMax, latency);
+			acc.buckets[bucketOf(latency)] += weight;
+		}
+	}
+
+	private void upsertLevels(String table, Map<LevelKey, LevelAccumulator> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		String placeholders = String.join(", ", Collections.nCopies(10 + BUCKETS, "?"));
+		String bucketUpdates = IntStream.range(0, BUCKETS)
+				.mapToObj(i -> "lat_b" + i + " = lat_b" + i + " + VALUES(lat_b" + i + ")")
+				.collect(Collectors.joining(", "));
+
+		String sql = "INSERT INTO " + table + " (bucket_start, level, source, operation, event_count, error_count, "
+				+ "timed_count, latency_sum_ms, latency_min_ms, latency_max_ms, " + BUCKET_COLUMNS + ") "
+				+ "VALUES (" + placeholders + ") ON DUPLICATE KEY UPDATE "
+				+ "event_count = event_count + VALUES(event_count), "
+				+ "error_count = error_count + VALUES(error_count), "
+				+ "timed_count = timed_count + VALUES(timed_count), "
+				+ "latency_sum_ms = latency_sum_ms + VALUES(latency_sum_ms), "
+				+ "latency_min_ms = LEAST(COALESCE(latency_min_ms, VALUES(latency_min_ms)), "
+				+ "COALESCE(VALUES(latency_min_ms), latency_min_ms)), "
+				+ "latency_max_ms = GREATEST(COALESCE(latency_max_ms, VALUES(latency_max_ms)), "
+				+ "COALESCE(VALUES(latency_max_ms), latency_max_ms)), "
+				+ bucketUpdates;
+
+		List<Map.Entry<LevelKey, LevelAccumulator>> entries = new ArrayList<>(rows.entrySet());
+		jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, row) -> {
+			LevelKey key = row.getKey();
+			LevelAccumulator acc = row.getValue();
+			ps.setTimestamp(1, Timestamp.valueOf(key.bucket()));
+			ps.setString(2, key.level());
+			ps.setString(3, key.source());
+			ps.setString(4, key.operation());
+			ps.setLong(5, acc.events);
+			ps.setLong(6, acc.errors);
+			ps.setLong(7, acc.timed);
+			ps.setLong(8, acc.latencySum);
+			ps.setObject(9, acc.latencyMin, Types.BIGINT);
+			ps.setObject(10, acc.latencyMax, Types.BIGINT);
+			for (int i = 0; i < BUCKETS; i++) {
+				ps.setLong(11 + i, acc.buckets[i]);
+			}
+		});
+	}
+
+	private void upsertUsers(Map<UserKey, long[]> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		List<Map.Entry<UserKey, long[]>> entries = new ArrayList<>(rows.entrySet());
+		jdbcTemplate.batchUpdate("INSERT INTO " + USER_HOUR_TABLE
+				+ " (bucket_start, user_email, event_count, error_count) VALUES (?, ?, ?, ?) "
+				+ "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count), "
+				+ "error_count = error_count + VALUES(error_count)",
+				entries, entries.size(), (ps, row) -> {
+					ps.setTimestamp(1, Timestamp.valueOf(row.getKey().bucket()));
+					ps.setString(2, row.getKey().userEmail());
+					ps.setLong(3, row.getValue()[0]);
+					ps.setLong(4, row.getValue()[1]);
+				});
+	}
+
+	private void upsertErrors(Map<ErrorKey, ErrorAccumulator> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		List<Map.Entry<ErrorKey, ErrorAccumulator>> entries = new ArrayList<>(rows.entrySet());
+		jdbcTemplate.batchUpdate("INSERT INTO " + ERROR_HOUR_TABLE
+				+ " (bucket_start, source, message_hash, message, occurrences, first_seen, last_seen) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+				+ "occurrences = occurrences + VALUES(occurrences), "
+				+ "first_seen = LEAST(first_seen, VALUES(first_seen)), "
+				+ "last_seen = GREATEST(last_seen, VALUES(last_seen))",
+				entries, entries.size(), (ps, row) -> {
+					ps.setTimestamp(1, Timestamp.valueOf(row.getKey().bucket()));
+					ps.setString(2, row.getKey().source());
+					ps.setString(3, row.getKey().messageHash());
+					ps.setString(4, row.getValue().message);
+					ps.setLong(5, row.getValue().occurrences);
+					ps.setTimestamp(6, Timestamp.valueOf(row.getValue().firstSeen));
+					ps.setTimestamp(7, Timestamp.valueOf(row.getValue().lastSeen));
+				});
+	}
+
+	// ========== REDUCCIÓN Y RETENCIÓN ==========
+
+	/**
+	 * Reduce a días las horas de los días completos desde el último día
+	 * reducido (log_rollup_downsample), así los días de una ejecución perdida
+	 * se recuperan en la siguiente. Es idempotente (recalcula y sobrescribe):
+	 * siempre repite al menos los dos últimos días por los eventos que llegan
+	 * tarde. Después aplica la retención de cada nivel
+	 */
+	@Scheduled(cron = "${app.logging.rollup.maintenance-cron:0 10 0 * * *}")
+	public void downsampleAndPurge() {
+		if (!enabled) {
+			return;
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime hourCutoff = now.minusDays(hourRetentionDays);
+		LocalDate today = now.toLocalDate();
+		// Un día con horas ya purgadas sobrescribiría su fila diaria con una suma parcial
+		LocalDate oldestComplete = hourCutoff.toLocalDate().plusDays(1);
+
+		LocalDate from = firstDayToReduce(today.minusDays(2));
+		if (from != null && from.isBefore(oldestComplete)) {
+			from = oldestComplete;
+		}
+		int days = 0;
+		for (LocalDate day = from; day != null && day.isBefore(today); day = day.plusDays(1)) {
+			downsampleDay(day);
+			jdbcTemplate.update("INSERT INTO " + DOWNSAMPLE_MARKER_TABLE + " (id, reduced_until) VALUES (1, ?) "
+					+ "ON DUPLICATE KEY UPDATE reduced_until = GREATEST(reduced_until, VALUES(reduced_until))",
+					Date.valueOf(day));
+			days++;
+		}
+		if (days > 2) {
+			log.info("Rollup diario de logs recuperado desde {}: {} días", from, days);
+		}
+
+		purge(MINUTE_TABLE, now.minusHours(minuteRetentionHours));
+		purge(HOUR_TABLE, hourCutoff);
+		purge(USER_HOUR_TABLE, now.minusDays(hourRetentionDays));
+		purge(ERROR_HOUR_TABLE, now.minusDays(hourRetentionDays));
+		purge(DAY_TABLE, now.minusDays(dayRetentionDays));
+	}
+
+	void downsampleDay(LocalDate day) {
+		String bucketSums = IntStream.range(0, BUCKETS)
+				.mapToObj(i -> "SUM(lat_b" + i + ")")
+				.collect(Collectors.joining(", "));
+		String bucketOverwrites = IntStream.range(0, BUCKETS)
+				.mapToObj(i -> "lat_b" + i + " = VALUES(lat_b" + i + ")")
+				.collect(Collectors.joining(", "));
+
+		int rows = jdbcTemplate.update("INSERT INTO " + DAY_TABLE + " (bucket_start, level, source, operation, "
+				+ "event_count, error_count, timed_count, latency_sum_ms, latency_min_ms, latency_max_ms, "
+				+ BUCKET_COLUMNS + ") "
+				+ "SELECT DATE(bucket_start), level, source, operation, SUM(event_count), SUM(error_count), "
+				+ "SUM(timed_count), SUM(latency_sum_ms), MIN(latency_min_ms), MAX(latency_max_ms), " + bucketSums
+				+ " FROM " + HOUR_TABLE + " WHERE bucket_start >= ? AND bucket_start < ? "
+				+ "GROUP BY DATE(bucket_start), level, source, operation "
+				+ "ON DUPLICATE KEY UPDATE event_count = VALUES(event_count), error_count = VALUES(error_count), "
+				+ "timed_count = VALUES(timed_count), latency_sum_ms = VALUES(latency_sum_ms), "
+				+ "latency_min_ms = VALUES(latency_min_ms), latency_max_ms = VALUES(latency_max_ms), "
+				+ bucketOverwrites,
+				Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+		log.debug("Rollup diario de logs del {}: {} filas", day, rows);
+	}
+
+	/**
+	 * Primer día a reducir: el último registrado (se repite) o, antes de la
+	 * primera ejecución, el día de la hora más antigua; nunca después de
+	 * overlapStart. Null si no hay horas
+	 */
+	private LocalDate firstDayToReduce(LocalDate overlapStart) {
+		List<Date> reduced = jdbcTemplate.queryForList(
+				"SELECT reduced_until FROM " + DOWNSAMPLE_MARKER_TABLE + " WHERE id = 1", Date.class);
+		LocalDate from;
+		if (!reduced.isEmpty()) {
+			from = reduced.get(0).toLocalDate();
+		} else {
+			Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM " + HOUR_TABLE,
+					Timestamp.class);
+			if (oldest == null) {
+				return null;
+			}
+			from = oldest.toLocalDateTime().toLocalDate();
+		}
+		return from.isBefore(overlapStart) ? from : overlapStart;
+	}
+
+	private void purge(String table, LocalDateTime cutoff) {
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE bucket_start < ? LIMIT 5000",
+					Timestamp.valueOf(cutoff));
+		} while (deleted == 5000);
+	}
+
+	// ========== CONSULTAS ==========
+
+	/**
+	 * Conteo de eventos por nivel
+	 */
+	public Map<LogLevel, Long> countByLevel(LocalDateTime start, LocalDateTime end) {
+		RangeSource range = levelRange(start, end);
+		Map<LogLevel, Long> counts = new HashMap<>();
+		jdbcTemplate.query("SELECT level, SUM(event_count) FROM " + range.sql() + " GROUP BY level",
+				rs -> {
+					counts.put(LogLevel.valueOf(rs.getString(1)), rs.getLong(2));
+				}, range.args());
+		return counts;
+	}
+
+	/**
+	 * Cantidad de fuentes distintas con actividad
+	 */
+	public long countActiveSources(LocalDateTime start, LocalDateTime end) {
+		RangeSource range = levelRange(start, end);
+		Long count = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT source) FROM " + range.sql(),
+				Long.class, range.args());
+		return count != null ? count : 0L;
+	}
+
+	/**
+	 * Cantidad de usuarios distintos con actividad
+	 */
+	public long countActiveUsers(LocalDateTime start, LocalDateTime end) {
+		Long count = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT user_email) FROM " + USER_HOUR_TABLE
+				+ " WHERE bucket_start >= ? AND bucket_start <= ?", Long.class,
+				Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(end));
+		return count != null ? count : 0L;
+	}
+
+	/**
+	 * Errores por fuente: [source, errorCount]
+	 */
+	public List<Object[]> countErrorsBySource(LocalDateTime start, LocalDateTime end) {
+		RangeSource range = levelRange(start, end);
+		return jdbcTemplate.query("SELECT source, SUM(error_count) AS errors FROM " + range.sql()
+				+ " GROUP BY source HAVING errors > 0 ORDER BY errors DESC",
+				(rs, rowNum) -> new Object[] { rs.getString(1), rs.getLong(2) }, range.args());
+	}
+
+	/**
+	 * Rendimiento por operación: [operation, avgTime, minTime, maxTime,
+	 * totalOps, p95Time]
+	 */
+	public List<Object[]> getPerformanceStatsByOperation(LocalDateTime start, LocalDateTime end) {
+		RangeSource range = levelRange(start, end);
+		String bucketSums = IntStream.range(0, BUCKETS)
+				.mapToObj(i -> "SUM(lat_b" + i + ")")
+				.collect(Collectors.joining(", "));
+
+		List<Object[]> stats = jdbcTemplate.query("SELECT operation, SUM(latency_sum_ms), MIN(latency_min_ms), "
+				+ "MAX(latency_max_ms), SUM(timed_count), " + bucketSums + " FROM " + range.sql()
+				+ " WHERE operation <> '' AND timed_count > 0 GROUP BY operation",
+				(rs, rowNum) -> {
+					long total = rs.getLong(5);
+					long[] buckets = new long[BUCKETS];
+					for (int i = 0; i < BUCKETS; i++) {
+						buckets[i] = rs.getLong(6 + i);
+					}
+					long maxTime = rs.getLong(4);
+					return new Object[] {
+							rs.getString(1),
+							total > 0 ? (double) rs.getLong(2) / total : 0.0,
+							rs.getLong(3),
+							maxTime,
+							total,
+							approximatePercentile(buckets, total, 0.95, maxTime) };
+				}, range.args());
+
+		stats.sort((a, b) -> Double.compare((Double) b[1], (Double) a[1]));
+		return stats;
+	}
+
+	/**
+	 * Errores recurrentes: [message, source, occurrences, firstOccurrence,
+	 * lastOccurrence]. Agrupa por huella del stack trace cuando el error trae
+	 * excepción y por mensaje cuando no
+	 */
+	public List<Object[]> findRecurringErrors(LocalDateTime start, LocalDateTime end, long minOccurrences) {
+		return jdbcTemplate.query("SELECT MAX(message), source, SUM(occurrences) AS total, MIN(first_seen), "
+				+ "MAX(last_seen) FROM " + ERROR_HOUR_TABLE + " WHERE bucket_start >= ? AND bucket_start <= ? "
+				+ "GROUP BY source, message_hash HAVING total > ? ORDER BY total DESC",
+				(rs, rowNum) -> new Object[] {
+						rs.getString(1),
+						rs.getString(2),
+						rs.getLong(3),
+						rs.getTimestamp(4).toLocalDateTime(),
+						rs.getTimestamp(5).toLocalDateTime() },
+				Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(end), minOccurrences);
+	}
+
+	/**
+	 * Actividad por usuario: [userEmail, activityCount, errorCount]
+	 */
+	public List<Object[]> getUserActivity(LocalDateTime start, LocalDateTime end) {
+		return jdbcTemplate.query("SELECT user_email, SUM(event_count) AS activity, SUM(error_count) FROM "
+				+ USER_HOUR_TABLE + " WHERE bucket_start >= ? AND bucket_start <= ? "
+				+ "GROUP BY user_email ORDER BY activity DESC",
+				(rs, rowNum) -> new Object[] { rs.getString(1), rs.getLong(2), rs.getLong(3) },
+				Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(end));
+	}
+
+	/**
+	 * Tendencia por hora y nivel: [hour, level, count]
+	 */
+	public List<Object[]> getHourlyTrend(LocalDateTime start, LocalDateTime end) {
+		return jdbcTemplate.query("SELECT bucket_start, level, SUM(event_count) FROM " + HOUR_TABLE
+				+ " WHERE bucket_start >= ? AND bucket_start <= ? GROUP BY bucket_start, level "
+				+ "ORDER BY bucket_start DESC",
+				(rs, rowNum) -> new Object[] {
+						rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), rs.getLong(3) },
+				Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(end));
+	}
+
+	// ========== UTILIDADES ==========
+
+	/**
+	 * Elige el nivel de rollup según la amplitud del rango: minutos hasta 6
+	 * horas, horas hasta 31 días y, por encima, días completos más las horas
+	 * del día en curso
+	 */
+	private RangeSource levelRange(LocalDateTime start, LocalDateTime end) {
+		Duration span = Duration.between(start, end);
+		LocalDateTime now = LocalDateTime.now();
+
+		if (span.compareTo(Duration.ofHours(6)) <= 0
+				&& start.isAfter(now.minusHours(minuteRetentionHours))) {
+			return new RangeSource("(SELECT * FROM " + MINUTE_TABLE
+					+ " WHERE bucket_start >= ? AND bucket_start <= ?) r",
+					new Object[] { Timestamp.valueOf(start.truncatedTo(ChronoUnit.MINUTES)), Timestamp.valueOf(end) });
+		}
+
+		if (span.compareTo(Duration.ofDays(31)) <= 0) {
+			return new RangeSource("(SELECT * FROM " + HOUR_TABLE
+					+ " WHERE bucket_start >= ? AND bucket_start <= ?) r",
+					new Object[] { Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(end) });
+		}
+
+		// Los días recientes aún no reducidos se leen de la tabla por hora
+		LocalDateTime dayBoundary = LocalDate.now().minusDays(2).atStartOfDay();
+		return new RangeSource("(SELECT * FROM " + DAY_TABLE + " WHERE bucket_start >= ? AND bucket_start < ?"
+				+ " UNION ALL SELECT * FROM " + HOUR_TABLE + " WHERE bucket_start >= ? AND bucket_start <= ?) r",
+				new Object[] {
+						Timestamp.valueOf(start.toLocalDate().atStartOfDay()), Timestamp.valueOf(dayBoundary),
+						Timestamp.valueOf(dayBoundary), Timestamp.valueOf(end) });
+	}
+
+	/**
+	 * Percentil aproximado por interpolación lineal dentro del bucket
+	 */
+	public static long approximatePercentile(long[] buckets, long total, double percentile, long maxObserved) {
+		if (total <= 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * percentile);
+		long cumulative = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			if (buckets[i] == 0) {
+				continue;
+			}
+			if (cumulative + buckets[i] >= rank) {
+				long lower = i == 0 ? 0 : LATENCY_BOUNDS_MS[i - 1];
+				long upper = i < LATENCY_BOUNDS_MS.length ? LATENCY_BOUNDS_MS[i] : Math.max(maxObserved, lower);
+				double fraction = (double) (rank - cumulative) / buckets[i];
+				return Math.min(lower + Math.round((upper - lower) * fraction), Math.max(maxObserved, lower));
+			}
+			cumulative += buckets[i];
+		}
+		return maxObserved;
+	}
+
+	private static int bucketOf(long latencyMs) {
+		int index = Arrays.binarySearch(LATENCY_BOUNDS_MS, latencyMs);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	static long weightOf(LogEntry entry) {
+		if (entry.getContext() != null && entry.getContext().get(LogSampler.SAMPLE_RATE_CONTEXT_KEY) instanceof Number rate
+				&& rate.doubleValue() > 0) {
+			return Math.max(1, Math.round(1.0 / rate.doubleValue()));
+		}
+		return 1;
+	}
+
+	private static String truncate(String value, int maxLength) {
+		if (value == null) {
+			return "";
+		}
+		return value.length() <= maxLength ? value : value.substring(0, maxLength);
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Motor de reglas de muestreo para el logging en base de datos
+ *         * Errores y operaciones lentas se conservan siempre; el resto se
+ *         evalúa contra la primera regla que coincide (fuente, operación o
+ *         prefijo de URI), aplicando su tasa y su límite por segundo
+ *         * Los eventos conservados con tasa menor a 1 guardan
+ *         {@code sampleRate} en el contexto para poder re-ponderar conteos
+ *         * Los descartes por límite por segundo se acumulan por cubeta y se
+ *         cargan al siguiente evento conservado de esa cubeta (su
+ *         sampleRate baja a rate / (1 + descartes)), así los conteos
+ *         re-ponderados no pierden el volumen recortado
+ */
+@Component
+@Slf4j
+public class LogSampler {
+
+	public static final String SAMPLE_RATE_CONTEXT_KEY = "sampleRate";
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> rateLimitedByBucket = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> sampledOutBySource = new ConcurrentHashMap<>();
+
+	private volatile DbLoggingProperties.Sampling config;
+
+	public LogSampler(DbLoggingProperties properties, MeterRegistry meterRegistry) {
+		this.config = properties.getSampling();
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Decide si el evento se persiste. Debe llamarse una sola vez por evento.
+	 */
+	public boolean shouldKeep(LogEntry logEntry) {
+		DbLoggingProperties.Sampling current = config;
+		if (!current.isEnabled()) {
+			return true;
+		}
+
+		if (logEntry.getLevel() != null && logEntry.getLevel().isEqualOrHigherThan(current.getAlwaysKeepLevel())) {
+			return true;
+		}
+		if (logEntry.getExecutionTimeMs() != null && logEntry.getExecutionTimeMs() >= current.getSlowThresholdMs()) {
+			return true;
+		}
+
+		DbLoggingProperties.Rule rule = findRule(current, logEntry);
+		double rate = rule != null ? rule.getRate() : current.getDefaultRate();
+
+		if (rate < 1.0 && (rate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+			recordSampledOut(logEntry, "rate");
+			return false;
+		}
+
+		double effectiveRate = rate;
+		if (rule != null && rule.getMaxPerSecond() > 0) {
+			String key = rule.getName() + "|" + logEntry.getSource();
+			AtomicLong rateLimited = rateLimitedByBucket.computeIfAbsent(key, k -> new AtomicLong());
+			if (!tryConsume(rule, key)) {
+				rateLimited.incrementAndGet();
+				recordSampledOut(logEntry, "rate_limit");
+				return false;
+			}
+			// Cada descarte ya había pasado el muestreo: valía 1/rate eventos
+			long carried = rateLimited.getAndSet(0);
+			effectiveRate = rate / (1 + carried);
+		}
+
+		if (effectiveRate < 1.0) {
+			if (logEntry.getContext() == null) {
+				logEntry.setContext(new HashMap<>());
+			}
+			logEntry.getContext().put(SAMPLE_RATE_CONTEXT_KEY, effectiveRate);
+		}
+		return true;
+	}
+
+	/**
+	 * Reemplaza las reglas en caliente. Las cubetas de límite y los descartes
+	 * pendientes de cargar se reinician.
+	 */
+	public synchronized void reload(DbLoggingProperties.Sampling newConfig) {
+		this.config = newConfig;
+		buckets.clear();
+		rateLimitedByBucket.clear();
+		log.info("Reglas de muestreo de logs recargadas - habilitado: {}, reglas: {}",
+				newConfig.isEnabled(), newConfig.getRules().size());
+	}
+
+	public DbLoggingProperties.Sampling getConfig() {
+		return config;
+	}
+
+	/**
+	 * Eventos descartados por fuente desde el arranque
+	 */
+	public Map<String, Long> getSampledOutCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		sampledOutBySource.forEach((source, adder) -> counts.put(source, adder.sum()));
+		return counts;
+	}
+
+	private DbLoggingProperties.Rule findRule(DbLoggingProperties.Sampling current, LogEntry logEntry) {
+		String uri = null;
+		if (logEntry.getContext() != null && logEntry.getContext().get("uri") instanceof String value) {
+			uri = value;
+		}
+
+		for (DbLoggingProperties.Rule rule : current.getRules()) {
+			if (matches(rule.getSource(), logEntry.getSource())
+					&& matches(rule.getOperation(), logEntry.getOperation())
+					&& (rule.getUriPrefix() == null || (uri != null && uri.startsWith(rule.getUriPrefix())))) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	private static boolean matches(String pattern, String value) {
+		if (pattern == null || pattern.isEmpty()) {
+			return true;
+		}
+		if (value == null) {
+			return false;
+		}
+		if (pattern.endsWith("*")) {
+			return value.startsWith(pattern.substring(0, pattern.length() - 1));
+		}
+		return pattern.equals(value);
+	}
+
+	private boolean tryConsume(DbLoggingProperties.Rule rule, String key) {
+		Bucket bucket = buckets.computeIfAbsent(key, k -> Bucket.builder()
+				.addLimit(Bandwidth.builder()
+						.capacity(rule.getMaxPerSecond())
+						.refillGreedy(rule.getMaxPerSecond(), Duration.ofSeconds(1))
+						.build())
+				.build());
+		return bucket.tryConsume(1);
+	}
+
+	private void recordSampledOut(LogEntry logEntry, String reason) {
+		String source = logEntry.getSource() != null ? logEntry.getSource() : "UNKNOWN";
+		sampledOutBySource.computeIfAbsent(source, s -> new LongAdder()).increment();
+		meterRegistry.counter("app.logging.sampled.out", "source", source, "reason", reason).increment();
+	}
+}
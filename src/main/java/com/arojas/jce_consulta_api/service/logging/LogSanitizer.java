@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+/**
+ *
+ * @author arojas
+ *         * Enmascara datos sensibles de los logs antes de persistirlos
+ *         * Un único recorrido por texto: el autómata detecta nombres de
+ *         campos sensibles y un escáner consume el separador y el valor
+ *         ({@code campo"?\s*[:=]\s*"?[^\s,}]+}), que se reemplaza por
+ *         {@code campo:***MASKED***}
+ *         * Si no hay coincidencias se devuelve la misma instancia, sin copias
+ */
+@Component
+public class LogSanitizer {
+
+	private static final String MASK = ":***MASKED***";
+	private static final int MAX_RETAINED_BUILDER = 64 * 1024;
+
+	// Campos sensibles que deben ser enmascarados
+	private static final String[] SENSITIVE_FIELDS = {
+			"password", "token", "authorization", "secret", "key",
+			"creditCard", "ssn", "email", "phone"
+	};
+
+	private static final SensitiveFieldMatcher MATCHER = new SensitiveFieldMatcher(SENSITIVE_FIELDS);
+
+	private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+	/**
+	 * Sanitiza datos sensibles del log
+	 */
+	public void sanitize(LogEntry logEntry) {
+		// Sanitizar mensaje
+		if (logEntry.getMessage() != null) {
+			logEntry.setMessage(sanitizeString(logEntry.getMessage()));
+		}
+
+		// Sanitizar payloads
+		if (logEntry.getRequestPayload() != null) {
+			logEntry.setRequestPayload(sanitizeString(logEntry.getRequestPayload()));
+		}
+
+		if (logEntry.getResponsePayload() != null) {
+			logEntry.setResponsePayload(sanitizeString(logEntry.getResponsePayload()));
+		}
+
+		// Sanitizar contexto
+		if (logEntry.getContext() != null) {
+			logEntry.setContext(sanitizeContext(logEntry.getContext()));
+		}
+	}
+
+	/**
+	 * Sanitiza strings removiendo información sensible
+	 */
+	public String sanitizeString(String input) {
+		if (input == null || input.isEmpty())
+			return input;
+
+		CharSequence result = sanitize(input);
+		return result == input ? input : result.toString();
+	}
+
+	/**
+	 * Redacta en un solo recorrido. Devuelve {@code input} si no hubo
+	 * coincidencias; en otro caso, el buffer reutilizado del hilo (válido
+	 * hasta la siguiente llamada)
+	 */
+	public CharSequence sanitize(CharSequence input) {
+		StringBuilder out = null;
+		int copiedUpTo = 0;
+		int state = MATCHER.initialState();
+		int length = input.length();
+
+		for (int i = 0; i < length; i++) {
+			state = MATCHER.next(state, input.charAt(i));
+			int[] candidates = MATCHER.matchesAt(state);
+			if (candidates.length == 0) {
+				continue;
+			}
+
+			int valueEnd = scanValue(input, i + 1);
+			if (valueEnd < 0) {
+				continue;
+			}
+
+			// Con varios campos terminando aquí se enmascara el más largo
+			String field = MATCHER.field(candidates[0]);
+			int fieldStart = i + 1 - field.length();
+			if (out == null) {
+				out = BUFFER.get();
+				out.setLength(0);
+			}
+			out.append(input, copiedUpTo, fieldStart).append(field).append(MASK);
+			copiedUpTo = valueEnd;
+			i = valueEnd - 1;
+			state = MATCHER.initialState();
+		}
+
+		if (out == null) {
+			return input;
+		}
+		out.append(input, copiedUpTo, length);
+		if (out.capacity() > MAX_RETAINED_BUILDER) {
+			String result = out.toString();
+			BUFFER.remove();
+			return result;
+		}
+		return out;
+	}
+
+	/**
+	 * Sanitiza el contexto JSON. Solo copia el mapa si alguna clave es
+	 * sensible.
+	 */
+	public Map<String, Object> sanitizeContext(Map<String, Object> context) {
+		Map<String, Object> sanitized = null;
+
+		for (String key : context.keySet()) {
+			if (key != null && MATCHER.containsAny(key)) {
+				if (sanitized == null) {
+					sanitized = new HashMap<>(context);
+				}
+				sanitized.put(key, "***MASKED***");
+			}
+		}
+
+		return sanitized != null ? sanitized : context;
+	}
+
+	/**
+	 * Consume {@code "?\s*[:=]\s*"?[^\s,}]+} desde {@code from}. Devuelve el
+	 * índice siguiente al valor, o -1 si no hay separador o valor.
+	 */
+	private static int scanValue(CharSequence input, int from) {
+		int length = input.length();
+		int i = from;
+
+		if (i < length && input.charAt(i) == '"') {
+			i++;
+		}
+		while (i < length && isWhitespace(input.charAt(i))) {
+			i++;
+		}
+		if (i >= length || (input.charAt(i) != ':' && input.charAt(i) != '=')) {
+			return -1;
+		}
+		i++;
+		while (i < length && isWhitespace(input.charAt(i))) {
+			i++;
+		}
+
+		int valueStart = i;
+		boolean openingQuote = i < length && input.charAt(i) == '"';
+		if (openingQuote) {
+			i++;
+		}
+		int contentStart = i;
+		while (i < length && isValueChar(input.charAt(i))) {
+			i++;
+		}
+		if (i > contentStart) {
+			return i;
+		}
+		// Como en la expresión original, la comilla sola cuenta como valor
+		return openingQuote ? valueStart + 1 : -1;
+	}
+
+	private static boolean isValueChar(char c) {
+		return c != ',' && c != '}' && !isWhitespace(c);
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+	}
+}
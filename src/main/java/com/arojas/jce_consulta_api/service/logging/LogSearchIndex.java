@@ -0,0 +1,609 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.util.CharTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.LoggingDataSourceConfig;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.exception.pagination.InvalidTimeRangeException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Índice invertido embebido (Lucene) sobre mensaje y stack trace de
+ *         los logs, alimentado por {@link LogBatchWriter} tras cada lote
+ *         * Un shard por día (directorio YYYYMMDD): la búsqueda solo abre los
+ *         shards del rango pedido y la retención borra directorios completos
+ *         * Los resultados se arman con campos almacenados, sin ir a la base
+ *         de datos
+ *         * Visibilidad casi en tiempo real (refresh periódico) y commit
+ *         periódico; al arrancar se reindexan desde la base las filas
+ *         posteriores al último commit
+ */
+@Component
+@Slf4j
+public class LogSearchIndex {
+
+	private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+	private static final String MAX_ID_COMMIT_KEY = "maxId";
+	private static final int MAX_RESULT_WINDOW = 10_000;
+	private static final int MAX_STORED_STACK_TRACE = 4000;
+
+	private static final String ID = "id";
+	private static final String TIMESTAMP = "timestamp";
+	private static final String LEVEL = "level";
+	private static final String SOURCE = "source";
+	private static final String OPERATION = "operation";
+	private static final String USER_EMAIL = "userEmail";
+	private static final String CORRELATION_ID = "correlationId";
+	private static final String EXECUTION_TIME = "executionTimeMs";
+	private static final String MESSAGE = "message";
+	private static final String STACK_TRACE = "stackTrace";
+
+	private final JdbcTemplate streamingJdbcTemplate;
+	private final LogPayloadCodec payloadCodec;
+	private final Timer searchTimer;
+	private final Analyzer analyzer = newAnalyzer();
+	private final NavigableMap<LocalDate, Shard> shards = new ConcurrentSkipListMap<>();
+	private final AtomicLong maxIndexedId = new AtomicLong();
+
+	@Value("${app.logging.search-index.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.search-index.directory:./data/log-index}")
+	private String directory;
+
+	@Value("${app.logging.search-index.retention-days:30}")
+	private int retentionDays;
+
+	@Value("${app.logging.search-index.catch-up-hours:24}")
+	private int catchUpHours;
+
+	private Path indexDirectory;
+	private volatile long catchUpUpperBound;
+	private volatile boolean ready;
+
+	/**
+	 * Shard diario. Con {@code writer} nulo es de solo lectura.
+	 */
+	private record Shard(LocalDate day, Directory directory, IndexWriter writer, SearcherManager searcherManager) {
+
+		boolean writable() {
+			return writer != null;
+		}
+	}
+
+	/**
+	 * Orden de resultados de la búsqueda
+	 */
+	public enum SortOrder {
+		RELEVANCE, NEWEST
+	}
+
+	public LogSearchIndex(@Qualifier(LoggingDataSourceConfig.JDBC_TEMPLATE) JdbcTemplate jdbcTemplate,
+			LogPayloadCodec payloadCodec, MeterRegistry meterRegistry) {
+		// Lectura por streaming (MySQL) al reindexar
+		this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+		this.payloadCodec = payloadCodec;
+		this.searchTimer = Timer.builder("app.logging.search")
+				.description("Latencia de búsquedas de texto completo en el índice de logs")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Abre los shards existentes y fija el último id que debe reindexarse;
+	 * corre antes de que arranque el escritor de logs
+	 */
+	@PostConstruct
+	public void open() {
+		if (!enabled) {
+			return;
+		}
+
+		indexDirectory = Paths.get(directory).toAbsolutePath();
+		try {
+			Files.createDirectories(indexDirectory);
+			try (Stream<Path> dirs = Files.list(indexDirectory)) {
+				for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+					LocalDate day = parseDay(dir.getFileName().toString());
+					if (day != null) {
+						openShard(day, dir);
+					}
+				}
+			}
+			Long maxId = streamingJdbcTemplate.queryForObject(
+					"SELECT COALESCE(MAX(id), 0) FROM " + LogPartitionManager.TABLE, Long.class);
+			catchUpUpperBound = maxId != null ? maxId : 0L;
+			ready = true;
+			log.info("Índice de logs en {} - {} shards, último id indexado {}", indexDirectory, shards.size(),
+					maxIndexedId.get());
+		} catch (Exception e) {
+			log.error("No se pudo abrir el índice de logs en {}: {}", directory, e.getMessage());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled && ready;
+	}
+
+	// ========== INDEXACIÓN ==========
+
+	/**
+	 * Indexa un lote ya persistido (con id asignado). Cada documento
+	 * reemplaza al que tenga su id: el commit registra el último id visto,
+	 * que puede ser mayor que lo confirmado en algún shard, y el reindexado
+	 * tras una caída vuelve a pasar por esas filas
+	 */
+	public void index(List<LogEntry> entries) throws IOException {
+		if (!isEnabled()) {
+			return;
+		}
+
+		for (LogEntry entry : entries) {
+			if (entry.getId() == null) {
+				continue;
+			}
+			upsert(entry.getTimestamp(), toDocument(entry.getId(), entry.getTimestamp(), entry.getLevel().name(),
+					entry.getSource(), entry.getOperation(), entry.getUserEmail(), entry.getCorrelationId(),
+					entry.getExecutionTimeMs(), entry.getMessage(), entry.getStackTrace()), entry.getId());
+			maxIndexedId.accumulateAndGet(entry.getId(), Math::max);
+		}
+	}
+
+	/**
+	 * Reindexa las filas persistidas pero no confirmadas en el índice (caída
+	 * antes del último commit), acotadas a catch-up-hours
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void catchUp() {
+		long fromId = maxIndexedId.get();
+		if (!isEnabled() || catchUpUpperBound <= fromId) {
+			return;
+		}
+
+		long[] indexed = { 0 };
+		try {
+			streamingJdbcTemplate.query("SELECT l.id, l.timestamp, l.level, l.source, l.operation, l.user_email, "
+					+ "l.correlation_id, l.execution_time_ms, l.message, COALESCE(l.stack_trace, f.stack_trace) FROM "
+					+ LogPartitionManager.TABLE + " l LEFT JOIN " + ErrorFingerprintStore.TABLE
+					+ " f ON f.id = l.error_fingerprint_id"
+					+ " WHERE l.id > ? AND l.id <= ? AND l.timestamp >= ?", rs -> {
+						long id = rs.getLong(1);
+						LocalDateTime timestamp = rs.getTimestamp(2).toLocalDateTime();
+						Document document = toDocument(id, timestamp, rs.getString(3), rs.getString(4),
+								rs.getString(5), rs.getString(6), rs.getString(7), rs.getObject(8, Long.class),
+								rs.getString(9), payloadCodec.decode(rs.getBytes(10)));
+						try {
+							upsert(timestamp, document, id);
+						} catch (IOException e) {
+							throw new IllegalStateException(e);
+						}
+						maxIndexedId.accumulateAndGet(id, Math::max);
+						indexed[0]++;
+					}, fromId, catchUpUpperBound, Timestamp.valueOf(LocalDateTime.now().minusHours(catchUpHours)));
+			commit();
+			log.info("Reindexados {} logs posteriores al último commit del índice", indexed[0]);
+		} catch (Exception e) {
+			log.error("Error reindexando logs pendientes: {}", e.getMessage());
+		}
+	}
+
+	private void upsert(LocalDateTime timestamp, Document document, long id) throws IOException {
+		writableShard(timestamp.toLocalDate()).writer().updateDocument(new Term(ID, String.valueOf(id)), document);
+	}
+
+	// ========== BÚSQUEDA ==========
+
+	/**
+	 * Busca en mensaje y stack trace (sintaxis simple: términos, "frases",
+	 * -exclusión, prefijo*), dentro del rango de tiempo y nivel indicados
+	 *
+	 * @throws InvalidTimeRangeException si since es posterior a until
+	 */
+	public Page<LogEntry> search(String text, LocalDateTime since, LocalDateTime until, LogLevel level,
+			SortOrder order, Pageable pageable) {
+		if (since.isAfter(until)) {
+			throw new InvalidTimeRangeException("since (" + since + ") es posterior a until (" + until + ")");
+		}
+		long startedAt = System.nanoTime();
+		try {
+			try {
+				return doSearch(text, since, until, level, order, pageable);
+			} catch (AlreadyClosedException e) {
+				// Un shard cambió de modo durante la búsqueda; el mapa ya tiene el nuevo
+				return doSearch(text, since, until, level, order, pageable);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			searchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private Page<LogEntry> doSearch(String text, LocalDateTime since, LocalDateTime until, LogLevel level,
+			SortOrder order, Pageable pageable) throws IOException {
+		List<Shard> selected = new ArrayList<>(
+				shards.subMap(since.toLocalDate(), true, until.toLocalDate(), true).values());
+		if (selected.isEmpty() || pageable.getOffset() >= MAX_RESULT_WINDOW) {
+			return new PageImpl<>(List.of(), pageable, 0);
+		}
+
+		SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(MESSAGE, 2.0f, STACK_TRACE, 1.0f));
+		parser.setDefaultOperator(Occur.MUST);
+		Query textQuery = parser.parse(text);
+		if (textQuery == null) {
+			return new PageImpl<>(List.of(), pageable, 0);
+		}
+
+		BooleanQuery.Builder builder = new BooleanQuery.Builder()
+				.add(textQuery, Occur.MUST)
+				.add(LongPoint.newRangeQuery(TIMESTAMP, LogSegment.toEpochMillis(since),
+						LogSegment.toEpochMillis(until)), Occur.FILTER);
+		if (level != null) {
+			builder.add(new TermQuery(new Term(LEVEL, level.name())), Occur.FILTER);
+		}
+		Query query = builder.build();
+
+		List<IndexSearcher> acquired = new ArrayList<>(selected.size());
+		try {
+			for (Shard shard : selected) {
+				acquired.add(shard.searcherManager().acquire());
+			}
+			IndexReader[] readers = acquired.stream().map(IndexSearcher::getIndexReader).toArray(IndexReader[]::new);
+
+			try (MultiReader reader = new MultiReader(readers, false)) {
+				IndexSearcher searcher = new IndexSearcher(reader);
+				int window = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_RESULT_WINDOW);
+
+				TopDocs topDocs = order == SortOrder.NEWEST
+						? searcher.search(query, window, new Sort(new SortField(TIMESTAMP, SortField.Type.LONG, true)))
+						: searcher.search(query, window);
+				long total = topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO
+						? topDocs.totalHits.value
+						: searcher.count(query);
+
+				StoredFields storedFields = searcher.storedFields();
+				List<LogEntry> content = new ArrayList<>(pageable.getPageSize());
+				for (int i = (int) pageable.getOffset(); i < topDocs.scoreDocs.length; i++) {
+					ScoreDoc hit = topDocs.scoreDocs[i];
+					content.add(toLogEntry(storedFields.document(hit.doc)));
+				}
+				return new PageImpl<>(content, pageable, total);
+			}
+		} finally {
+			for (int i = 0; i < acquired.size(); i++) {
+				selected.get(i).searcherManager().release(acquired.get(i));
+			}
+		}
+	}
+
+	// ========== MANTENIMIENTO ==========
+
+	/**
+	 * Hace visibles a la búsqueda los documentos recién indexados
+	 */
+	@Scheduled(fixedDelayString = "${app.logging.search-index.refresh-interval-ms:1000}")
+	public void refresh() {
+		for (Shard shard : shards.values()) {
+			if (shard.writable()) {
+				try {
+					shard.searcherManager().maybeRefresh();
+				} catch (AlreadyClosedException | IOException e) {
+					log.debug("Refresh omitido en shard {}: {}", shard.day(), e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Confirma en disco los shards con escritura, registrando el último id
+	 * indexado
+	 */
+	@Scheduled(fixedDelayString = "${app.logging.search-index.commit-interval-ms:30000}")
+	public synchronized void commit() {
+		String maxId = String.valueOf(maxIndexedId.get());
+		for (Shard shard : shards.values()) {
+			if (shard.writable() && shard.writer().hasUncommittedChanges()) {
+				try {
+					shard.writer().setLiveCommitData(Map.of(MAX_ID_COMMIT_KEY, maxId).entrySet());
+					shard.writer().commit();
+				} catch (IOException e) {
+					log.error("Error confirmando shard {} del índice de logs: {}", shard.day(), e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pasa a solo lectura los shards de días anteriores a ayer y elimina los
+	 * que superan la retención
+	 */
+	@Scheduled(cron = "${app.logging.search-index.maintenance-cron:0 15 0 * * *}")
+	public synchronized void maintenance() {
+		if (!isEnabled()) {
+			return;
+		}
+
+		LocalDate today = LocalDate.now();
+		LocalDate cutoff = today.minusDays(retentionDays);
+		commit();
+
+		for (Shard shard : new ArrayList<>(shards.values())) {
+			try {
+				if (shard.day().isBefore(cutoff)) {
+					shards.remove(shard.day());
+					close(shard);
+					deleteRecursively(shardPath(shard.day()));
+					log.info("Shard {} del índice de logs eliminado por retención", shard.day());
+				} else if (shard.writable() && shard.day().isBefore(today.minusDays(1))) {
+					Shard readOnly = new Shard(shard.day(), shard.directory(), null,
+							new SearcherManager(shard.directory(), null));
+					shards.put(shard.day(), readOnly);
+					shard.searcherManager().close();
+					shard.writer().close();
+				}
+			} catch (IOException e) {
+				log.error("Error en mantenimiento del shard {}: {}", shard.day(), e.getMessage());
+			}
+		}
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		commit();
+		for (Shard shard : shards.values()) {
+			try {
+				close(shard);
+			} catch (IOException e) {
+				log.warn("Error cerrando shard {}: {}", shard.day(), e.getMessage());
+			}
+		}
+		shards.clear();
+	}
+
+	/**
+	 * Estadísticas del índice
+	 */
+	public Map<String, Object> getStatistics() {
+		long documents = 0;
+		for (Shard shard : shards.values()) {
+			try {
+				IndexSearcher searcher = shard.searcherManager().acquire();
+				try {
+					documents += searcher.getIndexReader().numDocs();
+				} finally {
+					shard.searcherManager().release(searcher);
+				}
+			} catch (AlreadyClosedException | IOException e) {
+				log.debug("Shard {} omitido en estadísticas: {}", shard.day(), e.getMessage());
+			}
+		}
+		return Map.of(
+				"enabled", isEnabled(),
+				"shards", shards.size(),
+				"documents", documents,
+				"maxIndexedId", maxIndexedId.get());
+	}
+
+	// ========== MÉTODOS PRIVADOS ==========
+
+	private void openShard(LocalDate day, Path path) throws IOException {
+		Directory dir = FSDirectory.open(path);
+		if (!DirectoryReader.indexExists(dir)) {
+			// Shard sin ningún commit: se reconstruye con el reindexado
+			dir.close();
+			deleteRecursively(path);
+			return;
+		}
+
+		String committedMaxId = SegmentInfos.readLatestCommit(dir).getUserData().get(MAX_ID_COMMIT_KEY);
+		if (committedMaxId != null) {
+			maxIndexedId.accumulateAndGet(Long.parseLong(committedMaxId), Math::max);
+		}
+		shards.put(day, new Shard(day, dir, null, new SearcherManager(dir, null)));
+	}
+
+	/**
+	 * Shard con escritura del día, creándolo o reabriéndolo si hace falta
+	 */
+	private Shard writableShard(LocalDate day) throws IOException {
+		Shard shard = shards.get(day);
+		if (shard != null && shard.writable()) {
+			return shard;
+		}
+
+		synchronized (this) {
+			shard = shards.get(day);
+			if (shard != null && shard.writable()) {
+				return shard;
+			}
+
+			Directory dir = shard != null ? shard.directory() : FSDirectory.open(shardPath(day));
+			IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(analyzer)
+					.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+			Shard writable = new Shard(day, dir, writer, new SearcherManager(writer, null));
+			shards.put(day, writable);
+			if (shard != null) {
+				shard.searcherManager().close();
+			}
+			return writable;
+		}
+	}
+
+	private static void close(Shard shard) throws IOException {
+		shard.searcherManager().close();
+		if (shard.writable()) {
+			shard.writer().close();
+		}
+		shard.directory().close();
+	}
+
+	private static Document toDocument(long id, LocalDateTime timestamp, String level, String source,
+			String operation, String userEmail, String correlationId, Long executionTimeMs, String message,
+			String stackTrace) {
+		long epochMillis = LogSegment.toEpochMillis(timestamp);
+		Document document = new Document();
+		document.add(new StringField(ID, String.valueOf(id), Store.YES));
+		document.add(new LongPoint(TIMESTAMP, epochMillis));
+		document.add(new NumericDocValuesField(TIMESTAMP, epochMillis));
+		document.add(new StoredField(TIMESTAMP, epochMillis));
+		document.add(new StringField(LEVEL, level, Store.YES));
+		document.add(new StringField(SOURCE, source, Store.YES));
+		if (operation != null) {
+			document.add(new StoredField(OPERATION, operation));
+		}
+		if (userEmail != null) {
+			document.add(new StoredField(USER_EMAIL, userEmail));
+		}
+		if (correlationId != null) {
+			document.add(new StoredField(CORRELATION_ID, correlationId));
+		}
+		if (executionTimeMs != null) {
+			document.add(new StoredField(EXECUTION_TIME, executionTimeMs));
+		}
+		document.add(new TextField(MESSAGE, message, Store.YES));
+		if (stackTrace != null) {
+			document.add(new TextField(STACK_TRACE, stackTrace, Store.NO));
+			document.add(new StoredField(STACK_TRACE, stackTrace.length() <= MAX_STORED_STACK_TRACE
+					? stackTrace
+					: stackTrace.substring(0, MAX_STORED_STACK_TRACE)));
+		}
+		return document;
+	}
+
+	private static LogEntry toLogEntry(Document document) {
+		return LogEntry.builder()
+				.id(Long.valueOf(document.get(ID)))
+				.timestamp(LogSegment.fromEpochMillis(document.getField(TIMESTAMP).numericValue().longValue()))
+				.level(LogLevel.valueOf(document.get(LEVEL)))
+				.source(document.get(SOURCE))
+				.operation(document.get(OPERATION))
+				.userEmail(document.get(USER_EMAIL))
+				.correlationId(document.get(CORRELATION_ID))
+				.executionTimeMs(document.getField(EXECUTION_TIME) != null
+						? document.getField(EXECUTION_TIME).numericValue().longValue()
+						: null)
+				.message(document.get(MESSAGE))
+				.stackTrace(document.get(STACK_TRACE))
+				.build();
+	}
+
+	/**
+	 * Tokeniza por letras y dígitos, de modo que nombres de clase
+	 * (com.arojas.Foo) y claves (user_id=42) se separan en términos
+	 */
+	private static Analyzer newAnalyzer() {
+		return new Analyzer() {
+			@Override
+			protected TokenStreamComponents createComponents(String fieldName) {
+				Tokenizer tokenizer = CharTokenizer.fromTokenCharPredicate(Character::isLetterOrDigit);
+				return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+			}
+
+			@Override
+			protected TokenStream normalize(String fieldName, TokenStream in) {
+				return new LowerCaseFilter(in);
+			}
+		};
+	}
+
+	private Path shardPath(LocalDate day) {
+		return indexDirectory.resolve(day.format(DAY_FORMAT));
+	}
+
+	private static LocalDate parseDay(String name) {
+		try {
+			return LocalDate.parse(name, DAY_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(path)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,379 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ *
+ * @author arojas
+ *         * Formato de segmento columnar inmutable para logs archivados
+ *         * Cada columna es un bloque comprimido con LZ4 independiente, de
+ *         modo que un filtro solo descomprime las columnas que evalúa
+ *         * Estructura: [magic, versión] [bloques de columnas] [pie con
+ *         número de filas, timestamp mínimo/máximo, máscara de niveles,
+ *         diccionario de fuentes y directorio de columnas] [offset del pie,
+ *         magic]
+ */
+public final class LogSegment {
+
+	private static final int MAGIC = 0x4A4C5347; // "JLSG"
+	private static final int VERSION = 1;
+	private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+	private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+	private LogSegment() {
+	}
+
+	/**
+	 * Columnas en orden de escritura
+	 */
+	public enum Column {
+		ID, TIMESTAMP, LEVEL, SOURCE, MESSAGE, USER_EMAIL, SESSION_ID, CORRELATION_ID, REQUEST_ID,
+		OPERATION, CLIENT_IP, USER_AGENT, EXECUTION_TIME_MS, STACK_TRACE, REQUEST_PAYLOAD,
+		RESPONSE_PAYLOAD, CONTEXT, ENVIRONMENT, APPLICATION_VERSION
+	}
+
+	record ColumnRef(long offset, int compressedLength, int rawLength) {
+	}
+
+	/**
+	 * Resumen del segmento usado para descartarlo sin leer columnas
+	 */
+	public record Header(Path path, int rowCount, long minTimestamp, long maxTimestamp, int levelMask,
+			List<String> sources, Map<Column, ColumnRef> columns) {
+
+		public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+			return (end == null || minTimestamp <= toEpochMillis(end))
+					&& (start == null || maxTimestamp >= toEpochMillis(start));
+		}
+
+		public boolean containsLevel(LogLevel level) {
+			return level == null || (levelMask & (1 << level.ordinal())) != 0;
+		}
+
+		public boolean containsSourceLike(String fragment) {
+			if (fragment == null) {
+				return true;
+			}
+			String needle = fragment.toLowerCase();
+			return sources.stream().anyMatch(source -> source != null && source.toLowerCase().contains(needle));
+		}
+
+		public long sizeBytes() {
+			return columns.values().stream().mapToLong(ColumnRef::compressedLength).sum();
+		}
+	}
+
+	// ========== ESCRITURA ==========
+
+	/**
+	 * Escribe un segmento de forma atómica (archivo temporal + move)
+	 *
+	 * @param contextJson serializador del contexto a JSON
+	 */
+	public static Header write(Path target, List<LogEntry> rows, Function<Map<String, Object>, String> contextJson)
+			throws IOException {
+
+		LZ4Compressor compressor = LZ4.fastCompressor();
+		Map<String, Integer> sourceIndex = new LinkedHashMap<>();
+		long minTimestamp = Long.MAX_VALUE;
+		long maxTimestamp = Long.MIN_VALUE;
+		int levelMask = 0;
+
+		for (LogEntry row : rows) {
+			long timestamp = toEpochMillis(row.getTimestamp());
+			minTimestamp = Math.min(minTimestamp, timestamp);
+			maxTimestamp = Math.max(maxTimestamp, timestamp);
+			if (row.getLevel() != null) {
+				levelMask |= 1 << row.getLevel().ordinal();
+			}
+			sourceIndex.computeIfAbsent(row.getSource(), s -> sourceIndex.size());
+		}
+
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		Map<Column, ColumnRef> columns = new EnumMap<>(Column.class);
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer preamble = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(VERSION).flip();
+			writeFully(channel, preamble);
+
+			for (Column column : Column.values()) {
+				byte[] raw = encodeColumn(column, rows, sourceIndex, contextJson);
+				byte[] compressed = compressor.compress(raw);
+				long offset = channel.position();
+				writeFully(channel, ByteBuffer.wrap(compressed));
+				columns.put(column, new ColumnRef(offset, compressed.length, raw.length));
+			}
+
+			long footerOffset = channel.position();
+			ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+			try (DataOutputStream footer = new DataOutputStream(footerBytes)) {
+				footer.writeInt(rows.size());
+				footer.writeLong(minTimestamp);
+				footer.writeLong(maxTimestamp);
+				footer.writeInt(levelMask);
+				footer.writeInt(sourceIndex.size());
+				for (String source : sourceIndex.keySet()) {
+					writeString(footer, source);
+				}
+				footer.writeInt(columns.size());
+				for (Map.Entry<Column, ColumnRef> entry : columns.entrySet()) {
+					footer.writeUTF(entry.getKey().name());
+					footer.writeLong(entry.getValue().offset());
+					footer.writeInt(entry.getValue().compressedLength());
+					footer.writeInt(entry.getValue().rawLength());
+				}
+			}
+			writeFully(channel, ByteBuffer.wrap(footerBytes.toByteArray()));
+			writeFully(channel, ByteBuffer.allocate(TRAILER_SIZE).putLong(footerOffset).putInt(MAGIC).flip());
+			channel.force(true);
+		}
+
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return new Header(target, rows.size(), minTimestamp, maxTimestamp, levelMask,
+				List.copyOf(sourceIndex.keySet()), Collections.unmodifiableMap(columns));
+	}
+
+	private static byte[] encodeColumn(Column column, List<LogEntry> rows, Map<String, Integer> sourceIndex,
+			Function<Map<String, Object>, String> contextJson) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 8);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			for (LogEntry row : rows) {
+				switch (column) {
+					case ID -> out.writeLong(row.getId() != null ? row.getId() : 0L);
+					case TIMESTAMP -> out.writeLong(toEpochMillis(row.getTimestamp()));
+					case LEVEL -> out.writeByte(row.getLevel() != null ? row.getLevel().ordinal() : -1);
+					case SOURCE -> out.writeInt(sourceIndex.get(row.getSource()));
+					case MESSAGE -> writeString(out, row.getMessage());
+					case USER_EMAIL -> writeString(out, row.getUserEmail());
+					case SESSION_ID -> writeString(out, row.getSessionId());
+					case CORRELATION_ID -> writeString(out, row.getCorrelationId());
+					case REQUEST_ID -> writeString(out, row.getRequestId());
+					case OPERATION -> writeString(out, row.getOperation());
+					case CLIENT_IP -> writeString(out, row.getClientIp());
+					case USER_AGENT -> writeString(out, row.getUserAgent());
+					case EXECUTION_TIME_MS -> {
+						out.writeBoolean(row.getExecutionTimeMs() != null);
+						if (row.getExecutionTimeMs() != null) {
+							out.writeLong(row.getExecutionTimeMs());
+						}
+					}
+					case STACK_TRACE -> writeString(out, row.getStackTrace());
+					case REQUEST_PAYLOAD -> writeString(out, row.getRequestPayload());
+					case RESPONSE_PAYLOAD -> writeString(out, row.getResponsePayload());
+					case CONTEXT -> writeString(out, row.getContext() != null ? contextJson.apply(row.getContext()) : null);
+					case ENVIRONMENT -> writeString(out, row.getEnvironment());
+					case APPLICATION_VERSION -> writeString(out, row.getApplicationVersion());
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	// ========== LECTURA ==========
+
+	/**
+	 * Lee solo el pie del segmento
+	 */
+	public static Header readHeader(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer trailer = readAt(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+			long footerOffset = trailer.getLong();
+			if (trailer.getInt() != MAGIC || readAt(channel, 0, Integer.BYTES).getInt() != MAGIC) {
+				throw new IOException("Segmento de logs inválido: " + path);
+			}
+
+			ByteBuffer footerBuffer = readAt(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+			DataInputStream footer = new DataInputStream(
+					new ByteArrayInputStream(footerBuffer.array()));
+
+			int rowCount = footer.readInt();
+			long minTimestamp = footer.readLong();
+			long maxTimestamp = footer.readLong();
+			int levelMask = footer.readInt();
+			int sourceCount = footer.readInt();
+			List<String> sources = new ArrayList<>(sourceCount);
+			for (int i = 0; i < sourceCount; i++) {
+				sources.add(readString(footer));
+			}
+			int columnCount = footer.readInt();
+			Map<Column, ColumnRef> columns = new EnumMap<>(Column.class);
+			for (int i = 0; i < columnCount; i++) {
+				Column column = Column.valueOf(footer.readUTF());
+				columns.put(column, new ColumnRef(footer.readLong(), footer.readInt(), footer.readInt()));
+			}
+
+			return new Header(path, rowCount, minTimestamp, maxTimestamp, levelMask,
+					Collections.unmodifiableList(sources), Collections.unmodifiableMap(columns));
+		}
+	}
+
+	/**
+	 * Lector de columnas de un segmento; cada columna se descomprime una sola
+	 * vez y bajo demanda
+	 */
+	public static final class Reader implements AutoCloseable {
+
+		private final Header header;
+		private final FileChannel channel;
+		private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+		private final Map<Column, Object> decoded = new EnumMap<>(Column.class);
+
+		public Reader(Header header) throws IOException {
+			this.header = header;
+			this.channel = FileChannel.open(header.path(), StandardOpenOption.READ);
+		}
+
+		public Header header() {
+			return header;
+		}
+
+		public long[] longs(Column column) throws IOException {
+			Object cached = decoded.get(column);
+			if (cached != null) {
+				return (long[]) cached;
+			}
+			DataInputStream in = open(column);
+			long[] values = new long[header.rowCount()];
+			for (int i = 0; i < values.length; i++) {
+				if (column == Column.EXECUTION_TIME_MS) {
+					values[i] = in.readBoolean() ? in.readLong() : Long.MIN_VALUE;
+				} else {
+					values[i] = in.readLong();
+				}
+			}
+			decoded.put(column, values);
+			return values;
+		}
+
+		public byte[] levels() throws IOException {
+			Object cached = decoded.get(Column.LEVEL);
+			if (cached != null) {
+				return (byte[]) cached;
+			}
+			DataInputStream in = open(Column.LEVEL);
+			byte[] values = new byte[header.rowCount()];
+			in.readFully(values);
+			decoded.put(Column.LEVEL, values);
+			return values;
+		}
+
+		public String[] strings(Column column) throws IOException {
+			Object cached = decoded.get(column);
+			if (cached != null) {
+				return (String[]) cached;
+			}
+			String[] values = new String[header.rowCount()];
+			DataInputStream in = open(column);
+			if (column == Column.SOURCE) {
+				for (int i = 0; i < values.length; i++) {
+					values[i] = header.sources().get(in.readInt());
+				}
+			} else {
+				for (int i = 0; i < values.length; i++) {
+					values[i] = readString(in);
+				}
+			}
+			decoded.put(column, values);
+			return values;
+		}
+
+		private DataInputStream open(Column column) throws IOException {
+			ColumnRef ref = header.columns().get(column);
+			if (ref == null) {
+				throw new IOException("Columna " + column + " ausente en " + header.path());
+			}
+			byte[] compressed = readAt(channel, ref.offset(), ref.compressedLength()).array();
+			byte[] raw = decompressor.decompress(compressed, ref.rawLength());
+			return new DataInputStream(new ByteArrayInputStream(raw));
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	// ========== UTILIDADES ==========
+
+	public static long toEpochMillis(LocalDateTime timestamp) {
+		return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	public static LocalDateTime fromEpochMillis(long epochMillis) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+				(int) Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Fin de archivo inesperado");
+			}
+		}
+		return buffer.flip();
+	}
+}
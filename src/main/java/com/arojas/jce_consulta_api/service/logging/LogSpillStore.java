@@ -0,0 +1,426 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.config.DbLoggingProperties;
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Almacenamiento de desbordamiento del escritor de logs: segmentos
+ *         de solo anexado mapeados en memoria, usados cuando la base de datos
+ *         no acepta escrituras o excede su presupuesto de latencia
+ *         * Estructura del segmento: [magic, versión, offset reproducido]
+ *         seguido de registros [longitud, CRC32, JSON]; un registro con
+ *         longitud 0 o CRC inválido marca el final (escritura cortada)
+ *         * Al arrancar se recuperan los segmentos de la ejecución anterior y
+ *         se reproducen desde el offset guardado en su cabecera. La entrega
+ *         es al menos una vez: una caída entre el insert y la actualización
+ *         del offset repite ese lote
+ */
+@Component
+@Slf4j
+public class LogSpillStore {
+
+	private static final String SEGMENT_PREFIX = "spill-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final int MAGIC = 0x4A4C5350; // "JLSP"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int REPLAYED_OFFSET_POSITION = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private final DbLoggingProperties.Spill config;
+	private final ObjectWriter jsonWriter;
+	private final ObjectReader jsonReader;
+	private final Path directory;
+	private final int segmentSize;
+
+	/** Segmentos del más antiguo al más reciente; el último puede ser el activo */
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private Segment active;
+	private long sequence;
+
+	private static final class Segment {
+		final Path path;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		int writePosition;
+		int replayedOffset;
+		boolean sealed;
+
+		Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+			this.path = path;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		boolean hasPending() {
+			return replayedOffset < writePosition;
+		}
+	}
+
+	/**
+	 * Lote leído de un segmento; {@link #commit(ReplayBatch)} avanza el
+	 * offset una vez persistido
+	 */
+	public static final class ReplayBatch {
+		private final Segment segment;
+		private final List<LogEntry> entries;
+		private final int endOffset;
+
+		private ReplayBatch(Segment segment, List<LogEntry> entries, int endOffset) {
+			this.segment = segment;
+			this.entries = entries;
+			this.endOffset = endOffset;
+		}
+
+		public List<LogEntry> entries() {
+			return entries;
+		}
+	}
+
+	public LogSpillStore(DbLoggingProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		this.config = properties.getSpill();
+		this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		this.jsonReader = objectMapper.readerFor(LogEntry.class);
+		this.directory = Paths.get(config.getDirectory());
+		this.segmentSize = (int) Math.min(Integer.MAX_VALUE, config.getSegmentSizeMb() * 1024L * 1024L);
+
+		Gauge.builder("app.logging.spill.pending.bytes", this, LogSpillStore::getPendingBytes)
+				.description("Bytes desviados a disco pendientes de reproducir")
+				.register(meterRegistry);
+		Gauge.builder("app.logging.spill.segments", this, LogSpillStore::getSegmentCount)
+				.register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void recover() {
+		try {
+			Files.createDirectories(directory);
+			List<Path> files;
+			try (Stream<Path> stream = Files.list(directory)) {
+				files = stream
+						.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+								&& path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+						.sorted()
+						.toList();
+			}
+
+			long pendingEvents = 0;
+			synchronized (this) {
+				for (Path path : files) {
+					Segment segment = open(path, false);
+					if (segment == null) {
+						continue;
+					}
+					int records = scan(segment);
+					segment.sealed = true;
+					if (segment.hasPending()) {
+						segments.addLast(segment);
+						pendingEvents += records;
+					} else {
+						delete(segment);
+					}
+				}
+			}
+			if (!segments.isEmpty()) {
+				log.warn("Recuperados {} segmentos de desbordamiento con hasta {} logs pendientes de reproducir",
+						segments.size(), pendingEvents);
+			}
+		} catch (IOException e) {
+			log.error("No se pudo recuperar el directorio de desbordamiento {}: {}", directory, e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		for (Segment segment : segments) {
+			segment.buffer.force();
+			closeQuietly(segment);
+		}
+		segments.clear();
+		active = null;
+	}
+
+	// ========== ESCRITURA ==========
+
+	/**
+	 * Anexa los eventos al segmento activo
+	 *
+	 * @return eventos que no cupieron (límite total o tamaño de registro); el
+	 *         llamador decide qué hacer con ellos
+	 */
+	public List<LogEntry> append(List<LogEntry> entries) {
+		List<byte[]> records = new ArrayList<>(entries.size());
+		List<LogEntry> rejected = new ArrayList<>();
+		for (LogEntry entry : entries) {
+			try {
+				records.add(jsonWriter.writeValueAsBytes(entry));
+			} catch (IOException e) {
+				records.add(null);
+			}
+		}
+
+		synchronized (this) {
+			for (int i = 0; i < records.size(); i++) {
+				byte[] payload = records.get(i);
+				if (payload == null || !write(payload)) {
+					rejected.add(entries.get(i));
+				}
+			}
+		}
+		return rejected;
+	}
+
+	private boolean write(byte[] payload) {
+		int required = RECORD_HEADER_SIZE + payload.length;
+		if (required > segmentSize - HEADER_SIZE) {
+			return false;
+		}
+		if (active == null || active.writePosition + required > segmentSize) {
+			if (!rotate()) {
+				return false;
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		MappedByteBuffer buffer = active.buffer;
+		int position = active.writePosition;
+		// Longitud al final: un registro a medio escribir sigue leyéndose como fin
+		buffer.putInt(position + 4, (int) crc.getValue());
+		buffer.put(position + RECORD_HEADER_SIZE, payload);
+		buffer.putInt(position, payload.length);
+		active.writePosition = position + required;
+		return true;
+	}
+
+	/**
+	 * Sella el segmento activo y abre uno nuevo, si el límite total lo permite
+	 */
+	private boolean rotate() {
+		seal();
+		if ((long) (segments.size() + 1) * segmentSize > config.getMaxTotalMb() * 1024L * 1024L) {
+			return false;
+		}
+		Path path = directory.resolve(String.format("%s%013d-%04d%s", SEGMENT_PREFIX, System.currentTimeMillis(),
+				sequence++ % 10_000, SEGMENT_SUFFIX));
+		try {
+			Segment segment = open(path, true);
+			segment.writePosition = HEADER_SIZE;
+			segment.replayedOffset = HEADER_SIZE;
+			segments.addLast(segment);
+			active = segment;
+			return true;
+		} catch (IOException e) {
+			log.error("No se pudo crear el segmento de desbordamiento {}: {}", path, e.getMessage());
+			return false;
+		}
+	}
+
+	private void seal() {
+		if (active != null) {
+			active.buffer.force();
+			active.sealed = true;
+			active = null;
+		}
+	}
+
+	/**
+	 * Fuerza a disco el segmento activo; acota lo que se pierde si cae el
+	 * sistema operativo (una caída del proceso no pierde datos del mapeo)
+	 */
+	@Scheduled(fixedDelayString = "${app.logging.spill.force-interval-ms:1000}")
+	public synchronized void force() {
+		if (active != null) {
+			active.buffer.force();
+		}
+	}
+
+	// ========== REPRODUCCIÓN ==========
+
+	public synchronized boolean hasPending() {
+		for (Segment segment : segments) {
+			if (segment.hasPending()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Lee hasta {@code maxEntries} eventos del segmento pendiente más antiguo.
+	 * Si solo queda el activo, se sella para no competir con las escrituras
+	 */
+	public synchronized ReplayBatch nextBatch(int maxEntries) {
+		Segment segment = segments.peekFirst();
+		while (segment != null && !segment.hasPending() && segment.sealed) {
+			segments.pollFirst();
+			delete(segment);
+			segment = segments.peekFirst();
+		}
+		if (segment == null || !segment.hasPending()) {
+			return null;
+		}
+		if (!segment.sealed) {
+			seal();
+		}
+
+		List<LogEntry> entries = new ArrayList<>(maxEntries);
+		int position = segment.replayedOffset;
+		while (entries.size() < maxEntries && position < segment.writePosition) {
+			int length = segment.buffer.getInt(position);
+			byte[] payload = new byte[length];
+			segment.buffer.get(position + RECORD_HEADER_SIZE, payload);
+			position += RECORD_HEADER_SIZE + length;
+			try {
+				entries.add(jsonReader.readValue(payload));
+			} catch (IOException e) {
+				log.warn("Registro de desbordamiento ilegible en {}: {}", segment.path.getFileName(), e.getMessage());
+			}
+		}
+		return new ReplayBatch(segment, entries, position);
+	}
+
+	/**
+	 * Confirma un lote persistido: guarda el nuevo offset en la cabecera y
+	 * elimina el segmento si quedó vacío
+	 */
+	public synchronized void commit(ReplayBatch batch) {
+		Segment segment = batch.segment;
+		segment.replayedOffset = batch.endOffset;
+		segment.buffer.putInt(REPLAYED_OFFSET_POSITION, segment.replayedOffset);
+		segment.buffer.force();
+
+		if (!segment.hasPending() && segment.sealed) {
+			segments.remove(segment);
+			delete(segment);
+		}
+	}
+
+	public synchronized long getPendingBytes() {
+		long pending = 0;
+		for (Segment segment : segments) {
+			pending += segment.writePosition - segment.replayedOffset;
+		}
+		return pending;
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	// ========== ARCHIVOS ==========
+
+	private Segment open(Path path, boolean create) throws IOException {
+		FileChannel channel = create
+				? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long size = create ? segmentSize : channel.size();
+		if (size < HEADER_SIZE) {
+			channel.close();
+			Files.deleteIfExists(path);
+			return null;
+		}
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		if (create) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(REPLAYED_OFFSET_POSITION, HEADER_SIZE);
+		} else if (buffer.getInt(0) != MAGIC) {
+			log.warn("Segmento de desbordamiento con formato desconocido, se ignora: {}", path);
+			channel.close();
+			return null;
+		}
+		return new Segment(path, channel, buffer);
+	}
+
+	/**
+	 * Recorre los registros válidos de un segmento recuperado y fija su
+	 * posición de escritura y de reproducción
+	 *
+	 * @return registros pendientes de reproducir
+	 */
+	private int scan(Segment segment) {
+		MappedByteBuffer buffer = segment.buffer;
+		int limit = buffer.capacity();
+		int replayed = buffer.getInt(REPLAYED_OFFSET_POSITION);
+		int position = HEADER_SIZE;
+		int pending = 0;
+		CRC32 crc = new CRC32();
+
+		while (position + RECORD_HEADER_SIZE <= limit) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || position + RECORD_HEADER_SIZE + length > limit) {
+				break;
+			}
+			byte[] payload = new byte[length];
+			buffer.get(position + RECORD_HEADER_SIZE, payload);
+			crc.reset();
+			crc.update(payload);
+			if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+				break;
+			}
+			if (position >= replayed) {
+				pending++;
+			}
+			position += RECORD_HEADER_SIZE + length;
+		}
+
+		segment.writePosition = position;
+		segment.replayedOffset = Math.max(HEADER_SIZE, Math.min(replayed, position));
+		return pending;
+	}
+
+	private void delete(Segment segment) {
+		closeQuietly(segment);
+		try {
+			Files.deleteIfExists(segment.path);
+		} catch (IOException e) {
+			log.warn("No se pudo eliminar el segmento de desbordamiento {}: {}", segment.path, e.getMessage());
+		}
+	}
+
+	private static void closeQuietly(Segment segment) {
+		try {
+			segment.channel.close();
+		} catch (IOException e) {
+			// El mapeo se libera con el buffer
+		}
+	}
+}
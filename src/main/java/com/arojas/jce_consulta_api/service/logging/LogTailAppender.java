@@ -0,0 +1,172 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+/**
+ *
+ * @author arojas
+ *         * Appender de Logback que conserva en memoria los últimos N eventos
+ *         de cada nivel, sin acceso a base de datos
+ *         * Cada nivel tiene un anillo de tamaño fijo: los productores
+ *         reservan posición con un contador atómico y publican con un set
+ *         sobre un AtomicReferenceArray, sin locks
+ *         * Los suscriptores de tail en vivo reciben cada evento por un
+ *         callback que no debe bloquear
+ */
+public class LogTailAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+	public static final String NAME = "IN_MEMORY_TAIL";
+
+	private static final int MAX_THROWABLE_LENGTH = 4000;
+	private static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+	private final Ring[] rings = new Ring[LEVELS.length];
+	private final AtomicLong sequence = new AtomicLong();
+	private final List<TailListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Copia inmutable de un evento de log
+	 */
+	public record TailEvent(long sequence, Instant timestamp, String level, String logger, String thread,
+			String message, String correlationId, String throwable) {
+	}
+
+	/**
+	 * Receptor de eventos en vivo; se invoca en el hilo que registra el log
+	 */
+	public interface TailListener {
+
+		void onEvent(TailEvent event);
+	}
+
+	/**
+	 * Anillo de un nivel. La posición se reserva con getAndIncrement y la
+	 * publicación es un set volátil: un lector puede ver un slot ya
+	 * sobrescrito, lo que se detecta por la secuencia del evento.
+	 */
+	private static final class Ring {
+
+		private final AtomicReferenceArray<TailEvent> slots;
+		private final AtomicLong writeIndex = new AtomicLong();
+		private final int mask;
+
+		Ring(int capacity) {
+			this.slots = new AtomicReferenceArray<>(capacity);
+			this.mask = capacity - 1;
+		}
+
+		void add(TailEvent event) {
+			slots.set((int) (writeIndex.getAndIncrement() & mask), event);
+		}
+
+		void collectRecent(int limit, Predicate<TailEvent> filter, List<TailEvent> out) {
+			long end = writeIndex.get();
+			long start = Math.max(0, end - slots.length());
+			int collected = 0;
+			for (long i = end - 1; i >= start && collected < limit; i--) {
+				TailEvent event = slots.get((int) (i & mask));
+				if (event != null && filter.test(event)) {
+					out.add(event);
+					collected++;
+				}
+			}
+		}
+	}
+
+	public LogTailAppender(int capacityPerLevel) {
+		int capacity = Integer.highestOneBit(Math.max(16, capacityPerLevel - 1)) << 1;
+		for (int i = 0; i < rings.length; i++) {
+			rings[i] = new Ring(capacity);
+		}
+		setName(NAME);
+	}
+
+	@Override
+	protected void append(ILoggingEvent event) {
+		IThrowableProxy throwableProxy = event.getThrowableProxy();
+		String throwable = null;
+		if (throwableProxy != null) {
+			throwable = ThrowableProxyUtil.asString(throwableProxy);
+			if (throwable.length() > MAX_THROWABLE_LENGTH) {
+				throwable = throwable.substring(0, MAX_THROWABLE_LENGTH);
+			}
+		}
+
+		TailEvent tailEvent = new TailEvent(
+				sequence.incrementAndGet(),
+				Instant.ofEpochMilli(event.getTimeStamp()),
+				event.getLevel().levelStr,
+				event.getLoggerName(),
+				event.getThreadName(),
+				event.getFormattedMessage(),
+				event.getMDCPropertyMap().get("correlationId"),
+				throwable);
+
+		rings[levelIndex(event.getLevel())].add(tailEvent);
+
+		for (TailListener listener : listeners) {
+			listener.onEvent(tailEvent);
+		}
+	}
+
+	/**
+	 * Últimos {@code limit} eventos con nivel igual o superior a
+	 * {@code minLevel}, del más reciente al más antiguo
+	 */
+	public List<TailEvent> recent(Level minLevel, int limit, Predicate<TailEvent> filter) {
+		List<TailEvent> events = new ArrayList<>();
+		for (int i = levelIndex(minLevel); i < rings.length; i++) {
+			rings[i].collectRecent(limit, filter, events);
+		}
+		events.sort(Comparator.comparingLong(TailEvent::sequence).reversed());
+		return events.size() > limit ? events.subList(0, limit) : events;
+	}
+
+	public void addListener(TailListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(TailListener listener) {
+		listeners.remove(listener);
+	}
+
+	public int getCapacityPerLevel() {
+		return rings[0].slots.length();
+	}
+
+	public static int levelIndex(Level level) {
+		int value = level.toInt();
+		if (value >= Level.ERROR_INT) {
+			return 4;
+		}
+		if (value >= Level.WARN_INT) {
+			return 3;
+		}
+		if (value >= Level.INFO_INT) {
+			return 2;
+		}
+		return value >= Level.DEBUG_INT ? 1 : 0;
+	}
+
+	public static Level levelAt(int index) {
+		return LEVELS[index];
+	}
+}
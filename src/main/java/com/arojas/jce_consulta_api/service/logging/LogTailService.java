@@ -0,0 +1,238 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.arojas.jce_consulta_api.service.logging.LogTailAppender.TailEvent;
+import com.arojas.jce_consulta_api.service.logging.LogTailAppender.TailListener;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author arojas
+ *         * Registra {@link LogTailAppender} en el logger raíz y expone los
+ *         eventos recientes y el tail en vivo por SSE
+ *         * Cada visor tiene una cola acotada, filtrada en el servidor por
+ *         nivel y fuente; el appender solo hace offer y, si la cola está
+ *         llena, el evento se descarta y se informa al visor
+ *         * Cada visor envía desde su propio hilo virtual, de modo que un
+ *         cliente lento no frena a los demás ni al hilo que registra el log
+ *         * El cupo de visores se reserva con un semáforo antes de crear el
+ *         visor y se libera al cerrarlo, así conexiones simultáneas no
+ *         superan max-subscribers
+ */
+@Component
+@Slf4j
+public class LogTailService {
+
+	private static final int SEND_BATCH = 200;
+	private static final long HEARTBEAT_MS = 15_000;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final MeterRegistry meterRegistry;
+
+	@Value("${app.logging.tail.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.logging.tail.capacity-per-level:1024}")
+	private int capacityPerLevel;
+
+	@Value("${app.logging.tail.max-subscribers:10}")
+	private int maxSubscribers;
+
+	@Value("${app.logging.tail.subscriber-queue-size:1000}")
+	private int subscriberQueueSize;
+
+	@Value("${app.logging.tail.session-timeout-ms:1800000}")
+	private long sessionTimeoutMs;
+
+	private LogTailAppender appender;
+	private Semaphore subscriberSlots;
+
+	/**
+	 * Visor conectado: filtro, cola acotada y eventos descartados por
+	 * desbordamiento
+	 */
+	private final class Subscriber implements TailListener {
+
+		private final Predicate<TailEvent> filter;
+		private final BlockingQueue<TailEvent> queue;
+		private final SseEmitter emitter;
+		private final AtomicLong dropped = new AtomicLong();
+		private final AtomicBoolean active = new AtomicBoolean(true);
+
+		Subscriber(Predicate<TailEvent> filter, SseEmitter emitter) {
+			this.filter = filter;
+			this.queue = new ArrayBlockingQueue<>(subscriberQueueSize);
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void onEvent(TailEvent event) {
+			if (active.get() && filter.test(event) && !queue.offer(event)) {
+				dropped.incrementAndGet();
+			}
+		}
+
+		void run() {
+			List<TailEvent> batch = new ArrayList<>(SEND_BATCH);
+			try {
+				while (active.get()) {
+					TailEvent first = queue.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+					if (first == null) {
+						emitter.send(SseEmitter.event().comment("heartbeat"));
+						continue;
+					}
+					batch.add(first);
+					queue.drainTo(batch, SEND_BATCH - 1);
+					emitter.send(SseEmitter.event().name("logs").data(batch));
+					batch.clear();
+
+					long lost = dropped.getAndSet(0);
+					if (lost > 0) {
+						emitter.send(SseEmitter.event().name("dropped").data(Map.of("count", lost)));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException | IllegalStateException e) {
+				log.debug("Visor de logs desconectado: {}", e.getMessage());
+			} finally {
+				close();
+			}
+		}
+
+		void close() {
+			if (!active.compareAndSet(true, false)) {
+				return;
+			}
+			appender.removeListener(this);
+			subscribers.remove(this);
+			subscriberSlots.release();
+			emitter.complete();
+		}
+	}
+
+	public LogTailService(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void install() {
+		if (!enabled || !(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+			return;
+		}
+
+		subscriberSlots = new Semaphore(maxSubscribers);
+		appender = new LogTailAppender(capacityPerLevel);
+		appender.setContext(context);
+		appender.start();
+		context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).addAppender(appender);
+
+		Gauge.builder("app.logging.tail.subscribers", subscribers, Set::size)
+				.description("Visores conectados al tail de logs")
+				.register(meterRegistry);
+		log.info("Tail de logs en memoria activo ({} eventos por nivel)", appender.getCapacityPerLevel());
+	}
+
+	@PreDestroy
+	public void uninstall() {
+		for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+			subscriber.close();
+		}
+		if (appender != null && LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+			Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+			root.detachAppender(appender);
+			appender.stop();
+		}
+	}
+
+	public boolean isEnabled() {
+		return appender != null;
+	}
+
+	/**
+	 * Últimos eventos con nivel mínimo y, opcionalmente, prefijo de logger
+	 */
+	public List<TailEvent> recent(String minLevel, String source, int limit) {
+		if (appender == null) {
+			return List.of();
+		}
+		return appender.recent(Level.toLevel(minLevel, Level.INFO), limit, sourceFilter(source));
+	}
+
+	/**
+	 * Abre un tail en vivo filtrado por nivel mínimo y prefijo de logger
+	 */
+	public SseEmitter subscribe(String minLevel, String source) {
+		if (appender == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tail de logs deshabilitado");
+		}
+		if (!subscriberSlots.tryAcquire()) {
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Demasiados visores de logs conectados");
+		}
+
+		// Desde aquí el cupo es del visor: lo libera su close()
+		int minLevelIndex = LogTailAppender.levelIndex(Level.toLevel(minLevel, Level.INFO));
+		Predicate<TailEvent> sourcePredicate = sourceFilter(source);
+		Predicate<TailEvent> filter = event -> LogTailAppender.levelIndex(Level.toLevel(event.level())) >= minLevelIndex
+				&& sourcePredicate.test(event);
+
+		SseEmitter emitter = new SseEmitter(sessionTimeoutMs);
+		Subscriber subscriber = new Subscriber(filter, emitter);
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(error -> subscriber.close());
+
+		subscribers.add(subscriber);
+		appender.addListener(subscriber);
+		Thread.ofVirtual().name("log-tail-", subscribers.size()).start(subscriber::run);
+		return emitter;
+	}
+
+	public Map<String, Object> getStatus() {
+		return Map.of(
+				"enabled", isEnabled(),
+				"capacityPerLevel", appender != null ? appender.getCapacityPerLevel() : 0,
+				"subscribers", subscribers.size(),
+				"maxSubscribers", maxSubscribers);
+	}
+
+	private static Predicate<TailEvent> sourceFilter(String source) {
+		if (source == null || source.isBlank()) {
+			return event -> true;
+		}
+		return event -> event.logger() != null && event.logger().startsWith(source);
+	}
+}
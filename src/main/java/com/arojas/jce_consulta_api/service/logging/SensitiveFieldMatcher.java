@@ -0,0 +1,136 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ *
+ * @author arojas
+ *         * Autómata Aho-Corasick sobre nombres de campos sensibles (ASCII,
+ *         sin distinguir mayúsculas)
+ *         * Se construye una sola vez; la búsqueda es un único recorrido del
+ *         texto sin crear objetos
+ */
+final class SensitiveFieldMatcher {
+
+	private static final int ALPHABET = 128;
+	private static final int ROOT = 0;
+
+	private final String[] fields;
+	private final int[][] transitions;
+	/** Patrones que terminan en cada estado, del más largo al más corto */
+	private final int[][] outputs;
+
+	SensitiveFieldMatcher(String... fields) {
+		this.fields = fields.clone();
+
+		List<int[]> gotoTable = new ArrayList<>();
+		List<List<Integer>> outputLists = new ArrayList<>();
+		gotoTable.add(newState());
+		outputLists.add(new ArrayList<>());
+
+		// Trie
+		for (int p = 0; p < fields.length; p++) {
+			int state = ROOT;
+			for (char c : fields[p].toCharArray()) {
+				int symbol = fold(c);
+				if (gotoTable.get(state)[symbol] < 0) {
+					gotoTable.get(state)[symbol] = gotoTable.size();
+					gotoTable.add(newState());
+					outputLists.add(new ArrayList<>());
+				}
+				state = gotoTable.get(state)[symbol];
+			}
+			outputLists.get(state).add(p);
+		}
+
+		// Enlaces de fallo (BFS) y cierre de transiciones
+		int[] failure = new int[gotoTable.size()];
+		Queue<Integer> queue = new ArrayDeque<>();
+		int[] root = gotoTable.get(ROOT);
+		for (int symbol = 0; symbol < ALPHABET; symbol++) {
+			if (root[symbol] < 0) {
+				root[symbol] = ROOT;
+			} else {
+				failure[root[symbol]] = ROOT;
+				queue.add(root[symbol]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			outputLists.get(state).addAll(outputLists.get(failure[state]));
+			int[] row = gotoTable.get(state);
+			for (int symbol = 0; symbol < ALPHABET; symbol++) {
+				int next = row[symbol];
+				if (next < 0) {
+					row[symbol] = gotoTable.get(failure[state])[symbol];
+				} else {
+					failure[next] = gotoTable.get(failure[state])[symbol];
+					queue.add(next);
+				}
+			}
+		}
+
+		this.transitions = gotoTable.toArray(new int[0][]);
+		this.outputs = new int[outputLists.size()][];
+		for (int s = 0; s < outputLists.size(); s++) {
+			outputs[s] = outputLists.get(s).stream()
+					.sorted(Comparator.comparingInt((Integer p) -> fields[p].length()).reversed())
+					.mapToInt(Integer::intValue)
+					.toArray();
+		}
+	}
+
+	int initialState() {
+		return ROOT;
+	}
+
+	int next(int state, char c) {
+		return c < ALPHABET ? transitions[state][fold(c)] : ROOT;
+	}
+
+	/**
+	 * Índices de los patrones que terminan en {@code state}, del más largo al
+	 * más corto
+	 */
+	int[] matchesAt(int state) {
+		return outputs[state];
+	}
+
+	String field(int pattern) {
+		return fields[pattern];
+	}
+
+	/**
+	 * Indica si algún campo sensible aparece en el texto
+	 */
+	boolean containsAny(CharSequence text) {
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = next(state, text.charAt(i));
+			if (outputs[state].length > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] newState() {
+		int[] row = new int[ALPHABET];
+		Arrays.fill(row, -1);
+		return row;
+	}
+
+	private static int fold(char c) {
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.arojas.jce_consulta_api.util.TokenHashUtils;
+
+/**
+ *
+ * @author arojas
+ *         * Huella estable de una excepción: tipos de la cadena de causas y
+ *         los primeros frames de la causa raíz, normalizados
+ *         * Se omiten frames de reflexión y proxies, y se quitan los sufijos
+ *         generados (CGLIB, lambdas, $Proxy) para que la misma falla tenga la
+ *         misma huella entre reinicios
+ *         * Los números de línea son opcionales: sin ellos la huella
+ *         sobrevive a cambios menores del código
+ */
+@Component
+public class StackTraceFingerprinter {
+
+	private static final Pattern GENERATED_SUFFIX = Pattern
+			.compile("\\$\\$(SpringCGLIB|EnhancerBySpringCGLIB|Lambda)[^.]*|\\$Proxy\\d+|\\$\\d+$");
+
+	private static final String[] SKIPPED_PREFIXES = {
+			"java.lang.reflect.", "jdk.internal.reflect.", "sun.reflect.", "org.springframework.aop.",
+			"org.springframework.cglib.", "jdk.proxy" };
+
+	@Value("${app.logging.fingerprint.frames:5}")
+	private int frames;
+
+	@Value("${app.logging.fingerprint.include-line-numbers:false}")
+	private boolean includeLineNumbers;
+
+	/**
+	 * Huella hexadecimal de 32 caracteres, o null si no hay excepción
+	 */
+	public String fingerprint(Throwable throwable) {
+		if (throwable == null) {
+			return null;
+		}
+
+		StringBuilder key = new StringBuilder(256);
+		Throwable root = throwable;
+		Map<Throwable, Boolean> seen = new IdentityHashMap<>();
+		for (Throwable current = throwable; current != null && seen.put(current, Boolean.TRUE) == null; current = current
+				.getCause()) {
+			key.append(normalize(current.getClass().getName())).append('>');
+			root = current;
+		}
+
+		int added = 0;
+		for (StackTraceElement frame : root.getStackTrace()) {
+			if (added >= frames) {
+				break;
+			}
+			if (isSkipped(frame.getClassName())) {
+				continue;
+			}
+			key.append('\n').append(normalize(frame.getClassName())).append('.').append(frame.getMethodName());
+			if (includeLineNumbers) {
+				key.append(':').append(frame.getLineNumber());
+			}
+			added++;
+		}
+
+		return TokenHashUtils.toHex(TokenHashUtils.sha256(key.toString())).substring(0, 32);
+	}
+
+	private static boolean isSkipped(String className) {
+		for (String prefix : SKIPPED_PREFIXES) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return className.contains("$$");
+	}
+
+	private static String normalize(String className) {
+		return className.indexOf('$') < 0 ? className : GENERATED_SUFFIX.matcher(className).replaceAll("");
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.arojas.jce_consulta_api.exception.pagination.InvalidCursorException;
+
+/**
+ *
+ * @author arojas
+ *         * Codifica y decodifica los tokens de continuación de la paginación
+ *         por cursor (keyset)
+ *         * El token es opaco para el cliente: Base64 URL-safe de la clave de
+ *         orden y el id de la última fila devuelta
+ */
+public final class CursorCodec {
+
+	private static final String VERSION = "v1";
+	private static final char SEPARATOR = '\u001F';
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private CursorCodec() {
+	}
+
+	/**
+	 * Posición decodificada: clave de orden y id de desempate
+	 */
+	public record Cursor(String sortKey, String id) {
+
+		public LocalDateTime sortKeyAsDateTime() {
+			try {
+				return LocalDateTime.parse(sortKey);
+			} catch (DateTimeParseException e) {
+				throw new InvalidCursorException("Cursor de paginación inválido");
+			}
+		}
+
+		public long idAsLong() {
+			try {
+				return Long.parseLong(id);
+			} catch (NumberFormatException e) {
+				throw new InvalidCursorException("Cursor de paginación inválido");
+			}
+		}
+	}
+
+	public static String encode(Object sortKey, Object id) {
+		String raw = VERSION + SEPARATOR + sortKey + SEPARATOR + id;
+		return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodifica un token; {@code null} o vacío indica la primera página
+	 */
+	public static Cursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+
+		String raw;
+		try {
+			raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException("Cursor de paginación inválido");
+		}
+
+		String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+		if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[1].isEmpty() || parts[2].isEmpty()) {
+			throw new InvalidCursorException("Cursor de paginación inválido");
+		}
+		return new Cursor(parts[1], parts[2]);
+	}
+}
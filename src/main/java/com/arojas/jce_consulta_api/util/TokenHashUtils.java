@@ -0,0 +1,56 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ *
+ * @author arojas
+ *         * Generación y hashing de tokens opacos (refresh tokens)
+ *         * Solo el hash SHA-256 se persiste o se usa como clave de caché
+ */
+public final class TokenHashUtils {
+
+	private static final int TOKEN_BYTES = 32;
+	private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+	private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private TokenHashUtils() {
+	}
+
+	/**
+	 * Genera un token aleatorio de 256 bits codificado en Base64 URL-safe
+	 */
+	public static String generateToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		SECURE_RANDOM.nextBytes(bytes);
+		return TOKEN_ENCODER.encodeToString(bytes);
+	}
+
+	/**
+	 * Calcula el hash SHA-256 (32 bytes) de un token
+	 */
+	public static byte[] sha256(String token) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 no disponible", e);
+		}
+	}
+
+	/**
+	 * Representación hexadecimal de un hash, usada como clave de caché
+	 */
+	public static String toHex(byte[] hash) {
+		return HexFormat.of().formatHex(hash);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.util;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+
+/**
+ *
+ * @author arojas
+ *         * Identificadores de traza y propagación del MDC entre hilos
+ *         * Los ids son 64 bits aleatorios en hexadecimal (16 caracteres) de
+ *         ThreadLocalRandom: sin SecureRandom ni UUID, solo deben ser únicos
+ *         en la práctica, no impredecibles
+ *         * {@link #wrap(Runnable)} copia el MDC del hilo que crea la tarea y
+ *         lo restaura en el que la ejecuta; lo usan el TaskDecorator de los
+ *         executors y los saltos CompletableFuture al pool común
+ *         * Junto con el MDC se captura el snapshot de context-propagation
+ *         (observación y span actuales), de modo que el trabajo asíncrono
+ *         cuelga del span del request en lugar de abrir una traza nueva
+ */
+public final class TraceContext {
+
+	public static final String CORRELATION_ID = "correlationId";
+	public static final String REQUEST_ID = "requestId";
+	public static final String SESSION_ID = "sessionId";
+	public static final String USER_EMAIL = "userEmail";
+	/** Lo escribe Micrometer Tracing en el MDC mientras hay un span activo */
+	public static final String TRACE_ID = "traceId";
+
+	public static final String CORRELATION_HEADER = "X-Correlation-ID";
+	public static final String REQUEST_HEADER = "X-Request-ID";
+
+	/** Ids recibidos en headers: mismo alfabeto y largo de columna que los propios */
+	private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,50}");
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+	private TraceContext() {
+	}
+
+	/**
+	 * Nuevo id de 16 caracteres hexadecimales
+	 */
+	public static String newId() {
+		long value = ThreadLocalRandom.current().nextLong();
+		char[] chars = new char[16];
+		for (int i = 15; i >= 0; i--) {
+			chars[i] = HEX[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * El id recibido si es válido; si no, uno nuevo
+	 */
+	public static String idOrNew(String candidate) {
+		return candidate != null && VALID_ID.matcher(candidate).matches() ? candidate : newId();
+	}
+
+	public static Runnable wrap(Runnable task) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		ContextSnapshot snapshot = SNAPSHOTS.captureAll();
+		return () -> {
+			Map<String, String> previous = MDC.getCopyOfContextMap();
+			set(context);
+			try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+				task.run();
+			} finally {
+				set(previous);
+			}
+		};
+	}
+
+	public static <T> Supplier<T> wrap(Supplier<T> task) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		ContextSnapshot snapshot = SNAPSHOTS.captureAll();
+		return () -> {
+			Map<String, String> previous = MDC.getCopyOfContextMap();
+			set(context);
+			try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+				return task.get();
+			} finally {
+				set(previous);
+			}
+		};
+	}
+
+	private static void set(Map<String, String> context) {
+		if (context == null) {
+			MDC.clear();
+		} else {
+			MDC.setContextMap(context);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package com.arojas.jce_consulta_api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.repository.LogEntrySpecifications.Criteria;
+import com.arojas.jce_consulta_api.service.logging.LogPayloadCodec;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifica con EXPLAIN sobre MySQL real que la consulta que genera Hibernate
+ * para cada combinación de filtros usa el índice que elige
+ * {@link LogEntrySpecifications#leadingIndex} y no recorre la tabla completa.
+ * La tabla se crea con el DDL de la entidad y se llena con una distribución
+ * parecida a la de producción: pocos WARN/ERROR, cientos de fuentes y miles
+ * de usuarios y sesiones.
+ *
+ * @author arojas
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LogEntrySpecificationsPlanTest {
+
+	private static final int ROWS = 20_000;
+	private static final int LIMIT = 50;
+	private static final LocalDateTime DAY_START = LocalDateTime.of(2025, 1, 5, 0, 0);
+	private static final LocalDateTime DAY_END = DAY_START.plusDays(1);
+
+	@Container
+	private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0.36");
+
+	private static final SqlCapture SQL = new SqlCapture();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static LocalContainerEntityManagerFactoryBean factoryBean;
+
+	@BeforeAll
+	static void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(),
+				MYSQL.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("logPayloadCodec",
+				new LogPayloadCodec(jdbcTemplate, new SimpleMeterRegistry()));
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(AvailableSettings.HBM2DDL_AUTO, "create");
+		properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+				"org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+		properties.put(AvailableSettings.STATEMENT_INSPECTOR, SQL);
+		properties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+
+		factoryBean = new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		factoryBean.setManagedTypes(PersistenceManagedTypes.of(LogEntry.class.getName()));
+		factoryBean.setPersistenceUnitName("logging");
+		factoryBean.setJpaPropertyMap(properties);
+		factoryBean.afterPropertiesSet();
+
+		seed();
+	}
+
+	@AfterAll
+	static void tearDown() {
+		if (factoryBean != null) {
+			factoryBean.destroy();
+		}
+	}
+
+	static Stream<Arguments> searches() {
+		return Stream.of(
+				Arguments.of("solo rango", criteria(null, null, null, null, null)),
+				Arguments.of("nivel frecuente", criteria(LogLevel.INFO, null, null, null, null)),
+				Arguments.of("nivel poco frecuente", criteria(LogLevel.ERROR, null, null, null, null)),
+				Arguments.of("fuente por prefijo", criteria(null, null, "Service42", null, null)),
+				Arguments.of("fuente con comodín inicial", criteria(null, null, "*42", null, null)),
+				Arguments.of("usuario", criteria(LogLevel.INFO, "user17@jce.gob.do", null, null, null)),
+				Arguments.of("sesión", criteria(null, "user17@jce.gob.do", null, null, "sess-17")),
+				Arguments.of("correlación", criteria(LogLevel.ERROR, null, "Service4", "corr-7000", null)));
+	}
+
+	static Stream<Arguments> selectiveSearches() {
+		return searches().filter(arguments -> {
+			String index = LogEntrySpecifications.leadingIndex((Criteria) arguments.get()[1]);
+			return !LogEntrySpecifications.IDX_TIMESTAMP.equals(index);
+		});
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("searches")
+	void hintedQueryUsesLeadingIndex(String name, Criteria criteria) {
+		Map<String, Object> plan = explain(criteria, true);
+
+		assertThat(plan.get("key")).as("plan %s", plan).isEqualTo(LogEntrySpecifications.leadingIndex(criteria));
+		assertThat(plan.get("type")).as("plan %s", plan).isNotEqualTo("ALL");
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("selectiveSearches")
+	void selectiveFiltersAvoidFullScanWithoutHints(String name, Criteria criteria) {
+		Map<String, Object> plan = explain(criteria, false);
+
+		assertThat(plan.get("key")).as("plan %s", plan).isNotNull();
+		assertThat(plan.get("type")).as("plan %s", plan).isNotEqualTo("ALL");
+	}
+
+	/**
+	 * Ejecuta la búsqueda real y repite su SQL con EXPLAIN y los mismos
+	 * parámetros
+	 */
+	private static Map<String, Object> explain(Criteria criteria, boolean indexHints) {
+		EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			LogEntrySearchRepositoryImpl repository = new LogEntrySearchRepositoryImpl();
+			ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+			ReflectionTestUtils.setField(repository, "indexHints", indexHints);
+
+			SQL.reset();
+			repository.scroll(LogEntrySpecifications.of(criteria), LogEntrySpecifications.leadingIndex(criteria),
+					LIMIT);
+		} finally {
+			entityManager.close();
+		}
+
+		String sql = SQL.last();
+		assertThat(sql).as("SQL capturado").isNotNull();
+		assertThat(sql.toLowerCase().contains("use index")).as(sql).isEqualTo(indexHints);
+
+		List<Object> parameters = parameters(criteria);
+		long placeholders = sql.chars().filter(c -> c == '?').count();
+		if (placeholders == parameters.size() + 1) {
+			parameters.add(LIMIT);
+		}
+		assertThat(placeholders).as(sql).isEqualTo(parameters.size());
+
+		return jdbcTemplate.queryForMap("EXPLAIN " + sql, parameters.toArray());
+	}
+
+	/**
+	 * Parámetros en el orden en que {@link LogEntrySpecifications#of} agrega
+	 * los predicados
+	 */
+	private static List<Object> parameters(Criteria criteria) {
+		List<Object> parameters = new ArrayList<>(List.of(criteria.start(), criteria.end()));
+		if (criteria.correlationId() != null) {
+			parameters.add(criteria.correlationId());
+		}
+		if (criteria.sessionId() != null) {
+			parameters.add(criteria.sessionId());
+		}
+		if (criteria.userEmail() != null) {
+			parameters.add(criteria.userEmail());
+		}
+		if (criteria.source() != null) {
+			String source = criteria.source();
+			parameters.add(source.startsWith("*") ? "%" + source.substring(1) : source + "%");
+		}
+		if (criteria.level() != null) {
+			parameters.add(criteria.level().name());
+		}
+		return parameters;
+	}
+
+	private static Criteria criteria(LogLevel level, String userEmail, String source, String correlationId,
+			String sessionId) {
+		return new Criteria(level, userEmail, source, null, DAY_START, DAY_END, correlationId, sessionId, null);
+	}
+
+	/**
+	 * Una fila por minuto a partir del 1 de enero (unos 14 días): 2% WARN o
+	 * ERROR, 500 fuentes, 2000 usuarios, 5000 sesiones y un correlation id
+	 * por fila
+	 */
+	private static void seed() {
+		jdbcTemplate.execute("SET SESSION cte_max_recursion_depth = " + ROWS);
+		jdbcTemplate.execute("""
+				INSERT INTO application_logs (timestamp, level, source, message, user_email, session_id,
+					correlation_id, operation, environment, archived)
+				WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < %d)
+				SELECT TIMESTAMP('2025-01-01') + INTERVAL n MINUTE,
+					CASE WHEN n %% 100 = 0 THEN 'ERROR' WHEN n %% 100 = 1 THEN 'WARN'
+						WHEN n %% 3 = 0 THEN 'DEBUG' ELSE 'INFO' END,
+					CONCAT('Service', n %% 500),
+					'mensaje de prueba',
+					CONCAT('user', n %% 2000, '@jce.gob.do'),
+					CONCAT('sess-', n %% 5000),
+					CONCAT('corr-', n),
+					CONCAT('op', n %% 50),
+					'TEST',
+					FALSE
+				FROM seq
+				""".formatted(ROWS));
+		jdbcTemplate.execute("ANALYZE TABLE application_logs");
+	}
+
+	/**
+	 * Guarda la última consulta sobre application_logs que prepara Hibernate
+	 */
+	private static final class SqlCapture implements StatementInspector {
+
+		private volatile String last;
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.toLowerCase().contains("from application_logs")) {
+				last = sql;
+			}
+			return sql;
+		}
+
+		void reset() {
+			last = null;
+		}
+
+		String last() {
+			return last;
+		}
+	}
+}
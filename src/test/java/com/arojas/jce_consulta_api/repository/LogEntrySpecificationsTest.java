@@ -0,0 +1,147 @@
+package com.arojas.jce_consulta_api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.repository.LogEntrySpecifications.Criteria;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Elección del índice que encabeza el plan y forma de los predicados: solo
+ * los filtros informados, LIKE por prefijo con comodines escapados y
+ * {@code *} traducido a {@code %}. Los planes reales se verifican con
+ * EXPLAIN en {@link LogEntrySpecificationsPlanTest}.
+ *
+ * @author arojas
+ */
+class LogEntrySpecificationsTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 5, 0, 0);
+	private static final LocalDateTime END = START.plusDays(1);
+
+	private Root<LogEntry> root;
+	private CriteriaQuery<?> query;
+	private CriteriaBuilder cb;
+	@SuppressWarnings("rawtypes")
+	private Path path;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		root = mock(Root.class);
+		query = mock(CriteriaQuery.class);
+		cb = mock(CriteriaBuilder.class);
+		path = mock(Path.class);
+		when(root.get(anyString())).thenReturn(path);
+	}
+
+	// ========== ÍNDICE PRINCIPAL ==========
+
+	@Test
+	void prefersMostSelectiveFilter() {
+		assertThat(LogEntrySpecifications.leadingIndex(
+				criteria(LogLevel.ERROR, "a@b.com", "Cedula", "corr-1", "sess-1")))
+				.isEqualTo(LogEntrySpecifications.IDX_CORRELATION);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.ERROR, "a@b.com", "Cedula", null, "sess-1")))
+				.isEqualTo(LogEntrySpecifications.IDX_SESSION);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.ERROR, "a@b.com", "Cedula", null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_USER);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.ERROR, null, "Cedula", null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_SOURCE);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.ERROR, null, null, null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_LEVEL);
+	}
+
+	@Test
+	void skipsSourceIndexForLeadingWildcard() {
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.WARN, null, "*Service", null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_LEVEL);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(null, null, "*Service", null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_TIMESTAMP);
+	}
+
+	@Test
+	void fallsBackToTimestampForFrequentLevelsAndBlankFilters() {
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(LogLevel.INFO, null, null, null, null)))
+				.isEqualTo(LogEntrySpecifications.IDX_TIMESTAMP);
+		assertThat(LogEntrySpecifications.leadingIndex(criteria(null, " ", "", " ", "")))
+				.isEqualTo(LogEntrySpecifications.IDX_TIMESTAMP);
+	}
+
+	// ========== PREDICADOS ==========
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void onlyFiltersByDateRangeWhenNothingElseIsGiven() {
+		toPredicate(criteria(null, null, " ", null, null));
+
+		verify(cb).between(path, START, END);
+		verify(root, never()).get("source");
+		verify(root, never()).get("level");
+		verify(root, never()).get("archived");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void usesEqualityForIdentifiersAndLevel() {
+		toPredicate(new Criteria(LogLevel.ERROR, "a@b.com", null, null, START, END, "corr-1", "sess-1", false));
+
+		verify(cb).equal(path, "corr-1");
+		verify(cb).equal(path, "sess-1");
+		verify(cb).equal(path, "a@b.com");
+		verify(cb).equal(path, LogLevel.ERROR);
+		verify(cb).equal(path, false);
+		verify(cb, never()).lower(path);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void matchesByEscapedPrefix() {
+		toPredicate(criteria(null, null, " Cedula_Svc%\\ ", null, null));
+
+		verify(cb).like(path, "Cedula\\_Svc\\%\\\\%", '\\');
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void translatesWildcards() {
+		toPredicate(new Criteria(null, null, "*Service", "consulta*cedula", START, END, null, null, null));
+
+		verify(cb).like(path, "%Service", '\\');
+		verify(cb).like(path, "consulta%cedula", '\\');
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void beforeComparesTimestampThenId() {
+		LogEntrySpecifications.before(START, 42L).toPredicate(root, query, cb);
+
+		verify(cb).lessThan(path, START);
+		verify(cb).equal(path, START);
+		verify(cb).lessThan(path, 42L);
+	}
+
+	private void toPredicate(Criteria criteria) {
+		LogEntrySpecifications.of(criteria).toPredicate(root, query, cb);
+	}
+
+	private static Criteria criteria(LogLevel level, String userEmail, String source, String correlationId,
+			String sessionId) {
+		return new Criteria(level, userEmail, source, null, START, END, correlationId, sessionId, null);
+	}
+}
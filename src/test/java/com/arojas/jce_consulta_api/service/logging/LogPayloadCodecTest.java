@@ -0,0 +1,127 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ *
+ * @author arojas
+ *         * Compresión LZ4 con cabecera, valores sin comprimir por debajo del
+ *         umbral, lectura de filas antiguas en texto plano y desactivación
+ *         cuando las columnas siguen siendo TEXT
+ */
+class LogPayloadCodecTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private SimpleMeterRegistry meterRegistry;
+	private LogPayloadCodec codec;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		meterRegistry = new SimpleMeterRegistry();
+		codec = new LogPayloadCodec(jdbcTemplate, meterRegistry);
+		ReflectionTestUtils.setField(codec, "enabled", true);
+		ReflectionTestUtils.setField(codec, "thresholdBytes", 64);
+	}
+
+	@Test
+	void compressesLargeValuesAndDecodesThem() {
+		String stackTrace = "java.lang.IllegalStateException: falló\n"
+				+ "\tat com.arojas.jce_consulta_api.service.CedulaService.consultar(CedulaService.java:42)\n".repeat(50);
+
+		byte[] stored = codec.encode(stackTrace);
+
+		assertThat(stored[0]).isEqualTo((byte) 0xFF);
+		assertThat(stored.length).isLessThan(stackTrace.getBytes(StandardCharsets.UTF_8).length);
+		assertThat(codec.decode(stored)).isEqualTo(stackTrace);
+		assertThat(meterRegistry.get("app.logging.payload.compressed").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void storesSmallValuesAsPlainUtf8() {
+		String value = "{\"cédula\":\"001\"}";
+
+		byte[] stored = codec.encode(value);
+
+		assertThat(stored).isEqualTo(value.getBytes(StandardCharsets.UTF_8));
+		assertThat(codec.decode(stored)).isEqualTo(value);
+	}
+
+	@Test
+	void handlesNulls() {
+		assertThat(codec.encode(null)).isNull();
+		assertThat(codec.decode(null)).isNull();
+	}
+
+	@Test
+	void decodesLegacyTextRows() {
+		String legacy = "payload guardado antes de la compresión";
+
+		assertThat(codec.decode(legacy.getBytes(StandardCharsets.UTF_8))).isEqualTo(legacy);
+	}
+
+	@Test
+	void rejectsUnknownCodec() {
+		byte[] stored = { (byte) 0xFF, 9, 0, 0, 0, 4, 1, 2, 3, 4 };
+
+		assertThatThrownBy(() -> codec.decode(stored)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void disablesCompressionWhileColumnsAreText() {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(LogPartitionManager.TABLE)))
+				.thenReturn(List.of("request_payload", "message"));
+
+		codec.checkColumns();
+
+		assertThat(codec.isCompressionActive()).isFalse();
+		verify(jdbcTemplate, never()).execute(anyString());
+		String large = "x".repeat(1024);
+		assertThat(codec.encode(large)).isEqualTo(large.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void migratesTextColumnsWhenEnabled() {
+		ReflectionTestUtils.setField(codec, "migrateColumns", true);
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(LogPartitionManager.TABLE)))
+				.thenReturn(List.of("stack_trace"), List.of());
+
+		codec.checkColumns();
+
+		verify(jdbcTemplate).execute("ALTER TABLE " + LogPartitionManager.TABLE + " MODIFY stack_trace MEDIUMBLOB NULL");
+		assertThat(codec.isCompressionActive()).isTrue();
+	}
+
+	@Test
+	void disablesCompressionWhenColumnsCannotBeChecked() {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(LogPartitionManager.TABLE)))
+				.thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+		codec.checkColumns();
+
+		assertThat(codec.isCompressionActive()).isFalse();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author arojas
+ *         * Capacidad, orden FIFO, rechazo con el buffer lleno y entrega
+ *         completa con varios productores concurrentes
+ */
+class LogRingBufferTest {
+
+	@Test
+	void roundsCapacityUpToPowerOfTwo() {
+		assertThat(new LogRingBuffer<String>(0).capacity()).isEqualTo(2);
+		assertThat(new LogRingBuffer<String>(5).capacity()).isEqualTo(8);
+		assertThat(new LogRingBuffer<String>(1024).capacity()).isEqualTo(1024);
+	}
+
+	@Test
+	void rejectsOfferWhenFull() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(buffer.offer(i)).isTrue();
+		}
+
+		assertThat(buffer.offer(4)).isFalse();
+		assertThat(buffer.size()).isEqualTo(4);
+	}
+
+	@Test
+	void drainsInInsertionOrderAndRespectsMax() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(8);
+		for (int i = 0; i < 5; i++) {
+			buffer.offer(i);
+		}
+
+		List<Integer> sink = new ArrayList<>();
+		assertThat(buffer.drainTo(sink, 3)).isEqualTo(3);
+		assertThat(sink).containsExactly(0, 1, 2);
+		assertThat(buffer.size()).isEqualTo(2);
+
+		assertThat(buffer.drainTo(sink, 10)).isEqualTo(2);
+		assertThat(sink).containsExactly(0, 1, 2, 3, 4);
+		assertThat(buffer.drainTo(sink, 10)).isZero();
+		assertThat(buffer.size()).isZero();
+	}
+
+	@Test
+	void reusesSlotsAcrossWraparound() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+		List<Integer> sink = new ArrayList<>();
+
+		for (int round = 0; round < 100; round++) {
+			for (int i = 0; i < 4; i++) {
+				assertThat(buffer.offer(round * 4 + i)).isTrue();
+			}
+			assertThat(buffer.offer(-1)).isFalse();
+			sink.clear();
+			assertThat(buffer.drainTo(sink, 4)).isEqualTo(4);
+			assertThat(sink).containsExactly(round * 4, round * 4 + 1, round * 4 + 2, round * 4 + 3);
+		}
+	}
+
+	@Test
+	void deliversEveryElementFromConcurrentProducers() throws Exception {
+		int producers = 4;
+		int perProducer = 50_000;
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(256);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+		try {
+			for (int p = 0; p < producers; p++) {
+				int base = p * perProducer;
+				executor.execute(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for (int i = 0; i < perProducer; i++) {
+						while (!buffer.offer(base + i)) {
+							Thread.onSpinWait();
+						}
+					}
+				});
+			}
+
+			start.countDown();
+			Set<Integer> received = new HashSet<>();
+			List<Integer> sink = new ArrayList<>();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+				sink.clear();
+				buffer.drainTo(sink, 128);
+				for (Integer value : sink) {
+					assertThat(received.add(value)).as("elemento duplicado %s", value).isTrue();
+				}
+			}
+
+			assertThat(received).hasSize(producers * perProducer);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * @author arojas
+ *         * Compara el sanitizador de un solo recorrido con la implementación
+ *         anterior (una expresión regular por campo) sobre mensajes sin datos
+ *         sensibles, payloads JSON con secretos y payloads grandes
+ *         * No forma parte de la suite: se ejecuta con su main desde el IDE o
+ *         con exec:java sobre el classpath de test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogSanitizerBenchmark {
+
+	@Param({ "clean", "secrets", "large" })
+	String payload;
+
+	private final LogSanitizer sanitizer = new LogSanitizer();
+
+	private String input;
+
+	@Setup
+	public void setUp() {
+		input = switch (payload) {
+			case "clean" -> "Consulta de cédula 00112345678 completada en 142 ms para el usuario 42";
+			case "secrets" -> "{\"email\":\"usuario@jce.gob.do\",\"password\":\"s3cr3t!\",\"cedula\":\"00112345678\","
+					+ "\"token\":\"eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiI0MiJ9.abc\",\"phone\":\"809-555-0000\"}";
+			case "large" -> largePayload();
+			default -> throw new IllegalArgumentException(payload);
+		};
+	}
+
+	@Benchmark
+	public String singlePass() {
+		return sanitizer.sanitizeString(input);
+	}
+
+	@Benchmark
+	public String legacyRegex() {
+		return LogSanitizerTest.legacy(input);
+	}
+
+	private static String largePayload() {
+		StringBuilder json = new StringBuilder(16 * 1024).append('[');
+		for (int i = 0; i < 150; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"id\":").append(i)
+					.append(",\"cedula\":\"001").append(String.format("%08d", i))
+					.append("\",\"nombres\":\"JUAN PABLO\",\"apellidos\":\"PEREZ GOMEZ\",\"estado\":\"ACTIVO\"");
+			if (i % 50 == 0) {
+				json.append(",\"authorization\":\"Bearer abc").append(i).append('"');
+			}
+			json.append('}');
+		}
+		return json.append(']').toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(LogSanitizerBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+
+/**
+ *
+ * @author arojas
+ *         * Redacción de campos sensibles en texto y contexto
+ *         * El resultado debe coincidir con el de la implementación anterior
+ *         basada en una expresión regular por campo
+ */
+class LogSanitizerTest {
+
+	private static final String[] LEGACY_FIELDS = {
+			"password", "token", "authorization", "secret", "key", "creditCard", "ssn", "email", "phone"
+	};
+
+	private final LogSanitizer sanitizer = new LogSanitizer();
+
+	@Test
+	void masksJsonField() {
+		assertThat(sanitizer.sanitizeString("{\"password\":\"abc\",\"name\":\"x\"}"))
+				.isEqualTo("{\"password:***MASKED***,\"name\":\"x\"}");
+	}
+
+	@Test
+	void masksCaseInsensitivelyUsingConfiguredSpelling() {
+		assertThat(sanitizer.sanitizeString("Password = hunter2, next"))
+				.isEqualTo("password:***MASKED***, next");
+		assertThat(sanitizer.sanitizeString("creditCard: 4111111111111111}"))
+				.isEqualTo("creditCard:***MASKED***}");
+	}
+
+	@Test
+	void masksFieldEmbeddedInLongerName() {
+		assertThat(sanitizer.sanitizeString("apiKey=xyz")).isEqualTo("apikey:***MASKED***");
+	}
+
+	@Test
+	void returnsSameInstanceWhenNothingMatches() {
+		String input = "keyboard layout sin datos sensibles";
+
+		assertThat(sanitizer.sanitizeString(input)).isSameAs(input);
+		assertThat(sanitizer.sanitizeString("token=")).isEqualTo("token=");
+		assertThat(sanitizer.sanitizeString(null)).isNull();
+		assertThat(sanitizer.sanitizeString("")).isEmpty();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"user password=secret123 ok",
+			"{\"password\":\"abc\",\"name\":\"x\"}",
+			"Authorization: Bearer abc.def",
+			"Password = hunter2, next",
+			"{\"email\":\"a@b.com\",\"phone\":\"809-555-0000\"}",
+			"token=",
+			"apiKey=xyz",
+			"creditCard: 4111111111111111}",
+			"ssn=\"\"",
+			"hello world",
+			"{\"cedula\":\"00112345678\",\"token\":\"eyJhbGciOi\",\"secret\" : \"s3cr3t\"}"
+	})
+	void matchesLegacyRegexOutput(String input) {
+		assertThat(sanitizer.sanitizeString(input)).isEqualTo(legacy(input));
+	}
+
+	@Test
+	void copiesContextOnlyWhenAKeyIsSensitive() {
+		Map<String, Object> clean = new LinkedHashMap<>();
+		clean.put("cedula", "00112345678");
+		clean.put("durationMs", 12);
+		assertThat(sanitizer.sanitizeContext(clean)).isSameAs(clean);
+
+		Map<String, Object> withSecret = new LinkedHashMap<>(clean);
+		withSecret.put("userEmail", "a@b.com");
+		Map<String, Object> sanitized = sanitizer.sanitizeContext(withSecret);
+
+		assertThat(sanitized).isNotSameAs(withSecret)
+				.containsEntry("userEmail", "***MASKED***")
+				.containsEntry("cedula", "00112345678");
+		assertThat(withSecret).containsEntry("userEmail", "a@b.com");
+	}
+
+	@Test
+	void sanitizesEntryFields() {
+		LogEntry entry = new LogEntry();
+		entry.setMessage("login password=abc");
+		entry.setRequestPayload("{\"token\":\"xyz\"}");
+		entry.setContext(new LinkedHashMap<>(Map.of("secret", "s")));
+
+		sanitizer.sanitize(entry);
+
+		assertThat(entry.getMessage()).isEqualTo("login password:***MASKED***");
+		assertThat(entry.getRequestPayload()).isEqualTo("{\"token:***MASKED***}");
+		assertThat(entry.getContext()).containsEntry("secret", "***MASKED***");
+	}
+
+	/**
+	 * Implementación anterior: una expresión regular por campo
+	 */
+	static String legacy(String input) {
+		String sanitized = input;
+		for (String field : LEGACY_FIELDS) {
+			sanitized = sanitized.replaceAll("(?i)" + field + "\"?\\s*[:=]\\s*\"?[^\\s,}]+",
+					field + ":***MASKED***");
+		}
+		return sanitized;
+	}
+}
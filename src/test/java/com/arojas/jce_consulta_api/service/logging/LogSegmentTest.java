@@ -0,0 +1,122 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.arojas.jce_consulta_api.entity.LogEntry;
+import com.arojas.jce_consulta_api.entity.LogEntry.LogLevel;
+import com.arojas.jce_consulta_api.service.logging.LogSegment.Column;
+import com.arojas.jce_consulta_api.service.logging.LogSegment.Header;
+
+/**
+ *
+ * @author arojas
+ *         * Escritura y lectura de segmentos columnares: pie, columnas
+ *         numéricas, niveles, diccionario de orígenes y valores nulos
+ */
+class LogSegmentTest {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 15, 10, 30, 0, 123_000_000);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writesHeaderThatMatchesRows() throws IOException {
+		Path path = directory.resolve("segment.jlsg");
+
+		Header written = LogSegment.write(path, rows(), Map::toString);
+		Header read = LogSegment.readHeader(path);
+
+		assertThat(Files.exists(directory.resolve("segment.jlsg.tmp"))).isFalse();
+		assertThat(read.rowCount()).isEqualTo(3);
+		assertThat(read.minTimestamp()).isEqualTo(LogSegment.toEpochMillis(BASE));
+		assertThat(read.maxTimestamp()).isEqualTo(LogSegment.toEpochMillis(BASE.plusMinutes(2)));
+		assertThat(read.levelMask()).isEqualTo(written.levelMask());
+		assertThat(read.sources()).containsExactly("AuthService", "CedulaService");
+		assertThat(read.columns()).containsOnlyKeys(Column.values());
+	}
+
+	@Test
+	void readsColumnsBack() throws IOException {
+		Path path = directory.resolve("segment.jlsg");
+		LogSegment.write(path, rows(), Map::toString);
+
+		try (LogSegment.Reader reader = new LogSegment.Reader(LogSegment.readHeader(path))) {
+			assertThat(reader.longs(Column.ID)).containsExactly(1L, 2L, 3L);
+			assertThat(reader.longs(Column.TIMESTAMP)).containsExactly(
+					LogSegment.toEpochMillis(BASE),
+					LogSegment.toEpochMillis(BASE.plusMinutes(1)),
+					LogSegment.toEpochMillis(BASE.plusMinutes(2)));
+			assertThat(reader.longs(Column.EXECUTION_TIME_MS)).containsExactly(15L, Long.MIN_VALUE, 250L);
+			assertThat(reader.levels()).containsExactly((byte) LogLevel.INFO.ordinal(),
+					(byte) LogLevel.WARN.ordinal(), (byte) LogLevel.ERROR.ordinal());
+			assertThat(reader.strings(Column.SOURCE))
+					.containsExactly("AuthService", "CedulaService", "AuthService");
+			assertThat(reader.strings(Column.MESSAGE)).containsExactly("login", "lento", "falló consulta ñ");
+			assertThat(reader.strings(Column.USER_EMAIL)).containsExactly("a@b.com", null, "a@b.com");
+			assertThat(reader.strings(Column.CONTEXT)).containsExactly(null, null, "{cedula=001}");
+			assertThat(reader.strings(Column.ENVIRONMENT)).containsOnly("PRODUCTION");
+		}
+	}
+
+	@Test
+	void headerPrunesByTimeLevelAndSource() throws IOException {
+		Header header = LogSegment.write(directory.resolve("segment.jlsg"), rows(), Map::toString);
+
+		assertThat(header.overlaps(BASE.minusHours(1), BASE)).isTrue();
+		assertThat(header.overlaps(BASE.plusMinutes(2), null)).isTrue();
+		assertThat(header.overlaps(BASE.plusMinutes(3), BASE.plusHours(1))).isFalse();
+		assertThat(header.overlaps(null, BASE.minusSeconds(1))).isFalse();
+
+		assertThat(header.containsLevel(LogLevel.ERROR)).isTrue();
+		assertThat(header.containsLevel(LogLevel.DEBUG)).isFalse();
+		assertThat(header.containsLevel(null)).isTrue();
+
+		assertThat(header.containsSourceLike("cedula")).isTrue();
+		assertThat(header.containsSourceLike("Payment")).isFalse();
+		assertThat(header.containsSourceLike(null)).isTrue();
+	}
+
+	@Test
+	void rejectsFilesWithoutMagic() throws IOException {
+		Path path = directory.resolve("garbage.jlsg");
+		Files.write(path, new byte[64]);
+
+		assertThatThrownBy(() -> LogSegment.readHeader(path)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void convertsTimestampsAsUtcMillis() {
+		long millis = LogSegment.toEpochMillis(BASE);
+
+		assertThat(LogSegment.fromEpochMillis(millis)).isEqualTo(BASE);
+		assertThat(LogSegment.fromEpochMillis(-1)).isEqualTo(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000));
+	}
+
+	private static List<LogEntry> rows() {
+		return List.of(
+				LogEntry.builder().id(1L).timestamp(BASE).level(LogLevel.INFO).source("AuthService")
+						.message("login").userEmail("a@b.com").executionTimeMs(15L).build(),
+				LogEntry.builder().id(2L).timestamp(BASE.plusMinutes(1)).level(LogLevel.WARN)
+						.source("CedulaService").message("lento").build(),
+				LogEntry.builder().id(3L).timestamp(BASE.plusMinutes(2)).level(LogLevel.ERROR)
+						.source("AuthService").message("falló consulta ñ").userEmail("a@b.com")
+						.executionTimeMs(250L).context(Map.of("cedula", "001")).build());
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ *
+ * @author arojas
+ *         * La huella agrupa la misma falla aunque cambien el mensaje, las
+ *         líneas o los nombres generados por proxies y lambdas, y separa
+ *         fallas de distinto tipo u origen
+ */
+class StackTraceFingerprinterTest {
+
+	private StackTraceFingerprinter fingerprinter;
+
+	@BeforeEach
+	void setUp() {
+		fingerprinter = new StackTraceFingerprinter();
+		ReflectionTestUtils.setField(fingerprinter, "frames", 5);
+		ReflectionTestUtils.setField(fingerprinter, "includeLineNumbers", false);
+	}
+
+	@Test
+	void returnsNullWithoutThrowable() {
+		assertThat(fingerprinter.fingerprint(null)).isNull();
+	}
+
+	@Test
+	void producesStableHexFingerprintIgnoringMessage() {
+		String first = fingerprinter.fingerprint(failure(new IllegalStateException("cédula 001"), 10));
+		String second = fingerprinter.fingerprint(failure(new IllegalStateException("cédula 002"), 10));
+
+		assertThat(first).hasSize(32).matches("[0-9a-f]+").isEqualTo(second);
+	}
+
+	@Test
+	void separatesExceptionTypesAndCauseChains() {
+		String plain = fingerprinter.fingerprint(failure(new IllegalStateException(), 10));
+		String otherType = fingerprinter.fingerprint(failure(new IllegalArgumentException(), 10));
+		String wrapped = fingerprinter
+				.fingerprint(new RuntimeException(failure(new IllegalStateException(), 10)));
+
+		assertThat(plain).isNotEqualTo(otherType).isNotEqualTo(wrapped);
+	}
+
+	@Test
+	void usesRootCauseFrames() {
+		RuntimeException first = new RuntimeException(failure(new IllegalStateException(), 10));
+		RuntimeException second = new RuntimeException(failure(new IllegalStateException(), 10));
+		second.setStackTrace(new StackTraceElement[] { frame("com.example.Otro", "distinto", 1) });
+
+		assertThat(fingerprinter.fingerprint(first)).isEqualTo(fingerprinter.fingerprint(second));
+	}
+
+	@Test
+	void lineNumbersOnlyMatterWhenEnabled() {
+		Throwable before = failure(new IllegalStateException(), 10);
+		Throwable after = failure(new IllegalStateException(), 20);
+
+		assertThat(fingerprinter.fingerprint(before)).isEqualTo(fingerprinter.fingerprint(after));
+
+		ReflectionTestUtils.setField(fingerprinter, "includeLineNumbers", true);
+		assertThat(fingerprinter.fingerprint(before)).isNotEqualTo(fingerprinter.fingerprint(after));
+	}
+
+	@Test
+	void ignoresReflectionAndProxyFramesAndGeneratedSuffixes() {
+		Throwable direct = withFrames(new IllegalStateException(),
+				frame("com.arojas.Service$1", "run", 5),
+				frame("com.arojas.Controller", "handle", 6));
+		Throwable proxied = withFrames(new IllegalStateException(),
+				frame("com.arojas.Service$2", "run", 5),
+				frame("jdk.internal.reflect.DirectMethodHandleAccessor", "invoke", 1),
+				frame("com.arojas.Controller$$SpringCGLIB$$0", "handle", 1),
+				frame("org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed", 1),
+				frame("com.arojas.Controller", "handle", 6));
+
+		assertThat(fingerprinter.fingerprint(direct)).isEqualTo(fingerprinter.fingerprint(proxied));
+	}
+
+	@Test
+	void considersOnlyConfiguredNumberOfFrames() {
+		ReflectionTestUtils.setField(fingerprinter, "frames", 2);
+		Throwable first = withFrames(new IllegalStateException(),
+				frame("a.A", "uno", 1), frame("a.B", "dos", 1), frame("a.C", "tres", 1));
+		Throwable second = withFrames(new IllegalStateException(),
+				frame("a.A", "uno", 1), frame("a.B", "dos", 1), frame("a.D", "otro", 1));
+
+		assertThat(fingerprinter.fingerprint(first)).isEqualTo(fingerprinter.fingerprint(second));
+
+		ReflectionTestUtils.setField(fingerprinter, "frames", 3);
+		assertThat(fingerprinter.fingerprint(first)).isNotEqualTo(fingerprinter.fingerprint(second));
+	}
+
+	private static Throwable failure(Throwable throwable, int line) {
+		return withFrames(throwable,
+				frame("com.arojas.jce_consulta_api.service.CedulaService", "consultar", line),
+				frame("com.arojas.jce_consulta_api.controller.CedulaController", "consultar", line + 1));
+	}
+
+	private static Throwable withFrames(Throwable throwable, StackTraceElement... frames) {
+		throwable.setStackTrace(frames);
+		return throwable;
+	}
+
+	private static StackTraceElement frame(String className, String method, int line) {
+		return new StackTraceElement(className, method, className + ".java", line);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.arojas.jce_consulta_api.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.arojas.jce_consulta_api.exception.pagination.InvalidCursorException;
+import com.arojas.jce_consulta_api.util.CursorCodec.Cursor;
+
+/**
+ *
+ * @author arojas
+ *         * Ida y vuelta de cursores y rechazo de tokens manipulados
+ */
+class CursorCodecTest {
+
+	@Test
+	void roundTripsTimestampAndId() {
+		LocalDateTime timestamp = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000);
+
+		Cursor cursor = CursorCodec.decode(CursorCodec.encode(timestamp, 42L));
+
+		assertThat(cursor.sortKeyAsDateTime()).isEqualTo(timestamp);
+		assertThat(cursor.idAsLong()).isEqualTo(42L);
+	}
+
+	@Test
+	void producesUrlSafeTokens() {
+		String token = CursorCodec.encode("clave con espacios/+?", "id");
+
+		assertThat(token).matches("[A-Za-z0-9_-]+");
+		assertThat(CursorCodec.decode(token).sortKey()).isEqualTo("clave con espacios/+?");
+	}
+
+	@Test
+	void treatsMissingTokenAsFirstPage() {
+		assertThat(CursorCodec.decode(null)).isNull();
+		assertThat(CursorCodec.decode("")).isNull();
+		assertThat(CursorCodec.decode("   ")).isNull();
+	}
+
+	@Test
+	void rejectsMalformedBase64() {
+		assertThatThrownBy(() -> CursorCodec.decode("no es base64!"))
+				.isInstanceOf(InvalidCursorException.class);
+	}
+
+	@Test
+	void rejectsUnknownVersionAndMissingParts() {
+		assertThatThrownBy(() -> CursorCodec.decode(token("v2\u001Fa\u001F1")))
+				.isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> CursorCodec.decode(token("v1\u001Fa")))
+				.isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> CursorCodec.decode(token("v1\u001F\u001F1")))
+				.isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> CursorCodec.decode(token("v1\u001Fa\u001F1\u001Fextra")))
+				.isInstanceOf(InvalidCursorException.class);
+	}
+
+	@Test
+	void rejectsValuesOfTheWrongType() {
+		Cursor cursor = CursorCodec.decode(CursorCodec.encode("ayer", "abc"));
+
+		assertThatThrownBy(cursor::sortKeyAsDateTime).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(cursor::idAsLong).isInstanceOf(InvalidCursorException.class);
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}